@@ -0,0 +1,125 @@
+package com.onea.sidot.gestioneau.aop.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.aop.framework.AopProxyUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Aspect for timing the queries of the R2DBC repositories, by entity and by repository method.
+ * <p>
+ * A query runs when its publisher is subscribed, not when the repository method returns it: every subscription is timed,
+ * from the subscription to the termination of the publisher, which includes the acquisition of the connection and the
+ * reading of the rows.
+ */
+@Aspect
+public class RepositoryMetricsAspect {
+
+    public static final String METRIC_NAME = "repository.query";
+
+    private static final String REPOSITORY_PACKAGE = "com.onea.sidot.gestioneau.repository";
+
+    private static final String REPOSITORY_SUFFIX = "Repository";
+
+    private final MeterRegistry meterRegistry;
+
+    // the entity of every repository implementation
+    private final Map<Class<?>, String> entities = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Pointcut that matches all the methods of the R2DBC repositories, including the inherited ones, but not the
+     * Elasticsearch repositories of the search package.
+     */
+    @Pointcut("execution(* com.onea.sidot.gestioneau.repository.*Repository+.*(..))")
+    public void repositoryPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that times the queries of a repository method.
+     *
+     * @param joinPoint join point for advice.
+     * @return the result of the method, timed when subscribed if it is a publisher.
+     * @throws Throwable the exception of the method.
+     */
+    @Around("repositoryPointcut()")
+    public Object timeQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        String entity = entities.computeIfAbsent(joinPoint.getThis().getClass(), type -> getEntity(joinPoint.getThis()));
+        String operation = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(entity, operation, "error", start);
+            throw e;
+        }
+        if (result instanceof Mono) {
+            Mono<?> mono = (Mono<?>) result;
+            return Mono.defer(
+                () -> {
+                    long subscribed = System.nanoTime();
+                    return mono.doFinally(signal -> record(entity, operation, getOutcome(signal), subscribed));
+                }
+            );
+        }
+        if (result instanceof Flux) {
+            Flux<?> flux = (Flux<?>) result;
+            return Flux.defer(
+                () -> {
+                    long subscribed = System.nanoTime();
+                    return flux.doFinally(signal -> record(entity, operation, getOutcome(signal), subscribed));
+                }
+            );
+        }
+        record(entity, operation, "success", start);
+        return result;
+    }
+
+    private void record(String entity, String operation, String outcome, long start) {
+        Timer
+            .builder(METRIC_NAME)
+            .description("Time of the queries of the repositories, from their subscription to their termination")
+            .tag("entity", entity)
+            .tag("operation", operation)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String getOutcome(SignalType signal) {
+        switch (signal) {
+            case ON_COMPLETE:
+                return "success";
+            case ON_ERROR:
+                return "error";
+            default:
+                // e.g. a Flux of which only the first rows are read
+                return "cancelled";
+        }
+    }
+
+    private static String getEntity(Object repository) {
+        for (Class<?> repositoryInterface : AopProxyUtils.proxiedUserInterfaces(repository)) {
+            String simpleName = repositoryInterface.getSimpleName();
+            if (REPOSITORY_PACKAGE.equals(repositoryInterface.getPackage().getName()) && simpleName.endsWith(REPOSITORY_SUFFIX)) {
+                return simpleName.substring(0, simpleName.length() - REPOSITORY_SUFFIX.length());
+            }
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,73 @@
+package com.onea.sidot.gestioneau.aop.routing;
+
+import com.onea.sidot.gestioneau.config.ReplicaRoutingConnectionFactory;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Aspect for routing the read-only transactions of the services to the read replicas.
+ * <p>
+ * It flags the Reactor context of the methods which are {@code @Transactional(readOnly = true)}, on the method or on the
+ * class, for the {@link ReplicaRoutingConnectionFactory}. It runs before the transaction interceptor, so that the flag is
+ * set when the transaction gets its connection.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReadOnlyRoutingAspect {
+
+    private final TransactionAttributeSource transactionAttributeSource = new AnnotationTransactionAttributeSource();
+
+    /**
+     * Pointcut that matches all the transactional methods of the services.
+     */
+    @Pointcut(
+        "within(com.onea.sidot.gestioneau.service..*)" +
+        " && (@within(org.springframework.transaction.annotation.Transactional)" +
+        " || @annotation(org.springframework.transaction.annotation.Transactional))"
+    )
+    public void transactionalPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that flags the read-only transactions.
+     *
+     * @param joinPoint join point for advice.
+     * @return the result of the method, flagged as read-only if the transaction is.
+     * @throws Throwable the exception of the method.
+     */
+    @Around("transactionalPointcut()")
+    public Object routeReadOnly(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        if (!isReadOnly(joinPoint)) {
+            return result;
+        }
+        if (result instanceof Mono) {
+            return ((Mono<?>) result).contextWrite(ReplicaRoutingConnectionFactory::readOnly);
+        }
+        if (result instanceof Flux) {
+            return ((Flux<?>) result).contextWrite(ReplicaRoutingConnectionFactory::readOnly);
+        }
+        return result;
+    }
+
+    private boolean isReadOnly(ProceedingJoinPoint joinPoint) {
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        TransactionAttribute attribute = transactionAttributeSource.getTransactionAttribute(
+            ((MethodSignature) joinPoint.getSignature()).getMethod(),
+            targetClass
+        );
+        return attribute != null && attribute.isReadOnly();
+    }
+}
@@ -1,6 +1,16 @@
 package com.onea.sidot.gestioneau.config;
 
+import com.onea.sidot.gestioneau.service.OuvrageCategory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
 
 /**
  * Properties specific to Gestioneau.
@@ -9,4 +19,638 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+@Validated
+public class ApplicationProperties {
+
+    private final Count count = new Count();
+
+    @Valid
+    private final Bulk bulk = new Bulk();
+
+    private final ReferenceCache referenceCache = new ReferenceCache();
+
+    private final Achievement achievement = new Achievement();
+
+    private final EntityCache entityCache = new EntityCache();
+
+    private final ConnectionPool connectionPool = new ConnectionPool();
+
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog();
+
+    private final ReadReplicas readReplicas = new ReadReplicas();
+
+    private final SearchOutbox searchOutbox = new SearchOutbox();
+
+    private final SearchReindex searchReindex = new SearchReindex();
+
+    private final Search search = new Search();
+
+    private final Autocomplete autocomplete = new Autocomplete();
+
+    private final GeoIndex geoIndex = new GeoIndex();
+
+    private final HierarchyRollup hierarchyRollup = new HierarchyRollup();
+
+    public Count getCount() {
+        return count;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public ReferenceCache getReferenceCache() {
+        return referenceCache;
+    }
+
+    public Achievement getAchievement() {
+        return achievement;
+    }
+
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    public ReadReplicas getReadReplicas() {
+        return readReplicas;
+    }
+
+    public SearchOutbox getSearchOutbox() {
+        return searchOutbox;
+    }
+
+    public SearchReindex getSearchReindex() {
+        return searchReindex;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Autocomplete getAutocomplete() {
+        return autocomplete;
+    }
+
+    public GeoIndex getGeoIndex() {
+        return geoIndex;
+    }
+
+    public HierarchyRollup getHierarchyRollup() {
+        return hierarchyRollup;
+    }
+
+    public static class Count {
+
+        /**
+         * How long a cached total stays valid. A total is recounted as soon as an entity of its type is written through the
+         * services of any instance, this only bounds the staleness caused by writes made outside of the application.
+         */
+        private Duration cacheTtl = Duration.ofMinutes(5);
+
+        public Duration getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(Duration cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+    }
+
+    public static class Bulk {
+
+        /**
+         * Maximum number of bind parameters of a statement on PostgreSQL.
+         */
+        public static final int MAX_BIND_PARAMETERS = 65535;
+
+        /**
+         * Number of items written by a single transaction. The items are inserted by a batch of a binding set per item, but the
+         * search outbox records the ids of a chunk by a single statement, along with 2 other parameters.
+         */
+        @Min(1)
+        @Max(MAX_BIND_PARAMETERS - 2)
+        private int chunkSize = 500;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class ReferenceCache {
+
+        /**
+         * Maximum number of entities of a type kept in the reference data cache, the cache of a type is cleared when it's reached.
+         */
+        private int maxEntriesPerType = 10000;
+
+        public int getMaxEntriesPerType() {
+            return maxEntriesPerType;
+        }
+
+        public void setMaxEntriesPerType(int maxEntriesPerType) {
+            this.maxEntriesPerType = maxEntriesPerType;
+        }
+
+        /**
+         * How long a cached entity stays valid. The entities are evicted on every instance as soon as they are written through
+         * the services, this only bounds the staleness caused by lost evictions and by writes made outside of the application.
+         */
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    public static class Achievement {
+
+        /**
+         * The category of ouvrages realised by a ficheSuiviOuvrage, by id of its natureOuvrage. The natures without a category
+         * only count in the total achievement of the previsions.
+         */
+        private Map<Long, OuvrageCategory> natureCategories = new HashMap<>();
+
+        /**
+         * Interval of the full recounts of the achievement of the previsions from the database, which pick up the writes made
+         * by the other instances or outside of the application. Zero disables them.
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(10);
+
+        public Map<Long, OuvrageCategory> getNatureCategories() {
+            return natureCategories;
+        }
+
+        public void setNatureCategories(Map<Long, OuvrageCategory> natureCategories) {
+            this.natureCategories = natureCategories;
+        }
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
+
+    public static class EntityCache {
+
+        /**
+         * Maximum number of entities of a type kept in the near cache of every instance, in front of the Hazelcast cluster.
+         */
+        private int nearCacheSize = 10000;
+
+        /**
+         * Maximum number of versions of the entities, which back their ETags, kept by every member of the Hazelcast cluster.
+         * The entities whose version is evicted get the version of their type.
+         */
+        private int versionsPerNode = 100000;
+
+        public int getNearCacheSize() {
+            return nearCacheSize;
+        }
+
+        public void setNearCacheSize(int nearCacheSize) {
+            this.nearCacheSize = nearCacheSize;
+        }
+
+        public int getVersionsPerNode() {
+            return versionsPerNode;
+        }
+
+        public void setVersionsPerNode(int versionsPerNode) {
+            this.versionsPerNode = versionsPerNode;
+        }
+    }
+
+    /**
+     * The limits of the pool of R2DBC connections which are not part of {@code spring.r2dbc.pool}.
+     */
+    public static class ConnectionPool {
+
+        /**
+         * Maximum time to wait for a connection of the pool, before the request fails instead of queuing forever.
+         */
+        private Duration maxAcquireTime = Duration.ofSeconds(10);
+
+        /**
+         * Maximum time to open a new connection to the database.
+         */
+        private Duration maxCreateConnectionTime = Duration.ofSeconds(10);
+
+        /**
+         * Maximum lifetime of a connection, after which it is closed when released; rotates the connections across failovers.
+         */
+        private Duration maxLifeTime = Duration.ofHours(1);
+
+        /**
+         * Whether the initial connections of the pool are opened at startup, rather than by the first requests.
+         */
+        private boolean warmUp = true;
+
+        public Duration getMaxAcquireTime() {
+            return maxAcquireTime;
+        }
+
+        public void setMaxAcquireTime(Duration maxAcquireTime) {
+            this.maxAcquireTime = maxAcquireTime;
+        }
+
+        public Duration getMaxCreateConnectionTime() {
+            return maxCreateConnectionTime;
+        }
+
+        public void setMaxCreateConnectionTime(Duration maxCreateConnectionTime) {
+            this.maxCreateConnectionTime = maxCreateConnectionTime;
+        }
+
+        public Duration getMaxLifeTime() {
+            return maxLifeTime;
+        }
+
+        public void setMaxLifeTime(Duration maxLifeTime) {
+            this.maxLifeTime = maxLifeTime;
+        }
+
+        public boolean isWarmUp() {
+            return warmUp;
+        }
+
+        public void setWarmUp(boolean warmUp) {
+            this.warmUp = warmUp;
+        }
+    }
+
+    public static class SlowQueryLog {
+
+        /**
+         * Whether the SQL statements slower than the threshold are logged.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Execution time from which a statement is logged.
+         */
+        private Duration threshold = Duration.ofMillis(500);
+
+        /**
+         * Whether the values bound to a logged statement are logged with it.
+         */
+        private boolean logBindings = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(Duration threshold) {
+            this.threshold = threshold;
+        }
+
+        public boolean isLogBindings() {
+            return logBindings;
+        }
+
+        public void setLogBindings(boolean logBindings) {
+            this.logBindings = logBindings;
+        }
+    }
+
+    /**
+     * The replicas of the database which run the read-only transactions, none by default.
+     */
+    public static class ReadReplicas {
+
+        /**
+         * R2DBC URLs of the replicas, which are pooled like {@code spring.r2dbc.url}.
+         */
+        private List<String> urls = new ArrayList<>();
+
+        /**
+         * Login of the replicas, the login of {@code spring.r2dbc} if not set.
+         */
+        private String username;
+
+        /**
+         * Password of the replicas, the password of {@code spring.r2dbc} if not set.
+         */
+        private String password;
+
+        /**
+         * How long the reads of a user go to the primary after one of its writes, longer than the replication lag.
+         */
+        private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+        /**
+         * Interval of the checks of the replicas; a replica which fails one is not read until it passes another.
+         */
+        private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public Duration getReadYourWritesWindow() {
+            return readYourWritesWindow;
+        }
+
+        public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+            this.readYourWritesWindow = readYourWritesWindow;
+        }
+
+        public Duration getHealthCheckInterval() {
+            return healthCheckInterval;
+        }
+
+        public void setHealthCheckInterval(Duration healthCheckInterval) {
+            this.healthCheckInterval = healthCheckInterval;
+        }
+    }
+
+    /**
+     * The indexing of the changes recorded in the {@code search_outbox} table.
+     */
+    public static class SearchOutbox {
+
+        /**
+         * Maximum number of changes indexed by a single Elasticsearch bulk request.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Interval of the polls of the outbox; the changes are also indexed right after their commit.
+         */
+        private Duration pollInterval = Duration.ofSeconds(5);
+
+        /**
+         * Delay before the first retry of a change which failed to be indexed, doubled by every other failure.
+         */
+        private Duration retryBackoff = Duration.ofSeconds(1);
+
+        /**
+         * Maximum delay between two retries of a change.
+         */
+        private Duration maxRetryBackoff = Duration.ofMinutes(5);
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public Duration getMaxRetryBackoff() {
+            return maxRetryBackoff;
+        }
+
+        public void setMaxRetryBackoff(Duration maxRetryBackoff) {
+            this.maxRetryBackoff = maxRetryBackoff;
+        }
+    }
+
+    /**
+     * The full rebuild of the Elasticsearch indices from the database.
+     */
+    public static class SearchReindex {
+
+        /**
+         * Number of entities loaded by a single Elasticsearch bulk request.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Maximum number of bulk requests in flight for an index; the rows are streamed from the database no faster.
+         */
+        private int parallelism = 4;
+
+        /**
+         * Number of indices rebuilt at the same time.
+         */
+        private int concurrentIndices = 2;
+
+        /**
+         * Maximum duration of the rebuild of an index, after which it is abandoned and the current index kept.
+         */
+        private Duration timeout = Duration.ofHours(1);
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getConcurrentIndices() {
+            return concurrentIndices;
+        }
+
+        public void setConcurrentIndices(int concurrentIndices) {
+            this.concurrentIndices = concurrentIndices;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * The searches of the {@code _search} endpoints.
+     */
+    public static class Search {
+
+        /**
+         * Number of hits up to which the total of a search is counted with the approximate count mode, the total being
+         * a lower bound beyond it.
+         */
+        private int trackTotalHitsUpTo = 10000;
+
+        /**
+         * Time after which a search request to Elasticsearch fails.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * Number of consecutive failures of the searches in Elasticsearch which open the circuit breaker.
+         */
+        private int circuitBreakerFailures = 5;
+
+        /**
+         * How long the searches skip Elasticsearch once the circuit breaker is open, before a trial search.
+         */
+        private Duration circuitBreakerOpenDuration = Duration.ofSeconds(30);
+
+        /**
+         * Whether the searches which can't be run by Elasticsearch are run in the database instead, by matching the text
+         * columns of the entities.
+         */
+        private boolean sqlFallback = true;
+
+        public int getTrackTotalHitsUpTo() {
+            return trackTotalHitsUpTo;
+        }
+
+        public void setTrackTotalHitsUpTo(int trackTotalHitsUpTo) {
+            this.trackTotalHitsUpTo = trackTotalHitsUpTo;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public int getCircuitBreakerFailures() {
+            return circuitBreakerFailures;
+        }
+
+        public void setCircuitBreakerFailures(int circuitBreakerFailures) {
+            this.circuitBreakerFailures = circuitBreakerFailures;
+        }
+
+        public Duration getCircuitBreakerOpenDuration() {
+            return circuitBreakerOpenDuration;
+        }
+
+        public void setCircuitBreakerOpenDuration(Duration circuitBreakerOpenDuration) {
+            this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+        }
+
+        public boolean isSqlFallback() {
+            return sqlFallback;
+        }
+
+        public void setSqlFallback(boolean sqlFallback) {
+            this.sqlFallback = sqlFallback;
+        }
+    }
+
+    /**
+     * The in-memory index of the libelles of the reference entities, for the autocomplete.
+     */
+    public static class Autocomplete {
+
+        /**
+         * Interval of the full rebuilds of the index from the database, which pick up the writes made by the other instances
+         * or outside of the application; the writes made through the services of this instance are indexed right away.
+         * Zero disables them.
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(10);
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
+
+    public static class GeoIndex {
+
+        /**
+         * Interval of the full rebuilds of the geo index of the ficheSuiviOuvrages from the database, which pick up the writes
+         * made by the other instances or outside of the application. Zero disables them.
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(10);
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
+
+    public static class HierarchyRollup {
+
+        /**
+         * Interval of the full rebuilds of the totals of the ficheSuiviOuvrages along the administrative hierarchy from the
+         * database, which pick up the writes made by the other instances or outside of the application. Zero disables them.
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(10);
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
+}
@@ -1,6 +1,16 @@
 package com.onea.sidot.gestioneau.config;
 
+import com.onea.sidot.gestioneau.aop.routing.ReadOnlyRoutingAspect;
+import com.onea.sidot.gestioneau.service.RecentWriters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
@@ -14,6 +24,9 @@ import java.util.Collections;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -33,6 +46,8 @@ import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.data.relational.core.dialect.RenderContextFactory;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.h2.H2ConfigurationHelper;
 
@@ -42,6 +57,8 @@ import tech.jhipster.config.h2.H2ConfigurationHelper;
 @EnableReactiveElasticsearchRepositories("com.onea.sidot.gestioneau.repository.search")
 public class DatabaseConfiguration {
 
+    private static final String CONNECTION_FACTORY_NAME = "connectionFactory";
+
     private final Logger log = LoggerFactory.getLogger(DatabaseConfiguration.class);
 
     private final Environment env;
@@ -78,6 +95,127 @@ public class DatabaseConfiguration {
         return String.valueOf(port);
     }
 
+    /**
+     * The pool of R2DBC connections, sized by {@code spring.r2dbc.pool} and limited by {@code application.connection-pool}.
+     * <p>
+     * Spring Boot only configures the size of its pool: the waits for a connection are bounded here, so that an exhausted
+     * pool fails the requests instead of queuing them forever, and they are timed (see {@link MeteredConnectionPool}). The
+     * slow statements run by the connections are logged (see {@link SlowQueryListener}).
+     * <p>
+     * When read replicas are configured, each one has a pool of the same size, and the read-only transactions are routed
+     * to them (see {@link ReplicaRoutingConnectionFactory}).
+     *
+     * @return the pool of connections, or the routing between the pools of the primary and of the replicas.
+     */
+    @Bean(name = CONNECTION_FACTORY_NAME, destroyMethod = "dispose")
+    public ConnectionFactory connectionFactory(
+        R2dbcProperties r2dbcProperties,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        ObjectProvider<RecentWriters> recentWriters
+    ) {
+        ConnectionFactoryOptions primaryOptions = getConnectionFactoryOptions(
+            r2dbcProperties,
+            r2dbcProperties.getUrl(),
+            r2dbcProperties.getUsername(),
+            r2dbcProperties.getPassword()
+        );
+        MeteredConnectionPool primary = createPool(
+            CONNECTION_FACTORY_NAME,
+            primaryOptions,
+            r2dbcProperties,
+            applicationProperties,
+            meterRegistry
+        );
+        ApplicationProperties.ReadReplicas readReplicas = applicationProperties.getReadReplicas();
+        if (readReplicas.getUrls().isEmpty()) {
+            return primary;
+        }
+        String username = readReplicas.getUsername() != null ? readReplicas.getUsername() : r2dbcProperties.getUsername();
+        String password = readReplicas.getPassword() != null ? readReplicas.getPassword() : r2dbcProperties.getPassword();
+        List<MeteredConnectionPool> replicas = new ArrayList<>();
+        for (int i = 0; i < readReplicas.getUrls().size(); i++) {
+            String name = "replica" + i;
+            String url = readReplicas.getUrls().get(i);
+            ConnectionFactoryOptions options = getConnectionFactoryOptions(r2dbcProperties, url, username, password);
+            MeteredConnectionPool replica = createPool(name, options, r2dbcProperties, applicationProperties, meterRegistry);
+            // the actuator only measures the pools which are beans
+            new ConnectionPoolMetrics((ConnectionPool) replica.unwrap(), name, Tags.empty()).bindTo(meterRegistry);
+            replicas.add(replica);
+        }
+        log.info("Routing the read-only transactions to {} read replicas", replicas.size());
+        return new ReplicaRoutingConnectionFactory(primary, replicas, recentWriters.getObject(), readReplicas.getHealthCheckInterval());
+    }
+
+    private MeteredConnectionPool createPool(
+        String name,
+        ConnectionFactoryOptions options,
+        R2dbcProperties r2dbcProperties,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        R2dbcProperties.Pool poolProperties = r2dbcProperties.getPool();
+        ApplicationProperties.ConnectionPool connectionPool = applicationProperties.getConnectionPool();
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options);
+        if (applicationProperties.getSlowQueryLog().isEnabled()) {
+            connectionFactory =
+                ProxyConnectionFactory
+                    .builder(connectionFactory)
+                    .listener(new SlowQueryListener(applicationProperties.getSlowQueryLog(), meterRegistry))
+                    .build();
+        }
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration
+            .builder(connectionFactory)
+            .name(name)
+            .initialSize(poolProperties.getInitialSize())
+            .maxSize(poolProperties.getMaxSize())
+            .maxIdleTime(poolProperties.getMaxIdleTime())
+            .maxLifeTime(connectionPool.getMaxLifeTime())
+            .maxAcquireTime(connectionPool.getMaxAcquireTime())
+            .maxCreateConnectionTime(connectionPool.getMaxCreateConnectionTime());
+        if (StringUtils.hasText(poolProperties.getValidationQuery())) {
+            configuration.validationQuery(poolProperties.getValidationQuery());
+        }
+        MeteredConnectionPool pool = new MeteredConnectionPool(new ConnectionPool(configuration.build()), name, meterRegistry);
+        if (connectionPool.isWarmUp()) {
+            // a database which is down doesn't prevent the startup, the pool will open the connections on demand
+            Integer warmedUp = pool
+                .warmup()
+                .timeout(connectionPool.getMaxCreateConnectionTime().multipliedBy(2))
+                .onErrorResume(
+                    e -> {
+                        log.warn("Failed to open the initial connections to the database {}: {}", name, e.getMessage());
+                        return Mono.just(0);
+                    }
+                )
+                .block();
+            log.debug("Opened {} connections to the database {}", warmedUp, name);
+        }
+        return pool;
+    }
+
+    @Bean
+    public ReadOnlyRoutingAspect readOnlyRoutingAspect() {
+        return new ReadOnlyRoutingAspect();
+    }
+
+    private static ConnectionFactoryOptions getConnectionFactoryOptions(
+        R2dbcProperties r2dbcProperties,
+        String url,
+        String username,
+        String password
+    ) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (StringUtils.hasText(username)) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (StringUtils.hasText(password)) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        r2dbcProperties.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+        return options.build();
+    }
+
     // LocalDateTime seems to be the only type that is supported across all drivers atm
     // See https://github.com/r2dbc/r2dbc-h2/pull/139 https://github.com/mirromutth/r2dbc-mysql/issues/105
     @Bean
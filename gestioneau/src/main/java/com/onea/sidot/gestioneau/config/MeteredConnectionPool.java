@@ -0,0 +1,86 @@
+package com.onea.sidot.gestioneau.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import java.util.concurrent.TimeUnit;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@link ConnectionPool} of the application, which times the acquisition of its connections.
+ * <p>
+ * The time to acquire a connection is the time a request waits for the database before its first query: it grows with the
+ * pending acquisitions when the pool is exhausted, long before the queries themselves slow down. The sizes of the pool are
+ * measured by the Spring Boot actuator, as {@code r2dbc.pool.*} gauges, through {@link #unwrap()}.
+ */
+public class MeteredConnectionPool implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+    private final ConnectionPool pool;
+
+    private final Timer acquired;
+
+    private final Timer failed;
+
+    public MeteredConnectionPool(ConnectionPool pool, String name, MeterRegistry meterRegistry) {
+        this.pool = pool;
+        this.acquired = createAcquireTimer(meterRegistry, name, "success");
+        this.failed = createAcquireTimer(meterRegistry, name, "failure");
+    }
+
+    private static Timer createAcquireTimer(MeterRegistry meterRegistry, String name, String outcome) {
+        return Timer
+            .builder("r2dbc.pool.acquire")
+            .description("Time to acquire a connection from the pool, including the wait for a free one")
+            .tag("name", name)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(
+            () -> {
+                long start = System.nanoTime();
+                return pool
+                    .create()
+                    .doOnSuccess(connection -> acquired.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(e -> failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+            }
+        );
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    /**
+     * Open the initial connections of the pool.
+     *
+     * @return a Mono with the number of connections opened.
+     */
+    public Mono<Integer> warmup() {
+        return pool.warmup();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return pool;
+    }
+
+    @Override
+    public void dispose() {
+        pool.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return pool.isDisposed();
+    }
+}
@@ -0,0 +1,216 @@
+package com.onea.sidot.gestioneau.config;
+
+import com.onea.sidot.gestioneau.service.RecentWriters;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Routes the connections of the read-only work to the read replicas, and all the other connections to the primary.
+ * <p>
+ * The read-only work is flagged in the Reactor context with {@link #readOnly(Context)}, by the
+ * {@link com.onea.sidot.gestioneau.aop.routing.ReadOnlyRoutingAspect} for the read-only transactions of the services. It
+ * still goes to the primary:
+ * <ul>
+ *     <li>when it is also flagged with {@link #primary(Context)}, because its result is shared beyond the current user: the
+ *     entities and the totals which are cached for every user, and the reads answered with an ETag. A lagging replica would
+ *     have them cached, or served under the current ETag, in a state older than a committed write;</li>
+ *     <li>when the current user wrote within the read-your-writes window (see {@link RecentWriters}), as the replicas may
+ *     not have its write yet;</li>
+ *     <li>when no replica passed its last health check, or the replica picked fails to give a connection.</li>
+ * </ul>
+ * The replicas are picked in turn.
+ */
+public class ReplicaRoutingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+    private static final String READ_ONLY_KEY = ReplicaRoutingConnectionFactory.class.getName() + ".READ_ONLY";
+
+    private static final String PRIMARY_KEY = ReplicaRoutingConnectionFactory.class.getName() + ".PRIMARY";
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaRoutingConnectionFactory.class);
+
+    private final ConnectionFactory primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final RecentWriters recentWriters;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final Disposable healthChecks;
+
+    public ReplicaRoutingConnectionFactory(
+        ConnectionFactory primary,
+        List<? extends ConnectionFactory> replicas,
+        RecentWriters recentWriters,
+        Duration healthCheckInterval
+    ) {
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica(i, replicas.get(i)));
+        }
+        this.recentWriters = recentWriters;
+        this.healthChecks =
+            Flux.interval(healthCheckInterval, healthCheckInterval).onBackpressureDrop().concatMap(tick -> checkReplicas()).subscribe();
+    }
+
+    /**
+     * Flag the work of a Reactor context as read-only.
+     *
+     * @param context the context.
+     * @return the context with the read-only flag.
+     */
+    public static Context readOnly(Context context) {
+        return context.put(READ_ONLY_KEY, true);
+    }
+
+    /**
+     * Flag the work of a Reactor context as requiring the primary, even if it is read-only.
+     *
+     * @param context the context.
+     * @return the context with the primary flag.
+     */
+    public static Context primary(Context context) {
+        return context.put(PRIMARY_KEY, true);
+    }
+
+    private static boolean isReadOnly(ContextView context) {
+        return context.getOrDefault(READ_ONLY_KEY, false) && !context.getOrDefault(PRIMARY_KEY, false);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.deferContextual(
+            context -> {
+                if (!isReadOnly(context)) {
+                    return Mono.from(primary.create());
+                }
+                return recentWriters
+                    .isRecentWriter()
+                    .flatMap(recentWriter -> recentWriter ? Mono.from(primary.create()) : createOnReplica());
+            }
+        );
+    }
+
+    private Mono<Connection> createOnReplica() {
+        Replica replica = nextHealthyReplica();
+        if (replica == null) {
+            return Mono.from(primary.create());
+        }
+        return Mono
+            .from(replica.connectionFactory.create())
+            .onErrorResume(
+                e -> {
+                    replica.setHealthy(false, e);
+                    return Mono.from(primary.create());
+                }
+            );
+    }
+
+    private Replica nextHealthyReplica() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check the replicas, by validating a connection of each.
+     *
+     * @return a Mono to signal that the replicas are checked.
+     */
+    Mono<Void> checkReplicas() {
+        return Flux
+            .fromIterable(replicas)
+            .flatMap(
+                replica ->
+                    Mono
+                        .usingWhen(
+                            replica.connectionFactory.create(),
+                            connection -> Mono.from(connection.validate(ValidationDepth.REMOTE)),
+                            Connection::close
+                        )
+                        .defaultIfEmpty(false)
+                        .doOnNext(valid -> replica.setHealthy(valid, null))
+                        .onErrorResume(
+                            e -> {
+                                replica.setHealthy(false, e);
+                                return Mono.empty();
+                            }
+                        )
+            )
+            .then();
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return primary.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return primary;
+    }
+
+    @Override
+    public void dispose() {
+        healthChecks.dispose();
+        for (Replica replica : replicas) {
+            if (replica.connectionFactory instanceof Disposable) {
+                ((Disposable) replica.connectionFactory).dispose();
+            }
+        }
+        if (primary instanceof Disposable) {
+            ((Disposable) primary).dispose();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return healthChecks.isDisposed();
+    }
+
+    private class Replica {
+
+        private final int index;
+
+        private final ConnectionFactory connectionFactory;
+
+        private volatile boolean healthy = true;
+
+        Replica(int index, ConnectionFactory connectionFactory) {
+            this.index = index;
+            this.connectionFactory = connectionFactory;
+        }
+
+        void setHealthy(boolean healthy, Throwable cause) {
+            if (this.healthy == healthy) {
+                return;
+            }
+            this.healthy = healthy;
+            if (healthy) {
+                log.info("Read replica {} is back, the read-only transactions go to it again", index);
+            } else {
+                String reason = cause != null ? cause.getMessage() : "invalid connection";
+                log.warn("Read replica {} is down, its read-only transactions go to the other ones: {}", index, reason);
+            }
+        }
+    }
+}
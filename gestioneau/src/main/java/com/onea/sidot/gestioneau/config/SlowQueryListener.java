@@ -0,0 +1,47 @@
+package com.onea.sidot.gestioneau.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import io.r2dbc.proxy.support.QueryExecutionInfoFormatter;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs the SQL statements which run longer than a threshold, with their values when configured, whichever component issued
+ * them: the repositories, the {@link com.onea.sidot.gestioneau.service.EntityManager} or the template.
+ * <p>
+ * It is attached to the connections of the pool (see {@link DatabaseConfiguration}), so the logged time is the execution of
+ * the statement by the database, without the wait for a connection.
+ */
+public class SlowQueryListener implements ProxyExecutionListener {
+
+    private final Logger log = LoggerFactory.getLogger(SlowQueryListener.class);
+
+    private final Duration threshold;
+
+    private final QueryExecutionInfoFormatter formatter;
+
+    private final Counter slowQueries;
+
+    public SlowQueryListener(ApplicationProperties.SlowQueryLog slowQueryLog, MeterRegistry meterRegistry) {
+        this.threshold = slowQueryLog.getThreshold();
+        QueryExecutionInfoFormatter formatter = new QueryExecutionInfoFormatter().showTime().showQuery();
+        this.formatter = slowQueryLog.isLogBindings() ? formatter.showBindings() : formatter;
+        this.slowQueries = Counter
+            .builder("r2dbc.query.slow")
+            .description("SQL statements which ran longer than the threshold of the slow query log")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execInfo) {
+        if (execInfo.getExecuteDuration().compareTo(threshold) < 0) {
+            return;
+        }
+        slowQueries.increment();
+        log.warn("Slow SQL statement: {}", formatter.format(execInfo));
+    }
+}
@@ -14,7 +14,6 @@ import org.springframework.data.relational.core.mapping.Table;
  * A FicheSuiviOuvrage.
  */
 @Table("fiche_suivi_ouvrage")
-@org.springframework.data.elasticsearch.annotations.Document(indexName = "fichesuiviouvrage")
 public class FicheSuiviOuvrage implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -0,0 +1,526 @@
+package com.onea.sidot.gestioneau.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
+
+/**
+ * The search document of a {@link FicheSuiviOuvrage}: its fields, and the id and libelle of its references and of every
+ * ancestor of its parcelle, from the lot to the region, copied at index time.
+ * <p>
+ * The ficheSuiviOuvrages are thus searched, and counted by {@link #TERM_FACETS term} and {@link #DATE_FACETS date}, by
+ * any of their references, without joins. The libelles have a {@code keyword} sub-field for the aggregations.
+ */
+@Document(indexName = "fichesuiviouvrage")
+public class FicheSuiviOuvrageDocument implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The references which the ficheSuiviOuvrages are counted by, from the region to the parcelle, then the lookups.
+     */
+    public static final List<String> TERM_FACETS = List.of(
+        "region",
+        "province",
+        "commune",
+        "localite",
+        "secteur",
+        "section",
+        "lot",
+        "parcelle",
+        "prevision",
+        "natureouvrage",
+        "typehabitation",
+        "sourceapprovep",
+        "modeevacuationeauusee",
+        "modeevacexcreta",
+        "macon",
+        "prefabricant"
+    );
+
+    /**
+     * The dates which the ficheSuiviOuvrages are counted by, per interval.
+     */
+    public static final List<String> DATE_FACETS = List.of("dateDebutTravaux", "dateFinTravaux");
+
+    @Id
+    private Long id;
+
+    private String prjAppuis;
+
+    private String nomBenef;
+
+    private String prenomBenef;
+
+    private String professionBenef;
+
+    private Long nbUsagers;
+
+    private String contacts;
+
+    private Float longitude;
+
+    private Float latitude;
+
+    private Instant dateRemiseDevis;
+
+    private Instant dateDebutTravaux;
+
+    private Instant dateFinTravaux;
+
+    private String rue;
+
+    private String porte;
+
+    private String coutMenage;
+
+    private Integer subvOnea;
+
+    private Integer subvProjet;
+
+    private Integer autreSubv;
+
+    private Integer toles;
+
+    private String animateur;
+
+    private String superviseur;
+
+    private String controleur;
+
+    @Field(type = FieldType.Object)
+    private Reference region;
+
+    @Field(type = FieldType.Object)
+    private Reference province;
+
+    @Field(type = FieldType.Object)
+    private Reference commune;
+
+    @Field(type = FieldType.Object)
+    private Reference localite;
+
+    @Field(type = FieldType.Object)
+    private Reference secteur;
+
+    @Field(type = FieldType.Object)
+    private Reference section;
+
+    @Field(type = FieldType.Object)
+    private Reference lot;
+
+    @Field(type = FieldType.Object)
+    private Reference parcelle;
+
+    @Field(type = FieldType.Object)
+    private Reference prevision;
+
+    @Field(type = FieldType.Object)
+    private Reference natureouvrage;
+
+    @Field(type = FieldType.Object)
+    private Reference typehabitation;
+
+    @Field(type = FieldType.Object)
+    private Reference sourceapprovep;
+
+    @Field(type = FieldType.Object)
+    private Reference modeevacuationeauusee;
+
+    @Field(type = FieldType.Object)
+    private Reference modeevacexcreta;
+
+    @Field(type = FieldType.Object)
+    private Reference macon;
+
+    @Field(type = FieldType.Object)
+    private Reference prefabricant;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public FicheSuiviOuvrageDocument id(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getPrjAppuis() {
+        return prjAppuis;
+    }
+
+    public void setPrjAppuis(String prjAppuis) {
+        this.prjAppuis = prjAppuis;
+    }
+
+    public String getNomBenef() {
+        return nomBenef;
+    }
+
+    public void setNomBenef(String nomBenef) {
+        this.nomBenef = nomBenef;
+    }
+
+    public String getPrenomBenef() {
+        return prenomBenef;
+    }
+
+    public void setPrenomBenef(String prenomBenef) {
+        this.prenomBenef = prenomBenef;
+    }
+
+    public String getProfessionBenef() {
+        return professionBenef;
+    }
+
+    public void setProfessionBenef(String professionBenef) {
+        this.professionBenef = professionBenef;
+    }
+
+    public Long getNbUsagers() {
+        return nbUsagers;
+    }
+
+    public void setNbUsagers(Long nbUsagers) {
+        this.nbUsagers = nbUsagers;
+    }
+
+    public String getContacts() {
+        return contacts;
+    }
+
+    public void setContacts(String contacts) {
+        this.contacts = contacts;
+    }
+
+    public Float getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Float longitude) {
+        this.longitude = longitude;
+    }
+
+    public Float getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Float latitude) {
+        this.latitude = latitude;
+    }
+
+    public Instant getDateRemiseDevis() {
+        return dateRemiseDevis;
+    }
+
+    public void setDateRemiseDevis(Instant dateRemiseDevis) {
+        this.dateRemiseDevis = dateRemiseDevis;
+    }
+
+    public Instant getDateDebutTravaux() {
+        return dateDebutTravaux;
+    }
+
+    public void setDateDebutTravaux(Instant dateDebutTravaux) {
+        this.dateDebutTravaux = dateDebutTravaux;
+    }
+
+    public Instant getDateFinTravaux() {
+        return dateFinTravaux;
+    }
+
+    public void setDateFinTravaux(Instant dateFinTravaux) {
+        this.dateFinTravaux = dateFinTravaux;
+    }
+
+    public String getRue() {
+        return rue;
+    }
+
+    public void setRue(String rue) {
+        this.rue = rue;
+    }
+
+    public String getPorte() {
+        return porte;
+    }
+
+    public void setPorte(String porte) {
+        this.porte = porte;
+    }
+
+    public String getCoutMenage() {
+        return coutMenage;
+    }
+
+    public void setCoutMenage(String coutMenage) {
+        this.coutMenage = coutMenage;
+    }
+
+    public Integer getSubvOnea() {
+        return subvOnea;
+    }
+
+    public void setSubvOnea(Integer subvOnea) {
+        this.subvOnea = subvOnea;
+    }
+
+    public Integer getSubvProjet() {
+        return subvProjet;
+    }
+
+    public void setSubvProjet(Integer subvProjet) {
+        this.subvProjet = subvProjet;
+    }
+
+    public Integer getAutreSubv() {
+        return autreSubv;
+    }
+
+    public void setAutreSubv(Integer autreSubv) {
+        this.autreSubv = autreSubv;
+    }
+
+    public Integer getToles() {
+        return toles;
+    }
+
+    public void setToles(Integer toles) {
+        this.toles = toles;
+    }
+
+    public String getAnimateur() {
+        return animateur;
+    }
+
+    public void setAnimateur(String animateur) {
+        this.animateur = animateur;
+    }
+
+    public String getSuperviseur() {
+        return superviseur;
+    }
+
+    public void setSuperviseur(String superviseur) {
+        this.superviseur = superviseur;
+    }
+
+    public String getControleur() {
+        return controleur;
+    }
+
+    public void setControleur(String controleur) {
+        this.controleur = controleur;
+    }
+
+    public Reference getRegion() {
+        return region;
+    }
+
+    public void setRegion(Reference region) {
+        this.region = region;
+    }
+
+    public Reference getProvince() {
+        return province;
+    }
+
+    public void setProvince(Reference province) {
+        this.province = province;
+    }
+
+    public Reference getCommune() {
+        return commune;
+    }
+
+    public void setCommune(Reference commune) {
+        this.commune = commune;
+    }
+
+    public Reference getLocalite() {
+        return localite;
+    }
+
+    public void setLocalite(Reference localite) {
+        this.localite = localite;
+    }
+
+    public Reference getSecteur() {
+        return secteur;
+    }
+
+    public void setSecteur(Reference secteur) {
+        this.secteur = secteur;
+    }
+
+    public Reference getSection() {
+        return section;
+    }
+
+    public void setSection(Reference section) {
+        this.section = section;
+    }
+
+    public Reference getLot() {
+        return lot;
+    }
+
+    public void setLot(Reference lot) {
+        this.lot = lot;
+    }
+
+    public Reference getParcelle() {
+        return parcelle;
+    }
+
+    public void setParcelle(Reference parcelle) {
+        this.parcelle = parcelle;
+    }
+
+    public Reference getPrevision() {
+        return prevision;
+    }
+
+    public void setPrevision(Reference prevision) {
+        this.prevision = prevision;
+    }
+
+    public Reference getNatureouvrage() {
+        return natureouvrage;
+    }
+
+    public void setNatureouvrage(Reference natureouvrage) {
+        this.natureouvrage = natureouvrage;
+    }
+
+    public Reference getTypehabitation() {
+        return typehabitation;
+    }
+
+    public void setTypehabitation(Reference typehabitation) {
+        this.typehabitation = typehabitation;
+    }
+
+    public Reference getSourceapprovep() {
+        return sourceapprovep;
+    }
+
+    public void setSourceapprovep(Reference sourceapprovep) {
+        this.sourceapprovep = sourceapprovep;
+    }
+
+    public Reference getModeevacuationeauusee() {
+        return modeevacuationeauusee;
+    }
+
+    public void setModeevacuationeauusee(Reference modeevacuationeauusee) {
+        this.modeevacuationeauusee = modeevacuationeauusee;
+    }
+
+    public Reference getModeevacexcreta() {
+        return modeevacexcreta;
+    }
+
+    public void setModeevacexcreta(Reference modeevacexcreta) {
+        this.modeevacexcreta = modeevacexcreta;
+    }
+
+    public Reference getMacon() {
+        return macon;
+    }
+
+    public void setMacon(Reference macon) {
+        this.macon = macon;
+    }
+
+    public Reference getPrefabricant() {
+        return prefabricant;
+    }
+
+    public void setPrefabricant(Reference prefabricant) {
+        this.prefabricant = prefabricant;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FicheSuiviOuvrageDocument)) {
+            return false;
+        }
+        return id != null && id.equals(((FicheSuiviOuvrageDocument) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "FicheSuiviOuvrageDocument{" +
+            "id=" + getId() +
+            ", nomBenef='" + getNomBenef() + "'" +
+            ", prenomBenef='" + getPrenomBenef() + "'" +
+            ", parcelle=" + getParcelle() +
+            "}";
+    }
+
+    /**
+     * The id and the libelle of a reference.
+     */
+    public static class Reference implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Field(type = FieldType.Long)
+        private Long id;
+
+        @MultiField(mainField = @Field(type = FieldType.Text), otherFields = { @InnerField(suffix = "keyword", type = FieldType.Keyword) })
+        private String libelle;
+
+        public static Reference of(Long id, String libelle) {
+            Reference reference = new Reference();
+            reference.setId(id);
+            reference.setLibelle(libelle);
+            return reference;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getLibelle() {
+            return libelle;
+        }
+
+        public void setLibelle(String libelle) {
+            this.libelle = libelle;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "Reference{" +
+                "id=" + getId() +
+                ", libelle='" + getLibelle() + "'" +
+                "}";
+        }
+    }
+}
@@ -4,8 +4,10 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
 import com.onea.sidot.gestioneau.domain.CentreRegroupement;
+import com.onea.sidot.gestioneau.domain.DirectionRegionale;
 import com.onea.sidot.gestioneau.repository.rowmapper.CentreRegroupementRowMapper;
 import com.onea.sidot.gestioneau.repository.rowmapper.DirectionRegionaleRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.service.EntityManager;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
@@ -13,8 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -68,33 +70,21 @@ class CentreRegroupementRepositoryInternalImpl implements CentreRegroupementRepo
     }
 
     RowsFetchSpec<CentreRegroupement> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager
+            .createSelect(this::createSelectFrom, CentreRegroupement.class, pageable, criteria)
+            .map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = CentreRegroupementSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(DirectionRegionaleSqlHelper.getColumns(directionregionaleTable, "directionregionale"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(directionregionaleTable)
             .on(Column.create("directionregionale_id", entityTable))
             .equals(Column.create("id", directionregionaleTable));
-
-        String select = entityManager.createSelect(selectFrom, CentreRegroupement.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -107,10 +97,15 @@ class CentreRegroupementRepositoryInternalImpl implements CentreRegroupementRepo
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private CentreRegroupement process(Row row, RowMetadata metadata) {
-        CentreRegroupement entity = centreregroupementMapper.apply(row, "e");
-        entity.setDirectionregionale(directionregionaleMapper.apply(row, "directionregionale"));
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, CentreRegroupement> createReader(RowMetadata metadata) {
+        Function<Row, CentreRegroupement> entityReader = centreregroupementMapper.reader(metadata, "e");
+        Function<Row, DirectionRegionale> directionregionaleReader = directionregionaleMapper.reader(metadata, "directionregionale");
+        return row -> {
+            CentreRegroupement entity = entityReader.apply(row);
+            entity.setDirectionregionale(directionregionaleReader.apply(row));
+            return entity;
+        };
     }
 
     @Override
@@ -4,8 +4,10 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
 import com.onea.sidot.gestioneau.domain.Centre;
+import com.onea.sidot.gestioneau.domain.CentreRegroupement;
 import com.onea.sidot.gestioneau.repository.rowmapper.CentreRegroupementRowMapper;
 import com.onea.sidot.gestioneau.repository.rowmapper.CentreRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.service.EntityManager;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
@@ -13,8 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -68,33 +70,19 @@ class CentreRepositoryInternalImpl implements CentreRepositoryInternal {
     }
 
     RowsFetchSpec<Centre> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(this::createSelectFrom, Centre.class, pageable, criteria).map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = CentreSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(CentreRegroupementSqlHelper.getColumns(centreregroupementTable, "centreregroupement"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(centreregroupementTable)
             .on(Column.create("centreregroupement_id", entityTable))
             .equals(Column.create("id", centreregroupementTable));
-
-        String select = entityManager.createSelect(selectFrom, Centre.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -107,10 +95,15 @@ class CentreRepositoryInternalImpl implements CentreRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private Centre process(Row row, RowMetadata metadata) {
-        Centre entity = centreMapper.apply(row, "e");
-        entity.setCentreregroupement(centreregroupementMapper.apply(row, "centreregroupement"));
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, Centre> createReader(RowMetadata metadata) {
+        Function<Row, Centre> entityReader = centreMapper.reader(metadata, "e");
+        Function<Row, CentreRegroupement> centreregroupementReader = centreregroupementMapper.reader(metadata, "centreregroupement");
+        return row -> {
+            Centre entity = entityReader.apply(row);
+            entity.setCentreregroupement(centreregroupementReader.apply(row));
+            return entity;
+        };
     }
 
     @Override
@@ -4,8 +4,11 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
 import com.onea.sidot.gestioneau.domain.Commune;
+import com.onea.sidot.gestioneau.domain.Province;
+import com.onea.sidot.gestioneau.domain.TypeCommune;
 import com.onea.sidot.gestioneau.repository.rowmapper.CommuneRowMapper;
 import com.onea.sidot.gestioneau.repository.rowmapper.ProvinceRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.repository.rowmapper.TypeCommuneRowMapper;
 import com.onea.sidot.gestioneau.service.EntityManager;
 import io.r2dbc.spi.Row;
@@ -14,8 +17,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -73,10 +76,14 @@ class CommuneRepositoryInternalImpl implements CommuneRepositoryInternal {
     }
 
     RowsFetchSpec<Commune> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(this::createSelectFrom, Commune.class, pageable, criteria).map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = CommuneSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(ProvinceSqlHelper.getColumns(provinceTable, "province"));
         columns.addAll(TypeCommuneSqlHelper.getColumns(typecommuneTable, "typecommune"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
@@ -86,24 +93,6 @@ class CommuneRepositoryInternalImpl implements CommuneRepositoryInternal {
             .leftOuterJoin(typecommuneTable)
             .on(Column.create("typecommune_id", entityTable))
             .equals(Column.create("id", typecommuneTable));
-
-        String select = entityManager.createSelect(selectFrom, Commune.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -116,11 +105,17 @@ class CommuneRepositoryInternalImpl implements CommuneRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private Commune process(Row row, RowMetadata metadata) {
-        Commune entity = communeMapper.apply(row, "e");
-        entity.setProvince(provinceMapper.apply(row, "province"));
-        entity.setTypecommune(typecommuneMapper.apply(row, "typecommune"));
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, Commune> createReader(RowMetadata metadata) {
+        Function<Row, Commune> entityReader = communeMapper.reader(metadata, "e");
+        Function<Row, Province> provinceReader = provinceMapper.reader(metadata, "province");
+        Function<Row, TypeCommune> typecommuneReader = typecommuneMapper.reader(metadata, "typecommune");
+        return row -> {
+            Commune entity = entityReader.apply(row);
+            entity.setProvince(provinceReader.apply(row));
+            entity.setTypecommune(typecommuneReader.apply(row));
+            return entity;
+        };
     }
 
     @Override
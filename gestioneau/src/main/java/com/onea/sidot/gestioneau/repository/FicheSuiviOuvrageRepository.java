@@ -1,10 +1,16 @@
 package com.onea.sidot.gestioneau.repository;
 
 import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.service.HierarchyLevel;
+import com.onea.sidot.gestioneau.service.KeysetPageable;
+import com.onea.sidot.gestioneau.service.Projection;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Update;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -84,11 +90,24 @@ public interface FicheSuiviOuvrageRepository extends R2dbcRepository<FicheSuiviO
 
 interface FicheSuiviOuvrageRepositoryInternal {
     <S extends FicheSuiviOuvrage> Mono<S> insert(S entity);
+    Flux<FicheSuiviOuvrage> insertAll(List<FicheSuiviOuvrage> entities);
     <S extends FicheSuiviOuvrage> Mono<S> save(S entity);
     Mono<Integer> update(FicheSuiviOuvrage entity);
+    Mono<Integer> updateAll(Criteria criteria, Update update);
+    Mono<Integer> deleteAll(Criteria criteria);
 
     Flux<FicheSuiviOuvrage> findAll();
     Mono<FicheSuiviOuvrage> findById(Long id);
+    Mono<FicheSuiviOuvrage> findById(Long id, Projection projection);
     Flux<FicheSuiviOuvrage> findAllBy(Pageable pageable);
     Flux<FicheSuiviOuvrage> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<FicheSuiviOuvrage> findAllBy(Pageable pageable, Criteria criteria, Projection projection);
+    Flux<Long> findAllIdsBy(Criteria criteria);
+    Flux<FicheSuiviOuvrage> findAllAfter(KeysetPageable pageable);
+    Flux<FicheSuiviOuvrage> findAllAfter(KeysetPageable pageable, Criteria criteria);
+    Flux<FicheSuiviOuvrage> findAllAfter(KeysetPageable pageable, Criteria criteria, Projection projection);
+    Flux<FicheSuiviOuvrage> findAllUnder(HierarchyLevel level, Long nodeId, Pageable pageable, Projection projection);
+    Mono<Long> countUnder(HierarchyLevel level, Long nodeId);
+    Flux<Long> findAllIdsUnder(HierarchyLevel level, Collection<Long> nodeIds);
+    Flux<FicheSuiviOuvrage> findAllByDirectionRegionale(Long directionRegionaleId);
 }
@@ -4,32 +4,44 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
 import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.domain.Macon;
+import com.onea.sidot.gestioneau.domain.ModeEvacExcreta;
+import com.onea.sidot.gestioneau.domain.ModeEvacuationEauUsee;
+import com.onea.sidot.gestioneau.domain.NatureOuvrage;
+import com.onea.sidot.gestioneau.domain.Parcelle;
+import com.onea.sidot.gestioneau.domain.Prefabricant;
+import com.onea.sidot.gestioneau.domain.Prevision;
+import com.onea.sidot.gestioneau.domain.SourceApprovEp;
+import com.onea.sidot.gestioneau.domain.TypeHabitation;
 import com.onea.sidot.gestioneau.repository.rowmapper.FicheSuiviOuvrageRowMapper;
-import com.onea.sidot.gestioneau.repository.rowmapper.MaconRowMapper;
-import com.onea.sidot.gestioneau.repository.rowmapper.ModeEvacExcretaRowMapper;
-import com.onea.sidot.gestioneau.repository.rowmapper.ModeEvacuationEauUseeRowMapper;
-import com.onea.sidot.gestioneau.repository.rowmapper.NatureOuvrageRowMapper;
-import com.onea.sidot.gestioneau.repository.rowmapper.ParcelleRowMapper;
-import com.onea.sidot.gestioneau.repository.rowmapper.PrefabricantRowMapper;
-import com.onea.sidot.gestioneau.repository.rowmapper.PrevisionRowMapper;
-import com.onea.sidot.gestioneau.repository.rowmapper.SourceApprovEpRowMapper;
-import com.onea.sidot.gestioneau.repository.rowmapper.TypeHabitationRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.HierarchyLevel;
+import com.onea.sidot.gestioneau.service.KeysetPageable;
+import com.onea.sidot.gestioneau.service.Projection;
+import com.onea.sidot.gestioneau.service.ReferenceDataCache;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Update;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.r2dbc.core.DatabaseClient;
@@ -47,54 +59,26 @@ class FicheSuiviOuvrageRepositoryInternalImpl implements FicheSuiviOuvrageReposi
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
 
-    private final ParcelleRowMapper parcelleMapper;
-    private final PrevisionRowMapper previsionMapper;
-    private final NatureOuvrageRowMapper natureouvrageMapper;
-    private final TypeHabitationRowMapper typehabitationMapper;
-    private final SourceApprovEpRowMapper sourceapprovepMapper;
-    private final ModeEvacuationEauUseeRowMapper modeevacuationeauuseeMapper;
-    private final ModeEvacExcretaRowMapper modeevacexcretaMapper;
-    private final MaconRowMapper maconMapper;
-    private final PrefabricantRowMapper prefabricantMapper;
+    private final ReferenceDataCache referenceDataCache;
     private final FicheSuiviOuvrageRowMapper fichesuiviouvrageMapper;
 
     private static final Table entityTable = Table.aliased("fiche_suivi_ouvrage", EntityManager.ENTITY_ALIAS);
-    private static final Table parcelleTable = Table.aliased("parcelle", "parcelle");
-    private static final Table previsionTable = Table.aliased("prevision", "prevision");
-    private static final Table natureouvrageTable = Table.aliased("nature_ouvrage", "natureouvrage");
-    private static final Table typehabitationTable = Table.aliased("type_habitation", "typehabitation");
-    private static final Table sourceapprovepTable = Table.aliased("source_approv_ep", "sourceapprovep");
-    private static final Table modeevacuationeauuseeTable = Table.aliased("mode_evacuation_eau_usee", "modeevacuationeauusee");
-    private static final Table modeevacexcretaTable = Table.aliased("mode_evac_excreta", "modeevacexcreta");
-    private static final Table maconTable = Table.aliased("macon", "macon");
-    private static final Table prefabricantTable = Table.aliased("prefabricant", "prefabricant");
+
+    private static final Table geoClosureTable = Table.aliased("geo_closure", "gc");
+
+    // number of rows whose references are resolved together from the reference data cache
+    private static final int REFERENCE_BATCH_SIZE = 256;
 
     public FicheSuiviOuvrageRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
-        ParcelleRowMapper parcelleMapper,
-        PrevisionRowMapper previsionMapper,
-        NatureOuvrageRowMapper natureouvrageMapper,
-        TypeHabitationRowMapper typehabitationMapper,
-        SourceApprovEpRowMapper sourceapprovepMapper,
-        ModeEvacuationEauUseeRowMapper modeevacuationeauuseeMapper,
-        ModeEvacExcretaRowMapper modeevacexcretaMapper,
-        MaconRowMapper maconMapper,
-        PrefabricantRowMapper prefabricantMapper,
+        ReferenceDataCache referenceDataCache,
         FicheSuiviOuvrageRowMapper fichesuiviouvrageMapper
     ) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
-        this.parcelleMapper = parcelleMapper;
-        this.previsionMapper = previsionMapper;
-        this.natureouvrageMapper = natureouvrageMapper;
-        this.typehabitationMapper = typehabitationMapper;
-        this.sourceapprovepMapper = sourceapprovepMapper;
-        this.modeevacuationeauuseeMapper = modeevacuationeauuseeMapper;
-        this.modeevacexcretaMapper = modeevacexcretaMapper;
-        this.maconMapper = maconMapper;
-        this.prefabricantMapper = prefabricantMapper;
+        this.referenceDataCache = referenceDataCache;
         this.fichesuiviouvrageMapper = fichesuiviouvrageMapper;
     }
 
@@ -105,69 +89,155 @@ class FicheSuiviOuvrageRepositoryInternalImpl implements FicheSuiviOuvrageReposi
 
     @Override
     public Flux<FicheSuiviOuvrage> findAllBy(Pageable pageable, Criteria criteria) {
-        return createQuery(pageable, criteria).all();
+        return findAllBy(pageable, criteria, Projection.all());
+    }
+
+    @Override
+    public Flux<FicheSuiviOuvrage> findAllBy(Pageable pageable, Criteria criteria, Projection projection) {
+        return resolveReferences(createQuery(pageable, criteria, projection).all());
+    }
+
+    @Override
+    public Flux<Long> findAllIdsBy(Criteria criteria) {
+        return createQuery(null, criteria, Projection.of(Collections.emptySet())).all().map(FicheSuiviOuvrage::getId);
+    }
+
+    @Override
+    public Flux<FicheSuiviOuvrage> findAllAfter(KeysetPageable pageable) {
+        return findAllAfter(pageable, null);
+    }
+
+    @Override
+    public Flux<FicheSuiviOuvrage> findAllAfter(KeysetPageable pageable, Criteria criteria) {
+        return findAllAfter(pageable, criteria, Projection.all());
+    }
+
+    @Override
+    public Flux<FicheSuiviOuvrage> findAllAfter(KeysetPageable pageable, Criteria criteria, Projection projection) {
+        // the sort properties are read to create the cursor of the next page
+        Projection selected = projection.include(pageable.getProperties());
+        return resolveReferences(
+            entityManager
+                .createKeysetSelect(() -> createSelectFrom(selected), FicheSuiviOuvrage.class, selected, pageable, criteria)
+                .map(RowReader.of(this::createReader))
+                .all()
+        );
+    }
+
+    @Override
+    public Flux<FicheSuiviOuvrage> findAllUnder(HierarchyLevel level, Long nodeId, Pageable pageable, Projection projection) {
+        return resolveReferences(
+            entityManager
+                .createSelect(() -> joinGeoClosure(projection), FicheSuiviOuvrage.class, projection, pageable, under(level, nodeId))
+                .map(RowReader.of(this::createReader))
+                .all()
+        );
+    }
+
+    @Override
+    public Mono<Long> countUnder(HierarchyLevel level, Long nodeId) {
+        String count = entityManager.getStatement(
+            FicheSuiviOuvrage.class,
+            "countUnder",
+            () ->
+                "SELECT COUNT(*) FROM fiche_suivi_ouvrage e" +
+                " JOIN geo_closure gc ON gc.descendant_id = e.parcelle_id" +
+                " WHERE gc.ancestor_level = :level AND gc.ancestor_id = :nodeId AND gc.descendant_level = :descendantLevel"
+        );
+        return db
+            .sql(count)
+            .bind("level", level.name())
+            .bind("nodeId", nodeId)
+            .bind("descendantLevel", HierarchyLevel.PARCELLE.name())
+            .map((row, metadata) -> row.get(0, Long.class))
+            .one();
+    }
+
+    @Override
+    public Flux<Long> findAllIdsUnder(HierarchyLevel level, Collection<Long> nodeIds) {
+        String select = entityManager.getStatement(
+            FicheSuiviOuvrage.class,
+            "findAllIdsUnder",
+            () ->
+                "SELECT e.id FROM fiche_suivi_ouvrage e" +
+                " JOIN geo_closure gc ON gc.descendant_id = e.parcelle_id" +
+                " WHERE gc.ancestor_level = :level AND gc.ancestor_id IN (:nodeIds) AND gc.descendant_level = :descendantLevel"
+        );
+        return db
+            .sql(select)
+            .bind("level", level.name())
+            .bind("nodeIds", nodeIds)
+            .bind("descendantLevel", HierarchyLevel.PARCELLE.name())
+            .map((row, metadata) -> row.get(0, Long.class))
+            .all();
+    }
+
+    // the parcelles under the node, in the closure of the geography hierarchy
+    private static Criteria under(HierarchyLevel level, Long nodeId) {
+        return where("gc.ancestor_level")
+            .is(level.name())
+            .and("gc.ancestor_id")
+            .is(nodeId)
+            .and("gc.descendant_level")
+            .is(HierarchyLevel.PARCELLE.name());
+    }
+
+    private SelectFromAndJoinCondition joinGeoClosure(Projection projection) {
+        return createSelectFrom(projection)
+            .join(geoClosureTable)
+            .on(Column.create("descendant_id", geoClosureTable))
+            .equals(Column.create("parcelle_id", entityTable));
+    }
+
+    @Override
+    public Flux<FicheSuiviOuvrage> findAllByDirectionRegionale(Long directionRegionaleId) {
+        String selectWhere = entityManager.getStatement(
+            FicheSuiviOuvrage.class,
+            "findAllByDirectionRegionale",
+            () -> {
+                String alias = entityTable.getReferenceName().getReference();
+                return (
+                    entityManager.createSelect(createSelectFrom().build()) +
+                    " WHERE " +
+                    alias +
+                    ".prevision_id IN (SELECT p.id FROM prevision p" +
+                    " JOIN centre c ON c.id = p.centre_id" +
+                    " JOIN centre_regroupement cr ON cr.id = c.centreregroupement_id" +
+                    " WHERE cr.directionregionale_id = :directionRegionaleId)" +
+                    " ORDER BY " +
+                    alias +
+                    ".id"
+                );
+            }
+        );
+        return resolveReferences(
+            db.sql(selectWhere).bind("directionRegionaleId", directionRegionaleId).map(RowReader.of(this::createReader)).all()
+        );
     }
 
     RowsFetchSpec<FicheSuiviOuvrage> createQuery(Pageable pageable, Criteria criteria) {
+        return createQuery(pageable, criteria, Projection.all());
+    }
+
+    RowsFetchSpec<FicheSuiviOuvrage> createQuery(Pageable pageable, Criteria criteria, Projection projection) {
+        return entityManager
+            .createSelect(() -> createSelectFrom(projection), FicheSuiviOuvrage.class, projection, pageable, criteria)
+            .map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoin createSelectFrom() {
+        return createSelectFrom(Projection.all());
+    }
+
+    // the references are resolved from the reference data cache, instead of being joined, and only the columns of the
+    // projection are selected: the missing ones are read as null, so the references which are not projected are not resolved
+    private SelectFromAndJoin createSelectFrom(Projection projection) {
         List<Expression> columns = FicheSuiviOuvrageSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        columns.addAll(ParcelleSqlHelper.getColumns(parcelleTable, "parcelle"));
-        columns.addAll(PrevisionSqlHelper.getColumns(previsionTable, "prevision"));
-        columns.addAll(NatureOuvrageSqlHelper.getColumns(natureouvrageTable, "natureouvrage"));
-        columns.addAll(TypeHabitationSqlHelper.getColumns(typehabitationTable, "typehabitation"));
-        columns.addAll(SourceApprovEpSqlHelper.getColumns(sourceapprovepTable, "sourceapprovep"));
-        columns.addAll(ModeEvacuationEauUseeSqlHelper.getColumns(modeevacuationeauuseeTable, "modeevacuationeauusee"));
-        columns.addAll(ModeEvacExcretaSqlHelper.getColumns(modeevacexcretaTable, "modeevacexcreta"));
-        columns.addAll(MaconSqlHelper.getColumns(maconTable, "macon"));
-        columns.addAll(PrefabricantSqlHelper.getColumns(prefabricantTable, "prefabricant"));
-        SelectFromAndJoinCondition selectFrom = Select
-            .builder()
-            .select(columns)
-            .from(entityTable)
-            .leftOuterJoin(parcelleTable)
-            .on(Column.create("parcelle_id", entityTable))
-            .equals(Column.create("id", parcelleTable))
-            .leftOuterJoin(previsionTable)
-            .on(Column.create("prevision_id", entityTable))
-            .equals(Column.create("id", previsionTable))
-            .leftOuterJoin(natureouvrageTable)
-            .on(Column.create("natureouvrage_id", entityTable))
-            .equals(Column.create("id", natureouvrageTable))
-            .leftOuterJoin(typehabitationTable)
-            .on(Column.create("typehabitation_id", entityTable))
-            .equals(Column.create("id", typehabitationTable))
-            .leftOuterJoin(sourceapprovepTable)
-            .on(Column.create("sourceapprovep_id", entityTable))
-            .equals(Column.create("id", sourceapprovepTable))
-            .leftOuterJoin(modeevacuationeauuseeTable)
-            .on(Column.create("modeevacuationeauusee_id", entityTable))
-            .equals(Column.create("id", modeevacuationeauuseeTable))
-            .leftOuterJoin(modeevacexcretaTable)
-            .on(Column.create("modeevacexcreta_id", entityTable))
-            .equals(Column.create("id", modeevacexcretaTable))
-            .leftOuterJoin(maconTable)
-            .on(Column.create("macon_id", entityTable))
-            .equals(Column.create("id", maconTable))
-            .leftOuterJoin(prefabricantTable)
-            .on(Column.create("prefabricant_id", entityTable))
-            .equals(Column.create("id", prefabricantTable));
-
-        String select = entityManager.createSelect(selectFrom, FicheSuiviOuvrage.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
+        Set<String> selected = entityManager.getColumnNames(FicheSuiviOuvrage.class, projection);
+        if (selected != null) {
+            columns.removeIf(column -> !selected.contains(((Column) column).getName().getReference()));
+        }
+        return Select.builder().select(columns).from(entityTable);
     }
 
     @Override
@@ -177,21 +247,89 @@ class FicheSuiviOuvrageRepositoryInternalImpl implements FicheSuiviOuvrageReposi
 
     @Override
     public Mono<FicheSuiviOuvrage> findById(Long id) {
-        return createQuery(null, where("id").is(id)).one();
+        return findById(id, Projection.all());
+    }
+
+    @Override
+    public Mono<FicheSuiviOuvrage> findById(Long id, Projection projection) {
+        return resolveReferences(createQuery(null, where("id").is(id), projection).all()).next();
+    }
+
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, FicheSuiviOuvrage> createReader(RowMetadata metadata) {
+        return fichesuiviouvrageMapper.reader(metadata, "e");
+    }
+
+    private Flux<FicheSuiviOuvrage> resolveReferences(Flux<FicheSuiviOuvrage> entities) {
+        return entities
+            .buffer(REFERENCE_BATCH_SIZE)
+            .concatMap(
+                batch ->
+                    Flux
+                        .concat(
+                            resolve(batch, Parcelle.class, FicheSuiviOuvrage::getParcelleId, FicheSuiviOuvrage::setParcelle),
+                            resolve(batch, Prevision.class, FicheSuiviOuvrage::getPrevisionId, FicheSuiviOuvrage::setPrevision),
+                            resolve(batch, NatureOuvrage.class, FicheSuiviOuvrage::getNatureouvrageId, FicheSuiviOuvrage::setNatureouvrage),
+                            resolve(
+                                batch,
+                                TypeHabitation.class,
+                                FicheSuiviOuvrage::getTypehabitationId,
+                                FicheSuiviOuvrage::setTypehabitation
+                            ),
+                            resolve(
+                                batch,
+                                SourceApprovEp.class,
+                                FicheSuiviOuvrage::getSourceapprovepId,
+                                FicheSuiviOuvrage::setSourceapprovep
+                            ),
+                            resolve(
+                                batch,
+                                ModeEvacuationEauUsee.class,
+                                FicheSuiviOuvrage::getModeevacuationeauuseeId,
+                                FicheSuiviOuvrage::setModeevacuationeauusee
+                            ),
+                            resolve(
+                                batch,
+                                ModeEvacExcreta.class,
+                                FicheSuiviOuvrage::getModeevacexcretaId,
+                                FicheSuiviOuvrage::setModeevacexcreta
+                            ),
+                            resolve(batch, Macon.class, FicheSuiviOuvrage::getMaconId, FicheSuiviOuvrage::setMacon),
+                            resolve(batch, Prefabricant.class, FicheSuiviOuvrage::getPrefabricantId, FicheSuiviOuvrage::setPrefabricant)
+                        )
+                        .thenMany(Flux.fromIterable(batch))
+            );
     }
 
-    private FicheSuiviOuvrage process(Row row, RowMetadata metadata) {
-        FicheSuiviOuvrage entity = fichesuiviouvrageMapper.apply(row, "e");
-        entity.setParcelle(parcelleMapper.apply(row, "parcelle"));
-        entity.setPrevision(previsionMapper.apply(row, "prevision"));
-        entity.setNatureouvrage(natureouvrageMapper.apply(row, "natureouvrage"));
-        entity.setTypehabitation(typehabitationMapper.apply(row, "typehabitation"));
-        entity.setSourceapprovep(sourceapprovepMapper.apply(row, "sourceapprovep"));
-        entity.setModeevacuationeauusee(modeevacuationeauuseeMapper.apply(row, "modeevacuationeauusee"));
-        entity.setModeevacexcreta(modeevacexcretaMapper.apply(row, "modeevacexcreta"));
-        entity.setMacon(maconMapper.apply(row, "macon"));
-        entity.setPrefabricant(prefabricantMapper.apply(row, "prefabricant"));
-        return entity;
+    private <T> Mono<Void> resolve(
+        List<FicheSuiviOuvrage> batch,
+        Class<T> referenceType,
+        Function<FicheSuiviOuvrage, Long> idGetter,
+        BiConsumer<FicheSuiviOuvrage, T> setter
+    ) {
+        Set<Long> ids = new HashSet<>();
+        for (FicheSuiviOuvrage entity : batch) {
+            Long id = idGetter.apply(entity);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return referenceDataCache
+            .findAllById(referenceType, ids)
+            .doOnNext(
+                references -> {
+                    for (FicheSuiviOuvrage entity : batch) {
+                        T reference = references.get(idGetter.apply(entity));
+                        if (reference != null) {
+                            setter.accept(entity, reference);
+                        }
+                    }
+                }
+            )
+            .then();
     }
 
     @Override
@@ -199,6 +337,11 @@ class FicheSuiviOuvrageRepositoryInternalImpl implements FicheSuiviOuvrageReposi
         return entityManager.insert(entity);
     }
 
+    @Override
+    public Flux<FicheSuiviOuvrage> insertAll(List<FicheSuiviOuvrage> entities) {
+        return entityManager.insertAll(FicheSuiviOuvrage.class, entities);
+    }
+
     @Override
     public <S extends FicheSuiviOuvrage> Mono<S> save(S entity) {
         if (entity.getId() == null) {
@@ -221,6 +364,16 @@ class FicheSuiviOuvrageRepositoryInternalImpl implements FicheSuiviOuvrageReposi
         //fixme is this the proper way?
         return r2dbcEntityTemplate.update(entity).thenReturn(1);
     }
+
+    @Override
+    public Mono<Integer> updateAll(Criteria criteria, Update update) {
+        return r2dbcEntityTemplate.update(FicheSuiviOuvrage.class).matching(query(criteria)).apply(update);
+    }
+
+    @Override
+    public Mono<Integer> deleteAll(Criteria criteria) {
+        return r2dbcEntityTemplate.delete(FicheSuiviOuvrage.class).matching(query(criteria)).all();
+    }
 }
 
 class FicheSuiviOuvrageSqlHelper {
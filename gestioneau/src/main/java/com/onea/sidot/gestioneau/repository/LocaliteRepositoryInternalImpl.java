@@ -3,9 +3,11 @@ package com.onea.sidot.gestioneau.repository;
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
+import com.onea.sidot.gestioneau.domain.Commune;
 import com.onea.sidot.gestioneau.domain.Localite;
 import com.onea.sidot.gestioneau.repository.rowmapper.CommuneRowMapper;
 import com.onea.sidot.gestioneau.repository.rowmapper.LocaliteRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.service.EntityManager;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
@@ -13,8 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -68,33 +70,19 @@ class LocaliteRepositoryInternalImpl implements LocaliteRepositoryInternal {
     }
 
     RowsFetchSpec<Localite> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(this::createSelectFrom, Localite.class, pageable, criteria).map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = LocaliteSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(CommuneSqlHelper.getColumns(communeTable, "commune"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(communeTable)
             .on(Column.create("commune_id", entityTable))
             .equals(Column.create("id", communeTable));
-
-        String select = entityManager.createSelect(selectFrom, Localite.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -107,10 +95,15 @@ class LocaliteRepositoryInternalImpl implements LocaliteRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private Localite process(Row row, RowMetadata metadata) {
-        Localite entity = localiteMapper.apply(row, "e");
-        entity.setCommune(communeMapper.apply(row, "commune"));
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, Localite> createReader(RowMetadata metadata) {
+        Function<Row, Localite> entityReader = localiteMapper.reader(metadata, "e");
+        Function<Row, Commune> communeReader = communeMapper.reader(metadata, "commune");
+        return row -> {
+            Localite entity = entityReader.apply(row);
+            entity.setCommune(communeReader.apply(row));
+            return entity;
+        };
     }
 
     @Override
@@ -4,7 +4,9 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
 import com.onea.sidot.gestioneau.domain.Lot;
+import com.onea.sidot.gestioneau.domain.Section;
 import com.onea.sidot.gestioneau.repository.rowmapper.LotRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.repository.rowmapper.SectionRowMapper;
 import com.onea.sidot.gestioneau.service.EntityManager;
 import io.r2dbc.spi.Row;
@@ -13,8 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -68,33 +70,19 @@ class LotRepositoryInternalImpl implements LotRepositoryInternal {
     }
 
     RowsFetchSpec<Lot> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(this::createSelectFrom, Lot.class, pageable, criteria).map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = LotSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(SectionSqlHelper.getColumns(sectionTable, "section"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(sectionTable)
             .on(Column.create("section_id", entityTable))
             .equals(Column.create("id", sectionTable));
-
-        String select = entityManager.createSelect(selectFrom, Lot.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -107,10 +95,15 @@ class LotRepositoryInternalImpl implements LotRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private Lot process(Row row, RowMetadata metadata) {
-        Lot entity = lotMapper.apply(row, "e");
-        entity.setSection(sectionMapper.apply(row, "section"));
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, Lot> createReader(RowMetadata metadata) {
+        Function<Row, Lot> entityReader = lotMapper.reader(metadata, "e");
+        Function<Row, Section> sectionReader = sectionMapper.reader(metadata, "section");
+        return row -> {
+            Lot entity = entityReader.apply(row);
+            entity.setSection(sectionReader.apply(row));
+            return entity;
+        };
     }
 
     @Override
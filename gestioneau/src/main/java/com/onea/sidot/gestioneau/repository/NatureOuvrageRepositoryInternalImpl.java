@@ -5,6 +5,7 @@ import static org.springframework.data.relational.core.query.Query.query;
 
 import com.onea.sidot.gestioneau.domain.NatureOuvrage;
 import com.onea.sidot.gestioneau.repository.rowmapper.NatureOuvrageRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.service.EntityManager;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
@@ -12,8 +13,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -63,26 +64,14 @@ class NatureOuvrageRepositoryInternalImpl implements NatureOuvrageRepositoryInte
     }
 
     RowsFetchSpec<NatureOuvrage> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager
+            .createSelect(this::createSelectFrom, NatureOuvrage.class, pageable, criteria)
+            .map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoin createSelectFrom() {
         List<Expression> columns = NatureOuvrageSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
-
-        String select = entityManager.createSelect(selectFrom, NatureOuvrage.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
+        return Select.builder().select(columns).from(entityTable);
     }
 
     @Override
@@ -95,9 +84,13 @@ class NatureOuvrageRepositoryInternalImpl implements NatureOuvrageRepositoryInte
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private NatureOuvrage process(Row row, RowMetadata metadata) {
-        NatureOuvrage entity = natureouvrageMapper.apply(row, "e");
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, NatureOuvrage> createReader(RowMetadata metadata) {
+        Function<Row, NatureOuvrage> entityReader = natureouvrageMapper.reader(metadata, "e");
+        return row -> {
+            NatureOuvrage entity = entityReader.apply(row);
+            return entity;
+        };
     }
 
     @Override
@@ -3,9 +3,11 @@ package com.onea.sidot.gestioneau.repository;
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
+import com.onea.sidot.gestioneau.domain.Lot;
 import com.onea.sidot.gestioneau.domain.Parcelle;
 import com.onea.sidot.gestioneau.repository.rowmapper.LotRowMapper;
 import com.onea.sidot.gestioneau.repository.rowmapper.ParcelleRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.service.EntityManager;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
@@ -13,8 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -68,33 +70,19 @@ class ParcelleRepositoryInternalImpl implements ParcelleRepositoryInternal {
     }
 
     RowsFetchSpec<Parcelle> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(this::createSelectFrom, Parcelle.class, pageable, criteria).map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = ParcelleSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(LotSqlHelper.getColumns(lotTable, "lot"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(lotTable)
             .on(Column.create("lot_id", entityTable))
             .equals(Column.create("id", lotTable));
-
-        String select = entityManager.createSelect(selectFrom, Parcelle.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -107,10 +95,15 @@ class ParcelleRepositoryInternalImpl implements ParcelleRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private Parcelle process(Row row, RowMetadata metadata) {
-        Parcelle entity = parcelleMapper.apply(row, "e");
-        entity.setLot(lotMapper.apply(row, "lot"));
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, Parcelle> createReader(RowMetadata metadata) {
+        Function<Row, Parcelle> entityReader = parcelleMapper.reader(metadata, "e");
+        Function<Row, Lot> lotReader = lotMapper.reader(metadata, "lot");
+        return row -> {
+            Parcelle entity = entityReader.apply(row);
+            entity.setLot(lotReader.apply(row));
+            return entity;
+        };
     }
 
     @Override
@@ -3,10 +3,13 @@ package com.onea.sidot.gestioneau.repository;
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
+import com.onea.sidot.gestioneau.domain.Annee;
+import com.onea.sidot.gestioneau.domain.Centre;
 import com.onea.sidot.gestioneau.domain.Prevision;
 import com.onea.sidot.gestioneau.repository.rowmapper.AnneeRowMapper;
 import com.onea.sidot.gestioneau.repository.rowmapper.CentreRowMapper;
 import com.onea.sidot.gestioneau.repository.rowmapper.PrevisionRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.service.EntityManager;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
@@ -14,8 +17,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -73,10 +76,16 @@ class PrevisionRepositoryInternalImpl implements PrevisionRepositoryInternal {
     }
 
     RowsFetchSpec<Prevision> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager
+            .createSelect(this::createSelectFrom, Prevision.class, pageable, criteria)
+            .map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = PrevisionSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(CentreSqlHelper.getColumns(centreTable, "centre"));
         columns.addAll(AnneeSqlHelper.getColumns(refanneeTable, "refannee"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
@@ -86,24 +95,6 @@ class PrevisionRepositoryInternalImpl implements PrevisionRepositoryInternal {
             .leftOuterJoin(refanneeTable)
             .on(Column.create("refannee_id", entityTable))
             .equals(Column.create("id", refanneeTable));
-
-        String select = entityManager.createSelect(selectFrom, Prevision.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -116,11 +107,17 @@ class PrevisionRepositoryInternalImpl implements PrevisionRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private Prevision process(Row row, RowMetadata metadata) {
-        Prevision entity = previsionMapper.apply(row, "e");
-        entity.setCentre(centreMapper.apply(row, "centre"));
-        entity.setRefannee(anneeMapper.apply(row, "refannee"));
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, Prevision> createReader(RowMetadata metadata) {
+        Function<Row, Prevision> entityReader = previsionMapper.reader(metadata, "e");
+        Function<Row, Centre> centreReader = centreMapper.reader(metadata, "centre");
+        Function<Row, Annee> refanneeReader = anneeMapper.reader(metadata, "refannee");
+        return row -> {
+            Prevision entity = entityReader.apply(row);
+            entity.setCentre(centreReader.apply(row));
+            entity.setRefannee(refanneeReader.apply(row));
+            return entity;
+        };
     }
 
     @Override
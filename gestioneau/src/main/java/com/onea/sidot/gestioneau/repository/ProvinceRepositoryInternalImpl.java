@@ -4,8 +4,10 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
 import com.onea.sidot.gestioneau.domain.Province;
+import com.onea.sidot.gestioneau.domain.Region;
 import com.onea.sidot.gestioneau.repository.rowmapper.ProvinceRowMapper;
 import com.onea.sidot.gestioneau.repository.rowmapper.RegionRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.service.EntityManager;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
@@ -13,8 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -68,33 +70,19 @@ class ProvinceRepositoryInternalImpl implements ProvinceRepositoryInternal {
     }
 
     RowsFetchSpec<Province> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(this::createSelectFrom, Province.class, pageable, criteria).map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = ProvinceSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(RegionSqlHelper.getColumns(regionTable, "region"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(regionTable)
             .on(Column.create("region_id", entityTable))
             .equals(Column.create("id", regionTable));
-
-        String select = entityManager.createSelect(selectFrom, Province.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -107,10 +95,15 @@ class ProvinceRepositoryInternalImpl implements ProvinceRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private Province process(Row row, RowMetadata metadata) {
-        Province entity = provinceMapper.apply(row, "e");
-        entity.setRegion(regionMapper.apply(row, "region"));
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, Province> createReader(RowMetadata metadata) {
+        Function<Row, Province> entityReader = provinceMapper.reader(metadata, "e");
+        Function<Row, Region> regionReader = regionMapper.reader(metadata, "region");
+        return row -> {
+            Province entity = entityReader.apply(row);
+            entity.setRegion(regionReader.apply(row));
+            return entity;
+        };
     }
 
     @Override
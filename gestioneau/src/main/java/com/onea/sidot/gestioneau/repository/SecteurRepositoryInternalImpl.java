@@ -3,8 +3,10 @@ package com.onea.sidot.gestioneau.repository;
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
+import com.onea.sidot.gestioneau.domain.Localite;
 import com.onea.sidot.gestioneau.domain.Secteur;
 import com.onea.sidot.gestioneau.repository.rowmapper.LocaliteRowMapper;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.repository.rowmapper.SecteurRowMapper;
 import com.onea.sidot.gestioneau.service.EntityManager;
 import io.r2dbc.spi.Row;
@@ -13,8 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -68,33 +70,19 @@ class SecteurRepositoryInternalImpl implements SecteurRepositoryInternal {
     }
 
     RowsFetchSpec<Secteur> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(this::createSelectFrom, Secteur.class, pageable, criteria).map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = SecteurSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(LocaliteSqlHelper.getColumns(localiteTable, "localite"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(localiteTable)
             .on(Column.create("localite_id", entityTable))
             .equals(Column.create("id", localiteTable));
-
-        String select = entityManager.createSelect(selectFrom, Secteur.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -107,10 +95,15 @@ class SecteurRepositoryInternalImpl implements SecteurRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private Secteur process(Row row, RowMetadata metadata) {
-        Secteur entity = secteurMapper.apply(row, "e");
-        entity.setLocalite(localiteMapper.apply(row, "localite"));
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, Secteur> createReader(RowMetadata metadata) {
+        Function<Row, Secteur> entityReader = secteurMapper.reader(metadata, "e");
+        Function<Row, Localite> localiteReader = localiteMapper.reader(metadata, "localite");
+        return row -> {
+            Secteur entity = entityReader.apply(row);
+            entity.setLocalite(localiteReader.apply(row));
+            return entity;
+        };
     }
 
     @Override
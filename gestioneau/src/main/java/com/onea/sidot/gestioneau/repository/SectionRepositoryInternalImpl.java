@@ -3,7 +3,9 @@ package com.onea.sidot.gestioneau.repository;
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
+import com.onea.sidot.gestioneau.domain.Secteur;
 import com.onea.sidot.gestioneau.domain.Section;
+import com.onea.sidot.gestioneau.repository.rowmapper.RowReader;
 import com.onea.sidot.gestioneau.repository.rowmapper.SecteurRowMapper;
 import com.onea.sidot.gestioneau.repository.rowmapper.SectionRowMapper;
 import com.onea.sidot.gestioneau.service.EntityManager;
@@ -13,8 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -68,33 +70,19 @@ class SectionRepositoryInternalImpl implements SectionRepositoryInternal {
     }
 
     RowsFetchSpec<Section> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(this::createSelectFrom, Section.class, pageable, criteria).map(RowReader.of(this::createReader));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
         List<Expression> columns = SectionSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         columns.addAll(SecteurSqlHelper.getColumns(secteurTable, "secteur"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(secteurTable)
             .on(Column.create("secteur_id", entityTable))
             .equals(Column.create("id", secteurTable));
-
-        String select = entityManager.createSelect(selectFrom, Section.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
     }
 
     @Override
@@ -107,10 +95,15 @@ class SectionRepositoryInternalImpl implements SectionRepositoryInternal {
         return createQuery(null, where("id").is(id)).one();
     }
 
-    private Section process(Row row, RowMetadata metadata) {
-        Section entity = sectionMapper.apply(row, "e");
-        entity.setSecteur(secteurMapper.apply(row, "secteur"));
-        return entity;
+    // the positions and the conversions of the columns are resolved once per result set, then the rows are read by index
+    private Function<Row, Section> createReader(RowMetadata metadata) {
+        Function<Row, Section> entityReader = sectionMapper.reader(metadata, "e");
+        Function<Row, Secteur> secteurReader = secteurMapper.reader(metadata, "secteur");
+        return row -> {
+            Section entity = entityReader.apply(row);
+            entity.setSecteur(secteurReader.apply(row));
+            return entity;
+        };
     }
 
     @Override
@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.CentreRegroupement;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link CentreRegroupement}, with proper type conversions.
  */
 @Service
-public class CentreRegroupementRowMapper implements BiFunction<Row, String, CentreRegroupement> {
+public class CentreRegroupementRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle", "responsable", "contact", "directionregionale_id" };
 
     private final ColumnConverter converter;
 
@@ -19,17 +23,27 @@ public class CentreRegroupementRowMapper implements BiFunction<Row, String, Cent
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link CentreRegroupement} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link CentreRegroupement} stored in the database from a {@link Row}.
      */
-    @Override
-    public CentreRegroupement apply(Row row, String prefix) {
-        CentreRegroupement entity = new CentreRegroupement();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        entity.setResponsable(converter.fromRow(row, prefix + "_responsable", String.class));
-        entity.setContact(converter.fromRow(row, prefix + "_contact", String.class));
-        entity.setDirectionregionaleId(converter.fromRow(row, prefix + "_directionregionale_id", Long.class));
-        return entity;
+    public Function<Row, CentreRegroupement> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        ColumnReader<String> responsable = converter.reader(metadata, index[2], String.class);
+        ColumnReader<String> contact = converter.reader(metadata, index[3], String.class);
+        ColumnReader<Long> directionregionaleId = converter.reader(metadata, index[4], Long.class);
+        return row -> {
+            CentreRegroupement entity = new CentreRegroupement();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            entity.setResponsable(responsable.read(row));
+            entity.setContact(contact.read(row));
+            entity.setDirectionregionaleId(directionregionaleId.read(row));
+            return entity;
+        };
     }
 }
@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.Centre;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Centre}, with proper type conversions.
  */
 @Service
-public class CentreRowMapper implements BiFunction<Row, String, Centre> {
+public class CentreRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle", "responsable", "contact", "centreregroupement_id" };
 
     private final ColumnConverter converter;
 
@@ -19,17 +23,27 @@ public class CentreRowMapper implements BiFunction<Row, String, Centre> {
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link Centre} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link Centre} stored in the database from a {@link Row}.
      */
-    @Override
-    public Centre apply(Row row, String prefix) {
-        Centre entity = new Centre();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        entity.setResponsable(converter.fromRow(row, prefix + "_responsable", String.class));
-        entity.setContact(converter.fromRow(row, prefix + "_contact", String.class));
-        entity.setCentreregroupementId(converter.fromRow(row, prefix + "_centreregroupement_id", Long.class));
-        return entity;
+    public Function<Row, Centre> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        ColumnReader<String> responsable = converter.reader(metadata, index[2], String.class);
+        ColumnReader<String> contact = converter.reader(metadata, index[3], String.class);
+        ColumnReader<Long> centreregroupementId = converter.reader(metadata, index[4], Long.class);
+        return row -> {
+            Centre entity = new Centre();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            entity.setResponsable(responsable.read(row));
+            entity.setContact(contact.read(row));
+            entity.setCentreregroupementId(centreregroupementId.read(row));
+            return entity;
+        };
     }
 }
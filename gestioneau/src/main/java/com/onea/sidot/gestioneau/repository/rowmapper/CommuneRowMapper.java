@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.Commune;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Commune}, with proper type conversions.
  */
 @Service
-public class CommuneRowMapper implements BiFunction<Row, String, Commune> {
+public class CommuneRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle", "province_id", "typecommune_id" };
 
     private final ColumnConverter converter;
 
@@ -19,16 +23,25 @@ public class CommuneRowMapper implements BiFunction<Row, String, Commune> {
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link Commune} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link Commune} stored in the database from a {@link Row}.
      */
-    @Override
-    public Commune apply(Row row, String prefix) {
-        Commune entity = new Commune();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        entity.setProvinceId(converter.fromRow(row, prefix + "_province_id", Long.class));
-        entity.setTypecommuneId(converter.fromRow(row, prefix + "_typecommune_id", Long.class));
-        return entity;
+    public Function<Row, Commune> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        ColumnReader<Long> provinceId = converter.reader(metadata, index[2], Long.class);
+        ColumnReader<Long> typecommuneId = converter.reader(metadata, index[3], Long.class);
+        return row -> {
+            Commune entity = new Commune();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            entity.setProvinceId(provinceId.read(row));
+            entity.setTypecommuneId(typecommuneId.read(row));
+            return entity;
+        };
     }
 }
@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.DirectionRegionale;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link DirectionRegionale}, with proper type conversions.
  */
 @Service
-public class DirectionRegionaleRowMapper implements BiFunction<Row, String, DirectionRegionale> {
+public class DirectionRegionaleRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle", "responsable", "contact" };
 
     private final ColumnConverter converter;
 
@@ -19,16 +23,25 @@ public class DirectionRegionaleRowMapper implements BiFunction<Row, String, Dire
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link DirectionRegionale} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link DirectionRegionale} stored in the database from a {@link Row}.
      */
-    @Override
-    public DirectionRegionale apply(Row row, String prefix) {
-        DirectionRegionale entity = new DirectionRegionale();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        entity.setResponsable(converter.fromRow(row, prefix + "_responsable", String.class));
-        entity.setContact(converter.fromRow(row, prefix + "_contact", String.class));
-        return entity;
+    public Function<Row, DirectionRegionale> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        ColumnReader<String> responsable = converter.reader(metadata, index[2], String.class);
+        ColumnReader<String> contact = converter.reader(metadata, index[3], String.class);
+        return row -> {
+            DirectionRegionale entity = new DirectionRegionale();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            entity.setResponsable(responsable.read(row));
+            entity.setContact(contact.read(row));
+            return entity;
+        };
     }
 }
@@ -2,16 +2,52 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.time.Instant;
-import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link FicheSuiviOuvrage}, with proper type conversions.
  */
 @Service
-public class FicheSuiviOuvrageRowMapper implements BiFunction<Row, String, FicheSuiviOuvrage> {
+public class FicheSuiviOuvrageRowMapper {
+
+    private static final String[] COLUMNS = {
+        "id",
+        "prj_appuis",
+        "nom_benef",
+        "prenom_benef",
+        "profession_benef",
+        "nb_usagers",
+        "contacts",
+        "longitude",
+        "latitude",
+        "date_remise_devis",
+        "date_debut_travaux",
+        "date_fin_travaux",
+        "rue",
+        "porte",
+        "cout_menage",
+        "subv_onea",
+        "subv_projet",
+        "autre_subv",
+        "toles",
+        "animateur",
+        "superviseur",
+        "controleur",
+        "parcelle_id",
+        "prevision_id",
+        "natureouvrage_id",
+        "typehabitation_id",
+        "sourceapprovep_id",
+        "modeevacuationeauusee_id",
+        "modeevacexcreta_id",
+        "macon_id",
+        "prefabricant_id"
+    };
 
     private final ColumnConverter converter;
 
@@ -20,43 +56,79 @@ public class FicheSuiviOuvrageRowMapper implements BiFunction<Row, String, Fiche
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link FicheSuiviOuvrage} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link FicheSuiviOuvrage} stored in the database from a {@link Row}.
      */
-    @Override
-    public FicheSuiviOuvrage apply(Row row, String prefix) {
-        FicheSuiviOuvrage entity = new FicheSuiviOuvrage();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setPrjAppuis(converter.fromRow(row, prefix + "_prj_appuis", String.class));
-        entity.setNomBenef(converter.fromRow(row, prefix + "_nom_benef", String.class));
-        entity.setPrenomBenef(converter.fromRow(row, prefix + "_prenom_benef", String.class));
-        entity.setProfessionBenef(converter.fromRow(row, prefix + "_profession_benef", String.class));
-        entity.setNbUsagers(converter.fromRow(row, prefix + "_nb_usagers", Long.class));
-        entity.setContacts(converter.fromRow(row, prefix + "_contacts", String.class));
-        entity.setLongitude(converter.fromRow(row, prefix + "_longitude", Float.class));
-        entity.setLatitude(converter.fromRow(row, prefix + "_latitude", Float.class));
-        entity.setDateRemiseDevis(converter.fromRow(row, prefix + "_date_remise_devis", Instant.class));
-        entity.setDateDebutTravaux(converter.fromRow(row, prefix + "_date_debut_travaux", Instant.class));
-        entity.setDateFinTravaux(converter.fromRow(row, prefix + "_date_fin_travaux", Instant.class));
-        entity.setRue(converter.fromRow(row, prefix + "_rue", String.class));
-        entity.setPorte(converter.fromRow(row, prefix + "_porte", String.class));
-        entity.setCoutMenage(converter.fromRow(row, prefix + "_cout_menage", String.class));
-        entity.setSubvOnea(converter.fromRow(row, prefix + "_subv_onea", Integer.class));
-        entity.setSubvProjet(converter.fromRow(row, prefix + "_subv_projet", Integer.class));
-        entity.setAutreSubv(converter.fromRow(row, prefix + "_autre_subv", Integer.class));
-        entity.setToles(converter.fromRow(row, prefix + "_toles", Integer.class));
-        entity.setAnimateur(converter.fromRow(row, prefix + "_animateur", String.class));
-        entity.setSuperviseur(converter.fromRow(row, prefix + "_superviseur", String.class));
-        entity.setControleur(converter.fromRow(row, prefix + "_controleur", String.class));
-        entity.setParcelleId(converter.fromRow(row, prefix + "_parcelle_id", Long.class));
-        entity.setPrevisionId(converter.fromRow(row, prefix + "_prevision_id", Long.class));
-        entity.setNatureouvrageId(converter.fromRow(row, prefix + "_natureouvrage_id", Long.class));
-        entity.setTypehabitationId(converter.fromRow(row, prefix + "_typehabitation_id", Long.class));
-        entity.setSourceapprovepId(converter.fromRow(row, prefix + "_sourceapprovep_id", Long.class));
-        entity.setModeevacuationeauuseeId(converter.fromRow(row, prefix + "_modeevacuationeauusee_id", Long.class));
-        entity.setModeevacexcretaId(converter.fromRow(row, prefix + "_modeevacexcreta_id", Long.class));
-        entity.setMaconId(converter.fromRow(row, prefix + "_macon_id", Long.class));
-        entity.setPrefabricantId(converter.fromRow(row, prefix + "_prefabricant_id", Long.class));
-        return entity;
+    public Function<Row, FicheSuiviOuvrage> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> prjAppuis = converter.reader(metadata, index[1], String.class);
+        ColumnReader<String> nomBenef = converter.reader(metadata, index[2], String.class);
+        ColumnReader<String> prenomBenef = converter.reader(metadata, index[3], String.class);
+        ColumnReader<String> professionBenef = converter.reader(metadata, index[4], String.class);
+        ColumnReader<Long> nbUsagers = converter.reader(metadata, index[5], Long.class);
+        ColumnReader<String> contacts = converter.reader(metadata, index[6], String.class);
+        ColumnReader<Float> longitude = converter.reader(metadata, index[7], Float.class);
+        ColumnReader<Float> latitude = converter.reader(metadata, index[8], Float.class);
+        ColumnReader<Instant> dateRemiseDevis = converter.reader(metadata, index[9], Instant.class);
+        ColumnReader<Instant> dateDebutTravaux = converter.reader(metadata, index[10], Instant.class);
+        ColumnReader<Instant> dateFinTravaux = converter.reader(metadata, index[11], Instant.class);
+        ColumnReader<String> rue = converter.reader(metadata, index[12], String.class);
+        ColumnReader<String> porte = converter.reader(metadata, index[13], String.class);
+        ColumnReader<String> coutMenage = converter.reader(metadata, index[14], String.class);
+        ColumnReader<Integer> subvOnea = converter.reader(metadata, index[15], Integer.class);
+        ColumnReader<Integer> subvProjet = converter.reader(metadata, index[16], Integer.class);
+        ColumnReader<Integer> autreSubv = converter.reader(metadata, index[17], Integer.class);
+        ColumnReader<Integer> toles = converter.reader(metadata, index[18], Integer.class);
+        ColumnReader<String> animateur = converter.reader(metadata, index[19], String.class);
+        ColumnReader<String> superviseur = converter.reader(metadata, index[20], String.class);
+        ColumnReader<String> controleur = converter.reader(metadata, index[21], String.class);
+        ColumnReader<Long> parcelleId = converter.reader(metadata, index[22], Long.class);
+        ColumnReader<Long> previsionId = converter.reader(metadata, index[23], Long.class);
+        ColumnReader<Long> natureouvrageId = converter.reader(metadata, index[24], Long.class);
+        ColumnReader<Long> typehabitationId = converter.reader(metadata, index[25], Long.class);
+        ColumnReader<Long> sourceapprovepId = converter.reader(metadata, index[26], Long.class);
+        ColumnReader<Long> modeevacuationeauuseeId = converter.reader(metadata, index[27], Long.class);
+        ColumnReader<Long> modeevacexcretaId = converter.reader(metadata, index[28], Long.class);
+        ColumnReader<Long> maconId = converter.reader(metadata, index[29], Long.class);
+        ColumnReader<Long> prefabricantId = converter.reader(metadata, index[30], Long.class);
+        return row -> {
+            FicheSuiviOuvrage entity = new FicheSuiviOuvrage();
+            entity.setId(id.read(row));
+            entity.setPrjAppuis(prjAppuis.read(row));
+            entity.setNomBenef(nomBenef.read(row));
+            entity.setPrenomBenef(prenomBenef.read(row));
+            entity.setProfessionBenef(professionBenef.read(row));
+            entity.setNbUsagers(nbUsagers.read(row));
+            entity.setContacts(contacts.read(row));
+            entity.setLongitude(longitude.read(row));
+            entity.setLatitude(latitude.read(row));
+            entity.setDateRemiseDevis(dateRemiseDevis.read(row));
+            entity.setDateDebutTravaux(dateDebutTravaux.read(row));
+            entity.setDateFinTravaux(dateFinTravaux.read(row));
+            entity.setRue(rue.read(row));
+            entity.setPorte(porte.read(row));
+            entity.setCoutMenage(coutMenage.read(row));
+            entity.setSubvOnea(subvOnea.read(row));
+            entity.setSubvProjet(subvProjet.read(row));
+            entity.setAutreSubv(autreSubv.read(row));
+            entity.setToles(toles.read(row));
+            entity.setAnimateur(animateur.read(row));
+            entity.setSuperviseur(superviseur.read(row));
+            entity.setControleur(controleur.read(row));
+            entity.setParcelleId(parcelleId.read(row));
+            entity.setPrevisionId(previsionId.read(row));
+            entity.setNatureouvrageId(natureouvrageId.read(row));
+            entity.setTypehabitationId(typehabitationId.read(row));
+            entity.setSourceapprovepId(sourceapprovepId.read(row));
+            entity.setModeevacuationeauuseeId(modeevacuationeauuseeId.read(row));
+            entity.setModeevacexcretaId(modeevacexcretaId.read(row));
+            entity.setMaconId(maconId.read(row));
+            entity.setPrefabricantId(prefabricantId.read(row));
+            return entity;
+        };
     }
 }
@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.Localite;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Localite}, with proper type conversions.
  */
 @Service
-public class LocaliteRowMapper implements BiFunction<Row, String, Localite> {
+public class LocaliteRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle", "commune_id" };
 
     private final ColumnConverter converter;
 
@@ -19,15 +23,23 @@ public class LocaliteRowMapper implements BiFunction<Row, String, Localite> {
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link Localite} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link Localite} stored in the database from a {@link Row}.
      */
-    @Override
-    public Localite apply(Row row, String prefix) {
-        Localite entity = new Localite();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        entity.setCommuneId(converter.fromRow(row, prefix + "_commune_id", Long.class));
-        return entity;
+    public Function<Row, Localite> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        ColumnReader<Long> communeId = converter.reader(metadata, index[2], Long.class);
+        return row -> {
+            Localite entity = new Localite();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            entity.setCommuneId(communeId.read(row));
+            return entity;
+        };
     }
 }
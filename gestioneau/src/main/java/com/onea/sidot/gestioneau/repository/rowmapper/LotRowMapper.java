@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.Lot;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Lot}, with proper type conversions.
  */
 @Service
-public class LotRowMapper implements BiFunction<Row, String, Lot> {
+public class LotRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle", "section_id" };
 
     private final ColumnConverter converter;
 
@@ -19,15 +23,23 @@ public class LotRowMapper implements BiFunction<Row, String, Lot> {
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link Lot} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link Lot} stored in the database from a {@link Row}.
      */
-    @Override
-    public Lot apply(Row row, String prefix) {
-        Lot entity = new Lot();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        entity.setSectionId(converter.fromRow(row, prefix + "_section_id", Long.class));
-        return entity;
+    public Function<Row, Lot> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        ColumnReader<Long> sectionId = converter.reader(metadata, index[2], Long.class);
+        return row -> {
+            Lot entity = new Lot();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            entity.setSectionId(sectionId.read(row));
+            return entity;
+        };
     }
 }
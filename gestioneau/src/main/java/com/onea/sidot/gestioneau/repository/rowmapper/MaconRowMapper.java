@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.Macon;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Macon}, with proper type conversions.
  */
 @Service
-public class MaconRowMapper implements BiFunction<Row, String, Macon> {
+public class MaconRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle" };
 
     private final ColumnConverter converter;
 
@@ -19,14 +23,21 @@ public class MaconRowMapper implements BiFunction<Row, String, Macon> {
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link Macon} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link Macon} stored in the database from a {@link Row}.
      */
-    @Override
-    public Macon apply(Row row, String prefix) {
-        Macon entity = new Macon();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        return entity;
+    public Function<Row, Macon> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        return row -> {
+            Macon entity = new Macon();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            return entity;
+        };
     }
 }
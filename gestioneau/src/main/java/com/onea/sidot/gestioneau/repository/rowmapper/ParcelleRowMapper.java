@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.Parcelle;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Parcelle}, with proper type conversions.
  */
 @Service
-public class ParcelleRowMapper implements BiFunction<Row, String, Parcelle> {
+public class ParcelleRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle", "lot_id" };
 
     private final ColumnConverter converter;
 
@@ -19,15 +23,23 @@ public class ParcelleRowMapper implements BiFunction<Row, String, Parcelle> {
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link Parcelle} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link Parcelle} stored in the database from a {@link Row}.
      */
-    @Override
-    public Parcelle apply(Row row, String prefix) {
-        Parcelle entity = new Parcelle();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        entity.setLotId(converter.fromRow(row, prefix + "_lot_id", Long.class));
-        return entity;
+    public Function<Row, Parcelle> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        ColumnReader<Long> lotId = converter.reader(metadata, index[2], Long.class);
+        return row -> {
+            Parcelle entity = new Parcelle();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            entity.setLotId(lotId.read(row));
+            return entity;
+        };
     }
 }
@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.Prevision;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Prevision}, with proper type conversions.
  */
 @Service
-public class PrevisionRowMapper implements BiFunction<Row, String, Prevision> {
+public class PrevisionRowMapper {
+
+    private static final String[] COLUMNS = { "id", "nb_latrine", "nb_puisard", "nb_public", "nb_scolaire", "centre_id", "refannee_id" };
 
     private final ColumnConverter converter;
 
@@ -19,19 +23,31 @@ public class PrevisionRowMapper implements BiFunction<Row, String, Prevision> {
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link Prevision} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link Prevision} stored in the database from a {@link Row}.
      */
-    @Override
-    public Prevision apply(Row row, String prefix) {
-        Prevision entity = new Prevision();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setNbLatrine(converter.fromRow(row, prefix + "_nb_latrine", Integer.class));
-        entity.setNbPuisard(converter.fromRow(row, prefix + "_nb_puisard", Integer.class));
-        entity.setNbPublic(converter.fromRow(row, prefix + "_nb_public", Integer.class));
-        entity.setNbScolaire(converter.fromRow(row, prefix + "_nb_scolaire", Integer.class));
-        entity.setCentreId(converter.fromRow(row, prefix + "_centre_id", Long.class));
-        entity.setRefanneeId(converter.fromRow(row, prefix + "_refannee_id", Long.class));
-        return entity;
+    public Function<Row, Prevision> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<Integer> nbLatrine = converter.reader(metadata, index[1], Integer.class);
+        ColumnReader<Integer> nbPuisard = converter.reader(metadata, index[2], Integer.class);
+        ColumnReader<Integer> nbPublic = converter.reader(metadata, index[3], Integer.class);
+        ColumnReader<Integer> nbScolaire = converter.reader(metadata, index[4], Integer.class);
+        ColumnReader<Long> centreId = converter.reader(metadata, index[5], Long.class);
+        ColumnReader<Long> refanneeId = converter.reader(metadata, index[6], Long.class);
+        return row -> {
+            Prevision entity = new Prevision();
+            entity.setId(id.read(row));
+            entity.setNbLatrine(nbLatrine.read(row));
+            entity.setNbPuisard(nbPuisard.read(row));
+            entity.setNbPublic(nbPublic.read(row));
+            entity.setNbScolaire(nbScolaire.read(row));
+            entity.setCentreId(centreId.read(row));
+            entity.setRefanneeId(refanneeId.read(row));
+            return entity;
+        };
     }
 }
@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.Province;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Province}, with proper type conversions.
  */
 @Service
-public class ProvinceRowMapper implements BiFunction<Row, String, Province> {
+public class ProvinceRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle", "region_id" };
 
     private final ColumnConverter converter;
 
@@ -19,15 +23,23 @@ public class ProvinceRowMapper implements BiFunction<Row, String, Province> {
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link Province} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link Province} stored in the database from a {@link Row}.
      */
-    @Override
-    public Province apply(Row row, String prefix) {
-        Province entity = new Province();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        entity.setRegionId(converter.fromRow(row, prefix + "_region_id", Long.class));
-        return entity;
+    public Function<Row, Province> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        ColumnReader<Long> regionId = converter.reader(metadata, index[2], Long.class);
+        return row -> {
+            Province entity = new Province();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            entity.setRegionId(regionId.read(row));
+            return entity;
+        };
     }
 }
@@ -0,0 +1,74 @@
+package com.onea.sidot.gestioneau.repository.rowmapper;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Maps the rows of a result set with a reader compiled from the metadata of its first row: the positions of the columns are
+ * resolved once, then every row is read by index.
+ * <p>
+ * A reader is stateful, a new one must be created for every query execution.
+ *
+ * @param <T> the type of the mapped rows.
+ */
+public final class RowReader<T> implements BiFunction<Row, RowMetadata, T> {
+
+    private final Function<RowMetadata, Function<Row, T>> compiler;
+
+    private Function<Row, T> reader;
+
+    private RowReader(Function<RowMetadata, Function<Row, T>> compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Creates a row reader.
+     * @param compiler creates the function reading a row from the metadata of the result set.
+     * @param <T> the type of the mapped rows.
+     * @return the row reader.
+     */
+    public static <T> RowReader<T> of(Function<RowMetadata, Function<Row, T>> compiler) {
+        return new RowReader<>(compiler);
+    }
+
+    @Override
+    public T apply(Row row, RowMetadata metadata) {
+        // all the rows of a result set share the same columns
+        if (reader == null) {
+            reader = compiler.apply(metadata);
+        }
+        return reader.apply(row);
+    }
+
+    /**
+     * Resolves the positions of the prefixed columns in a result set.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix, the column aliases being {@code prefix_column}.
+     * @param columns the columns.
+     * @return the position of every column, or -1 for the columns missing from the result set.
+     */
+    public static int[] indexes(RowMetadata metadata, String prefix, String... columns) {
+        Map<String, Integer> positions = new HashMap<>();
+        int position = 0;
+        for (ColumnMetadata column : metadata.getColumnMetadatas()) {
+            // the databases may change the case of the unquoted aliases
+            positions.putIfAbsent(column.getName().toLowerCase(Locale.ROOT), position++);
+        }
+        int[] indexes = new int[columns.length];
+        Arrays.fill(indexes, -1);
+        for (int i = 0; i < columns.length; i++) {
+            Integer index = positions.get((prefix + "_" + columns[i]).toLowerCase(Locale.ROOT));
+            if (index != null) {
+                indexes[i] = index;
+            }
+        }
+        return indexes;
+    }
+}
@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.Secteur;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Secteur}, with proper type conversions.
  */
 @Service
-public class SecteurRowMapper implements BiFunction<Row, String, Secteur> {
+public class SecteurRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle", "localite_id" };
 
     private final ColumnConverter converter;
 
@@ -19,15 +23,23 @@ public class SecteurRowMapper implements BiFunction<Row, String, Secteur> {
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link Secteur} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link Secteur} stored in the database from a {@link Row}.
      */
-    @Override
-    public Secteur apply(Row row, String prefix) {
-        Secteur entity = new Secteur();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        entity.setLocaliteId(converter.fromRow(row, prefix + "_localite_id", Long.class));
-        return entity;
+    public Function<Row, Secteur> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        ColumnReader<Long> localiteId = converter.reader(metadata, index[2], Long.class);
+        return row -> {
+            Secteur entity = new Secteur();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            entity.setLocaliteId(localiteId.read(row));
+            return entity;
+        };
     }
 }
@@ -2,15 +2,19 @@ package com.onea.sidot.gestioneau.repository.rowmapper;
 
 import com.onea.sidot.gestioneau.domain.Section;
 import com.onea.sidot.gestioneau.service.ColumnConverter;
+import com.onea.sidot.gestioneau.service.ColumnReader;
 import io.r2dbc.spi.Row;
-import java.util.function.BiFunction;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
 /**
  * Converter between {@link Row} to {@link Section}, with proper type conversions.
  */
 @Service
-public class SectionRowMapper implements BiFunction<Row, String, Section> {
+public class SectionRowMapper {
+
+    private static final String[] COLUMNS = { "id", "libelle", "secteur_id" };
 
     private final ColumnConverter converter;
 
@@ -19,15 +23,23 @@ public class SectionRowMapper implements BiFunction<Row, String, Section> {
     }
 
     /**
-     * Take a {@link Row} and a column prefix, and extract all the fields.
-     * @return the {@link Section} stored in the database.
+     * Creates the reader of the columns with the given prefix in a result set: the positions and the conversions of the
+     * columns are resolved once for all its rows.
+     * @param metadata the metadata of the result set.
+     * @param prefix the column prefix.
+     * @return the function extracting the {@link Section} stored in the database from a {@link Row}.
      */
-    @Override
-    public Section apply(Row row, String prefix) {
-        Section entity = new Section();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setLibelle(converter.fromRow(row, prefix + "_libelle", String.class));
-        entity.setSecteurId(converter.fromRow(row, prefix + "_secteur_id", Long.class));
-        return entity;
+    public Function<Row, Section> reader(RowMetadata metadata, String prefix) {
+        int[] index = RowReader.indexes(metadata, prefix, COLUMNS);
+        ColumnReader<Long> id = converter.reader(metadata, index[0], Long.class);
+        ColumnReader<String> libelle = converter.reader(metadata, index[1], String.class);
+        ColumnReader<Long> secteurId = converter.reader(metadata, index[2], Long.class);
+        return row -> {
+            Section entity = new Section();
+            entity.setId(id.read(row));
+            entity.setLibelle(libelle.read(row));
+            entity.setSecteurId(secteurId.read(row));
+            return entity;
+        };
     }
 }
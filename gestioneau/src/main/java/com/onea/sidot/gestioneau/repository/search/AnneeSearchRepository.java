@@ -3,12 +3,10 @@ package com.onea.sidot.gestioneau.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.onea.sidot.gestioneau.domain.Annee;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Annee} entity.
@@ -16,21 +14,19 @@ import reactor.core.publisher.Flux;
 public interface AnneeSearchRepository extends ReactiveElasticsearchRepository<Annee, Long>, AnneeSearchRepositoryInternal {}
 
 interface AnneeSearchRepositoryInternal {
-    Flux<Annee> search(String query, Pageable pageable);
+    Mono<SearchResults<Annee>> search(String query, SearchPageable pageable);
 }
 
 class AnneeSearchRepositoryInternalImpl implements AnneeSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private final SearchQueryTemplate searchQueryTemplate;
 
-    AnneeSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+    AnneeSearchRepositoryInternalImpl(SearchQueryTemplate searchQueryTemplate) {
+        this.searchQueryTemplate = searchQueryTemplate;
     }
 
     @Override
-    public Flux<Annee> search(String query, Pageable pageable) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        nativeSearchQuery.setPageable(pageable);
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, Annee.class).map(SearchHit::getContent);
+    public Mono<SearchResults<Annee>> search(String query, SearchPageable pageable) {
+        return searchQueryTemplate.search(queryStringQuery(query), pageable, Annee.class);
     }
 }
@@ -3,12 +3,10 @@ package com.onea.sidot.gestioneau.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.onea.sidot.gestioneau.domain.Centre;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Centre} entity.
@@ -16,21 +14,19 @@ import reactor.core.publisher.Flux;
 public interface CentreSearchRepository extends ReactiveElasticsearchRepository<Centre, Long>, CentreSearchRepositoryInternal {}
 
 interface CentreSearchRepositoryInternal {
-    Flux<Centre> search(String query, Pageable pageable);
+    Mono<SearchResults<Centre>> search(String query, SearchPageable pageable);
 }
 
 class CentreSearchRepositoryInternalImpl implements CentreSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private final SearchQueryTemplate searchQueryTemplate;
 
-    CentreSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+    CentreSearchRepositoryInternalImpl(SearchQueryTemplate searchQueryTemplate) {
+        this.searchQueryTemplate = searchQueryTemplate;
     }
 
     @Override
-    public Flux<Centre> search(String query, Pageable pageable) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        nativeSearchQuery.setPageable(pageable);
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, Centre.class).map(SearchHit::getContent);
+    public Mono<SearchResults<Centre>> search(String query, SearchPageable pageable) {
+        return searchQueryTemplate.search(queryStringQuery(query), pageable, Centre.class);
     }
 }
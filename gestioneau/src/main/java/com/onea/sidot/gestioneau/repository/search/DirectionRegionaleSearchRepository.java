@@ -3,12 +3,10 @@ package com.onea.sidot.gestioneau.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.onea.sidot.gestioneau.domain.DirectionRegionale;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link DirectionRegionale} entity.
@@ -17,21 +15,19 @@ public interface DirectionRegionaleSearchRepository
     extends ReactiveElasticsearchRepository<DirectionRegionale, Long>, DirectionRegionaleSearchRepositoryInternal {}
 
 interface DirectionRegionaleSearchRepositoryInternal {
-    Flux<DirectionRegionale> search(String query, Pageable pageable);
+    Mono<SearchResults<DirectionRegionale>> search(String query, SearchPageable pageable);
 }
 
 class DirectionRegionaleSearchRepositoryInternalImpl implements DirectionRegionaleSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private final SearchQueryTemplate searchQueryTemplate;
 
-    DirectionRegionaleSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+    DirectionRegionaleSearchRepositoryInternalImpl(SearchQueryTemplate searchQueryTemplate) {
+        this.searchQueryTemplate = searchQueryTemplate;
     }
 
     @Override
-    public Flux<DirectionRegionale> search(String query, Pageable pageable) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        nativeSearchQuery.setPageable(pageable);
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, DirectionRegionale.class).map(SearchHit::getContent);
+    public Mono<SearchResults<DirectionRegionale>> search(String query, SearchPageable pageable) {
+        return searchQueryTemplate.search(queryStringQuery(query), pageable, DirectionRegionale.class);
     }
 }
@@ -2,36 +2,106 @@ package com.onea.sidot.gestioneau.repository.search;
 
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrageDocument;
+import com.onea.sidot.gestioneau.service.FacetInterval;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
+import com.onea.sidot.gestioneau.service.dto.SearchFacetsDTO;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
- * Spring Data Elasticsearch repository for the {@link FicheSuiviOuvrage} entity.
+ * Spring Data Elasticsearch repository for the {@link FicheSuiviOuvrage} entity, indexed as {@link FicheSuiviOuvrageDocument}s.
  */
 public interface FicheSuiviOuvrageSearchRepository
-    extends ReactiveElasticsearchRepository<FicheSuiviOuvrage, Long>, FicheSuiviOuvrageSearchRepositoryInternal {}
+    extends ReactiveElasticsearchRepository<FicheSuiviOuvrageDocument, Long>, FicheSuiviOuvrageSearchRepositoryInternal {}
 
 interface FicheSuiviOuvrageSearchRepositoryInternal {
-    Flux<FicheSuiviOuvrage> search(String query, Pageable pageable);
+    Mono<SearchResults<FicheSuiviOuvrageDocument>> search(String query, SearchPageable pageable);
+
+    Mono<SearchFacetsDTO> facets(String query, Collection<String> facets, FacetInterval interval, int size);
 }
 
 class FicheSuiviOuvrageSearchRepositoryInternalImpl implements FicheSuiviOuvrageSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private static final String LIBELLE = "libelle";
+
+    private final SearchQueryTemplate searchQueryTemplate;
 
-    FicheSuiviOuvrageSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+    FicheSuiviOuvrageSearchRepositoryInternalImpl(SearchQueryTemplate searchQueryTemplate) {
+        this.searchQueryTemplate = searchQueryTemplate;
     }
 
     @Override
-    public Flux<FicheSuiviOuvrage> search(String query, Pageable pageable) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        nativeSearchQuery.setPageable(pageable);
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, FicheSuiviOuvrage.class).map(SearchHit::getContent);
+    public Mono<SearchResults<FicheSuiviOuvrageDocument>> search(String query, SearchPageable pageable) {
+        return searchQueryTemplate.search(queryStringQuery(query), pageable, FicheSuiviOuvrageDocument.class);
+    }
+
+    // the references are counted by id, with the libelle of the id; the dates by calendar interval, the empty ones skipped
+    @Override
+    public Mono<SearchFacetsDTO> facets(String query, Collection<String> facets, FacetInterval interval, int size) {
+        List<AggregationBuilder> aggregations = new ArrayList<>();
+        for (String facet : facets) {
+            if (FicheSuiviOuvrageDocument.DATE_FACETS.contains(facet)) {
+                aggregations.add(
+                    AggregationBuilders
+                        .dateHistogram(facet)
+                        .field(facet)
+                        .calendarInterval(new DateHistogramInterval(interval.getExpression()))
+                        .minDocCount(1)
+                );
+            } else {
+                aggregations.add(
+                    AggregationBuilders
+                        .terms(facet)
+                        .field(facet + ".id")
+                        .size(size)
+                        .subAggregation(AggregationBuilders.terms(LIBELLE).field(facet + ".libelle.keyword").size(1))
+                );
+            }
+        }
+        return searchQueryTemplate
+            .aggregate(queryStringQuery(query), aggregations, FicheSuiviOuvrageDocument.class)
+            .map(response -> toFacets(response, facets));
+    }
+
+    private static SearchFacetsDTO toFacets(JsonNode response, Collection<String> facets) {
+        SearchFacetsDTO result = new SearchFacetsDTO();
+        result.setTotal(response.path("hits").path("total").path("value").asLong());
+        JsonNode aggregations = response.path("aggregations");
+        for (String facet : facets) {
+            JsonNode buckets = aggregations.path(facet).path("buckets");
+            if (FicheSuiviOuvrageDocument.DATE_FACETS.contains(facet)) {
+                List<SearchFacetsDTO.DateBucketDTO> dates = new ArrayList<>();
+                for (JsonNode bucket : buckets) {
+                    SearchFacetsDTO.DateBucketDTO date = new SearchFacetsDTO.DateBucketDTO();
+                    date.setDate(Instant.ofEpochMilli(bucket.path("key").asLong()));
+                    date.setCount(bucket.path("doc_count").asLong());
+                    dates.add(date);
+                }
+                result.getDates().put(facet, dates);
+            } else {
+                List<SearchFacetsDTO.TermDTO> terms = new ArrayList<>();
+                for (JsonNode bucket : buckets) {
+                    SearchFacetsDTO.TermDTO term = new SearchFacetsDTO.TermDTO();
+                    term.setId(bucket.path("key").asLong());
+                    JsonNode libelle = bucket.path(LIBELLE).path("buckets").path(0).path("key");
+                    term.setLibelle(libelle.isMissingNode() ? null : libelle.asText());
+                    term.setCount(bucket.path("doc_count").asLong());
+                    terms.add(term);
+                }
+                result.getTerms().put(facet, terms);
+            }
+        }
+        return result;
     }
 }
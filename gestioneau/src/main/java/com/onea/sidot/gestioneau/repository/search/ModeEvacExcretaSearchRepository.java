@@ -3,12 +3,10 @@ package com.onea.sidot.gestioneau.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.onea.sidot.gestioneau.domain.ModeEvacExcreta;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link ModeEvacExcreta} entity.
@@ -17,21 +15,19 @@ public interface ModeEvacExcretaSearchRepository
     extends ReactiveElasticsearchRepository<ModeEvacExcreta, Long>, ModeEvacExcretaSearchRepositoryInternal {}
 
 interface ModeEvacExcretaSearchRepositoryInternal {
-    Flux<ModeEvacExcreta> search(String query, Pageable pageable);
+    Mono<SearchResults<ModeEvacExcreta>> search(String query, SearchPageable pageable);
 }
 
 class ModeEvacExcretaSearchRepositoryInternalImpl implements ModeEvacExcretaSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private final SearchQueryTemplate searchQueryTemplate;
 
-    ModeEvacExcretaSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+    ModeEvacExcretaSearchRepositoryInternalImpl(SearchQueryTemplate searchQueryTemplate) {
+        this.searchQueryTemplate = searchQueryTemplate;
     }
 
     @Override
-    public Flux<ModeEvacExcreta> search(String query, Pageable pageable) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        nativeSearchQuery.setPageable(pageable);
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, ModeEvacExcreta.class).map(SearchHit::getContent);
+    public Mono<SearchResults<ModeEvacExcreta>> search(String query, SearchPageable pageable) {
+        return searchQueryTemplate.search(queryStringQuery(query), pageable, ModeEvacExcreta.class);
     }
 }
@@ -3,12 +3,10 @@ package com.onea.sidot.gestioneau.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.onea.sidot.gestioneau.domain.ModeEvacuationEauUsee;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link ModeEvacuationEauUsee} entity.
@@ -17,21 +15,19 @@ public interface ModeEvacuationEauUseeSearchRepository
     extends ReactiveElasticsearchRepository<ModeEvacuationEauUsee, Long>, ModeEvacuationEauUseeSearchRepositoryInternal {}
 
 interface ModeEvacuationEauUseeSearchRepositoryInternal {
-    Flux<ModeEvacuationEauUsee> search(String query, Pageable pageable);
+    Mono<SearchResults<ModeEvacuationEauUsee>> search(String query, SearchPageable pageable);
 }
 
 class ModeEvacuationEauUseeSearchRepositoryInternalImpl implements ModeEvacuationEauUseeSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private final SearchQueryTemplate searchQueryTemplate;
 
-    ModeEvacuationEauUseeSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+    ModeEvacuationEauUseeSearchRepositoryInternalImpl(SearchQueryTemplate searchQueryTemplate) {
+        this.searchQueryTemplate = searchQueryTemplate;
     }
 
     @Override
-    public Flux<ModeEvacuationEauUsee> search(String query, Pageable pageable) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        nativeSearchQuery.setPageable(pageable);
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, ModeEvacuationEauUsee.class).map(SearchHit::getContent);
+    public Mono<SearchResults<ModeEvacuationEauUsee>> search(String query, SearchPageable pageable) {
+        return searchQueryTemplate.search(queryStringQuery(query), pageable, ModeEvacuationEauUsee.class);
     }
 }
@@ -0,0 +1,272 @@
+package com.onea.sidot.gestioneau.repository.search;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
+import com.onea.sidot.gestioneau.service.CircuitBreaker;
+import com.onea.sidot.gestioneau.service.CountMode;
+import com.onea.sidot.gestioneau.service.KeysetCursor;
+import com.onea.sidot.gestioneau.service.KeysetPageable;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryStringQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.reactive.ReactiveElasticsearchClient;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs the searches of the search repositories, returning the hits of a page and their total with a single request.
+ * <p>
+ * The total is exact with {@link CountMode#EXACT}, and counted up to {@code application.search.track-total-hits-up-to}
+ * hits with {@link CountMode#APPROXIMATE}, which is cheaper for the queries matching many documents. The keyset pages sort
+ * the hits by the id last, and continue after the sort values of the last hit of the previous page ({@code search_after}),
+ * so that their cost doesn't grow with their depth.
+ * <p>
+ * The search API of the reactive template doesn't return the total, nor the aggregations, so the request is sent as is
+ * through the client.
+ * <p>
+ * The searches which fail because Elasticsearch is unavailable, or doesn't answer within {@code application.search.timeout},
+ * are run in the database by the {@link SqlSearchFallback}, or fail with a {@link SearchUnavailableException} when it
+ * can't run them. After {@code application.search.circuit-breaker-failures} consecutive failures, a {@link CircuitBreaker}
+ * sends the searches straight to the database for {@code application.search.circuit-breaker-open-duration}, before trying
+ * Elasticsearch again. The latency of the searches is measured by the {@code search.requests} timer, by backend, type and
+ * outcome.
+ */
+@Component
+public class SearchQueryTemplate {
+
+    private static final TypeReference<Map<String, Object>> SOURCE_TYPE = new TypeReference<>() {};
+
+    private static final TypeReference<List<Object>> SORT_VALUES_TYPE = new TypeReference<>() {};
+
+    private static final String ELASTICSEARCH = "elasticsearch";
+
+    private static final String SQL = "sql";
+
+    private static final String SUCCESS = "success";
+
+    private static final String FAILURE = "failure";
+
+    private final Logger log = LoggerFactory.getLogger(SearchQueryTemplate.class);
+
+    private final ReactiveElasticsearchOperations elasticsearchOperations;
+
+    private final ReactiveElasticsearchClient elasticsearchClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final SqlSearchFallback sqlSearchFallback;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int trackTotalHitsUpTo;
+
+    private final Duration timeout;
+
+    private final boolean sqlFallback;
+
+    private final CircuitBreaker circuitBreaker;
+
+    public SearchQueryTemplate(
+        ReactiveElasticsearchOperations elasticsearchOperations,
+        ReactiveElasticsearchClient elasticsearchClient,
+        ObjectMapper objectMapper,
+        SqlSearchFallback sqlSearchFallback,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Search search = applicationProperties.getSearch();
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchClient = elasticsearchClient;
+        this.objectMapper = objectMapper;
+        this.sqlSearchFallback = sqlSearchFallback;
+        this.meterRegistry = meterRegistry;
+        this.trackTotalHitsUpTo = search.getTrackTotalHitsUpTo();
+        this.timeout = search.getTimeout();
+        this.sqlFallback = search.isSqlFallback();
+        this.circuitBreaker = new CircuitBreaker(search.getCircuitBreakerFailures(), search.getCircuitBreakerOpenDuration());
+        Gauge
+            .builder("search.circuit.breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+            .description("State of the circuit breaker of the searches in Elasticsearch: 0 closed, 1 open, 2 half-open")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Search for the entities matching a query.
+     *
+     * @param query the query.
+     * @param pageable the pagination information.
+     * @param type the type of the entities.
+     * @param <T> the type of the entities.
+     * @return the page of hits and their total.
+     */
+    public <T> Mono<SearchResults<T>> search(QueryBuilder query, SearchPageable pageable, Class<T> type) {
+        return Mono.defer(
+            () -> {
+                if (!circuitBreaker.tryAcquire()) {
+                    return fallback(query, pageable, type, null);
+                }
+                long start = System.nanoTime();
+                return searchElasticsearch(query, pageable, type)
+                    .timeout(timeout)
+                    .doOnSuccess(
+                        results -> {
+                            circuitBreaker.onSuccess();
+                            record(ELASTICSEARCH, type, SUCCESS, start);
+                        }
+                    )
+                    .onErrorResume(
+                        e -> {
+                            record(ELASTICSEARCH, type, FAILURE, start);
+                            if (!isUnavailable(e)) {
+                                // Elasticsearch rejected the search, but it is available
+                                circuitBreaker.onSuccess();
+                                return Mono.error(e);
+                            }
+                            circuitBreaker.onFailure();
+                            log.warn("Failed to search for the {}s in Elasticsearch: {}", type.getSimpleName(), e.toString());
+                            return fallback(query, pageable, type, e);
+                        }
+                    );
+            }
+        );
+    }
+
+    private <T> Mono<SearchResults<T>> fallback(QueryBuilder query, SearchPageable pageable, Class<T> type, Throwable cause) {
+        if (!sqlFallback || !(query instanceof QueryStringQueryBuilder)) {
+            return Mono.error(new SearchUnavailableException("Elasticsearch is unavailable", cause));
+        }
+        long start = System.nanoTime();
+        return sqlSearchFallback
+            .search(((QueryStringQueryBuilder) query).queryString(), pageable, type)
+            .doOnSuccess(results -> record(SQL, type, SUCCESS, start))
+            .doOnError(e -> record(SQL, type, FAILURE, start));
+    }
+
+    private static boolean isUnavailable(Throwable e) {
+        return !(e instanceof WebClientResponseException && ((WebClientResponseException) e).getStatusCode().is4xxClientError());
+    }
+
+    private void record(String backend, Class<?> type, String outcome, long start) {
+        Timer
+            .builder("search.requests")
+            .description("Time to search for entities, in Elasticsearch or in the database while it is unavailable")
+            .tag("backend", backend)
+            .tag("type", type.getSimpleName())
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private <T> Mono<SearchResults<T>> searchElasticsearch(QueryBuilder query, SearchPageable pageable, Class<T> type) {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(query);
+        if (pageable.getCountMode() == CountMode.EXACT) {
+            source.trackTotalHits(true);
+        } else {
+            source.trackTotalHitsUpTo(trackTotalHitsUpTo);
+        }
+        KeysetPageable keyset = pageable.getKeyset();
+        if (keyset != null) {
+            // one extra hit tells whether there is a next page
+            source.size(keyset.getSize() + 1);
+            sort(source, keyset.getSort());
+            if (keyset.getAfter() != null) {
+                source.searchAfter(keyset.getAfter().getValues().toArray());
+            }
+        } else {
+            Pageable page = pageable.getPage();
+            if (page.isPaged()) {
+                source.from((int) page.getOffset()).size(page.getPageSize());
+            }
+            sort(source, page.getSort());
+        }
+        return execute(source, type).flatMap(body -> Mono.fromCallable(() -> read(body, keyset, type)));
+    }
+
+    /**
+     * Count the entities matching a query by aggregations, with a single request which returns no hit.
+     *
+     * @param query the query.
+     * @param aggregations the aggregations.
+     * @param type the type of the entities.
+     * @return the response, with the exact total of the hits and the results of the aggregations.
+     */
+    public Mono<JsonNode> aggregate(QueryBuilder query, Collection<AggregationBuilder> aggregations, Class<?> type) {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(query).size(0).trackTotalHits(true);
+        for (AggregationBuilder aggregation : aggregations) {
+            source.aggregation(aggregation);
+        }
+        return execute(source, type).flatMap(body -> Mono.fromCallable(() -> objectMapper.readTree(body)));
+    }
+
+    private Mono<String> execute(SearchSourceBuilder source, Class<?> type) {
+        String index = elasticsearchOperations.getIndexCoordinatesFor(type).getIndexName();
+        return elasticsearchClient
+            .execute(
+                client ->
+                    client
+                        .post()
+                        .uri("/{index}/_search", index)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(source.toString())
+                        .exchange()
+            )
+            .flatMap(
+                response ->
+                    response.statusCode().isError()
+                        ? response.createException().flatMap(Mono::error)
+                        : response.bodyToMono(String.class)
+            )
+            .single();
+    }
+
+    private static void sort(SearchSourceBuilder source, Sort sort) {
+        for (Sort.Order order : sort) {
+            source.sort(SortBuilders.fieldSort(order.getProperty()).order(order.isAscending() ? SortOrder.ASC : SortOrder.DESC));
+        }
+    }
+
+    private <T> SearchResults<T> read(String body, KeysetPageable keyset, Class<T> type) throws IOException {
+        JsonNode hits = objectMapper.readTree(body).path("hits");
+        JsonNode total = hits.path("total");
+        List<T> content = new ArrayList<>();
+        List<Object> lastSortValues = null;
+        KeysetCursor nextCursor = null;
+        for (JsonNode hit : hits.path("hits")) {
+            if (keyset != null && content.size() == keyset.getSize()) {
+                nextCursor = KeysetCursor.of(keyset.getProperties(), lastSortValues);
+                break;
+            }
+            Document document = Document.from(objectMapper.convertValue(hit.path("_source"), SOURCE_TYPE));
+            document.setId(hit.path("_id").asText());
+            content.add(elasticsearchOperations.getElasticsearchConverter().read(type, document));
+            lastSortValues = objectMapper.convertValue(hit.path("sort"), SORT_VALUES_TYPE);
+        }
+        return SearchResults.of(content, total.path("value").asLong(), "eq".equals(total.path("relation").asText("eq")), nextCursor);
+    }
+}
@@ -0,0 +1,20 @@
+package com.onea.sidot.gestioneau.repository.search;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * Thrown when a search can't be run: the search engine is unavailable, and the query can't be run in the database either,
+ * as the fallback is disabled or doesn't support its syntax.
+ */
+public class SearchUnavailableException extends DataAccessResourceFailureException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SearchUnavailableException(String message) {
+        super(message);
+    }
+
+    public SearchUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
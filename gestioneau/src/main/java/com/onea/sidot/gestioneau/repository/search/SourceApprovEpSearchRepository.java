@@ -3,12 +3,10 @@ package com.onea.sidot.gestioneau.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.onea.sidot.gestioneau.domain.SourceApprovEp;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link SourceApprovEp} entity.
@@ -17,21 +15,19 @@ public interface SourceApprovEpSearchRepository
     extends ReactiveElasticsearchRepository<SourceApprovEp, Long>, SourceApprovEpSearchRepositoryInternal {}
 
 interface SourceApprovEpSearchRepositoryInternal {
-    Flux<SourceApprovEp> search(String query, Pageable pageable);
+    Mono<SearchResults<SourceApprovEp>> search(String query, SearchPageable pageable);
 }
 
 class SourceApprovEpSearchRepositoryInternalImpl implements SourceApprovEpSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private final SearchQueryTemplate searchQueryTemplate;
 
-    SourceApprovEpSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+    SourceApprovEpSearchRepositoryInternalImpl(SearchQueryTemplate searchQueryTemplate) {
+        this.searchQueryTemplate = searchQueryTemplate;
     }
 
     @Override
-    public Flux<SourceApprovEp> search(String query, Pageable pageable) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        nativeSearchQuery.setPageable(pageable);
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, SourceApprovEp.class).map(SearchHit::getContent);
+    public Mono<SearchResults<SourceApprovEp>> search(String query, SearchPageable pageable) {
+        return searchQueryTemplate.search(queryStringQuery(query), pageable, SourceApprovEp.class);
     }
 }
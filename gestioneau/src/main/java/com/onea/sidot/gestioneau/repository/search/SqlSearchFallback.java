@@ -0,0 +1,382 @@
+package com.onea.sidot.gestioneau.repository.search;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.KeysetCursor;
+import com.onea.sidot.gestioneau.service.KeysetPageable;
+import com.onea.sidot.gestioneau.service.SearchOutbox;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentProperty;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs the searches in the database while Elasticsearch is unavailable, see {@link SearchQueryTemplate}.
+ * <p>
+ * Only a subset of the syntax of the query strings is supported: words, optionally scoped to a field, and combined either all
+ * with {@code OR}, the default operator, or all with {@code AND}. A word matches the entities which contain it in one of
+ * their text columns, or in the column of its field, case insensitively; a word scoped to an integer field matches the
+ * entities of which the field is equal to it. The queries with another syntax, such as a negation, a range, a group or a
+ * phrase, fail with a {@link SearchUnavailableException} rather than being run with another meaning. On PostgreSQL, the
+ * {@code UPPER(column) LIKE} conditions are served by the trigram indices of the text columns.
+ * <p>
+ * The documents of the hits are loaded by the finder registered with the {@link SearchOutbox}, so that they are the
+ * documents which Elasticsearch would return, and the cursors of the keyset pages hold the dates as epoch milliseconds,
+ * like the sort values of Elasticsearch, so that a client can go on paging when Elasticsearch is back.
+ */
+@Component
+public class SqlSearchFallback {
+
+    // the number of terms is bounded, and so is the number of shapes of the statements
+    static final int MAX_TERMS = 8;
+
+    // groups, phrases, ranges, boosts, fuzziness, regular expressions, and the operators other than AND and OR
+    private static final Pattern UNSUPPORTED_SYNTAX = Pattern.compile("[()\\[\\]{}\"~^/\\\\?<>=!&|]|(^|\\s)[+-]");
+
+    private static final Set<String> UNSUPPORTED_OPERATORS = Set.of("NOT", "TO");
+
+    private static final String AND = "AND";
+
+    private static final String OR = "OR";
+
+    private final SearchOutbox searchOutbox;
+
+    private final EntityManager entityManager;
+
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    private final ReactiveElasticsearchOperations elasticsearchOperations;
+
+    public SqlSearchFallback(
+        SearchOutbox searchOutbox,
+        EntityManager entityManager,
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        ReactiveElasticsearchOperations elasticsearchOperations
+    ) {
+        this.searchOutbox = searchOutbox;
+        this.entityManager = entityManager;
+        this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+        this.elasticsearchOperations = elasticsearchOperations;
+    }
+
+    /**
+     * Search for the documents of the entities matching a query string.
+     *
+     * @param query the query string.
+     * @param pageable the pagination information.
+     * @param type the type of the documents.
+     * @param <T> the type of the documents.
+     * @return the page of hits and their exact total, or a {@link SearchUnavailableException} if the syntax of the query is
+     * not supported, or a keyset page is sorted by a column which may be null.
+     */
+    public <T> Mono<SearchResults<T>> search(String query, SearchPageable pageable, Class<T> type) {
+        return Mono.defer(
+            () -> {
+                Class<?> entityType = searchOutbox.getEntityType(type);
+                RelationalPersistentEntity<?> entity = r2dbcEntityTemplate
+                    .getConverter()
+                    .getMappingContext()
+                    .getRequiredPersistentEntity(entityType);
+                Criteria matching = matching(parse(query), entity);
+                Mono<Long> total = r2dbcEntityTemplate.count(matching != null ? query(matching) : Query.empty(), entityType);
+                KeysetPageable keyset = pageable.getKeyset();
+                if (keyset == null) {
+                    Pageable page = pageable.getPage();
+                    Pageable sorted = page.isPaged()
+                        ? PageRequest.of(page.getPageNumber(), page.getPageSize(), withId(page.getSort()))
+                        : null;
+                    return find(entityType, sorted, matching, type)
+                        .zipWith(total, (content, count) -> SearchResults.ofFallback(content, count, null));
+                }
+                try {
+                    entityManager.checkKeysetSort(entityType, keyset.getSort());
+                } catch (IllegalArgumentException e) {
+                    throw unsupported(query, e.getMessage());
+                }
+                Criteria criteria = matching;
+                if (keyset.getAfter() != null) {
+                    Criteria after = after(keyset, entity);
+                    criteria = matching != null ? Criteria.from(matching, after) : after;
+                }
+                // one extra hit tells whether there is a next page
+                Pageable first = PageRequest.of(0, keyset.getSize() + 1, keyset.getSort());
+                return find(entityType, first, criteria, type)
+                    .zipWith(total, (content, count) -> toKeysetResults(content, count, keyset, type));
+            }
+        );
+    }
+
+    private <T> Mono<List<T>> find(Class<?> entityType, Pageable pageable, Criteria criteria, Class<T> type) {
+        return searchOutbox.findAllBy(entityType, pageable, criteria).map(type::cast).collectList();
+    }
+
+    /**
+     * Parse a query string, as far as the database search supports its syntax.
+     *
+     * @param query the query string.
+     * @return the terms of the query, none for a query matching all the documents, such as {@code *}.
+     * @throws SearchUnavailableException if the syntax of the query is not supported, or it has more than {@value #MAX_TERMS}
+     * terms.
+     */
+    static ParsedQuery parse(String query) {
+        String trimmed = query.trim();
+        if (trimmed.isEmpty() || "*".equals(trimmed) || "*:*".equals(trimmed)) {
+            return new ParsedQuery(List.of(), false);
+        }
+        if (UNSUPPORTED_SYNTAX.matcher(trimmed).find()) {
+            throw unsupported(query, "unsupported syntax");
+        }
+        List<Term> terms = new ArrayList<>();
+        Set<String> operators = new HashSet<>();
+        String operator = null;
+        for (String token : trimmed.split("\\s+")) {
+            if (AND.equals(token) || OR.equals(token)) {
+                if (terms.isEmpty() || operator != null) {
+                    throw unsupported(query, "misplaced " + token);
+                }
+                operator = token;
+                continue;
+            }
+            if (UNSUPPORTED_OPERATORS.contains(token)) {
+                throw unsupported(query, "unsupported operator " + token);
+            }
+            if (!terms.isEmpty()) {
+                // the default operator between two terms
+                operators.add(operator != null ? operator : OR);
+            }
+            operator = null;
+            int colon = token.indexOf(':');
+            String field = colon >= 0 ? token.substring(0, colon) : null;
+            String value = token.substring(colon + 1);
+            // a prefix is contained in the values which the words match
+            if (value.endsWith("*")) {
+                value = value.substring(0, value.length() - 1);
+            }
+            if (value.isEmpty() || value.contains("*") || (field != null && (field.isEmpty() || field.contains("*")))) {
+                throw unsupported(query, "unsupported wildcard");
+            }
+            for (String word : value.split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    terms.add(new Term(field, word));
+                }
+            }
+        }
+        if (operator != null) {
+            throw unsupported(query, "misplaced " + operator);
+        }
+        if (operators.size() > 1) {
+            throw unsupported(query, "both AND and OR");
+        }
+        if (terms.size() > MAX_TERMS) {
+            throw unsupported(query, "more than " + MAX_TERMS + " terms");
+        }
+        return new ParsedQuery(terms, operators.contains(AND));
+    }
+
+    private static SearchUnavailableException unsupported(String query, String reason) {
+        return new SearchUnavailableException(
+            "Elasticsearch is unavailable, and the database search doesn't support the query " + query + ": " + reason
+        );
+    }
+
+    // the terms combined with OR in a single disjunction, or their disjunctions combined with AND; null for all the entities
+    private static Criteria matching(ParsedQuery query, RelationalPersistentEntity<?> entity) {
+        if (query.terms.isEmpty()) {
+            return null;
+        }
+        if (!query.conjunction) {
+            Criteria disjunction = null;
+            for (Term term : query.terms) {
+                disjunction = or(disjunction, term, entity);
+            }
+            return disjunction != null ? disjunction : nothing(entity);
+        }
+        List<Criteria> conjunction = new ArrayList<>();
+        for (Term term : query.terms) {
+            Criteria disjunction = or(null, term, entity);
+            if (disjunction == null) {
+                return nothing(entity);
+            }
+            conjunction.add(disjunction);
+        }
+        return conjunction.size() == 1 ? conjunction.get(0) : Criteria.from(conjunction);
+    }
+
+    // term in column1 OR term in column2 ..., appended to a disjunction, which stays null if the entities have no text column
+    private static Criteria or(Criteria disjunction, Term term, RelationalPersistentEntity<?> entity) {
+        if (term.field == null) {
+            for (RelationalPersistentProperty property : entity) {
+                if (property.getType() == String.class) {
+                    disjunction = like(disjunction, property.getName(), term.word);
+                }
+            }
+            return disjunction;
+        }
+        RelationalPersistentProperty property = entity.getPersistentProperty(term.field);
+        if (property == null) {
+            throw unsupported(term.field + ":" + term.word, "unknown field");
+        }
+        if (property.getType() == String.class) {
+            return like(disjunction, property.getName(), term.word);
+        }
+        Criteria.CriteriaStep step = disjunction == null ? where(property.getName()) : disjunction.or(property.getName());
+        return step.is(toInteger(term, property));
+    }
+
+    private static Criteria like(Criteria disjunction, String property, String word) {
+        Criteria.CriteriaStep step = disjunction == null ? where(property) : disjunction.or(property);
+        return step.like("%" + word + "%").ignoreCase(true);
+    }
+
+    private static Object toInteger(Term term, RelationalPersistentProperty property) {
+        Class<?> type = property.getType();
+        try {
+            if (type == Long.class || type == long.class) {
+                return Long.valueOf(term.word);
+            } else if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(term.word);
+            }
+        } catch (NumberFormatException e) {
+            throw unsupported(term.field + ":" + term.word, "not an integer");
+        }
+        throw unsupported(term.field + ":" + term.word, "neither a text nor an integer field");
+    }
+
+    private static Criteria nothing(RelationalPersistentEntity<?> entity) {
+        return where(entity.getRequiredIdProperty().getName()).isNull();
+    }
+
+    private static Sort withId(Sort sort) {
+        return sort.getOrderFor(KeysetPageable.ID_PROPERTY) != null ? sort : sort.and(Sort.by(KeysetPageable.ID_PROPERTY));
+    }
+
+    // (a > :a) OR (a = :a AND b > :b) OR ..., with < for the descending orders
+    private static Criteria after(KeysetPageable keyset, RelationalPersistentEntity<?> entity) {
+        List<Sort.Order> orders = keyset.getSort().toList();
+        List<Object> values = keyset.getAfter().getValues();
+        Criteria after = null;
+        for (int i = 0; i < orders.size(); i++) {
+            Criteria conjunction = null;
+            for (int j = 0; j < i; j++) {
+                String property = orders.get(j).getProperty();
+                Criteria.CriteriaStep step = conjunction == null ? where(property) : conjunction.and(property);
+                conjunction = step.is(toPropertyValue(values.get(j), property, entity));
+            }
+            Sort.Order order = orders.get(i);
+            Object value = toPropertyValue(values.get(i), order.getProperty(), entity);
+            Criteria.CriteriaStep step = conjunction == null ? where(order.getProperty()) : conjunction.and(order.getProperty());
+            conjunction = order.isAscending() ? step.greaterThan(value) : step.lessThan(value);
+            after = after == null ? conjunction : after.or(conjunction);
+        }
+        return after;
+    }
+
+    // the cursors of Elasticsearch hold the dates as epoch milliseconds
+    private static Object toPropertyValue(Object value, String property, RelationalPersistentEntity<?> entity) {
+        RelationalPersistentProperty persistentProperty = entity.getPersistentProperty(property);
+        if (persistentProperty == null || !(value instanceof Number)) {
+            return value;
+        }
+        Number number = (Number) value;
+        Class<?> type = persistentProperty.getActualType();
+        if (type == LocalDate.class) {
+            return Instant.ofEpochMilli(number.longValue()).atZone(ZoneOffset.UTC).toLocalDate();
+        } else if (type == Instant.class) {
+            return Instant.ofEpochMilli(number.longValue());
+        } else if (type == Long.class || type == long.class) {
+            return number.longValue();
+        } else if (type == Integer.class || type == int.class) {
+            return number.intValue();
+        } else if (type == Double.class || type == double.class) {
+            return number.doubleValue();
+        } else if (type == Float.class || type == float.class) {
+            return number.floatValue();
+        }
+        return value;
+    }
+
+    private <T> SearchResults<T> toKeysetResults(List<T> content, long total, KeysetPageable keyset, Class<T> type) {
+        if (content.size() <= keyset.getSize()) {
+            return SearchResults.ofFallback(content, total, null);
+        }
+        List<T> page = content.subList(0, keyset.getSize());
+        T last = page.get(page.size() - 1);
+        ElasticsearchPersistentEntity<?> document = elasticsearchOperations
+            .getElasticsearchConverter()
+            .getMappingContext()
+            .getRequiredPersistentEntity(type);
+        PersistentPropertyAccessor<T> accessor = document.getPropertyAccessor(last);
+        List<Object> values = new ArrayList<>();
+        for (String property : keyset.getProperties()) {
+            ElasticsearchPersistentProperty persistentProperty = document.getRequiredPersistentProperty(property);
+            values.add(toSortValue(accessor.getProperty(persistentProperty)));
+        }
+        return SearchResults.ofFallback(new ArrayList<>(page), total, KeysetCursor.of(keyset.getProperties(), values));
+    }
+
+    private static Object toSortValue(Object value) {
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        } else if (value instanceof Instant) {
+            return ((Instant) value).toEpochMilli();
+        }
+        return value;
+    }
+
+    /**
+     * The terms of a query string, combined with OR, or with AND if it is a conjunction.
+     */
+    static final class ParsedQuery {
+
+        final List<Term> terms;
+
+        final boolean conjunction;
+
+        ParsedQuery(List<Term> terms, boolean conjunction) {
+            this.terms = terms;
+            this.conjunction = conjunction;
+        }
+    }
+
+    /**
+     * A word of a query string, and its field if it is scoped to one.
+     */
+    static final class Term {
+
+        final String field;
+
+        final String word;
+
+        Term(String field, String word) {
+            this.field = field;
+            this.word = word;
+        }
+
+        @Override
+        public String toString() {
+            return field != null ? field + ":" + word : word;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.Locale;
+
+/**
+ * The levels the achievement of the previsions is rolled up to, from the prevision to the direction regionale.
+ */
+public enum AchievementLevel {
+    PREVISION,
+    CENTRE,
+    CENTRE_REGROUPEMENT,
+    DIRECTION_REGIONALE;
+
+    /**
+     * @return the level above this one, or null for the direction regionale.
+     */
+    public AchievementLevel getParent() {
+        AchievementLevel[] levels = values();
+        return ordinal() + 1 < levels.length ? levels[ordinal() + 1] : null;
+    }
+
+    /**
+     * @return the level below this one, or null for the prevision.
+     */
+    public AchievementLevel getChild() {
+        return ordinal() > 0 ? values()[ordinal() - 1] : null;
+    }
+
+    /**
+     * Parse a level, case insensitively, with dashes or underscores: {@code centre-regroupement} or {@code CENTRE_REGROUPEMENT}.
+     *
+     * @param value the name of the level.
+     * @return the level.
+     * @throws IllegalArgumentException if the value is not a known level.
+     */
+    public static AchievementLevel parse(String value) {
+        return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
@@ -15,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -34,10 +35,31 @@ public class AnneeService {
 
     private final AnneeSearchRepository anneeSearchRepository;
 
-    public AnneeService(AnneeRepository anneeRepository, AnneeMapper anneeMapper, AnneeSearchRepository anneeSearchRepository) {
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
+    public AnneeService(
+        AnneeRepository anneeRepository,
+        AnneeMapper anneeMapper,
+        AnneeSearchRepository anneeSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
+    ) {
         this.anneeRepository = anneeRepository;
         this.anneeMapper = anneeMapper;
         this.anneeSearchRepository = anneeSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Annee.class, anneeSearchRepository, anneeRepository::findAllBy);
     }
 
     /**
@@ -48,7 +70,11 @@ public class AnneeService {
      */
     public Mono<AnneeDTO> save(AnneeDTO anneeDTO) {
         log.debug("Request to save Annee : {}", anneeDTO);
-        return anneeRepository.save(anneeMapper.toEntity(anneeDTO)).flatMap(anneeSearchRepository::save).map(anneeMapper::toDto);
+        return anneeRepository
+            .save(anneeMapper.toEntity(anneeDTO))
+            .delayUntil(saved -> searchOutbox.changed(Annee.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Annee.class, saved.getId())))
+            .map(anneeMapper::toDto);
     }
 
     /**
@@ -69,13 +95,8 @@ public class AnneeService {
                 }
             )
             .flatMap(anneeRepository::save)
-            .flatMap(
-                savedAnnee -> {
-                    anneeSearchRepository.save(savedAnnee);
-
-                    return Mono.just(savedAnnee);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(Annee.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Annee.class, saved.getId())))
             .map(anneeMapper::toDto);
     }
 
@@ -107,15 +128,16 @@ public class AnneeService {
      *
      */
     public Mono<Long> countAll() {
-        return anneeRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of annees available in search repository.
-     *
+     * Returns the number of annees available, cached until a annee is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return anneeSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Annee.class, mode);
     }
 
     /**
@@ -124,10 +146,10 @@ public class AnneeService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<AnneeDTO> findOne(Long id) {
         log.debug("Request to get Annee : {}", id);
-        return anneeRepository.findById(id).map(anneeMapper::toDto);
+        return entityCache.findById(Annee.class, id, () -> anneeRepository.findById(id).map(anneeMapper::toDto));
     }
 
     /**
@@ -138,7 +160,10 @@ public class AnneeService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Annee : {}", id);
-        return anneeRepository.deleteById(id).then(anneeSearchRepository.deleteById(id));
+        return anneeRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(Annee.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Annee.class, id)));
     }
 
     /**
@@ -146,11 +171,11 @@ public class AnneeService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<AnneeDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<AnneeDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Annees for query {}", query);
-        return anneeSearchRepository.search(query, pageable).map(anneeMapper::toDto);
+        return anneeSearchRepository.search(query, pageable).map(results -> results.map(anneeMapper::toDto));
     }
 }
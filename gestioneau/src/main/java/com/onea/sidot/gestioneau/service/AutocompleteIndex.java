@@ -0,0 +1,409 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
+import com.onea.sidot.gestioneau.domain.Annee;
+import com.onea.sidot.gestioneau.domain.Centre;
+import com.onea.sidot.gestioneau.domain.CentreRegroupement;
+import com.onea.sidot.gestioneau.domain.DirectionRegionale;
+import com.onea.sidot.gestioneau.domain.Macon;
+import com.onea.sidot.gestioneau.domain.ModeEvacExcreta;
+import com.onea.sidot.gestioneau.domain.ModeEvacuationEauUsee;
+import com.onea.sidot.gestioneau.domain.NatureOuvrage;
+import com.onea.sidot.gestioneau.domain.Prefabricant;
+import com.onea.sidot.gestioneau.domain.SourceApprovEp;
+import com.onea.sidot.gestioneau.domain.TypeCommune;
+import com.onea.sidot.gestioneau.domain.TypeHabitation;
+import com.onea.sidot.gestioneau.service.dto.AutocompleteDTO;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory index of the libelles of the reference entities, for the prefix queries of the autocomplete.
+ * <p>
+ * The libelles of every entity type are held in a {@link RadixTrie}, and grouped by the id of their parent, if the type
+ * has one, for the queries scoped to a parent: the lots of a section, the communes of a province, and so on. The index is
+ * built once the application is ready, then rebuilt from the database every {@code application.autocomplete.rebuild-interval}
+ * for the writes of the other instances, the queries using the previous one until the new one is complete. The
+ * {@link EntityChangeEvent}s of the services of this instance keep it up to date in between.
+ */
+@Service
+public class AutocompleteIndex {
+
+    private final Logger log = LoggerFactory.getLogger(AutocompleteIndex.class);
+
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    private final Duration rebuildInterval;
+
+    // the indexed entity types, by lowercase simple name
+    private final Map<String, Target> targets = new HashMap<>();
+
+    private final Map<Class<?>, Target> targetsByType = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Disposable rebuilder;
+
+    public AutocompleteIndex(R2dbcEntityTemplate r2dbcEntityTemplate, ApplicationProperties applicationProperties) {
+        this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+        this.rebuildInterval = applicationProperties.getAutocomplete().getRebuildInterval();
+        for (HierarchyLevel level : HierarchyLevel.values()) {
+            // the regions have no parent
+            register(new Target(level.getEntityType(), level::getLibelle, level.getParent() != null ? level::getParentId : null));
+        }
+        register(Target.of(Centre.class, Centre::getLibelle, Centre::getCentreregroupementId));
+        register(Target.of(CentreRegroupement.class, CentreRegroupement::getLibelle, CentreRegroupement::getDirectionregionaleId));
+        register(Target.of(Annee.class, Annee::getLibelle, null));
+        register(Target.of(DirectionRegionale.class, DirectionRegionale::getLibelle, null));
+        register(Target.of(Macon.class, Macon::getLibelle, null));
+        register(Target.of(ModeEvacExcreta.class, ModeEvacExcreta::getLibelle, null));
+        register(Target.of(ModeEvacuationEauUsee.class, ModeEvacuationEauUsee::getLibelle, null));
+        register(Target.of(NatureOuvrage.class, NatureOuvrage::getLibelle, null));
+        register(Target.of(Prefabricant.class, Prefabricant::getLibelle, null));
+        register(Target.of(SourceApprovEp.class, SourceApprovEp::getLibelle, null));
+        register(Target.of(TypeCommune.class, TypeCommune::getLibelle, null));
+        register(Target.of(TypeHabitation.class, TypeHabitation::getLibelle, null));
+    }
+
+    private void register(Target target) {
+        targets.put(target.entityType.getSimpleName().toLowerCase(Locale.ROOT), target);
+        targetsByType.put(target.entityType, target);
+    }
+
+    /**
+     * Builds the index, then rebuilds it at the configured interval.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.debug("Loading the autocomplete index");
+        Flux<Long> rebuilds = rebuildInterval.isZero() ? Flux.just(0L) : Flux.interval(Duration.ZERO, rebuildInterval);
+        rebuilder =
+            rebuilds
+                .onBackpressureDrop()
+                .concatMap(
+                    tick ->
+                        rebuild()
+                            .onErrorResume(
+                                e -> {
+                                    log.error("Failed to rebuild the autocomplete index", e);
+                                    return Mono.empty();
+                                }
+                            ),
+                    1
+                )
+                .subscribe();
+    }
+
+    /**
+     * Stop the rebuilds.
+     */
+    @PreDestroy
+    public void stop() {
+        if (rebuilder != null) {
+            rebuilder.dispose();
+        }
+    }
+
+    /**
+     * Rebuilds the index of every entity type from the database.
+     *
+     * @return a Mono to signal that the index is rebuilt.
+     */
+    public Mono<Void> rebuild() {
+        long start = System.currentTimeMillis();
+        return Flux
+            .fromIterable(targetsByType.values())
+            .concatMap(this::rebuild)
+            .reduce(0L, Long::sum)
+            .doOnNext(count -> log.info("Loaded the autocomplete index of {} entities in {} ms", count, System.currentTimeMillis() - start))
+            .then();
+    }
+
+    private Mono<Long> rebuild(Target target) {
+        Loading loading = new Loading();
+        write(() -> target.loading = loading);
+        RelationalPersistentEntity<?> persistentEntity = getPersistentEntity(target.entityType);
+        return r2dbcEntityTemplate
+            .select(target.entityType)
+            .all()
+            .doOnNext(
+                entity -> {
+                    Long id = (Long) persistentEntity.getIdentifierAccessor(entity).getRequiredIdentifier();
+                    write(
+                        () -> {
+                            if (!loading.changed.contains(id)) {
+                                loading.index.put(id, target, entity);
+                            }
+                        }
+                    );
+                }
+            )
+            .count()
+            .doOnNext(
+                count ->
+                    write(
+                        () -> {
+                            // a rebuild which started meanwhile replaces this one
+                            if (target.loading == loading) {
+                                target.index = loading.index;
+                                target.loading = null;
+                            }
+                        }
+                    )
+            )
+            .doOnError(
+                e ->
+                    write(
+                        () -> {
+                            if (target.loading == loading) {
+                                target.loading = null;
+                            }
+                        }
+                    )
+            );
+    }
+
+    /**
+     * Updates the libelle of the entity which has been written.
+     *
+     * @param event the change event.
+     */
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        Target target = targetsByType.get(event.getEntityType());
+        if (target == null || event.getId() == null) {
+            return;
+        }
+        write(
+            () -> {
+                if (target.loading != null) {
+                    target.loading.changed.add(event.getId());
+                }
+            }
+        );
+        if (event.getOperation() == EntityChangeEvent.Operation.SAVE && event.getEntity() == null) {
+            // the event doesn't provide the saved libelle, it is reloaded
+            RelationalPersistentEntity<?> persistentEntity = getPersistentEntity(target.entityType);
+            r2dbcEntityTemplate
+                .select(target.entityType)
+                .matching(query(where(persistentEntity.getRequiredIdProperty().getName()).is(event.getId())))
+                .one()
+                .subscribe(
+                    entity -> write(() -> update(target, event.getId(), entity)),
+                    e -> log.warn("Failed to reload the libelle of {} {}", target.entityType.getSimpleName(), event.getId(), e)
+                );
+            return;
+        }
+        write(() -> update(target, event.getId(), event.getEntity()));
+    }
+
+    private void update(Target target, Long id, Object entity) {
+        target.index.put(id, target, entity);
+        if (target.loading != null) {
+            target.loading.index.put(id, target, entity);
+        }
+    }
+
+    /**
+     * Parse the name of an indexed entity type, case insensitively, its words being optionally separated by dashes:
+     * {@code lot}, {@code centre-regroupement}...
+     *
+     * @param name the name of the entity type.
+     * @return the entity type.
+     * @throws IllegalArgumentException if the name is not the one of an indexed entity type.
+     */
+    public Class<?> parseEntityType(String name) {
+        Target target = targets.get(name.trim().replace("-", "").toLowerCase(Locale.ROOT));
+        if (target == null) {
+            throw new IllegalArgumentException("No autocomplete for " + name);
+        }
+        return target.entityType;
+    }
+
+    /**
+     * @param entityType an indexed entity type.
+     * @return whether its entities have a parent, to which the queries can be scoped.
+     */
+    public boolean hasParent(Class<?> entityType) {
+        return getTarget(entityType).parentId != null;
+    }
+
+    /**
+     * Finds the entities of which a word of the libelle starts with a prefix, ignoring the case and the accents.
+     *
+     * @param entityType the indexed entity type.
+     * @param prefix the prefix, all the entities match an empty one.
+     * @param parentId the id of the parent of the entities, or null for all of them.
+     * @param size the maximum number of entities.
+     * @return the entities, in the order of their matching libelles.
+     */
+    public List<AutocompleteDTO> complete(Class<?> entityType, String prefix, Long parentId, int size) {
+        Target target = getTarget(entityType);
+        lock.readLock().lock();
+        try {
+            Index index = target.index;
+            List<Long> ids = parentId == null ? index.trie.prefix(prefix, size) : index.prefix(parentId, prefix, size);
+            List<AutocompleteDTO> result = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Entry entry = index.entries.get(id);
+                result.add(new AutocompleteDTO(id, entry.libelle, entry.parentId));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Target getTarget(Class<?> entityType) {
+        Target target = targetsByType.get(entityType);
+        if (target == null) {
+            throw new IllegalArgumentException("No autocomplete for " + entityType.getSimpleName());
+        }
+        return target;
+    }
+
+    private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
+        return r2dbcEntityTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entityType);
+    }
+
+    private void write(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Target {
+
+        final Class<?> entityType;
+
+        final Function<Object, String> libelle;
+
+        // null if the entities have no parent
+        final Function<Object, Long> parentId;
+
+        // guarded by the lock
+        Index index = new Index();
+
+        Loading loading;
+
+        Target(Class<?> entityType, Function<Object, String> libelle, Function<Object, Long> parentId) {
+            this.entityType = entityType;
+            this.libelle = libelle;
+            this.parentId = parentId;
+        }
+
+        static <T> Target of(Class<T> entityType, Function<T, String> libelle, Function<T, Long> parentId) {
+            return new Target(
+                entityType,
+                entity -> libelle.apply(entityType.cast(entity)),
+                parentId != null ? entity -> parentId.apply(entityType.cast(entity)) : null
+            );
+        }
+    }
+
+    // a rebuild in progress: the index being built, and the ids changed since it started, whose loaded libelle may be stale
+    private static final class Loading {
+
+        final Index index = new Index();
+
+        final Set<Long> changed = new HashSet<>();
+    }
+
+    private static final class Entry {
+
+        final String libelle;
+
+        final Long parentId;
+
+        final List<String> keys;
+
+        Entry(String libelle, Long parentId) {
+            this.libelle = libelle;
+            this.parentId = parentId;
+            this.keys = RadixTrie.keys(libelle);
+        }
+    }
+
+    private static final class Index {
+
+        final RadixTrie trie = new RadixTrie();
+
+        final Map<Long, Entry> entries = new HashMap<>();
+
+        // the ids of the entities, by id of their parent
+        final Map<Long, Set<Long>> children = new HashMap<>();
+
+        // a null entity removes the id
+        void put(Long id, Target target, Object entity) {
+            Entry previous = entries.remove(id);
+            if (previous != null && previous.parentId != null) {
+                Set<Long> siblings = children.get(previous.parentId);
+                siblings.remove(id);
+                if (siblings.isEmpty()) {
+                    children.remove(previous.parentId);
+                }
+            }
+            String libelle = entity != null ? target.libelle.apply(entity) : null;
+            if (libelle == null) {
+                trie.remove(id);
+                return;
+            }
+            Entry entry = new Entry(libelle, target.parentId != null ? target.parentId.apply(entity) : null);
+            entries.put(id, entry);
+            trie.put(id, libelle);
+            if (entry.parentId != null) {
+                children.computeIfAbsent(entry.parentId, parentId -> new TreeSet<>()).add(id);
+            }
+        }
+
+        // scans the children of the parent, ordered like the trie: by their first matching key, then by id
+        List<Long> prefix(Long parentId, String prefix, int size) {
+            String key = RadixTrie.normalize(prefix);
+            List<Map.Entry<String, Long>> matches = new ArrayList<>();
+            for (Long id : children.getOrDefault(parentId, Set.of())) {
+                String match = null;
+                for (String entryKey : entries.get(id).keys) {
+                    if (entryKey.startsWith(key) && (match == null || entryKey.compareTo(match) < 0)) {
+                        match = entryKey;
+                    }
+                }
+                if (match != null) {
+                    matches.add(Map.entry(match, id));
+                }
+            }
+            matches.sort(Map.Entry.<String, Long>comparingByKey().thenComparing(Map.Entry.comparingByValue()));
+            List<Long> result = new ArrayList<>(Math.min(size, matches.size()));
+            for (int i = 0; i < matches.size() && i < size; i++) {
+                result.add(matches.get(i).getValue());
+            }
+            return result;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,31 @@ public class CentreRegroupementService {
 
     private final CentreRegroupementSearchRepository centreRegroupementSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public CentreRegroupementService(
         CentreRegroupementRepository centreRegroupementRepository,
         CentreRegroupementMapper centreRegroupementMapper,
-        CentreRegroupementSearchRepository centreRegroupementSearchRepository
+        CentreRegroupementSearchRepository centreRegroupementSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.centreRegroupementRepository = centreRegroupementRepository;
         this.centreRegroupementMapper = centreRegroupementMapper;
         this.centreRegroupementSearchRepository = centreRegroupementSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(CentreRegroupement.class, centreRegroupementSearchRepository, centreRegroupementRepository::findAllBy);
     }
 
     /**
@@ -50,7 +68,8 @@ public class CentreRegroupementService {
         log.debug("Request to save CentreRegroupement : {}", centreRegroupementDTO);
         return centreRegroupementRepository
             .save(centreRegroupementMapper.toEntity(centreRegroupementDTO))
-            .flatMap(centreRegroupementSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(CentreRegroupement.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(CentreRegroupement.class, saved.getId(), saved)))
             .map(centreRegroupementMapper::toDto);
     }
 
@@ -72,13 +91,8 @@ public class CentreRegroupementService {
                 }
             )
             .flatMap(centreRegroupementRepository::save)
-            .flatMap(
-                savedCentreRegroupement -> {
-                    centreRegroupementSearchRepository.save(savedCentreRegroupement);
-
-                    return Mono.just(savedCentreRegroupement);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(CentreRegroupement.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(CentreRegroupement.class, saved.getId(), saved)))
             .map(centreRegroupementMapper::toDto);
     }
 
@@ -100,15 +114,16 @@ public class CentreRegroupementService {
      *
      */
     public Mono<Long> countAll() {
-        return centreRegroupementRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of centreRegroupements available in search repository.
-     *
+     * Returns the number of centreRegroupements available, cached until a centreRegroupement is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return centreRegroupementSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(CentreRegroupement.class, mode);
     }
 
     /**
@@ -117,10 +132,14 @@ public class CentreRegroupementService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<CentreRegroupementDTO> findOne(Long id) {
         log.debug("Request to get CentreRegroupement : {}", id);
-        return centreRegroupementRepository.findById(id).map(centreRegroupementMapper::toDto);
+        return entityCache.findById(
+            CentreRegroupement.class,
+            id,
+            () -> centreRegroupementRepository.findById(id).map(centreRegroupementMapper::toDto)
+        );
     }
 
     /**
@@ -131,7 +150,10 @@ public class CentreRegroupementService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete CentreRegroupement : {}", id);
-        return centreRegroupementRepository.deleteById(id).then(centreRegroupementSearchRepository.deleteById(id));
+        return centreRegroupementRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(CentreRegroupement.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(CentreRegroupement.class, id)));
     }
 
     /**
@@ -139,11 +161,11 @@ public class CentreRegroupementService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<CentreRegroupementDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<CentreRegroupementDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of CentreRegroupements for query {}", query);
-        return centreRegroupementSearchRepository.search(query, pageable).map(centreRegroupementMapper::toDto);
+        return centreRegroupementSearchRepository.search(query, pageable).map(results -> results.map(centreRegroupementMapper::toDto));
     }
 }
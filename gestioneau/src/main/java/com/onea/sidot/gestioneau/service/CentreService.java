@@ -15,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -34,10 +35,31 @@ public class CentreService {
 
     private final CentreSearchRepository centreSearchRepository;
 
-    public CentreService(CentreRepository centreRepository, CentreMapper centreMapper, CentreSearchRepository centreSearchRepository) {
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
+    public CentreService(
+        CentreRepository centreRepository,
+        CentreMapper centreMapper,
+        CentreSearchRepository centreSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
+    ) {
         this.centreRepository = centreRepository;
         this.centreMapper = centreMapper;
         this.centreSearchRepository = centreSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Centre.class, centreSearchRepository, centreRepository::findAllBy);
     }
 
     /**
@@ -48,7 +70,11 @@ public class CentreService {
      */
     public Mono<CentreDTO> save(CentreDTO centreDTO) {
         log.debug("Request to save Centre : {}", centreDTO);
-        return centreRepository.save(centreMapper.toEntity(centreDTO)).flatMap(centreSearchRepository::save).map(centreMapper::toDto);
+        return centreRepository
+            .save(centreMapper.toEntity(centreDTO))
+            .delayUntil(saved -> searchOutbox.changed(Centre.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Centre.class, saved.getId(), saved)))
+            .map(centreMapper::toDto);
     }
 
     /**
@@ -69,13 +95,8 @@ public class CentreService {
                 }
             )
             .flatMap(centreRepository::save)
-            .flatMap(
-                savedCentre -> {
-                    centreSearchRepository.save(savedCentre);
-
-                    return Mono.just(savedCentre);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(Centre.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Centre.class, saved.getId(), saved)))
             .map(centreMapper::toDto);
     }
 
@@ -107,15 +128,16 @@ public class CentreService {
      *
      */
     public Mono<Long> countAll() {
-        return centreRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of centres available in search repository.
-     *
+     * Returns the number of centres available, cached until a centre is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return centreSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Centre.class, mode);
     }
 
     /**
@@ -124,10 +146,10 @@ public class CentreService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<CentreDTO> findOne(Long id) {
         log.debug("Request to get Centre : {}", id);
-        return centreRepository.findById(id).map(centreMapper::toDto);
+        return entityCache.findById(Centre.class, id, () -> centreRepository.findById(id).map(centreMapper::toDto));
     }
 
     /**
@@ -138,7 +160,10 @@ public class CentreService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Centre : {}", id);
-        return centreRepository.deleteById(id).then(centreSearchRepository.deleteById(id));
+        return centreRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(Centre.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Centre.class, id)));
     }
 
     /**
@@ -146,11 +171,11 @@ public class CentreService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<CentreDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<CentreDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Centres for query {}", query);
-        return centreSearchRepository.search(query, pageable).map(centreMapper::toDto);
+        return centreSearchRepository.search(query, pageable).map(results -> results.map(centreMapper::toDto));
     }
 }
@@ -0,0 +1,88 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * A circuit breaker, which stops calling a failing dependency for a while.
+ * <p>
+ * The circuit opens after {@code failureThreshold} consecutive failures, and the calls are then refused for
+ * {@code openDuration}. A single trial call is then let through: the circuit closes if it succeeds, and opens again if it
+ * fails. A trial which never reports its outcome, such as a cancelled one, is replaced by another one after
+ * {@code openDuration}. The circuit breaker is thread-safe.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN,
+    }
+
+    private final int failureThreshold;
+
+    private final long openMillis;
+
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+
+    private int failures;
+
+    // when the circuit opened, or when the trial started in the half-open state
+    private long since;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("The failure threshold must be positive: " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Asks for the permission to call the dependency; the outcome of a permitted call must be reported with
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     * @return whether the call is permitted.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        long now = clock.millis();
+        if (now - since < openMillis) {
+            return false;
+        }
+        state = State.HALF_OPEN;
+        since = now;
+        return true;
+    }
+
+    /**
+     * Reports a successful call, which closes the circuit.
+     */
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    /**
+     * Reports a failed call, which opens the circuit after enough consecutive failures, or after a failed trial.
+     */
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            state = State.OPEN;
+            since = clock.millis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -1,6 +1,11 @@
 package com.onea.sidot.gestioneau.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ColumnMetadata;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.function.Function;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
@@ -17,9 +22,23 @@ public class ColumnConverter {
     private final ConversionService conversionService;
     private final R2dbcCustomConversions conversions;
 
-    public ColumnConverter(R2dbcCustomConversions conversions, R2dbcConverter r2dbcConverter) {
+    // conversions which couldn't use the conversion resolved for the column, they should stay at zero
+    private final Counter typeMismatchFallbacks;
+    private final Counter driverFallbacks;
+
+    public ColumnConverter(R2dbcCustomConversions conversions, R2dbcConverter r2dbcConverter, MeterRegistry meterRegistry) {
         this.conversionService = r2dbcConverter.getConversionService();
         this.conversions = conversions;
+        this.typeMismatchFallbacks = createFallbackCounter(meterRegistry, "type_mismatch");
+        this.driverFallbacks = createFallbackCounter(meterRegistry, "driver");
+    }
+
+    private static Counter createFallbackCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter
+            .builder("column.converter.fallback")
+            .description("Column values which were not converted with the conversion resolved for their column")
+            .tag("reason", reason)
+            .register(meterRegistry);
     }
 
     /**
@@ -46,8 +65,52 @@ public class ColumnConverter {
         return conversionService.convert(value, target);
     }
 
+    /**
+     * Resolves the conversion of the values of a native type of the driver to the target class, following the rules of
+     * {@link #convert(Object, Class)}.
+     * @param source the native type.
+     * @param target class.
+     * @param <T> the parameter for the intended type.
+     * @return the conversion.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public <T> Function<Object, T> getConversion(Class<?> source, Class<T> target) {
+        if (ClassUtils.isAssignable(target, source)) {
+            return value -> (T) value;
+        }
+        if (!conversions.hasCustomReadTarget(source, target) && Enum.class.isAssignableFrom(target)) {
+            return value -> (T) Enum.valueOf((Class<Enum>) target, value.toString());
+        }
+        return value -> conversionService.convert(value, target);
+    }
+
+    /**
+     * Creates the reader of a column of a result set: the native type of the driver is detected once from the metadata, and
+     * the conversion to the target class is resolved for it.
+     * @param metadata the metadata of the result set.
+     * @param index the position of the column, or -1 if the column is missing from the result set.
+     * @param target class.
+     * @param <T> the parameter for the intended type.
+     * @return the column reader.
+     */
+    public <T> ColumnReader<T> reader(RowMetadata metadata, int index, Class<T> target) {
+        Class<?> nativeType = null;
+        if (index >= 0) {
+            ColumnMetadata column = metadata.getColumnMetadata(index);
+            nativeType = column.getJavaType();
+        }
+        return new ColumnReader<>(this, index, target, nativeType);
+    }
+
+    <T> T convertFallback(Object value, Class<T> target) {
+        typeMismatchFallbacks.increment();
+        return convert(value, target);
+    }
+
     /**
      * Convert a value from the {@link Row} to a type - throws an exception, it it's impossible.
+     * <p>
+     * Prefer a {@link ColumnReader} to read the rows of a result set, as this resolves the conversion for every value.
      * @param row which contains the column values.
      * @param target class.
      * @param columnName the name of the column which to convert.
@@ -55,12 +118,12 @@ public class ColumnConverter {
      * @return the value which can be constructed from the input.
      */
     public <T> T fromRow(Row row, String columnName, Class<T> target) {
-        try {
-            // try, directly the driver
-            return row.get(columnName, target);
-        } catch (Exception e) {
-            Object obj = row.get(columnName);
-            return convert(obj, target);
+        Object value = row.get(columnName);
+        if (value == null || ClassUtils.isAssignableValue(target, value) || conversionService.canConvert(value.getClass(), target)) {
+            return convert(value, target);
         }
+        // only the codecs of the driver know how to decode the column to the target type
+        driverFallbacks.increment();
+        return row.get(columnName, target);
     }
 }
@@ -0,0 +1,59 @@
+package com.onea.sidot.gestioneau.service;
+
+import io.r2dbc.spi.Row;
+import java.util.function.Function;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Reads a column of a result set by index, with the conversion from the native type of the driver to the target type resolved
+ * once for the column, see {@link ColumnConverter#reader(io.r2dbc.spi.RowMetadata, int, Class)}.
+ * <p>
+ * A reader belongs to a single result set.
+ *
+ * @param <T> the target type.
+ */
+public final class ColumnReader<T> {
+
+    private final ColumnConverter converter;
+    private final int index;
+    private final Class<T> target;
+
+    private Class<?> nativeType;
+    private Function<Object, T> conversion;
+
+    ColumnReader(ColumnConverter converter, int index, Class<T> target, Class<?> nativeType) {
+        this.converter = converter;
+        this.index = index;
+        this.target = target;
+        if (nativeType != null) {
+            resolve(nativeType);
+        }
+    }
+
+    private void resolve(Class<?> type) {
+        this.nativeType = ClassUtils.resolvePrimitiveIfNecessary(type);
+        this.conversion = converter.getConversion(type, target);
+    }
+
+    /**
+     * Reads the column from the given row.
+     * @param row a row of the result set.
+     * @return the converted value, or null if the value is null or the column is missing from the result set.
+     */
+    public T read(Row row) {
+        if (index < 0) {
+            return null;
+        }
+        Object value = row.get(index);
+        if (value == null) {
+            return null;
+        }
+        if (nativeType == null) {
+            // the driver doesn't report the type of the column, it's resolved from its first value
+            resolve(value.getClass());
+        } else if (!nativeType.isInstance(value)) {
+            return converter.convertFallback(value, target);
+        }
+        return conversion.apply(value);
+    }
+}
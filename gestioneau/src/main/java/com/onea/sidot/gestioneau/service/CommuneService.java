@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,35 @@ public class CommuneService {
 
     private final CommuneSearchRepository communeSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final GeoClosureService geoClosureService;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public CommuneService(
         CommuneRepository communeRepository,
         CommuneMapper communeMapper,
-        CommuneSearchRepository communeSearchRepository
+        CommuneSearchRepository communeSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        GeoClosureService geoClosureService,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.communeRepository = communeRepository;
         this.communeMapper = communeMapper;
         this.communeSearchRepository = communeSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.geoClosureService = geoClosureService;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Commune.class, communeSearchRepository, communeRepository::findAllBy);
     }
 
     /**
@@ -48,7 +70,12 @@ public class CommuneService {
      */
     public Mono<CommuneDTO> save(CommuneDTO communeDTO) {
         log.debug("Request to save Commune : {}", communeDTO);
-        return communeRepository.save(communeMapper.toEntity(communeDTO)).flatMap(communeSearchRepository::save).map(communeMapper::toDto);
+        return communeRepository
+            .save(communeMapper.toEntity(communeDTO))
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.COMMUNE, saved.getId(), saved.getProvinceId()))
+            .delayUntil(saved -> searchOutbox.changed(Commune.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Commune.class, saved.getId(), saved)))
+            .map(communeMapper::toDto);
     }
 
     /**
@@ -69,13 +96,9 @@ public class CommuneService {
                 }
             )
             .flatMap(communeRepository::save)
-            .flatMap(
-                savedCommune -> {
-                    communeSearchRepository.save(savedCommune);
-
-                    return Mono.just(savedCommune);
-                }
-            )
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.COMMUNE, saved.getId(), saved.getProvinceId()))
+            .delayUntil(saved -> searchOutbox.changed(Commune.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Commune.class, saved.getId(), saved)))
             .map(communeMapper::toDto);
     }
 
@@ -97,15 +120,16 @@ public class CommuneService {
      *
      */
     public Mono<Long> countAll() {
-        return communeRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of communes available in search repository.
-     *
+     * Returns the number of communes available, cached until a commune is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return communeSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Commune.class, mode);
     }
 
     /**
@@ -114,10 +138,10 @@ public class CommuneService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<CommuneDTO> findOne(Long id) {
         log.debug("Request to get Commune : {}", id);
-        return communeRepository.findById(id).map(communeMapper::toDto);
+        return entityCache.findById(Commune.class, id, () -> communeRepository.findById(id).map(communeMapper::toDto));
     }
 
     /**
@@ -128,7 +152,11 @@ public class CommuneService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Commune : {}", id);
-        return communeRepository.deleteById(id).then(communeSearchRepository.deleteById(id));
+        return geoClosureService
+            .deleted(HierarchyLevel.COMMUNE, id)
+            .then(communeRepository.deleteById(id))
+            .then(searchOutbox.changed(Commune.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Commune.class, id)));
     }
 
     /**
@@ -136,11 +164,11 @@ public class CommuneService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<CommuneDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<CommuneDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Communes for query {}", query);
-        return communeSearchRepository.search(query, pageable).map(communeMapper::toDto);
+        return communeSearchRepository.search(query, pageable).map(results -> results.map(communeMapper::toDto));
     }
 }
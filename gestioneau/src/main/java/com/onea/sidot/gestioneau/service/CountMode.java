@@ -0,0 +1,33 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.Locale;
+
+/**
+ * How the total number of entities is computed, see {@link CountService}.
+ */
+public enum CountMode {
+    /**
+     * An exact count, cached until the entities are written.
+     */
+    EXACT,
+
+    /**
+     * An estimate of the database, such as the planner statistics of PostgreSQL, for very large tables.
+     * Falls back to {@link #EXACT} when the database has no estimate.
+     */
+    APPROXIMATE;
+
+    /**
+     * Parse a count mode, case insensitively.
+     *
+     * @param value the name of the mode, or null.
+     * @return the mode, {@link #EXACT} if the value is null or empty.
+     * @throws IllegalArgumentException if the value is not a known mode.
+     */
+    public static CountMode parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return EXACT;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
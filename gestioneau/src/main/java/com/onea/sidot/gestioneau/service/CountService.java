@@ -0,0 +1,155 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
+import com.onea.sidot.gestioneau.config.ReplicaRoutingConnectionFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Provides the total number of entities of every type, for the pagination headers.
+ * <p>
+ * The totals are cached per entity type, so that paging through a table doesn't count it again for every page. A cached total
+ * is only valid for the version of its type in the {@link EntityVersionService}, which every write through the services of any
+ * instance increments, the same version which changes the ETags of the lists. The entities are counted in the primary database,
+ * as a lagging read replica would have a stale total cached.
+ */
+@Service
+public class CountService {
+
+    private final Logger log = LoggerFactory.getLogger(CountService.class);
+
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    private final EntityVersionService entityVersionService;
+
+    private final boolean postgres;
+
+    private final Duration cacheTtl;
+
+    private final Map<CacheKey, CachedCount> cache = new ConcurrentHashMap<>();
+
+    public CountService(
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        EntityVersionService entityVersionService,
+        R2dbcDialect dialect,
+        ApplicationProperties applicationProperties
+    ) {
+        this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+        this.entityVersionService = entityVersionService;
+        this.postgres = dialect instanceof PostgresDialect;
+        this.cacheTtl = applicationProperties.getCount().getCacheTtl();
+    }
+
+    /**
+     * Returns the number of entities of a type.
+     *
+     * @param entityType the entity type.
+     * @param mode how the total is computed.
+     * @return the number of entities, exact or approximate depending on the mode.
+     */
+    public Mono<Long> count(Class<?> entityType, CountMode mode) {
+        CacheKey key = new CacheKey(entityType, mode);
+        return entityVersionService
+            .getVersion(entityType)
+            .flatMap(
+                version -> {
+                    CachedCount cached = cache.get(key);
+                    if (cached != null && cached.version == version && cached.expiresAt > System.nanoTime()) {
+                        return Mono.just(cached.value);
+                    }
+                    // a write committed while counting increments the version, the total is cached under the previous one
+                    Mono<Long> count = mode == CountMode.APPROXIMATE ? approximateCount(entityType) : exactCount(entityType);
+                    return count
+                        .contextWrite(ReplicaRoutingConnectionFactory::primary)
+                        .doOnNext(value -> cache.put(key, new CachedCount(value, version, System.nanoTime() + cacheTtl.toNanos())));
+                }
+            );
+    }
+
+    /**
+     * Evicts the cached totals of an entity type on this instance, after a write which bypassed the services.
+     *
+     * @param entityType the entity type.
+     */
+    public void evict(Class<?> entityType) {
+        for (CountMode mode : CountMode.values()) {
+            cache.remove(new CacheKey(entityType, mode));
+        }
+    }
+
+    private Mono<Long> exactCount(Class<?> entityType) {
+        return r2dbcEntityTemplate.select(entityType).count();
+    }
+
+    private Mono<Long> approximateCount(Class<?> entityType) {
+        if (!postgres) {
+            return exactCount(entityType);
+        }
+        String tableName = getPersistentEntity(entityType).getTableName().getReference();
+        // reltuples is the estimate of the planner, -1 (or 0 before PostgreSQL 14) until the table is first analyzed
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql("SELECT CAST(reltuples AS BIGINT) AS estimate FROM pg_class WHERE oid = to_regclass(:table)")
+            .bind("table", tableName)
+            .map(row -> row.get("estimate", Long.class))
+            .one()
+            .filter(estimate -> estimate > 0)
+            .doOnNext(estimate -> log.debug("Approximate count of {}: {}", tableName, estimate))
+            .switchIfEmpty(Mono.defer(() -> exactCount(entityType)));
+    }
+
+    private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
+        return r2dbcEntityTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entityType);
+    }
+
+    private static final class CacheKey {
+
+        private final Class<?> entityType;
+        private final CountMode mode;
+
+        private CacheKey(Class<?> entityType, CountMode mode) {
+            this.entityType = entityType;
+            this.mode = mode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey cacheKey = (CacheKey) o;
+            return entityType.equals(cacheKey.entityType) && mode == cacheKey.mode;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityType, mode);
+        }
+    }
+
+    private static final class CachedCount {
+
+        private final long value;
+        private final long version;
+        private final long expiresAt;
+
+        private CachedCount(long value, long version, long expiresAt) {
+            this.value = value;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
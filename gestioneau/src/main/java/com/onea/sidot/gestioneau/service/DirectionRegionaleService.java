@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,31 @@ public class DirectionRegionaleService {
 
     private final DirectionRegionaleSearchRepository directionRegionaleSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public DirectionRegionaleService(
         DirectionRegionaleRepository directionRegionaleRepository,
         DirectionRegionaleMapper directionRegionaleMapper,
-        DirectionRegionaleSearchRepository directionRegionaleSearchRepository
+        DirectionRegionaleSearchRepository directionRegionaleSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.directionRegionaleRepository = directionRegionaleRepository;
         this.directionRegionaleMapper = directionRegionaleMapper;
         this.directionRegionaleSearchRepository = directionRegionaleSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(DirectionRegionale.class, directionRegionaleSearchRepository, directionRegionaleRepository::findAllBy);
     }
 
     /**
@@ -50,7 +68,8 @@ public class DirectionRegionaleService {
         log.debug("Request to save DirectionRegionale : {}", directionRegionaleDTO);
         return directionRegionaleRepository
             .save(directionRegionaleMapper.toEntity(directionRegionaleDTO))
-            .flatMap(directionRegionaleSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(DirectionRegionale.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(DirectionRegionale.class, saved.getId())))
             .map(directionRegionaleMapper::toDto);
     }
 
@@ -72,13 +91,8 @@ public class DirectionRegionaleService {
                 }
             )
             .flatMap(directionRegionaleRepository::save)
-            .flatMap(
-                savedDirectionRegionale -> {
-                    directionRegionaleSearchRepository.save(savedDirectionRegionale);
-
-                    return Mono.just(savedDirectionRegionale);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(DirectionRegionale.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(DirectionRegionale.class, saved.getId())))
             .map(directionRegionaleMapper::toDto);
     }
 
@@ -100,15 +114,16 @@ public class DirectionRegionaleService {
      *
      */
     public Mono<Long> countAll() {
-        return directionRegionaleRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of directionRegionales available in search repository.
-     *
+     * Returns the number of directionRegionales available, cached until a directionRegionale is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return directionRegionaleSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(DirectionRegionale.class, mode);
     }
 
     /**
@@ -117,10 +132,14 @@ public class DirectionRegionaleService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<DirectionRegionaleDTO> findOne(Long id) {
         log.debug("Request to get DirectionRegionale : {}", id);
-        return directionRegionaleRepository.findById(id).map(directionRegionaleMapper::toDto);
+        return entityCache.findById(
+            DirectionRegionale.class,
+            id,
+            () -> directionRegionaleRepository.findById(id).map(directionRegionaleMapper::toDto)
+        );
     }
 
     /**
@@ -131,7 +150,10 @@ public class DirectionRegionaleService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete DirectionRegionale : {}", id);
-        return directionRegionaleRepository.deleteById(id).then(directionRegionaleSearchRepository.deleteById(id));
+        return directionRegionaleRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(DirectionRegionale.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(DirectionRegionale.class, id)));
     }
 
     /**
@@ -139,11 +161,11 @@ public class DirectionRegionaleService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<DirectionRegionaleDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<DirectionRegionaleDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of DirectionRegionales for query {}", query);
-        return directionRegionaleSearchRepository.search(query, pageable).map(directionRegionaleMapper::toDto);
+        return directionRegionaleSearchRepository.search(query, pageable).map(results -> results.map(directionRegionaleMapper::toDto));
     }
 }
@@ -0,0 +1,156 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.onea.sidot.gestioneau.config.ReplicaRoutingConnectionFactory;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A read-through cache of the entities read by id, shared by the instances of the application through Hazelcast.
+ * <p>
+ * Every entity type has its own distributed map, named after the type, with a near cache on every instance (see
+ * {@link com.onea.sidot.gestioneau.config.CacheConfiguration}). The {@link EntityChangePublisher} evicts an entity after
+ * every committed write; as the cached DTOs embed their references, a write also clears the types which reference the
+ * written one.
+ * <p>
+ * An entity is cached with its version in the {@link EntityVersionService}, read before it is loaded, and a cached entity
+ * is only served while its version is the current one. A load which overlaps a write, on this instance or on another one,
+ * may cache the entity after its eviction, but with the version before the write, so that it is never served.
+ * <p>
+ * The entities are loaded from the primary database: a lagging read replica would have them cached for every user in a
+ * state older than a committed write.
+ */
+@Service
+public class EntityCache {
+
+    private final Logger log = LoggerFactory.getLogger(EntityCache.class);
+
+    // the distributed map of every entity type, created upfront as creating one blocks
+    private final Map<Class<?>, IMap<Long, Versioned>> caches = new HashMap<>();
+
+    // the entity types which reference every entity type
+    private final Map<Class<?>, Set<Class<?>>> dependents = new HashMap<>();
+
+    private final EntityVersionService entityVersionService;
+
+    public EntityCache(HazelcastInstance hazelcastInstance, EntityVersionService entityVersionService) {
+        this.entityVersionService = entityVersionService;
+        for (Class<?> entityType : EntityTypes.findAll()) {
+            caches.put(entityType, hazelcastInstance.getMap(entityType.getName()));
+            for (Class<?> reference : EntityTypes.getReferences(entityType)) {
+                dependents.computeIfAbsent(reference, type -> new HashSet<>()).add(entityType);
+            }
+        }
+    }
+
+    /**
+     * Get an entity from the cache, or load and cache it.
+     *
+     * @param entityType the type of the entity.
+     * @param id the id of the entity.
+     * @param loader the loader of the entity, or of its DTO, called on a miss.
+     * @param <T> the type of the cached value.
+     * @return the cached or loaded value, empty if the loader is.
+     */
+    public <T> Mono<T> findById(Class<?> entityType, Long id, Supplier<Mono<T>> loader) {
+        IMap<Long, Versioned> cache = getCache(entityType);
+        Mono<Versioned> cached = Mono
+            .fromCompletionStage(() -> cache.getAsync(id))
+            .onErrorResume(
+                e -> {
+                    log.warn("Failed to read {} {} from the cache", entityType.getSimpleName(), id, e);
+                    return Mono.empty();
+                }
+            );
+        return Mono
+            .zip(entityVersionService.getETag(entityType, id), cached.map(Optional::of).defaultIfEmpty(Optional.empty()))
+            .flatMap(
+                versionAndCached -> {
+                    String version = versionAndCached.getT1();
+                    Optional<Versioned> hit = versionAndCached.getT2().filter(entry -> entry.version.equals(version));
+                    if (hit.isPresent()) {
+                        @SuppressWarnings("unchecked")
+                        T value = (T) hit.get().value;
+                        return Mono.just(value);
+                    }
+                    return loader
+                        .get()
+                        .contextWrite(ReplicaRoutingConnectionFactory::primary)
+                        .delayUntil(loaded -> put(entityType, cache, id, new Versioned(version, loaded)));
+                }
+            );
+    }
+
+    private Mono<Void> put(Class<?> entityType, IMap<Long, Versioned> cache, Long id, Versioned loaded) {
+        return Mono
+            .fromCompletionStage(() -> cache.setAsync(id, loaded))
+            .onErrorResume(
+                e -> {
+                    log.warn("Failed to cache {} {}", entityType.getSimpleName(), id, e);
+                    return Mono.empty();
+                }
+            );
+    }
+
+    /**
+     * Evict a written entity from the cache of every instance, and clear the caches of the types which reference its type.
+     *
+     * @param entityType the type of the entity.
+     * @param id the id of the entity, or null to clear the cache of the type.
+     * @return a Mono to signal that the entity is evicted.
+     */
+    public Mono<Void> evict(Class<?> entityType, Long id) {
+        Mono<Void> evicted = id != null ? Mono.fromCompletionStage(() -> getCache(entityType).removeAsync(id)).then() : clear(entityType);
+        for (Class<?> dependent : dependents.getOrDefault(entityType, Collections.emptySet())) {
+            evicted = evicted.then(clear(dependent));
+        }
+        return evicted.onErrorResume(
+            e -> {
+                log.warn("Failed to evict {} {} from the cache", entityType.getSimpleName(), id, e);
+                return Mono.empty();
+            }
+        );
+    }
+
+    private Mono<Void> clear(Class<?> entityType) {
+        // a clear is only synchronous
+        return Mono.<Void>fromRunnable(() -> getCache(entityType).clear()).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private IMap<Long, Versioned> getCache(Class<?> entityType) {
+        IMap<Long, Versioned> cache = caches.get(entityType);
+        if (cache == null) {
+            throw new IllegalArgumentException("Not an entity: " + entityType.getName());
+        }
+        return cache;
+    }
+
+    /**
+     * A cached entity, with the version it was loaded at.
+     */
+    private static final class Versioned implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String version;
+
+        private final Object value;
+
+        private Versioned(String version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
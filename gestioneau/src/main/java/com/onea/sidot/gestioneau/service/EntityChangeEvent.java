@@ -0,0 +1,71 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.Objects;
+import org.springframework.lang.Nullable;
+
+/**
+ * Event published once an entity written through the services has been committed, see {@link EntityChangePublisher}.
+ */
+public final class EntityChangeEvent {
+
+    public enum Operation {
+        SAVE,
+        DELETE,
+    }
+
+    private final Class<?> entityType;
+    private final Long id;
+    private final Operation operation;
+    private final Object entity;
+
+    private EntityChangeEvent(Class<?> entityType, Long id, Operation operation, Object entity) {
+        this.entityType = Objects.requireNonNull(entityType);
+        this.id = id;
+        this.operation = Objects.requireNonNull(operation);
+        this.entity = entity;
+    }
+
+    public static EntityChangeEvent saved(Class<?> entityType, Long id) {
+        return new EntityChangeEvent(entityType, id, Operation.SAVE, null);
+    }
+
+    /**
+     * Creates the event of a saved entity, with its saved state so that the listeners don't have to reload it.
+     * @param entityType the entity type.
+     * @param id the id of the entity.
+     * @param entity the saved entity, which the listeners must not modify.
+     * @return the event.
+     */
+    public static EntityChangeEvent saved(Class<?> entityType, Long id, Object entity) {
+        return new EntityChangeEvent(entityType, id, Operation.SAVE, entityType.cast(entity));
+    }
+
+    public static EntityChangeEvent deleted(Class<?> entityType, Long id) {
+        return new EntityChangeEvent(entityType, id, Operation.DELETE, null);
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the saved entity, or null if the event doesn't provide it.
+     */
+    @Nullable
+    public Object getEntity() {
+        return entity;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityChangeEvent{entityType=" + entityType.getSimpleName() + ", id=" + id + ", operation=" + operation + "}";
+    }
+}
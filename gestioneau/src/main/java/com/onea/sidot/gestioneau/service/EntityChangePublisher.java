@@ -0,0 +1,89 @@
+package com.onea.sidot.gestioneau.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Publishes the {@link EntityChangeEvent}s of the services.
+ * <p>
+ * Inside a transaction the event is only published after the commit, so that the listeners never act on a change which is
+ * rolled back, nor reload the state before it is visible to the other connections. The entity is evicted from the
+ * {@link EntityCache} first, so that no listener reads it stale, and its version is incremented in the
+ * {@link EntityVersionService}. The writer is recorded in the {@link RecentWriters}, to read its own writes.
+ */
+@Service
+public class EntityChangePublisher {
+
+    private final Logger log = LoggerFactory.getLogger(EntityChangePublisher.class);
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final EntityCache entityCache;
+
+    private final EntityVersionService entityVersionService;
+
+    private final RecentWriters recentWriters;
+
+    public EntityChangePublisher(
+        ApplicationEventPublisher applicationEventPublisher,
+        EntityCache entityCache,
+        EntityVersionService entityVersionService,
+        RecentWriters recentWriters
+    ) {
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.entityCache = entityCache;
+        this.entityVersionService = entityVersionService;
+        this.recentWriters = recentWriters;
+    }
+
+    /**
+     * Publish an event, after the commit of the current transaction if there is one.
+     *
+     * @param event the event.
+     * @return a Mono to signal that the event is published, or registered for publication.
+     */
+    public Mono<Void> publish(EntityChangeEvent event) {
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .doOnNext(
+                synchronizationManager ->
+                    synchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCommit() {
+                                return doPublish(event);
+                            }
+                        }
+                    )
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .hasElement()
+            .flatMap(registered -> registered ? Mono.empty() : doPublish(event));
+    }
+
+    private Mono<Void> doPublish(EntityChangeEvent event) {
+        return entityCache
+            .evict(event.getEntityType(), event.getId())
+            .then(
+                event.getOperation() == EntityChangeEvent.Operation.DELETE
+                    ? entityVersionService.delete(event.getEntityType(), event.getId())
+                    : entityVersionService.increment(event.getEntityType(), event.getId())
+            )
+            .then(recentWriters.recordWrite())
+            .then(
+                Mono.fromRunnable(
+                    () -> {
+                        log.debug("Publishing {}", event);
+                        applicationEventPublisher.publishEvent(event);
+                    }
+                )
+            );
+    }
+}
@@ -1,30 +1,44 @@
 package com.onea.sidot.gestioneau.service;
 
+import io.r2dbc.spi.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import javax.validation.constraints.NotNull;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
 import org.springframework.data.r2dbc.core.StatementMapper;
 import org.springframework.data.r2dbc.mapping.OutboundRow;
 import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.relational.core.query.Criteria;
-import org.springframework.data.relational.core.sql.Conditions;
-import org.springframework.data.relational.core.sql.OrderByField;
+import org.springframework.data.relational.core.query.CriteriaDefinition;
 import org.springframework.data.relational.core.sql.Select;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
+import org.springframework.data.relational.core.sql.SelectBuilder.BuildSelect;
 import org.springframework.data.relational.core.sql.SqlIdentifier;
-import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.data.util.Pair;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.binding.BindMarkers;
+import org.springframework.r2dbc.core.binding.BindMarkersFactoryResolver;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
@@ -40,6 +54,8 @@ public class EntityManager {
     public static final String ENTITY_ALIAS = "e";
     public static final String ALIAS_PREFIX = "e_";
 
+    private static final int MAX_CACHED_STATEMENTS = 1000;
+
     public static class LinkTable {
 
         final String tableName;
@@ -61,6 +77,8 @@ public class EntityManager {
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final StatementMapper statementMapper;
 
+    private final Map<String, String> statements = new ConcurrentHashMap<>();
+
     public EntityManager(SqlRenderer sqlRenderer, UpdateMapper updateMapper, R2dbcEntityTemplate r2dbcEntityTemplate) {
         this.sqlRenderer = sqlRenderer;
         this.updateMapper = updateMapper;
@@ -69,77 +87,381 @@ public class EntityManager {
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
+     * Creates a parameterized SQL select statement from the given fragment, pagination parameters and criteria.
+     * <p>
+     * The SQL of a query shape - the entity type, the criteria without their values, the sort and whether it's paged - is
+     * rendered once and cached, the values are bound as parameters, so that the database reuses a single prepared statement
+     * for every id or filter value. The select fragment is only built when the shape is rendered, so it must always be the
+     * same for an entity type. The criteria may also reference a table joined by the fragment, with qualified column names
+     * such as {@code gc.ancestor_id}: the fragment must then always join it for these criteria.
+     * @param selectFrom creates a representation of a select statement.
      * @param entityType the entity type which holds the table name.
      * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * @param criteria the criteria, or null.
+     * @return sql select statement, with the values of the criteria and the paging bound to it.
      */
-    public String createSelect(SelectFromAndJoin selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
+    public DatabaseClient.GenericExecuteSpec createSelect(
+        Supplier<? extends BuildSelect> selectFrom,
+        Class<?> entityType,
+        Pageable pageable,
+        Criteria criteria
+    ) {
+        return createSelect(selectFrom, entityType, Projection.all(), pageable, criteria);
+    }
+
+    /**
+     * Creates a parameterized SQL select statement of a projection, see {@link #createSelect(Supplier, Class, Pageable, Criteria)}.
+     * @param selectFrom creates a representation of a select statement, with the columns of the projection.
+     * @param entityType the entity type which holds the table name.
+     * @param projection the projection, part of the query shape.
+     * @param pageable page parameter, or null, if everything needs to be returned
+     * @param criteria the criteria, or null.
+     * @return sql select statement, with the values of the criteria and the paging bound to it.
+     */
+    public DatabaseClient.GenericExecuteSpec createSelect(
+        Supplier<? extends BuildSelect> selectFrom,
+        Class<?> entityType,
+        Projection projection,
+        Pageable pageable,
+        Criteria criteria
+    ) {
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        String where = criteria != null ? createCondition(criteria, entity, bindings) : "";
+        Sort sort = pageable != null ? updateMapper.getMappedObject(pageable.getSort(), entity) : Sort.unsorted();
+        String key = entityType.getName() + "|select|" + projection + "|" + (pageable != null ? "paged|" : "|") + sort + "|" + where;
+        String sql = getStatement(
+            key,
+            () -> {
+                StringBuilder builder = new StringBuilder(createSelect(selectFrom.get().build()));
+                if (!where.isEmpty()) {
+                    builder.append(" WHERE ").append(where);
+                }
+                if (sort.isSorted()) {
+                    builder.append(" ORDER BY ").append(createOrderBy(sort));
+                }
+                if (pageable != null) {
+                    builder.append(" LIMIT :limit OFFSET :offset");
+                }
+                return builder.toString();
+            }
+        );
         if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
+            bindings.put("limit", pageable.getPageSize());
+            bindings.put("offset", pageable.getOffset());
+        }
+        return bind(r2dbcEntityTemplate.getDatabaseClient().sql(sql), bindings);
+    }
+
+    /**
+     * Returns the SQL statement cached under the given name for the entity type, and renders it on the first call.
+     * @param entityType the entity type which holds the table name.
+     * @param name the name of the statement, unique for the entity type.
+     * @param renderer renders the statement, with named parameters instead of the values.
+     * @return the sql statement.
+     */
+    public String getStatement(Class<?> entityType, String name, Supplier<String> renderer) {
+        return getStatement(entityType.getName() + "|" + name, renderer);
+    }
+
+    private String getStatement(String key, Supplier<String> renderer) {
+        String sql = statements.get(key);
+        if (sql == null) {
+            sql = renderer.get();
+            // the shapes are bounded by the code, the limit only protects against an unexpected variety of criteria
+            if (statements.size() < MAX_CACHED_STATEMENTS) {
+                statements.putIfAbsent(key, sql);
             }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
+        }
+        return sql;
+    }
+
+    /**
+     * Creates an SQL select statement for a keyset (seek) page: instead of skipping the rows of the previous pages with an offset,
+     * the rows are restricted to the ones following the cursor in the sort order, so that a deep page is as cheap as the first one.
+     * One more row than the page size is fetched, so that the caller can tell if there is a next page, see {@link KeysetSlice}.
+     * @param selectFrom creates a representation of a select statement, see {@link #createSelect(Supplier, Class, Pageable, Criteria)}.
+     * @param entityType the entity type which holds the table name.
+     * @param pageable keyset page parameter.
+     * @param criteria additional criteria, or null.
+     * @return the sql select statement, with the values of the cursor bound to it.
+     */
+    public DatabaseClient.GenericExecuteSpec createKeysetSelect(
+        Supplier<? extends BuildSelect> selectFrom,
+        Class<?> entityType,
+        KeysetPageable pageable,
+        Criteria criteria
+    ) {
+        return createKeysetSelect(selectFrom, entityType, Projection.all(), pageable, criteria);
+    }
+
+    /**
+     * Creates an SQL select statement for a keyset (seek) page of a projection, see
+     * {@link #createKeysetSelect(Supplier, Class, KeysetPageable, Criteria)}.
+     * @param selectFrom creates a representation of a select statement, with the columns of the projection and of the sort.
+     * @param entityType the entity type which holds the table name.
+     * @param projection the projection, part of the query shape.
+     * @param pageable keyset page parameter.
+     * @param criteria additional criteria, or null.
+     * @return the sql select statement, with the values of the cursor bound to it.
+     */
+    public DatabaseClient.GenericExecuteSpec createKeysetSelect(
+        Supplier<? extends BuildSelect> selectFrom,
+        Class<?> entityType,
+        Projection projection,
+        KeysetPageable pageable,
+        Criteria criteria
+    ) {
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        Sort sort = updateMapper.getMappedObject(pageable.getSort(), entity);
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        List<String> conditions = new ArrayList<>();
+        if (criteria != null) {
+            String where = createCondition(criteria, entity, bindings);
+            if (!where.isEmpty()) {
+                conditions.add(where);
             }
         }
+        if (pageable.getAfter() != null) {
+            conditions.add(createKeysetCondition(sort, pageable.getAfter(), bindings));
+        }
+        String key = entityType.getName() + "|keyset|" + projection + "|" + sort + "|" + String.join("|", conditions);
+        String sql = getStatement(
+            key,
+            () -> {
+                StringBuilder builder = new StringBuilder(createSelect(selectFrom.get().build()));
+                if (!conditions.isEmpty()) {
+                    builder.append(" WHERE (").append(String.join(") AND (", conditions)).append(")");
+                }
+                builder.append(" ORDER BY ").append(createOrderBy(sort));
+                builder.append(" LIMIT :limit");
+                return builder.toString();
+            }
+        );
+        bindings.put("limit", pageable.getSize() + 1);
+        return bind(r2dbcEntityTemplate.getDatabaseClient().sql(sql), bindings);
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
+     * Returns the columns of the entity table holding the properties of a projection: the column of a property, or the
+     * foreign key column of a reference, e.g. {@code natureouvrage_id} for {@code natureouvrage}.
      * @param entityType the entity type which holds the table name.
-     * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * @param projection the projection.
+     * @return the names of the columns, or null if all of them are needed.
      */
-    public String createSelect(SelectFromAndJoinCondition selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
-        if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
+    public Set<String> getColumnNames(Class<?> entityType, Projection projection) {
+        if (projection.isAll()) {
+            return null;
+        }
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        Set<String> columns = new HashSet<>();
+        for (String field : projection.getFields()) {
+            RelationalPersistentProperty property = entity.getPersistentProperty(field);
+            if (property == null) {
+                property = entity.getPersistentProperty(field + "Id");
             }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
+            if (property != null) {
+                columns.add(property.getColumnName().getReference());
             }
         }
+        return columns;
     }
 
-    private String createSelectImpl(SelectOrdered selectFrom, Class<?> entityType, Sort sortParameter) {
-        if (sortParameter != null && sortParameter.isSorted()) {
-            RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
-            if (entity != null) {
-                Sort sort = updateMapper.getMappedObject(sortParameter, entity);
-                selectFrom =
-                    selectFrom.orderBy(createOrderByFields(Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS), sort));
+    /**
+     * Checks that a keyset page of an entity type can be sorted by the properties of a sort. The cursor holds the values of
+     * the sort properties of the last row, and the seek condition would skip the rows with a null one: only the id and the
+     * properties of the non null columns, annotated with {@code @NotNull}, are accepted.
+     * @param entityType the entity type which holds the properties.
+     * @param sort the sort of the keyset page.
+     * @throws IllegalArgumentException if a sort property is not a property of the entity, or may be null.
+     */
+    public void checkKeysetSort(Class<?> entityType, Sort sort) {
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        for (Sort.Order order : sort) {
+            RelationalPersistentProperty property = entity.getPersistentProperty(order.getProperty());
+            if (property == null) {
+                throw new IllegalArgumentException("Unknown sort property: " + order.getProperty());
+            }
+            if (!property.isIdProperty() && !property.isAnnotationPresent(NotNull.class)) {
+                throw new IllegalArgumentException("Nullable sort property: " + order.getProperty());
+            }
+        }
+    }
+
+    /**
+     * Creates the cursor pointing to the given entity, for the sort of a keyset page.
+     * @param entity the last entity of a keyset page.
+     * @param pageable keyset page parameter.
+     * @return the cursor of the next page.
+     */
+    public KeysetCursor createCursor(Object entity, KeysetPageable pageable) {
+        RelationalPersistentEntity<?> persistentEntity = getPersistentEntity(entity.getClass());
+        PersistentPropertyAccessor<?> accessor = persistentEntity.getPropertyAccessor(entity);
+        List<Object> values = new ArrayList<>();
+        for (String property : pageable.getProperties()) {
+            RelationalPersistentProperty persistentProperty = persistentEntity.getPersistentProperty(property);
+            if (persistentProperty == null) {
+                throw new IllegalArgumentException("Unknown sort property: " + property);
             }
+            values.add(accessor.getProperty(persistentProperty));
         }
-        return createSelect(selectFrom.build());
+        return KeysetCursor.of(pageable.getProperties(), values);
+    }
+
+    // (a > :k0) OR (a = :k0 AND b > :k1) OR (a = :k0 AND b = :k1 AND id > :k2), with < for the descending orders
+    private String createKeysetCondition(Sort mappedSort, KeysetCursor cursor, Map<String, Object> bindings) {
+        List<Sort.Order> orders = mappedSort.toList();
+        List<String> disjunction = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            StringBuilder conjunction = new StringBuilder();
+            for (int j = 0; j < i; j++) {
+                conjunction.append(ENTITY_ALIAS).append(".").append(orders.get(j).getProperty()).append(" = :k").append(j).append(" AND ");
+            }
+            Sort.Order order = orders.get(i);
+            conjunction
+                .append(ENTITY_ALIAS)
+                .append(".")
+                .append(order.getProperty())
+                .append(order.isAscending() ? " > :k" : " < :k")
+                .append(i);
+            disjunction.add(conjunction.toString());
+            bindings.put("k" + i, toBindValue(cursor.getValues().get(i)));
+        }
+        return "(" + String.join(") OR (", disjunction) + ")";
+    }
+
+    private Object toBindValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Object converted = r2dbcEntityTemplate.getConverter().writeValue(value, ClassTypeInformation.from(value.getClass()));
+        return converted != null ? converted : value;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, Map<String, Object> bindings) {
+        for (Entry<String, Object> binding : bindings.entrySet()) {
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        }
+        return spec;
+    }
+
+    private static String createOrderBy(Sort mappedSort) {
+        List<String> orderBy = new ArrayList<>();
+        for (Sort.Order order : mappedSort) {
+            orderBy.add(ENTITY_ALIAS + "." + order.getProperty() + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        return String.join(", ", orderBy);
+    }
+
+    // renders the criteria chain with a named parameter per value, the combinators are applied from left to right like
+    // Spring Data does, so the conditions before an AND following an OR are wrapped in parentheses
+    private String createCondition(CriteriaDefinition criteria, RelationalPersistentEntity<?> entity, Map<String, Object> bindings) {
+        Deque<CriteriaDefinition> chain = new ArrayDeque<>();
+        for (CriteriaDefinition current = criteria; current != null; current = current.hasPrevious() ? current.getPrevious() : null) {
+            chain.push(current);
+        }
+        StringBuilder condition = new StringBuilder();
+        boolean hasOr = false;
+        for (CriteriaDefinition criterion : chain) {
+            String rendered = createCriterion(criterion, entity, bindings);
+            if (rendered.isEmpty()) {
+                continue;
+            }
+            if (condition.length() > 0) {
+                if (criterion.getCombinator() == CriteriaDefinition.Combinator.OR) {
+                    condition.append(" OR ");
+                    hasOr = true;
+                } else {
+                    if (hasOr) {
+                        condition.insert(0, '(').append(')');
+                        hasOr = false;
+                    }
+                    condition.append(" AND ");
+                }
+            }
+            condition.append(rendered);
+        }
+        return condition.toString();
+    }
+
+    private String createCriterion(CriteriaDefinition criterion, RelationalPersistentEntity<?> entity, Map<String, Object> bindings) {
+        if (criterion.isEmpty()) {
+            return "";
+        }
+        if (criterion.isGroup()) {
+            StringBuilder condition = new StringBuilder();
+            for (CriteriaDefinition member : criterion.getGroup()) {
+                String rendered = createCondition(member, entity, bindings);
+                if (rendered.isEmpty()) {
+                    continue;
+                }
+                if (condition.length() > 0) {
+                    condition.append(member.getCombinator() == CriteriaDefinition.Combinator.OR ? " OR " : " AND ");
+                }
+                condition.append('(').append(rendered).append(')');
+            }
+            return condition.length() > 0 ? "(" + condition + ")" : "";
+        }
+        String column = toQualifiedColumn(criterion.getColumn(), entity);
+        CriteriaDefinition.Comparator comparator = criterion.getComparator();
+        switch (comparator) {
+            case IS_NULL:
+            case IS_NOT_NULL:
+            case IS_TRUE:
+            case IS_FALSE:
+                return column + " " + comparator.getComparator();
+            case BETWEEN:
+            case NOT_BETWEEN:
+                Pair<?, ?> range = (Pair<?, ?>) criterion.getValue();
+                return (
+                    column +
+                    " " +
+                    comparator.getComparator() +
+                    " " +
+                    addBinding(range.getFirst(), bindings) +
+                    " AND " +
+                    addBinding(range.getSecond(), bindings)
+                );
+            case IN:
+            case NOT_IN:
+                Collection<?> values = criterion.getValue() instanceof Collection
+                    ? (Collection<?>) criterion.getValue()
+                    : Collections.singletonList(criterion.getValue());
+                if (values.isEmpty()) {
+                    return comparator == CriteriaDefinition.Comparator.IN ? "1 = 0" : "1 = 1";
+                }
+                List<Object> converted = new ArrayList<>();
+                for (Object value : values) {
+                    converted.add(toBindValue(value));
+                }
+                // a collection is expanded into a parameter per element when the statement is executed
+                return column + " " + comparator.getComparator() + " (" + addBinding(converted, bindings) + ")";
+            default:
+                String marker = addBinding(toBindValue(criterion.getValue()), bindings);
+                if (criterion.isIgnoreCase()) {
+                    return "UPPER(" + column + ") " + comparator.getComparator() + " UPPER(" + marker + ")";
+                }
+                return column + " " + comparator.getComparator() + " " + marker;
+        }
+    }
+
+    // a property of the entity, or a qualified column of a table joined by the select fragment, such as gc.ancestor_id
+    private String toQualifiedColumn(SqlIdentifier column, RelationalPersistentEntity<?> entity) {
+        if (column.getReference().indexOf('.') > 0) {
+            return column.getReference();
+        }
+        return ENTITY_ALIAS + "." + toColumn(column, entity);
+    }
+
+    private String toColumn(SqlIdentifier column, RelationalPersistentEntity<?> entity) {
+        RelationalPersistentProperty property = entity.getPersistentProperty(column.getReference());
+        return r2dbcEntityTemplate.getDataAccessStrategy().toSql(property != null ? property.getColumnName() : column);
+    }
+
+    private static String addBinding(Object value, Map<String, Object> bindings) {
+        String name = "c" + bindings.size();
+        bindings.put(name, value);
+        return ":" + name;
     }
 
     private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
@@ -184,6 +506,85 @@ public class EntityManager {
         return r2dbcEntityTemplate.insert(entity);
     }
 
+    /**
+     * Inserts the given new entities into the database with a single statement, executed as a batch of a binding set per
+     * entity - and sets their ids, if it's an autoincrement field.
+     * @param <S> the type of the persisted entities.
+     * @param entityType the entity type which holds the table name.
+     * @param entities the entities to be inserted into the database, without id.
+     * @return the persisted entities, in the order of the given list.
+     */
+    public <S> Flux<S> insertAll(Class<S> entityType, List<S> entities) {
+        if (entities.isEmpty()) {
+            return Flux.empty();
+        }
+        ReactiveDataAccessStrategy dataAccessStrategy = r2dbcEntityTemplate.getDataAccessStrategy();
+        RelationalPersistentEntity<?> persistentEntity = getPersistentEntity(entityType);
+        RelationalPersistentProperty idProperty = persistentEntity.getRequiredIdProperty();
+        List<OutboundRow> rows = new ArrayList<>();
+        for (S entity : entities) {
+            OutboundRow row = dataAccessStrategy.getOutboundRow(entity);
+            Parameter id = row.remove(idProperty.getColumnName());
+            Assert.isTrue(id == null || !id.hasValue(), "Only new entities can be inserted in bulk");
+            rows.add(row);
+        }
+        List<SqlIdentifier> columns = new ArrayList<>(rows.get(0).keySet());
+        DatabaseClient databaseClient = r2dbcEntityTemplate.getDatabaseClient();
+        BindMarkers bindMarkers = BindMarkersFactoryResolver.resolve(databaseClient.getConnectionFactory()).create();
+        List<String> columnNames = new ArrayList<>();
+        List<String> markers = new ArrayList<>();
+        for (SqlIdentifier column : columns) {
+            columnNames.add(dataAccessStrategy.toSql(column));
+            markers.add(bindMarkers.next().getPlaceholder());
+        }
+        String idColumn = dataAccessStrategy.toSql(idProperty.getColumnName());
+        String sql =
+            "INSERT INTO " +
+            dataAccessStrategy.toSql(persistentEntity.getTableName()) +
+            " (" +
+            String.join(", ", columnNames) +
+            ") VALUES (" +
+            String.join(", ", markers) +
+            ")";
+
+        // each binding set has its own result, which holds the generated key of its row: unlike the keys of a multi-row
+        // insert, they don't depend on the order in which the database inserts the rows
+        return databaseClient
+            .inConnectionMany(
+                connection -> {
+                    Statement statement = connection.createStatement(sql).returnGeneratedValues(idColumn);
+                    for (int i = 0; i < rows.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        for (int j = 0; j < columns.size(); j++) {
+                            Parameter parameter = rows.get(i).get(columns.get(j));
+                            if (parameter.hasValue()) {
+                                statement.bind(j, parameter.getValue());
+                            } else {
+                                statement.bindNull(j, parameter.getType());
+                            }
+                        }
+                    }
+                    return Flux
+                        .from(statement.execute())
+                        .concatMap(result -> result.map((row, metadata) -> row.get(0, idProperty.getType())));
+                }
+            )
+            .collectList()
+            .flatMapMany(
+                ids -> {
+                    if (ids.size() != entities.size()) {
+                        throw new IllegalStateException("Expected " + entities.size() + " generated ids, but got " + ids.size());
+                    }
+                    for (int i = 0; i < entities.size(); i++) {
+                        persistentEntity.getPropertyAccessor(entities.get(i)).setProperty(idProperty, ids.get(i));
+                    }
+                    return Flux.fromIterable(entities);
+                }
+            );
+    }
+
     /**
      * Updates the table, which links the entity with the referred entities.
      * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
@@ -226,17 +627,4 @@ public class EntityManager {
             .withCriteria(Criteria.from(Criteria.where(table.idColumn).is(entityId)));
         return r2dbcEntityTemplate.getDatabaseClient().sql(statementMapper.getMappedObject(deleteSpec)).then();
     }
-
-    private static Collection<? extends OrderByField> createOrderByFields(Table table, Sort sortToUse) {
-        List<OrderByField> fields = new ArrayList<>();
-
-        for (Sort.Order order : sortToUse) {
-            String propertyName = order.getProperty();
-            OrderByField orderByField = OrderByField.from(table.column(propertyName).as(EntityManager.ALIAS_PREFIX + propertyName));
-
-            fields.add(order.isAscending() ? orderByField.asc() : orderByField.desc());
-        }
-
-        return fields;
-    }
 }
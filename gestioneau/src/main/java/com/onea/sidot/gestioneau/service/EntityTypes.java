@@ -0,0 +1,51 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.data.relational.core.mapping.Table;
+import org.springframework.util.ClassUtils;
+
+/**
+ * The entity types of the domain, and the references between them.
+ */
+public final class EntityTypes {
+
+    private static final String DOMAIN_PACKAGE = "com.onea.sidot.gestioneau.domain";
+
+    private EntityTypes() {}
+
+    /**
+     * Scans the domain package.
+     *
+     * @return the entity types, ordered by name.
+     */
+    public static Set<Class<?>> findAll() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Table.class));
+        Set<Class<?>> entityTypes = new TreeSet<>(Comparator.comparing(Class::getName));
+        for (BeanDefinition definition : scanner.findCandidateComponents(DOMAIN_PACKAGE)) {
+            entityTypes.add(ClassUtils.resolveClassName(definition.getBeanClassName(), EntityTypes.class.getClassLoader()));
+        }
+        return Collections.unmodifiableSet(entityTypes);
+    }
+
+    /**
+     * @param entityType an entity type.
+     * @return the other entity types it references, whose DTOs are embedded in its DTO, ordered by name.
+     */
+    public static Set<Class<?>> getReferences(Class<?> entityType) {
+        Set<Class<?>> references = new TreeSet<>(Comparator.comparing(Class::getName));
+        for (Field field : entityType.getDeclaredFields()) {
+            if (field.getType().isAnnotationPresent(Table.class) && field.getType() != entityType) {
+                references.add(field.getType());
+            }
+        }
+        return Collections.unmodifiableSet(references);
+    }
+}
@@ -0,0 +1,182 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.map.IMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The change versions of the entities, shared by the instances of the application through Hazelcast, from which the
+ * REST API derives the ETags of its reads.
+ * <p>
+ * The {@link EntityChangePublisher} increments the version of a type after every committed write, and sets the version of
+ * the written entity to it. The versions of the entities are kept in a map of their own, bounded in size and cleared of the
+ * deleted entities: an entity without a version gets the one of its type, which is never older, so that its ETag still only
+ * moves forward. As the DTOs embed their references, the ETag of a type also covers the versions of the types it references.
+ * The versions are prefixed with the epoch of the cluster, so that the ETags all change when the cluster, and its versions,
+ * are started over.
+ */
+@Service
+public class EntityVersionService {
+
+    public static final String VERSIONS_MAP = "entity-versions";
+
+    public static final String ENTITY_VERSIONS_MAP = "entity-versions-by-id";
+
+    private static final String EPOCH_KEY = "epoch";
+
+    private final Logger log = LoggerFactory.getLogger(EntityVersionService.class);
+
+    private final IMap<String, Long> versions;
+
+    private final IMap<String, Long> entityVersions;
+
+    private final long epoch;
+
+    // the entity types referenced by every entity type
+    private final Map<Class<?>, Set<Class<?>>> references = new HashMap<>();
+
+    public EntityVersionService(HazelcastInstance hazelcastInstance) {
+        this.versions = hazelcastInstance.getMap(VERSIONS_MAP);
+        this.entityVersions = hazelcastInstance.getMap(ENTITY_VERSIONS_MAP);
+        Long clusterEpoch = versions.putIfAbsent(EPOCH_KEY, System.currentTimeMillis());
+        this.epoch = clusterEpoch != null ? clusterEpoch : versions.get(EPOCH_KEY);
+        for (Class<?> entityType : EntityTypes.findAll()) {
+            references.put(entityType, EntityTypes.getReferences(entityType));
+        }
+    }
+
+    /**
+     * Increment the version of a written entity, and of its type.
+     *
+     * @param entityType the type of the entity.
+     * @param id the id of the entity, or null if several entities of the type were written.
+     * @return a Mono to signal that the versions are incremented.
+     */
+    public Mono<Void> increment(Class<?> entityType, Long id) {
+        checkEntityType(entityType);
+        return incrementType(entityType)
+            .filter(version -> id != null)
+            .flatMap(version -> Mono.fromCompletionStage(() -> entityVersions.setAsync(getKey(entityType, id), version)))
+            .onErrorResume(
+                e -> {
+                    log.warn("Failed to increment the version of {} {}", entityType.getSimpleName(), id, e);
+                    return Mono.empty();
+                }
+            );
+    }
+
+    /**
+     * Increment the version of the type of a deleted entity, and remove the version of the entity, which falls back to the
+     * version of its type.
+     *
+     * @param entityType the type of the entity.
+     * @param id the id of the entity, or null if several entities of the type were deleted.
+     * @return a Mono to signal that the versions are updated.
+     */
+    public Mono<Void> delete(Class<?> entityType, Long id) {
+        checkEntityType(entityType);
+        return incrementType(entityType)
+            .filter(version -> id != null)
+            .flatMap(version -> Mono.fromCompletionStage(() -> entityVersions.removeAsync(getKey(entityType, id))))
+            .then()
+            .onErrorResume(
+                e -> {
+                    log.warn("Failed to increment the version of {} {}", entityType.getSimpleName(), id, e);
+                    return Mono.empty();
+                }
+            );
+    }
+
+    private Mono<Long> incrementType(Class<?> entityType) {
+        return Mono.fromCompletionStage(() -> versions.submitToKey(entityType.getName(), new IncrementProcessor()));
+    }
+
+    /**
+     * Get the version of an entity type, which any write of its entities increments.
+     *
+     * @param entityType the entity type.
+     * @return the version, 0 if no entity of the type has been written yet.
+     */
+    public Mono<Long> getVersion(Class<?> entityType) {
+        checkEntityType(entityType);
+        return Mono.fromCompletionStage(() -> versions.getAsync(entityType.getName())).defaultIfEmpty(0L);
+    }
+
+    /**
+     * Get the ETag of the entities of a type, which changes with any write of them or of the entities they reference.
+     *
+     * @param entityType the type of the entities.
+     * @param dependencies other entity types which the read depends on, e.g. to filter the entities.
+     * @return the ETag, not quoted.
+     */
+    public Mono<String> getETag(Class<?> entityType, Class<?>... dependencies) {
+        Set<Class<?>> versionedTypes = new TreeSet<>(Comparator.comparing(Class::getName));
+        versionedTypes.addAll(Arrays.asList(dependencies));
+        versionedTypes.forEach(this::checkEntityType);
+        return getETag(entityType, getVersion(entityType), versionedTypes);
+    }
+
+    /**
+     * Get the ETag of an entity, which changes with any write of it or of the entities of the types it references.
+     *
+     * @param entityType the type of the entity.
+     * @param id the id of the entity.
+     * @return the ETag, not quoted.
+     */
+    public Mono<String> getETag(Class<?> entityType, Long id) {
+        checkEntityType(entityType);
+        Mono<Long> version = Mono
+            .fromCompletionStage(() -> entityVersions.getAsync(getKey(entityType, id)))
+            .switchIfEmpty(getVersion(entityType));
+        return getETag(entityType, version, Collections.emptySet());
+    }
+
+    private Mono<String> getETag(Class<?> entityType, Mono<Long> version, Set<Class<?>> dependencies) {
+        checkEntityType(entityType);
+        Set<Class<?>> versionedTypes = new LinkedHashSet<>(references.get(entityType));
+        versionedTypes.addAll(dependencies);
+        return Flux
+            .concat(version, Flux.fromIterable(versionedTypes).flatMapSequential(this::getVersion))
+            .map(String::valueOf)
+            .collect(Collectors.joining(".", Long.toString(epoch, Character.MAX_RADIX) + "-", ""));
+    }
+
+    private void checkEntityType(Class<?> entityType) {
+        if (!references.containsKey(entityType)) {
+            throw new IllegalArgumentException("Not an entity: " + entityType.getName());
+        }
+    }
+
+    private static String getKey(Class<?> entityType, Long id) {
+        return entityType.getName() + ":" + id;
+    }
+
+    /**
+     * Increments a version on the member which owns it, so that concurrent writes on several members never get the same one.
+     */
+    private static class IncrementProcessor implements EntryProcessor<String, Long, Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Long process(Map.Entry<String, Long> entry) {
+            long version = entry.getValue() != null ? entry.getValue() + 1 : 1;
+            entry.setValue(version);
+            return version;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.Locale;
+
+/**
+ * The formats of the streaming exports.
+ */
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson"),
+    GEOJSON("application/geo+json", "geojson");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Parse a format, case insensitively.
+     *
+     * @param value the name of the format.
+     * @return the format.
+     * @throws IllegalArgumentException if the value is not a known format.
+     */
+    public static ExportFormat parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
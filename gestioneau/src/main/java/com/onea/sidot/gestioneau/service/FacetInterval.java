@@ -0,0 +1,38 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.Locale;
+
+/**
+ * The calendar intervals which the hits of a search are counted by, by date.
+ */
+public enum FacetInterval {
+    DAY("1d"),
+    WEEK("1w"),
+    MONTH("1M"),
+    QUARTER("1q"),
+    YEAR("1y");
+
+    private final String expression;
+
+    FacetInterval(String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * @return the calendar interval, as expressed in Elasticsearch.
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Parse an interval, case insensitively.
+     *
+     * @param value the name of the interval.
+     * @return the interval.
+     * @throws IllegalArgumentException if the value is not a known interval.
+     */
+    public static FacetInterval parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
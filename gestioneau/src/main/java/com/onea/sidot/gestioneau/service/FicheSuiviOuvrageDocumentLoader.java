@@ -0,0 +1,253 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrageDocument;
+import com.onea.sidot.gestioneau.domain.Macon;
+import com.onea.sidot.gestioneau.domain.ModeEvacExcreta;
+import com.onea.sidot.gestioneau.domain.ModeEvacuationEauUsee;
+import com.onea.sidot.gestioneau.domain.NatureOuvrage;
+import com.onea.sidot.gestioneau.domain.Prefabricant;
+import com.onea.sidot.gestioneau.domain.Prevision;
+import com.onea.sidot.gestioneau.domain.SourceApprovEp;
+import com.onea.sidot.gestioneau.domain.TypeHabitation;
+import com.onea.sidot.gestioneau.repository.FicheSuiviOuvrageRepository;
+import com.onea.sidot.gestioneau.service.mapper.FicheSuiviOuvrageDocumentMapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Loads the {@link FicheSuiviOuvrageDocument}s of the ficheSuiviOuvrages, for the {@link SearchOutbox} and the rebuilds of
+ * the index.
+ * <p>
+ * The references of every batch of ficheSuiviOuvrages are read by a single query per type, and the ancestors of their
+ * parcelles by a single query per level of the {@link HierarchyLevel hierarchy}, from the lot up to the region. They are read
+ * from the database rather than from the {@link ReferenceDataCache}, which is local to every instance: the documents are
+ * re-indexed when a reference changes, possibly on another instance, and must have its new libelle.
+ */
+@Service
+public class FicheSuiviOuvrageDocumentLoader {
+
+    // number of ficheSuiviOuvrages whose references are read together
+    private static final int BATCH_SIZE = 256;
+
+    private static final List<Lookup<?>> LOOKUPS = List.of(
+        new Lookup<>(Prevision.class, FicheSuiviOuvrage::getPrevisionId, prevision -> null, FicheSuiviOuvrageDocument::setPrevision),
+        new Lookup<>(
+            NatureOuvrage.class,
+            FicheSuiviOuvrage::getNatureouvrageId,
+            NatureOuvrage::getLibelle,
+            FicheSuiviOuvrageDocument::setNatureouvrage
+        ),
+        new Lookup<>(
+            TypeHabitation.class,
+            FicheSuiviOuvrage::getTypehabitationId,
+            TypeHabitation::getLibelle,
+            FicheSuiviOuvrageDocument::setTypehabitation
+        ),
+        new Lookup<>(
+            SourceApprovEp.class,
+            FicheSuiviOuvrage::getSourceapprovepId,
+            SourceApprovEp::getLibelle,
+            FicheSuiviOuvrageDocument::setSourceapprovep
+        ),
+        new Lookup<>(
+            ModeEvacuationEauUsee.class,
+            FicheSuiviOuvrage::getModeevacuationeauuseeId,
+            ModeEvacuationEauUsee::getLibelle,
+            FicheSuiviOuvrageDocument::setModeevacuationeauusee
+        ),
+        new Lookup<>(
+            ModeEvacExcreta.class,
+            FicheSuiviOuvrage::getModeevacexcretaId,
+            ModeEvacExcreta::getLibelle,
+            FicheSuiviOuvrageDocument::setModeevacexcreta
+        ),
+        new Lookup<>(Macon.class, FicheSuiviOuvrage::getMaconId, Macon::getLibelle, FicheSuiviOuvrageDocument::setMacon),
+        new Lookup<>(
+            Prefabricant.class,
+            FicheSuiviOuvrage::getPrefabricantId,
+            Prefabricant::getLibelle,
+            FicheSuiviOuvrageDocument::setPrefabricant
+        )
+    );
+
+    private final FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository;
+
+    private final FicheSuiviOuvrageDocumentMapper ficheSuiviOuvrageDocumentMapper;
+
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    public FicheSuiviOuvrageDocumentLoader(
+        FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository,
+        FicheSuiviOuvrageDocumentMapper ficheSuiviOuvrageDocumentMapper,
+        R2dbcEntityTemplate r2dbcEntityTemplate
+    ) {
+        this.ficheSuiviOuvrageRepository = ficheSuiviOuvrageRepository;
+        this.ficheSuiviOuvrageDocumentMapper = ficheSuiviOuvrageDocumentMapper;
+        this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+    }
+
+    /**
+     * Get the documents of the ficheSuiviOuvrages matching the criteria.
+     *
+     * @param pageable the pagination information, or null for all of them.
+     * @param criteria the criteria of the ficheSuiviOuvrages, or null for all of them.
+     * @return the documents, in the order of the ficheSuiviOuvrages.
+     */
+    public Flux<FicheSuiviOuvrageDocument> findAllBy(Pageable pageable, Criteria criteria) {
+        return ficheSuiviOuvrageRepository
+            .findAllBy(pageable, criteria)
+            .buffer(BATCH_SIZE)
+            .concatMap(this::toDocuments)
+            .flatMapIterable(documents -> documents);
+    }
+
+    private Mono<List<FicheSuiviOuvrageDocument>> toDocuments(List<FicheSuiviOuvrage> entities) {
+        List<FicheSuiviOuvrageDocument> documents = new ArrayList<>(entities.size());
+        List<Long> parcelleIds = new ArrayList<>(entities.size());
+        for (FicheSuiviOuvrage entity : entities) {
+            documents.add(ficheSuiviOuvrageDocumentMapper.toDocument(entity));
+            parcelleIds.add(entity.getParcelleId());
+        }
+        return Flux
+            .fromIterable(LOOKUPS)
+            .concatMap(lookup -> resolve(lookup, entities, documents))
+            .then(Mono.defer(() -> resolveAncestors(HierarchyLevel.PARCELLE, parcelleIds, documents)))
+            .thenReturn(documents);
+    }
+
+    private <T> Mono<Void> resolve(Lookup<T> lookup, List<FicheSuiviOuvrage> entities, List<FicheSuiviOuvrageDocument> documents) {
+        List<Long> ids = new ArrayList<>(entities.size());
+        for (FicheSuiviOuvrage entity : entities) {
+            ids.add(lookup.id.apply(entity));
+        }
+        return findAllById(lookup.entityType, ids)
+            .doOnNext(
+                references -> {
+                    for (int i = 0; i < documents.size(); i++) {
+                        T reference = ids.get(i) != null ? references.get(ids.get(i)) : null;
+                        if (reference != null) {
+                            lookup.setter.accept(documents.get(i), reference(ids.get(i), lookup.libelle.apply(reference)));
+                        }
+                    }
+                }
+            )
+            .then();
+    }
+
+    // resolves the nodes of a level, then the level above with their parents, up to the region
+    private Mono<Void> resolveAncestors(HierarchyLevel level, List<Long> nodeIds, List<FicheSuiviOuvrageDocument> documents) {
+        if (level == null) {
+            return Mono.empty();
+        }
+        return findAllById(level.getEntityType(), nodeIds)
+            .flatMap(
+                nodes -> {
+                    List<Long> parentIds = new ArrayList<>(nodeIds.size());
+                    for (int i = 0; i < documents.size(); i++) {
+                        Object node = nodeIds.get(i) != null ? nodes.get(nodeIds.get(i)) : null;
+                        if (node != null) {
+                            setAncestor(documents.get(i), level, reference(nodeIds.get(i), level.getLibelle(node)));
+                        }
+                        parentIds.add(node != null ? level.getParentId(node) : null);
+                    }
+                    return resolveAncestors(level.getParent(), parentIds, documents);
+                }
+            );
+    }
+
+    private static void setAncestor(
+        FicheSuiviOuvrageDocument document,
+        HierarchyLevel level,
+        FicheSuiviOuvrageDocument.Reference reference
+    ) {
+        switch (level) {
+            case PARCELLE:
+                document.setParcelle(reference);
+                break;
+            case LOT:
+                document.setLot(reference);
+                break;
+            case SECTION:
+                document.setSection(reference);
+                break;
+            case SECTEUR:
+                document.setSecteur(reference);
+                break;
+            case LOCALITE:
+                document.setLocalite(reference);
+                break;
+            case COMMUNE:
+                document.setCommune(reference);
+                break;
+            case PROVINCE:
+                document.setProvince(reference);
+                break;
+            case REGION:
+                document.setRegion(reference);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown level " + level);
+        }
+    }
+
+    private static FicheSuiviOuvrageDocument.Reference reference(Long id, String libelle) {
+        return FicheSuiviOuvrageDocument.Reference.of(id, libelle);
+    }
+
+    private <T> Mono<Map<Long, T>> findAllById(Class<T> entityType, Collection<Long> ids) {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        if (distinct.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        RelationalPersistentEntity<?> persistentEntity = r2dbcEntityTemplate
+            .getConverter()
+            .getMappingContext()
+            .getRequiredPersistentEntity(entityType);
+        return r2dbcEntityTemplate
+            .select(entityType)
+            .matching(query(where(persistentEntity.getRequiredIdProperty().getName()).in(distinct)))
+            .all()
+            .collectMap(entity -> (Long) persistentEntity.getIdentifierAccessor(entity).getRequiredIdentifier());
+    }
+
+    private static class Lookup<T> {
+
+        private final Class<T> entityType;
+
+        private final Function<FicheSuiviOuvrage, Long> id;
+
+        private final Function<T, String> libelle;
+
+        private final BiConsumer<FicheSuiviOuvrageDocument, FicheSuiviOuvrageDocument.Reference> setter;
+
+        Lookup(
+            Class<T> entityType,
+            Function<FicheSuiviOuvrage, Long> id,
+            Function<T, String> libelle,
+            BiConsumer<FicheSuiviOuvrageDocument, FicheSuiviOuvrageDocument.Reference> setter
+        ) {
+            this.entityType = entityType;
+            this.id = id;
+            this.libelle = libelle;
+            this.setter = setter;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.repository.FicheSuiviOuvrageRepository;
+import com.onea.sidot.gestioneau.service.dto.FicheSuiviOuvrageDTO;
+import com.onea.sidot.gestioneau.service.mapper.FicheSuiviOuvrageMapper;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/**
+ * Service Implementation for the streaming exports of {@link FicheSuiviOuvrage}.
+ * <p>
+ * The rows are read from the database as they are written to the client, so that the memory used by an export doesn't depend on
+ * its size: nothing is collected, and a slow client slows down the read of the rows.
+ * <p>
+ * The exports don't run in a transaction: the references missing from the {@link ReferenceDataCache} are loaded while the rows
+ * are still streamed, which requires another connection.
+ */
+@Service
+public class FicheSuiviOuvrageExportService {
+
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    private static final Map<String, Function<FicheSuiviOuvrageDTO, Object>> CSV_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        CSV_COLUMNS.put("id", FicheSuiviOuvrageDTO::getId);
+        CSV_COLUMNS.put("prjAppuis", FicheSuiviOuvrageDTO::getPrjAppuis);
+        CSV_COLUMNS.put("nomBenef", FicheSuiviOuvrageDTO::getNomBenef);
+        CSV_COLUMNS.put("prenomBenef", FicheSuiviOuvrageDTO::getPrenomBenef);
+        CSV_COLUMNS.put("professionBenef", FicheSuiviOuvrageDTO::getProfessionBenef);
+        CSV_COLUMNS.put("nbUsagers", FicheSuiviOuvrageDTO::getNbUsagers);
+        CSV_COLUMNS.put("contacts", FicheSuiviOuvrageDTO::getContacts);
+        CSV_COLUMNS.put("longitude", FicheSuiviOuvrageDTO::getLongitude);
+        CSV_COLUMNS.put("latitude", FicheSuiviOuvrageDTO::getLatitude);
+        CSV_COLUMNS.put("dateRemiseDevis", FicheSuiviOuvrageDTO::getDateRemiseDevis);
+        CSV_COLUMNS.put("dateDebutTravaux", FicheSuiviOuvrageDTO::getDateDebutTravaux);
+        CSV_COLUMNS.put("dateFinTravaux", FicheSuiviOuvrageDTO::getDateFinTravaux);
+        CSV_COLUMNS.put("rue", FicheSuiviOuvrageDTO::getRue);
+        CSV_COLUMNS.put("porte", FicheSuiviOuvrageDTO::getPorte);
+        CSV_COLUMNS.put("coutMenage", FicheSuiviOuvrageDTO::getCoutMenage);
+        CSV_COLUMNS.put("subvOnea", FicheSuiviOuvrageDTO::getSubvOnea);
+        CSV_COLUMNS.put("subvProjet", FicheSuiviOuvrageDTO::getSubvProjet);
+        CSV_COLUMNS.put("autreSubv", FicheSuiviOuvrageDTO::getAutreSubv);
+        CSV_COLUMNS.put("toles", FicheSuiviOuvrageDTO::getToles);
+        CSV_COLUMNS.put("animateur", FicheSuiviOuvrageDTO::getAnimateur);
+        CSV_COLUMNS.put("superviseur", FicheSuiviOuvrageDTO::getSuperviseur);
+        CSV_COLUMNS.put("controleur", FicheSuiviOuvrageDTO::getControleur);
+        CSV_COLUMNS.put("parcelle", dto -> dto.getParcelle() != null ? dto.getParcelle().getLibelle() : null);
+        CSV_COLUMNS.put("prevision", dto -> dto.getPrevision() != null ? dto.getPrevision().getId() : null);
+        CSV_COLUMNS.put("natureouvrage", dto -> dto.getNatureouvrage() != null ? dto.getNatureouvrage().getLibelle() : null);
+        CSV_COLUMNS.put("typehabitation", dto -> dto.getTypehabitation() != null ? dto.getTypehabitation().getLibelle() : null);
+        CSV_COLUMNS.put("sourceapprovep", dto -> dto.getSourceapprovep() != null ? dto.getSourceapprovep().getLibelle() : null);
+        CSV_COLUMNS.put(
+            "modeevacuationeauusee",
+            dto -> dto.getModeevacuationeauusee() != null ? dto.getModeevacuationeauusee().getLibelle() : null
+        );
+        CSV_COLUMNS.put("modeevacexcreta", dto -> dto.getModeevacexcreta() != null ? dto.getModeevacexcreta().getLibelle() : null);
+        CSV_COLUMNS.put("macon", dto -> dto.getMacon() != null ? dto.getMacon().getLibelle() : null);
+        CSV_COLUMNS.put("prefabricant", dto -> dto.getPrefabricant() != null ? dto.getPrefabricant().getLibelle() : null);
+    }
+
+    private final Logger log = LoggerFactory.getLogger(FicheSuiviOuvrageExportService.class);
+
+    private final FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository;
+
+    private final FicheSuiviOuvrageMapper ficheSuiviOuvrageMapper;
+
+    private final ObjectMapper objectMapper;
+
+    public FicheSuiviOuvrageExportService(
+        FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository,
+        FicheSuiviOuvrageMapper ficheSuiviOuvrageMapper,
+        ObjectMapper objectMapper
+    ) {
+        this.ficheSuiviOuvrageRepository = ficheSuiviOuvrageRepository;
+        this.ficheSuiviOuvrageMapper = ficheSuiviOuvrageMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Export the ficheSuiviOuvrages.
+     *
+     * @param format the format of the export.
+     * @param directionRegionaleId the id of the directionRegionale of the ficheSuiviOuvrages, or null for all of them.
+     * @return the content of the export, as a stream of text fragments.
+     */
+    public Flux<String> export(ExportFormat format, Long directionRegionaleId) {
+        log.debug("Request to export FicheSuiviOuvrages as {} for DirectionRegionale : {}", format, directionRegionaleId);
+        Flux<FicheSuiviOuvrageDTO> ficheSuiviOuvrages = (
+            directionRegionaleId != null
+                ? ficheSuiviOuvrageRepository.findAllByDirectionRegionale(directionRegionaleId)
+                : ficheSuiviOuvrageRepository.findAll()
+        ).map(ficheSuiviOuvrageMapper::toDto);
+        switch (format) {
+            case CSV:
+                return Flux.concat(Flux.just(String.join(",", CSV_COLUMNS.keySet()) + LINE_SEPARATOR), ficheSuiviOuvrages.map(this::toCsv));
+            case NDJSON:
+                return ficheSuiviOuvrages.map(dto -> toJson(dto) + "\n");
+            case GEOJSON:
+                return Flux.concat(
+                    Flux.just("{\"type\":\"FeatureCollection\",\"features\":["),
+                    ficheSuiviOuvrages.index().map(indexed -> (indexed.getT1() > 0 ? "," : "") + toFeature(indexed.getT2())),
+                    Flux.just("]}")
+                );
+            default:
+                return Flux.error(new IllegalArgumentException("Unsupported export format: " + format));
+        }
+    }
+
+    private String toCsv(FicheSuiviOuvrageDTO ficheSuiviOuvrageDTO) {
+        StringBuilder line = new StringBuilder();
+        for (Function<FicheSuiviOuvrageDTO, Object> column : CSV_COLUMNS.values()) {
+            if (line.length() > 0) {
+                line.append(',');
+            }
+            Object value = column.apply(ficheSuiviOuvrageDTO);
+            if (value != null) {
+                line.append(escapeCsv(value.toString()));
+            }
+        }
+        return line.append(LINE_SEPARATOR).toString();
+    }
+
+    // RFC 4180: the fields holding a separator, a quote or a line break are quoted, and their quotes are doubled
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private String toFeature(FicheSuiviOuvrageDTO ficheSuiviOuvrageDTO) {
+        ObjectNode feature = objectMapper.createObjectNode();
+        feature.put("type", "Feature");
+        feature.put("id", ficheSuiviOuvrageDTO.getId());
+        if (ficheSuiviOuvrageDTO.getLongitude() != null && ficheSuiviOuvrageDTO.getLatitude() != null) {
+            ObjectNode geometry = feature.putObject("geometry");
+            geometry.put("type", "Point");
+            geometry.putArray("coordinates").add(ficheSuiviOuvrageDTO.getLongitude()).add(ficheSuiviOuvrageDTO.getLatitude());
+        } else {
+            feature.putNull("geometry");
+        }
+        ObjectNode properties = objectMapper.valueToTree(ficheSuiviOuvrageDTO);
+        properties.remove("longitude");
+        properties.remove("latitude");
+        feature.set("properties", properties);
+        return toJson(feature);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize " + value, e);
+        }
+    }
+}
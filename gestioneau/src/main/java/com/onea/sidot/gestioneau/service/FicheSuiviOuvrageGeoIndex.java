@@ -0,0 +1,257 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.repository.FicheSuiviOuvrageRepository;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory spatial index of the coordinates of the ficheSuiviOuvrages, for the bounding box, radius and nearest neighbour queries.
+ * <p>
+ * The index is loaded once the application is ready, then rebuilt from the database at the configured interval, which picks
+ * up the writes made by the other instances or outside of the application. The writes made through the services of this
+ * instance are indexed right away, by their {@link EntityChangeEvent}s. Until it is loaded, the queries only see the
+ * ficheSuiviOuvrages saved so far.
+ */
+@Service
+public class FicheSuiviOuvrageGeoIndex {
+
+    private static final Projection COORDINATES = Projection.of(Arrays.asList("latitude", "longitude"));
+
+    private final Logger log = LoggerFactory.getLogger(FicheSuiviOuvrageGeoIndex.class);
+
+    private final FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository;
+
+    private final Duration rebuildInterval;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private PointQuadtree tree = new PointQuadtree();
+
+    // the index being rebuilt, null if there is none
+    private Loading loading;
+
+    private Disposable rebuilder;
+
+    public FicheSuiviOuvrageGeoIndex(FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository, ApplicationProperties applicationProperties) {
+        this.ficheSuiviOuvrageRepository = ficheSuiviOuvrageRepository;
+        this.rebuildInterval = applicationProperties.getGeoIndex().getRebuildInterval();
+    }
+
+    /**
+     * Loads the coordinates of all the ficheSuiviOuvrages, then reloads them at the configured interval.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.debug("Loading the geo index of the FicheSuiviOuvrages");
+        Flux<Long> rebuilds = rebuildInterval.isZero() ? Flux.just(0L) : Flux.interval(Duration.ZERO, rebuildInterval);
+        rebuilder =
+            rebuilds
+                .onBackpressureDrop()
+                .concatMap(
+                    tick ->
+                        rebuild()
+                            .onErrorResume(
+                                e -> {
+                                    log.error("Failed to load the geo index of the FicheSuiviOuvrages", e);
+                                    return Mono.empty();
+                                }
+                            ),
+                    1
+                )
+                .subscribe();
+    }
+
+    /**
+     * Stop the rebuilds.
+     */
+    @PreDestroy
+    public void stop() {
+        if (rebuilder != null) {
+            rebuilder.dispose();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database: the queries use the previous index until the new one is loaded.
+     *
+     * @return a Mono to signal that the index is rebuilt.
+     */
+    public Mono<Void> rebuild() {
+        Loading loading = new Loading();
+        write(() -> this.loading = loading);
+        return ficheSuiviOuvrageRepository
+            .findAllBy(null, null, COORDINATES)
+            .doOnNext(
+                ficheSuiviOuvrage ->
+                    write(
+                        () -> {
+                            if (!loading.changed.contains(ficheSuiviOuvrage.getId())) {
+                                update(loading.tree, ficheSuiviOuvrage.getId(), ficheSuiviOuvrage);
+                            }
+                        }
+                    )
+            )
+            .count()
+            .doOnNext(
+                count -> {
+                    write(
+                        () -> {
+                            // a rebuild which started meanwhile replaces this one
+                            if (this.loading == loading) {
+                                tree = loading.tree;
+                                this.loading = null;
+                            }
+                        }
+                    );
+                    log.info("Loaded the geo index of {} FicheSuiviOuvrages", count);
+                }
+            )
+            .doOnError(
+                e ->
+                    write(
+                        () -> {
+                            if (this.loading == loading) {
+                                this.loading = null;
+                            }
+                        }
+                    )
+            )
+            .then();
+    }
+
+    /**
+     * Updates the coordinates of the ficheSuiviOuvrage which has been written.
+     *
+     * @param event the change event.
+     */
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.getEntityType() != FicheSuiviOuvrage.class || event.getId() == null) {
+            return;
+        }
+        write(
+            () -> {
+                if (loading != null) {
+                    loading.changed.add(event.getId());
+                }
+            }
+        );
+        if (event.getOperation() == EntityChangeEvent.Operation.SAVE && event.getEntity() == null) {
+            // the event doesn't provide the saved coordinates, they are reloaded
+            ficheSuiviOuvrageRepository
+                .findById(event.getId(), COORDINATES)
+                .subscribe(
+                    ficheSuiviOuvrage -> write(() -> update(event.getId(), ficheSuiviOuvrage)),
+                    e -> log.warn("Failed to reload the coordinates of FicheSuiviOuvrage {}", event.getId(), e)
+                );
+            return;
+        }
+        write(() -> update(event.getId(), (FicheSuiviOuvrage) event.getEntity()));
+    }
+
+    private void update(Long id, FicheSuiviOuvrage ficheSuiviOuvrage) {
+        update(tree, id, ficheSuiviOuvrage);
+        if (loading != null) {
+            update(loading.tree, id, ficheSuiviOuvrage);
+        }
+    }
+
+    private void update(PointQuadtree tree, Long id, FicheSuiviOuvrage ficheSuiviOuvrage) {
+        if (ficheSuiviOuvrage == null || ficheSuiviOuvrage.getLatitude() == null || ficheSuiviOuvrage.getLongitude() == null) {
+            tree.remove(id);
+            return;
+        }
+        try {
+            tree.put(id, ficheSuiviOuvrage.getLatitude(), ficheSuiviOuvrage.getLongitude());
+        } catch (IllegalArgumentException e) {
+            log.warn("FicheSuiviOuvrage {} is not indexed: {}", id, e.getMessage());
+            tree.remove(id);
+        }
+    }
+
+    /**
+     * Finds the ficheSuiviOuvrages in a bounding box, which crosses the antimeridian if its west bound is greater than its
+     * east bound.
+     *
+     * @param minLatitude the south bound, in degrees.
+     * @param minLongitude the west bound, in degrees.
+     * @param maxLatitude the north bound, in degrees.
+     * @param maxLongitude the east bound, in degrees.
+     * @return the points of the ficheSuiviOuvrages, in no particular order.
+     */
+    public List<PointQuadtree.Entry> within(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        lock.readLock().lock();
+        try {
+            return tree.within(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the ficheSuiviOuvrages within a distance of a point.
+     *
+     * @param latitude the latitude of the point, in degrees.
+     * @param longitude the longitude of the point, in degrees.
+     * @param radius the distance, in meters.
+     * @return the points of the ficheSuiviOuvrages, from the nearest to the farthest.
+     */
+    public List<PointQuadtree.Entry> near(double latitude, double longitude, double radius) {
+        lock.readLock().lock();
+        try {
+            return tree.near(latitude, longitude, radius);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the nearest ficheSuiviOuvrages of a point.
+     *
+     * @param latitude the latitude of the point, in degrees.
+     * @param longitude the longitude of the point, in degrees.
+     * @param count the number of ficheSuiviOuvrages.
+     * @return the points of the ficheSuiviOuvrages, from the nearest to the farthest.
+     */
+    public List<PointQuadtree.Entry> nearest(double latitude, double longitude, int count) {
+        lock.readLock().lock();
+        try {
+            return tree.nearest(latitude, longitude, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // the index being rebuilt, and the ids changed meanwhile, whose loaded coordinates may be stale
+    private static final class Loading {
+
+        final PointQuadtree tree = new PointQuadtree();
+
+        final Set<Long> changed = new HashSet<>();
+    }
+}
@@ -0,0 +1,43 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import java.util.Locale;
+
+/**
+ * The references of a {@link FicheSuiviOuvrage}, which select and reassign the ficheSuiviOuvrages in bulk.
+ */
+public enum FicheSuiviOuvrageReference {
+    PARCELLE("parcelleId"),
+    PREVISION("previsionId"),
+    NATUREOUVRAGE("natureouvrageId"),
+    TYPEHABITATION("typehabitationId"),
+    SOURCEAPPROVEP("sourceapprovepId"),
+    MODEEVACUATIONEAUUSEE("modeevacuationeauuseeId"),
+    MODEEVACEXCRETA("modeevacexcretaId"),
+    MACON("maconId"),
+    PREFABRICANT("prefabricantId");
+
+    private final String property;
+
+    FicheSuiviOuvrageReference(String property) {
+        this.property = property;
+    }
+
+    /**
+     * @return the property of the entity which holds the id of the reference.
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Parse a reference, case insensitively.
+     *
+     * @param value the name of the reference, as the property of the DTO, e.g. {@code macon}.
+     * @return the reference.
+     * @throws IllegalArgumentException if the value is not a known reference.
+     */
+    public static FicheSuiviOuvrageReference parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
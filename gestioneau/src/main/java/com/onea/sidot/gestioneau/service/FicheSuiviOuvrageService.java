@@ -1,19 +1,51 @@
 package com.onea.sidot.gestioneau.service;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
+import static org.springframework.data.relational.core.query.Criteria.where;
 
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
 import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrageDocument;
+import com.onea.sidot.gestioneau.domain.Macon;
+import com.onea.sidot.gestioneau.domain.ModeEvacExcreta;
+import com.onea.sidot.gestioneau.domain.ModeEvacuationEauUsee;
+import com.onea.sidot.gestioneau.domain.NatureOuvrage;
+import com.onea.sidot.gestioneau.domain.Prefabricant;
+import com.onea.sidot.gestioneau.domain.SourceApprovEp;
+import com.onea.sidot.gestioneau.domain.TypeHabitation;
 import com.onea.sidot.gestioneau.repository.FicheSuiviOuvrageRepository;
 import com.onea.sidot.gestioneau.repository.search.FicheSuiviOuvrageSearchRepository;
+import com.onea.sidot.gestioneau.service.dto.BulkItemResultDTO;
 import com.onea.sidot.gestioneau.service.dto.FicheSuiviOuvrageDTO;
+import com.onea.sidot.gestioneau.service.dto.SearchFacetsDTO;
+import com.onea.sidot.gestioneau.service.mapper.FicheSuiviOuvrageDocumentMapper;
 import com.onea.sidot.gestioneau.service.mapper.FicheSuiviOuvrageMapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Update;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 /**
  * Service Implementation for managing {@link FicheSuiviOuvrage}.
@@ -30,14 +62,88 @@ public class FicheSuiviOuvrageService {
 
     private final FicheSuiviOuvrageSearchRepository ficheSuiviOuvrageSearchRepository;
 
+    private final EntityManager entityManager;
+
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final FicheSuiviOuvrageGeoIndex ficheSuiviOuvrageGeoIndex;
+
+    private final HierarchyRollupService hierarchyRollupService;
+
+    private final EntityCache entityCache;
+
+    private final Validator validator;
+
+    private final int bulkChunkSize;
+
+    private final SearchOutbox searchOutbox;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final FicheSuiviOuvrageDocumentMapper ficheSuiviOuvrageDocumentMapper;
+
     public FicheSuiviOuvrageService(
         FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository,
         FicheSuiviOuvrageMapper ficheSuiviOuvrageMapper,
-        FicheSuiviOuvrageSearchRepository ficheSuiviOuvrageSearchRepository
+        FicheSuiviOuvrageSearchRepository ficheSuiviOuvrageSearchRepository,
+        EntityManager entityManager,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        FicheSuiviOuvrageGeoIndex ficheSuiviOuvrageGeoIndex,
+        HierarchyRollupService hierarchyRollupService,
+        EntityCache entityCache,
+        Validator validator,
+        ApplicationProperties applicationProperties,
+        SearchOutbox searchOutbox,
+        TransactionalOperator transactionalOperator,
+        FicheSuiviOuvrageDocumentLoader ficheSuiviOuvrageDocumentLoader,
+        FicheSuiviOuvrageDocumentMapper ficheSuiviOuvrageDocumentMapper
     ) {
         this.ficheSuiviOuvrageRepository = ficheSuiviOuvrageRepository;
         this.ficheSuiviOuvrageMapper = ficheSuiviOuvrageMapper;
         this.ficheSuiviOuvrageSearchRepository = ficheSuiviOuvrageSearchRepository;
+        this.entityManager = entityManager;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.ficheSuiviOuvrageGeoIndex = ficheSuiviOuvrageGeoIndex;
+        this.hierarchyRollupService = hierarchyRollupService;
+        this.entityCache = entityCache;
+        this.validator = validator;
+        this.bulkChunkSize = applicationProperties.getBulk().getChunkSize();
+        this.searchOutbox = searchOutbox;
+        this.transactionalOperator = transactionalOperator;
+        this.ficheSuiviOuvrageDocumentMapper = ficheSuiviOuvrageDocumentMapper;
+        searchOutbox.register(
+            FicheSuiviOuvrage.class,
+            FicheSuiviOuvrageDocument.class,
+            ficheSuiviOuvrageSearchRepository,
+            ficheSuiviOuvrageDocumentLoader::findAllBy
+        );
+        // the documents hold the libelles of the ancestors of the parcelle and of the lookups
+        for (HierarchyLevel level : HierarchyLevel.values()) {
+            searchOutbox.registerDependents(
+                level.getEntityType(),
+                FicheSuiviOuvrage.class,
+                ids -> ficheSuiviOuvrageRepository.findAllIdsUnder(level, ids)
+            );
+        }
+        registerDependents(NatureOuvrage.class, FicheSuiviOuvrageReference.NATUREOUVRAGE);
+        registerDependents(TypeHabitation.class, FicheSuiviOuvrageReference.TYPEHABITATION);
+        registerDependents(SourceApprovEp.class, FicheSuiviOuvrageReference.SOURCEAPPROVEP);
+        registerDependents(ModeEvacuationEauUsee.class, FicheSuiviOuvrageReference.MODEEVACUATIONEAUUSEE);
+        registerDependents(ModeEvacExcreta.class, FicheSuiviOuvrageReference.MODEEVACEXCRETA);
+        registerDependents(Macon.class, FicheSuiviOuvrageReference.MACON);
+        registerDependents(Prefabricant.class, FicheSuiviOuvrageReference.PREFABRICANT);
+    }
+
+    private void registerDependents(Class<?> referenceType, FicheSuiviOuvrageReference reference) {
+        searchOutbox.registerDependents(
+            referenceType,
+            FicheSuiviOuvrage.class,
+            ids -> ficheSuiviOuvrageRepository.findAllIdsBy(where(reference.getProperty()).in(ids))
+        );
     }
 
     /**
@@ -50,10 +156,99 @@ public class FicheSuiviOuvrageService {
         log.debug("Request to save FicheSuiviOuvrage : {}", ficheSuiviOuvrageDTO);
         return ficheSuiviOuvrageRepository
             .save(ficheSuiviOuvrageMapper.toEntity(ficheSuiviOuvrageDTO))
-            .flatMap(ficheSuiviOuvrageSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(FicheSuiviOuvrage.class, saved.getId()))
+            .delayUntil(saved -> hierarchyRollupService.resolvePaths(Collections.singletonList(saved)))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(FicheSuiviOuvrage.class, saved.getId(), saved)))
             .map(ficheSuiviOuvrageMapper::toDto);
     }
 
+    /**
+     * Save a batch of new ficheSuiviOuvrages, such as the upload of a field campaign.
+     * <p>
+     * The items are validated one by one, and the valid ones are written by chunks, with a single multi-row insert per chunk,
+     * and recorded in the {@link SearchOutbox} by a single other one. An invalid item, or a chunk rejected by the database,
+     * doesn't stop the upload: the outcome of every item is reported in its result.
+     * <p>
+     * Every chunk is run in its own transaction, the batch as a whole isn't run in a transaction.
+     *
+     * @param ficheSuiviOuvrageDTOs the entities to save.
+     * @return the result of every item, in the order of the items.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<BulkItemResultDTO> saveAll(Flux<FicheSuiviOuvrageDTO> ficheSuiviOuvrageDTOs) {
+        log.debug("Request to save a batch of FicheSuiviOuvrages");
+        return ficheSuiviOuvrageDTOs.index().buffer(bulkChunkSize).concatMap(this::saveChunk);
+    }
+
+    private Flux<BulkItemResultDTO> saveChunk(List<Tuple2<Long, FicheSuiviOuvrageDTO>> chunk) {
+        BulkItemResultDTO[] results = new BulkItemResultDTO[chunk.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<FicheSuiviOuvrage> entities = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            long index = chunk.get(i).getT1();
+            FicheSuiviOuvrageDTO ficheSuiviOuvrageDTO = chunk.get(i).getT2();
+            List<String> errors = validate(ficheSuiviOuvrageDTO);
+            if (errors.isEmpty()) {
+                positions.add(i);
+                entities.add(ficheSuiviOuvrageMapper.toEntity(ficheSuiviOuvrageDTO));
+            } else {
+                results[i] = BulkItemResultDTO.invalid(index, errors);
+            }
+        }
+        if (entities.isEmpty()) {
+            return Flux.fromArray(results);
+        }
+        return ficheSuiviOuvrageRepository
+            .insertAll(entities)
+            .collectList()
+            .delayUntil(saved -> searchOutbox.changed(FicheSuiviOuvrage.class, ids(saved)))
+            .delayUntil(hierarchyRollupService::resolvePaths)
+            .delayUntil(
+                saved ->
+                    Flux
+                        .fromIterable(saved)
+                        .concatMap(
+                            entity ->
+                                entityChangePublisher.publish(EntityChangeEvent.saved(FicheSuiviOuvrage.class, entity.getId(), entity))
+                        )
+            )
+            .as(transactionalOperator::transactional)
+            .map(
+                saved -> {
+                    for (int k = 0; k < positions.size(); k++) {
+                        int position = positions.get(k);
+                        results[position] = BulkItemResultDTO.created(chunk.get(position).getT1(), saved.get(k).getId());
+                    }
+                    return results;
+                }
+            )
+            .onErrorResume(
+                e -> {
+                    log.warn("A chunk of {} FicheSuiviOuvrages was rejected by the database: {}", entities.size(), e.getMessage());
+                    for (int position : positions) {
+                        results[position] = BulkItemResultDTO.failed(chunk.get(position).getT1(), "rejected by the database");
+                    }
+                    return Mono.just(results);
+                }
+            )
+            .flatMapMany(Flux::fromArray);
+    }
+
+    private List<String> validate(FicheSuiviOuvrageDTO ficheSuiviOuvrageDTO) {
+        List<String> errors = new ArrayList<>();
+        if (ficheSuiviOuvrageDTO == null) {
+            errors.add("must not be null");
+            return errors;
+        }
+        if (ficheSuiviOuvrageDTO.getId() != null) {
+            errors.add("id: must be null");
+        }
+        for (ConstraintViolation<FicheSuiviOuvrageDTO> violation : validator.validate(ficheSuiviOuvrageDTO)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        return errors;
+    }
+
     /**
      * Partially update a ficheSuiviOuvrage.
      *
@@ -72,14 +267,132 @@ public class FicheSuiviOuvrageService {
                 }
             )
             .flatMap(ficheSuiviOuvrageRepository::save)
-            .flatMap(
-                savedFicheSuiviOuvrage -> {
-                    ficheSuiviOuvrageSearchRepository.save(savedFicheSuiviOuvrage);
+            .delayUntil(saved -> searchOutbox.changed(FicheSuiviOuvrage.class, saved.getId()))
+            .delayUntil(saved -> hierarchyRollupService.resolvePaths(Collections.singletonList(saved)))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(FicheSuiviOuvrage.class, saved.getId(), saved)))
+            .map(ficheSuiviOuvrageMapper::toDto);
+    }
 
-                    return Mono.just(savedFicheSuiviOuvrage);
-                }
+    /**
+     * Set the references of a selection of ficheSuiviOuvrages, such as the reassignment of a batch to another macon.
+     * <p>
+     * The ids of the selection are read first, then every chunk of them is updated by a single statement, recorded in the
+     * {@link SearchOutbox} by a single other one, reloaded and published as saved. The whole update is run in a single
+     * transaction.
+     *
+     * @param ids the ids of the selected ficheSuiviOuvrages, or empty to select them by the filter only.
+     * @param filter the ids of the references of the selected ficheSuiviOuvrages, null for no reference.
+     * @param changes the new ids of the references, null to remove them.
+     * @return the number of updated ficheSuiviOuvrages.
+     */
+    public Mono<Long> updateAll(
+        List<Long> ids,
+        Map<FicheSuiviOuvrageReference, Long> filter,
+        Map<FicheSuiviOuvrageReference, Long> changes
+    ) {
+        log.debug("Request to update the FicheSuiviOuvrages {} {} : {}", ids, filter, changes);
+        Update update = null;
+        for (Map.Entry<FicheSuiviOuvrageReference, Long> change : changes.entrySet()) {
+            String property = change.getKey().getProperty();
+            update = update == null ? Update.update(property, change.getValue()) : update.set(property, change.getValue());
+        }
+        Update changed = update;
+        return findAllIdsBy(ids, filter)
+            .concatMap(
+                chunk ->
+                    ficheSuiviOuvrageRepository
+                        .updateAll(select(where("id").in(chunk), Collections.emptyList(), filter), changed)
+                        .delayUntil(updated -> searchOutbox.changed(FicheSuiviOuvrage.class, chunk))
+                        .delayUntil(
+                            updated ->
+                                ficheSuiviOuvrageRepository
+                                    .findAllBy(null, where("id").in(chunk))
+                                    .collectList()
+                                    .delayUntil(hierarchyRollupService::resolvePaths)
+                                    .flatMapMany(Flux::fromIterable)
+                                    .concatMap(
+                                        entity ->
+                                            entityChangePublisher.publish(
+                                                EntityChangeEvent.saved(FicheSuiviOuvrage.class, entity.getId(), entity)
+                                            )
+                                    )
+                        )
             )
-            .map(ficheSuiviOuvrageMapper::toDto);
+            .reduce(0L, (total, count) -> total + count);
+    }
+
+    /**
+     * Delete a selection of ficheSuiviOuvrages.
+     * <p>
+     * The ids of the selection are read first, then every chunk of them is deleted by a single statement, which checks the
+     * filter again. The ids of the chunk which are not found anymore are then recorded in the {@link SearchOutbox} by a single
+     * other one, and published as deleted. The whole deletion is run in a single transaction.
+     *
+     * @param ids the ids of the selected ficheSuiviOuvrages, or empty to select them by the filter only.
+     * @param filter the ids of the references of the selected ficheSuiviOuvrages, null for no reference.
+     * @return the number of deleted ficheSuiviOuvrages.
+     */
+    public Mono<Long> deleteAll(List<Long> ids, Map<FicheSuiviOuvrageReference, Long> filter) {
+        log.debug("Request to delete the FicheSuiviOuvrages {} {}", ids, filter);
+        return findAllIdsBy(ids, filter)
+            .concatMap(
+                chunk ->
+                    ficheSuiviOuvrageRepository
+                        .deleteAll(select(where("id").in(chunk), Collections.emptyList(), filter))
+                        .delayUntil(
+                            count ->
+                                deletedIds(chunk)
+                                    .delayUntil(deleted -> searchOutbox.changed(FicheSuiviOuvrage.class, deleted))
+                                    .flatMapMany(Flux::fromIterable)
+                                    .concatMap(id -> entityChangePublisher.publish(EntityChangeEvent.deleted(FicheSuiviOuvrage.class, id)))
+                        )
+            )
+            .reduce(0L, (total, count) -> total + count);
+    }
+
+    // the ids of a chunk which the deletion, checking the filter again, has actually deleted: the ones which are not found anymore
+    private Mono<List<Long>> deletedIds(List<Long> chunk) {
+        return ficheSuiviOuvrageRepository
+            .findAllIdsBy(where("id").in(chunk))
+            .collect(Collectors.toSet())
+            .map(
+                remaining -> {
+                    List<Long> deleted = new ArrayList<>(chunk);
+                    deleted.removeAll(remaining);
+                    return deleted;
+                }
+            );
+    }
+
+    // the ids of the selection, by chunks; they are all read before the first write, as a connection runs a statement at a time.
+    // The chunks are written with the filter checked again, but not with the ids of the selection, as a statement binds a
+    // parameter per id
+    private Flux<List<Long>> findAllIdsBy(List<Long> ids, Map<FicheSuiviOuvrageReference, Long> filter) {
+        return ficheSuiviOuvrageRepository
+            .findAllIdsBy(select(null, ids, filter))
+            .collectList()
+            .flatMapMany(selected -> Flux.fromIterable(selected).buffer(bulkChunkSize));
+    }
+
+    // the ficheSuiviOuvrages among the ids, if any, whose references are the ones of the filter
+    private static Criteria select(Criteria criteria, List<Long> ids, Map<FicheSuiviOuvrageReference, Long> filter) {
+        if (!ids.isEmpty()) {
+            criteria = criteria == null ? where("id").in(ids) : criteria.and("id").in(ids);
+        }
+        for (Map.Entry<FicheSuiviOuvrageReference, Long> reference : filter.entrySet()) {
+            String property = reference.getKey().getProperty();
+            Criteria.CriteriaStep step = criteria == null ? where(property) : criteria.and(property);
+            criteria = reference.getValue() != null ? step.is(reference.getValue()) : step.isNull();
+        }
+        return criteria;
+    }
+
+    private static List<Long> ids(List<FicheSuiviOuvrage> entities) {
+        List<Long> ids = new ArrayList<>(entities.size());
+        for (FicheSuiviOuvrage entity : entities) {
+            ids.add(entity.getId());
+        }
+        return ids;
     }
 
     /**
@@ -90,8 +403,203 @@ public class FicheSuiviOuvrageService {
      */
     @Transactional(readOnly = true)
     public Flux<FicheSuiviOuvrageDTO> findAll(Pageable pageable) {
-        log.debug("Request to get all FicheSuiviOuvrages");
-        return ficheSuiviOuvrageRepository.findAllBy(pageable).map(ficheSuiviOuvrageMapper::toDto);
+        return findAll(pageable, Projection.all());
+    }
+
+    /**
+     * Get the projection of all the ficheSuiviOuvrages: the properties which are not projected are null.
+     *
+     * @param pageable the pagination information.
+     * @param projection the requested properties.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Flux<FicheSuiviOuvrageDTO> findAll(Pageable pageable, Projection projection) {
+        log.debug("Request to get all FicheSuiviOuvrages : {}", projection);
+        return ficheSuiviOuvrageRepository.findAllBy(pageable, null, projection).map(ficheSuiviOuvrageMapper::toDto);
+    }
+
+    /**
+     * Get the projection of the ficheSuiviOuvrages under a node of the geography hierarchy, found with the closure table.
+     *
+     * @param level the level of the node.
+     * @param nodeId the id of the node.
+     * @param pageable the pagination information.
+     * @param projection the requested properties.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Flux<FicheSuiviOuvrageDTO> findAllUnder(HierarchyLevel level, Long nodeId, Pageable pageable, Projection projection) {
+        log.debug("Request to get the FicheSuiviOuvrages under {} {} : {}", level, nodeId, projection);
+        return ficheSuiviOuvrageRepository.findAllUnder(level, nodeId, pageable, projection).map(ficheSuiviOuvrageMapper::toDto);
+    }
+
+    /**
+     * Returns the number of ficheSuiviOuvrages under a node of the geography hierarchy.
+     *
+     * @param level the level of the node.
+     * @param nodeId the id of the node.
+     * @return the number of entities in the database.
+     */
+    public Mono<Long> countUnder(HierarchyLevel level, Long nodeId) {
+        return ficheSuiviOuvrageRepository.countUnder(level, nodeId);
+    }
+
+    /**
+     * Check that the ficheSuiviOuvrages can be paged by keyset with a sort, see {@link EntityManager#checkKeysetSort}.
+     *
+     * @param sort the sort of the keyset page.
+     * @throws IllegalArgumentException if a sort property is unknown, or nullable.
+     */
+    public void checkKeysetSort(Sort sort) {
+        entityManager.checkKeysetSort(FicheSuiviOuvrage.class, sort);
+    }
+
+    /**
+     * Get a keyset page of ficheSuiviOuvrages.
+     *
+     * @param pageable the keyset pagination information.
+     * @return the page of entities, with the cursor of the next page if there is one.
+     */
+    @Transactional(readOnly = true)
+    public Mono<KeysetSlice<FicheSuiviOuvrageDTO>> findAll(KeysetPageable pageable) {
+        return findAll(pageable, Projection.all());
+    }
+
+    /**
+     * Get the projection of a keyset page of ficheSuiviOuvrages: the properties which are not projected are null.
+     *
+     * @param pageable the keyset pagination information.
+     * @param projection the requested properties.
+     * @return the page of entities, with the cursor of the next page if there is one.
+     */
+    @Transactional(readOnly = true)
+    public Mono<KeysetSlice<FicheSuiviOuvrageDTO>> findAll(KeysetPageable pageable, Projection projection) {
+        log.debug("Request to get a keyset page of FicheSuiviOuvrages : {}, {}", pageable, projection);
+        return ficheSuiviOuvrageRepository
+            .findAllAfter(pageable, null, projection)
+            .collectList()
+            .map(entities -> KeysetSlice.of(entities, pageable, entityManager::createCursor).map(ficheSuiviOuvrageMapper::toDto));
+    }
+
+    /**
+     * Get the projection of a page of the ficheSuiviOuvrages in a bounding box, found with the geo index.
+     *
+     * @param minLatitude the south bound, in degrees.
+     * @param minLongitude the west bound, in degrees.
+     * @param maxLatitude the north bound, in degrees.
+     * @param maxLongitude the east bound, in degrees.
+     * @param pageable the pagination information, the entities are sorted by id.
+     * @param projection the requested properties.
+     * @return the page of entities.
+     */
+    @Transactional(readOnly = true)
+    public Mono<Page<FicheSuiviOuvrageDTO>> findAllWithin(
+        double minLatitude,
+        double minLongitude,
+        double maxLatitude,
+        double maxLongitude,
+        Pageable pageable,
+        Projection projection
+    ) {
+        log.debug("Request to get the FicheSuiviOuvrages within {},{} {},{}", minLatitude, minLongitude, maxLatitude, maxLongitude);
+        List<PointQuadtree.Entry> points = ficheSuiviOuvrageGeoIndex.within(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        points.sort(Comparator.comparingLong(PointQuadtree.Entry::getId));
+        return findPage(points, pageable, projection);
+    }
+
+    /**
+     * Get the projection of a page of the ficheSuiviOuvrages within a distance of a point, found with the geo index.
+     *
+     * @param latitude the latitude of the point, in degrees.
+     * @param longitude the longitude of the point, in degrees.
+     * @param radius the distance, in meters.
+     * @param pageable the pagination information, the entities are sorted from the nearest to the farthest.
+     * @param projection the requested properties.
+     * @return the page of entities.
+     */
+    @Transactional(readOnly = true)
+    public Mono<Page<FicheSuiviOuvrageDTO>> findAllNear(
+        double latitude,
+        double longitude,
+        double radius,
+        Pageable pageable,
+        Projection projection
+    ) {
+        log.debug("Request to get the FicheSuiviOuvrages within {}m of {},{}", radius, latitude, longitude);
+        return findPage(ficheSuiviOuvrageGeoIndex.near(latitude, longitude, radius), pageable, projection);
+    }
+
+    /**
+     * Get the projection of the nearest ficheSuiviOuvrages of a point, found with the geo index.
+     *
+     * @param latitude the latitude of the point, in degrees.
+     * @param longitude the longitude of the point, in degrees.
+     * @param count the number of entities.
+     * @param projection the requested properties.
+     * @return the entities, from the nearest to the farthest.
+     */
+    @Transactional(readOnly = true)
+    public Flux<FicheSuiviOuvrageDTO> findNearest(double latitude, double longitude, int count, Projection projection) {
+        log.debug("Request to get the {} nearest FicheSuiviOuvrages of {},{}", count, latitude, longitude);
+        return findAllInOrder(ficheSuiviOuvrageGeoIndex.nearest(latitude, longitude, count), projection).flatMapIterable(dtos -> dtos);
+    }
+
+    // the points of the ficheSuiviOuvrages deleted since they were indexed are neither paged nor counted
+    private Mono<Page<FicheSuiviOuvrageDTO>> findPage(List<PointQuadtree.Entry> points, Pageable pageable, Projection projection) {
+        return findExistingIds(points)
+            .flatMap(
+                existingIds -> {
+                    List<PointQuadtree.Entry> found = new ArrayList<>(existingIds.size());
+                    for (PointQuadtree.Entry point : points) {
+                        if (existingIds.contains(point.getId())) {
+                            found.add(point);
+                        }
+                    }
+                    List<PointQuadtree.Entry> content = found;
+                    if (pageable.isPaged()) {
+                        int from = (int) Math.min(pageable.getOffset(), found.size());
+                        content = found.subList(from, Math.min(from + pageable.getPageSize(), found.size()));
+                    }
+                    return findAllInOrder(content, projection).map(dtos -> new PageImpl<>(dtos, pageable, found.size()));
+                }
+            );
+    }
+
+    // the ids of the points which still exist, read by chunks as a statement binds a parameter per id
+    private Mono<Set<Long>> findExistingIds(List<PointQuadtree.Entry> points) {
+        return Flux
+            .fromIterable(points)
+            .map(PointQuadtree.Entry::getId)
+            .buffer(bulkChunkSize)
+            .concatMap(ids -> ficheSuiviOuvrageRepository.findAllIdsBy(where("id").in(ids)))
+            .collect(Collectors.toSet());
+    }
+
+    // loads the entities of the points, in the order of the points; the ones deleted since they were indexed are skipped
+    private Mono<List<FicheSuiviOuvrageDTO>> findAllInOrder(List<PointQuadtree.Entry> points, Projection projection) {
+        if (points.isEmpty()) {
+            return Mono.just(new ArrayList<>());
+        }
+        List<Long> ids = new ArrayList<>(points.size());
+        for (PointQuadtree.Entry point : points) {
+            ids.add(point.getId());
+        }
+        return ficheSuiviOuvrageRepository
+            .findAllBy(null, where("id").in(ids), projection)
+            .collectMap(FicheSuiviOuvrage::getId)
+            .map(
+                entities -> {
+                    List<FicheSuiviOuvrageDTO> dtos = new ArrayList<>(ids.size());
+                    for (Long id : ids) {
+                        FicheSuiviOuvrage entity = entities.get(id);
+                        if (entity != null) {
+                            dtos.add(ficheSuiviOuvrageMapper.toDto(entity));
+                        }
+                    }
+                    return dtos;
+                }
+            );
     }
 
     /**
@@ -100,15 +608,16 @@ public class FicheSuiviOuvrageService {
      *
      */
     public Mono<Long> countAll() {
-        return ficheSuiviOuvrageRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of ficheSuiviOuvrages available in search repository.
-     *
+     * Returns the number of ficheSuiviOuvrages available, cached until a ficheSuiviOuvrage is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return ficheSuiviOuvrageSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(FicheSuiviOuvrage.class, mode);
     }
 
     /**
@@ -117,10 +626,25 @@ public class FicheSuiviOuvrageService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<FicheSuiviOuvrageDTO> findOne(Long id) {
-        log.debug("Request to get FicheSuiviOuvrage : {}", id);
-        return ficheSuiviOuvrageRepository.findById(id).map(ficheSuiviOuvrageMapper::toDto);
+        return findOne(id, Projection.all());
+    }
+
+    /**
+     * Get the projection of one ficheSuiviOuvrage by id: the properties which are not projected are null. The whole
+     * ficheSuiviOuvrages are read through the {@link EntityCache}.
+     *
+     * @param id the id of the entity.
+     * @param projection the requested properties.
+     * @return the entity.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Mono<FicheSuiviOuvrageDTO> findOne(Long id, Projection projection) {
+        log.debug("Request to get FicheSuiviOuvrage : {}, {}", id, projection);
+        Supplier<Mono<FicheSuiviOuvrageDTO>> loader = () ->
+            ficheSuiviOuvrageRepository.findById(id, projection).map(ficheSuiviOuvrageMapper::toDto);
+        return projection.isAll() ? entityCache.findById(FicheSuiviOuvrage.class, id, loader) : loader.get();
     }
 
     /**
@@ -131,7 +655,10 @@ public class FicheSuiviOuvrageService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete FicheSuiviOuvrage : {}", id);
-        return ficheSuiviOuvrageRepository.deleteById(id).then(ficheSuiviOuvrageSearchRepository.deleteById(id));
+        return ficheSuiviOuvrageRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(FicheSuiviOuvrage.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(FicheSuiviOuvrage.class, id)));
     }
 
     /**
@@ -139,11 +666,44 @@ public class FicheSuiviOuvrageService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<FicheSuiviOuvrageDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<FicheSuiviOuvrageDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of FicheSuiviOuvrages for query {}", query);
-        return ficheSuiviOuvrageSearchRepository.search(query, pageable).map(ficheSuiviOuvrageMapper::toDto);
+        return ficheSuiviOuvrageSearchRepository
+            .search(query, pageable)
+            .map(results -> results.map(ficheSuiviOuvrageDocumentMapper::toDto));
+    }
+
+    /**
+     * Count the ficheSuiviOuvrages corresponding to the query by facet, with a single search: by the references of
+     * {@link FicheSuiviOuvrageDocument#TERM_FACETS}, from the region to the parcelle and the lookups, and by the interval of
+     * the dates of {@link FicheSuiviOuvrageDocument#DATE_FACETS}.
+     *
+     * @param query the query of the search.
+     * @param facets the names of the facets, or empty for all of them.
+     * @param interval the interval of the dates.
+     * @param size the maximum number of references per facet, the most frequent ones.
+     * @return the total of the hits and their counts by facet.
+     * @throws IllegalArgumentException if a facet is unknown.
+     */
+    @Transactional(readOnly = true)
+    public Mono<SearchFacetsDTO> facets(String query, Collection<String> facets, FacetInterval interval, int size) {
+        log.debug("Request to count the FicheSuiviOuvrages for query {} by {}", query, facets);
+        List<String> selected = new ArrayList<>();
+        if (facets.isEmpty()) {
+            selected.addAll(FicheSuiviOuvrageDocument.TERM_FACETS);
+            selected.addAll(FicheSuiviOuvrageDocument.DATE_FACETS);
+        }
+        for (String facet : facets) {
+            if (!FicheSuiviOuvrageDocument.TERM_FACETS.contains(facet) && !FicheSuiviOuvrageDocument.DATE_FACETS.contains(facet)) {
+                throw new IllegalArgumentException("Unknown facet: " + facet);
+            }
+            if (!selected.contains(facet)) {
+                selected.add(facet);
+            }
+        }
+        return ficheSuiviOuvrageSearchRepository.facets(query, selected, interval, size);
     }
 }
@@ -0,0 +1,129 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Maintains the {@code geo_closure} table: a row per node of the geography hierarchy and per ancestor of the node, the node
+ * itself included with a depth of 0, so that the descendants of any node are a single indexed lookup.
+ * <p>
+ * The services of the hierarchy call it in the transaction of their writes. Moving a node moves its whole subtree.
+ */
+@Service
+public class GeoClosureService {
+
+    private static final String SELECT_LINKS =
+        "SELECT ancestor_id, depth FROM geo_closure WHERE descendant_level = :level AND descendant_id = :id AND depth <= 1";
+
+    private static final String INSERT_SELF =
+        "INSERT INTO geo_closure (ancestor_level, ancestor_id, descendant_level, descendant_id, depth)" +
+        " VALUES (:level, :id, :level, :id, 0)";
+
+    // the links between the ancestors of the node and its subtree
+    private static final String DETACH =
+        "DELETE FROM geo_closure WHERE ancestor_level IN (:ancestorLevels) AND EXISTS (SELECT 1 FROM geo_closure s" +
+        " WHERE s.ancestor_level = :level AND s.ancestor_id = :id" +
+        " AND s.descendant_level = geo_closure.descendant_level AND s.descendant_id = geo_closure.descendant_id)";
+
+    // the links between the new parent and its ancestors, and the subtree of the node
+    private static final String ATTACH =
+        "INSERT INTO geo_closure (ancestor_level, ancestor_id, descendant_level, descendant_id, depth)" +
+        " SELECT a.ancestor_level, a.ancestor_id, d.descendant_level, d.descendant_id, a.depth + d.depth + 1" +
+        " FROM geo_closure a, geo_closure d" +
+        " WHERE a.descendant_level = :parentLevel AND a.descendant_id = :parentId AND d.ancestor_level = :level AND d.ancestor_id = :id";
+
+    private static final String DELETE =
+        "DELETE FROM geo_closure" +
+        " WHERE (ancestor_level = :level AND ancestor_id = :id) OR (descendant_level = :level AND descendant_id = :id)";
+
+    private final Logger log = LoggerFactory.getLogger(GeoClosureService.class);
+
+    private final DatabaseClient db;
+
+    public GeoClosureService(R2dbcEntityTemplate r2dbcEntityTemplate) {
+        this.db = r2dbcEntityTemplate.getDatabaseClient();
+    }
+
+    /**
+     * Updates the closure after a node is saved: adds the node if it is new, and moves its subtree if its parent has changed.
+     *
+     * @param level the level of the node.
+     * @param id the id of the node.
+     * @param parentId the id of its parent, or null.
+     * @return a Mono to signal that the closure is up to date.
+     */
+    public Mono<Void> saved(HierarchyLevel level, Long id, Long parentId) {
+        return db
+            .sql(SELECT_LINKS)
+            .bind("level", level.name())
+            .bind("id", id)
+            .map((row, metadata) -> new Long[] { row.get("ancestor_id", Long.class), row.get("depth", Integer.class).longValue() })
+            .all()
+            .collectList()
+            .flatMap(
+                links -> {
+                    boolean exists = false;
+                    Long currentParentId = null;
+                    for (Long[] link : links) {
+                        if (link[1] == 0) {
+                            exists = true;
+                        } else {
+                            currentParentId = link[0];
+                        }
+                    }
+                    Mono<Void> update = exists ? Mono.empty() : insertSelf(level, id);
+                    if (level.getParent() == null || Objects.equals(currentParentId, parentId)) {
+                        return update;
+                    }
+                    log.debug("Moving {} {} from {} to {}", level, id, currentParentId, parentId);
+                    if (currentParentId != null) {
+                        update = update.then(detach(level, id));
+                    }
+                    if (parentId != null) {
+                        update = update.then(attach(level, id, parentId));
+                    }
+                    return update;
+                }
+            );
+    }
+
+    /**
+     * Removes a node from the closure, before or after it is deleted.
+     *
+     * @param level the level of the node.
+     * @param id the id of the node.
+     * @return a Mono to signal that the closure is up to date.
+     */
+    public Mono<Void> deleted(HierarchyLevel level, Long id) {
+        return db.sql(DELETE).bind("level", level.name()).bind("id", id).then();
+    }
+
+    private Mono<Void> insertSelf(HierarchyLevel level, Long id) {
+        return db.sql(INSERT_SELF).bind("level", level.name()).bind("id", id).then();
+    }
+
+    private Mono<Void> detach(HierarchyLevel level, Long id) {
+        List<String> ancestorLevels = new ArrayList<>();
+        for (HierarchyLevel ancestor = level.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            ancestorLevels.add(ancestor.name());
+        }
+        return db.sql(DETACH).bind("ancestorLevels", ancestorLevels).bind("level", level.name()).bind("id", id).then();
+    }
+
+    private Mono<Void> attach(HierarchyLevel level, Long id, Long parentId) {
+        return db
+            .sql(ATTACH)
+            .bind("parentLevel", level.getParent().name())
+            .bind("parentId", parentId)
+            .bind("level", level.name())
+            .bind("id", id)
+            .then();
+    }
+}
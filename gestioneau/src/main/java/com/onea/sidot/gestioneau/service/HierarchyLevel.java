@@ -0,0 +1,75 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.onea.sidot.gestioneau.domain.Commune;
+import com.onea.sidot.gestioneau.domain.Localite;
+import com.onea.sidot.gestioneau.domain.Lot;
+import com.onea.sidot.gestioneau.domain.Parcelle;
+import com.onea.sidot.gestioneau.domain.Province;
+import com.onea.sidot.gestioneau.domain.Region;
+import com.onea.sidot.gestioneau.domain.Secteur;
+import com.onea.sidot.gestioneau.domain.Section;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * The levels of the administrative hierarchy of the ficheSuiviOuvrages, from the parcelle to the region.
+ */
+public enum HierarchyLevel {
+    PARCELLE(Parcelle.class, parcelle -> ((Parcelle) parcelle).getLotId(), parcelle -> ((Parcelle) parcelle).getLibelle()),
+    LOT(Lot.class, lot -> ((Lot) lot).getSectionId(), lot -> ((Lot) lot).getLibelle()),
+    SECTION(Section.class, section -> ((Section) section).getSecteurId(), section -> ((Section) section).getLibelle()),
+    SECTEUR(Secteur.class, secteur -> ((Secteur) secteur).getLocaliteId(), secteur -> ((Secteur) secteur).getLibelle()),
+    LOCALITE(Localite.class, localite -> ((Localite) localite).getCommuneId(), localite -> ((Localite) localite).getLibelle()),
+    COMMUNE(Commune.class, commune -> ((Commune) commune).getProvinceId(), commune -> ((Commune) commune).getLibelle()),
+    PROVINCE(Province.class, province -> ((Province) province).getRegionId(), province -> ((Province) province).getLibelle()),
+    REGION(Region.class, region -> null, region -> ((Region) region).getLibelle());
+
+    private final Class<?> entityType;
+    private final Function<Object, Long> parentId;
+    private final Function<Object, String> libelle;
+
+    HierarchyLevel(Class<?> entityType, Function<Object, Long> parentId, Function<Object, String> libelle) {
+        this.entityType = entityType;
+        this.parentId = parentId;
+        this.libelle = libelle;
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * @param entity an entity of this level.
+     * @return the id of its parent, in the next level, or null.
+     */
+    public Long getParentId(Object entity) {
+        return parentId.apply(entity);
+    }
+
+    /**
+     * @param entity an entity of this level.
+     * @return its libelle.
+     */
+    public String getLibelle(Object entity) {
+        return libelle.apply(entity);
+    }
+
+    /**
+     * @return the level above this one, or null for the region.
+     */
+    public HierarchyLevel getParent() {
+        HierarchyLevel[] levels = values();
+        return ordinal() + 1 < levels.length ? levels[ordinal() + 1] : null;
+    }
+
+    /**
+     * Parse a level, case insensitively.
+     *
+     * @param value the name of the level.
+     * @return the level.
+     * @throws IllegalArgumentException if the value is not a known level.
+     */
+    public static HierarchyLevel parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,605 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.repository.FicheSuiviOuvrageRepository;
+import com.onea.sidot.gestioneau.service.dto.HierarchyStatsDTO;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Running totals of the ficheSuiviOuvrages per node of the administrative hierarchy, from the parcelle to the region.
+ * <p>
+ * The totals are loaded once the application is ready, then rebuilt from the database at the configured interval, which picks
+ * up the writes made by the other instances or outside of the application; the reads use the previous totals until the new
+ * ones are loaded. The writes made through the services of this instance update the totals right away, by their
+ * {@link EntityChangeEvent}s: the contribution of every ficheSuiviOuvrage is kept, so that an update or a delete subtracts its
+ * previous one. The path of every parcelle up to its region is resolved once, with the {@link ReferenceDataCache}; a node of
+ * the hierarchy which moves under another parent moves the totals of the parcelles below it once its new path is resolved,
+ * the other writes of the hierarchy leave the totals as they are.
+ */
+@Service
+public class HierarchyRollupService {
+
+    private static final int PATH_BATCH_SIZE = 256;
+
+    private static final HierarchyLevel[] LEVELS = HierarchyLevel.values();
+
+    private static final Projection CONTRIBUTION = Projection.of(
+        Arrays.asList("parcelle", "nbUsagers", "subvOnea", "subvProjet", "autreSubv")
+    );
+
+    private final Logger log = LoggerFactory.getLogger(HierarchyRollupService.class);
+
+    private final FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository;
+
+    private final ReferenceDataCache referenceDataCache;
+
+    private final Duration rebuildInterval;
+
+    // the writes of the hierarchy, applied one at a time so that the last move of a node wins
+    private final Sinks.Many<EntityChangeEvent> hierarchyChanges = Sinks.many().unicast().onBackpressureBuffer();
+
+    // the totals which are read
+    private Rollup rollup = new Rollup();
+
+    // the totals being rebuilt, null if there is no rebuild
+    private Loading loading;
+
+    private Mono<Long> rebuilding;
+
+    // incremented by every move of a node, the paths resolved before it may be stale
+    private long generation;
+
+    private Disposable mover;
+
+    private Disposable rebuilder;
+
+    private volatile boolean ready;
+
+    public HierarchyRollupService(
+        FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository,
+        ReferenceDataCache referenceDataCache,
+        ApplicationProperties applicationProperties
+    ) {
+        this.ficheSuiviOuvrageRepository = ficheSuiviOuvrageRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.rebuildInterval = applicationProperties.getHierarchyRollup().getRebuildInterval();
+    }
+
+    /**
+     * Loads the totals, then rebuilds them at the configured interval.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.debug("Loading the hierarchy rollups of the FicheSuiviOuvrages");
+        mover =
+            hierarchyChanges
+                .asFlux()
+                .concatMap(
+                    event ->
+                        move(event)
+                            .onErrorResume(
+                                e -> {
+                                    log.warn("Failed to move the hierarchy rollups after {}", event, e);
+                                    return Mono.empty();
+                                }
+                            )
+                )
+                .subscribe();
+        Flux<Long> rebuilds = rebuildInterval.isZero() ? Flux.just(0L) : Flux.interval(Duration.ZERO, rebuildInterval);
+        rebuilder =
+            rebuilds
+                .onBackpressureDrop()
+                .concatMap(
+                    tick ->
+                        rebuild()
+                            .onErrorResume(
+                                e -> {
+                                    log.error("Failed to load the hierarchy rollups of the FicheSuiviOuvrages", e);
+                                    return Mono.empty();
+                                }
+                            ),
+                    1
+                )
+                .subscribe();
+    }
+
+    /**
+     * Stop the rebuilds.
+     */
+    @PreDestroy
+    public void stop() {
+        if (rebuilder != null) {
+            rebuilder.dispose();
+        }
+        if (mover != null) {
+            mover.dispose();
+        }
+    }
+
+    /**
+     * Reloads the contributions of all the ficheSuiviOuvrages and resolves the paths of their parcelles. The reads use the
+     * previous totals, which keep being updated, until the new ones are complete.
+     *
+     * @return the number of ficheSuiviOuvrages loaded; the rebuild in progress if there is one.
+     */
+    public synchronized Mono<Long> rebuild() {
+        if (rebuilding == null) {
+            Loading loading = new Loading();
+            this.loading = loading;
+            rebuilding =
+                ficheSuiviOuvrageRepository
+                    .findAllBy(null, null, CONTRIBUTION)
+                    .doOnNext(ficheSuiviOuvrage -> loaded(loading, ficheSuiviOuvrage))
+                    .count()
+                    .delayUntil(count -> resolve(loading.rollup, unresolvedParcelles(loading.rollup)))
+                    .doOnNext(
+                        count -> {
+                            rebuilt(loading);
+                            log.info("Loaded the hierarchy rollups of {} FicheSuiviOuvrages", count);
+                        }
+                    )
+                    .doFinally(signal -> endRebuild())
+                    .cache();
+        }
+        return rebuilding;
+    }
+
+    private synchronized void loaded(Loading loading, FicheSuiviOuvrage ficheSuiviOuvrage) {
+        if (!loading.changed.contains(ficheSuiviOuvrage.getId())) {
+            loading.rollup.apply(ficheSuiviOuvrage.getId(), Contribution.of(ficheSuiviOuvrage));
+        }
+    }
+
+    private synchronized Set<Long> unresolvedParcelles(Rollup target) {
+        return target.unresolvedParcelles();
+    }
+
+    private synchronized void rebuilt(Loading loading) {
+        rollup = loading.rollup;
+        this.loading = null;
+        ready = true;
+    }
+
+    private synchronized void endRebuild() {
+        loading = null;
+        rebuilding = null;
+    }
+
+    /**
+     * Ensures that the path of the parcelle of a ficheSuiviOuvrage is resolved, so that its event updates all the levels
+     * at once. The services call it before publishing the event of a saved ficheSuiviOuvrage.
+     *
+     * @param ficheSuiviOuvrages the saved ficheSuiviOuvrages.
+     * @return a Mono to signal that the paths are resolved.
+     */
+    public Mono<Void> resolvePaths(Collection<FicheSuiviOuvrage> ficheSuiviOuvrages) {
+        Set<Long> parcelleIds = new HashSet<>();
+        for (FicheSuiviOuvrage ficheSuiviOuvrage : ficheSuiviOuvrages) {
+            parcelleIds.add(ficheSuiviOuvrage.getParcelleId());
+        }
+        return resolveUnresolved(parcelleIds)
+            .onErrorResume(
+                e -> {
+                    log.warn("Failed to resolve the hierarchy of the parcelles {}", parcelleIds, e);
+                    return Mono.empty();
+                }
+            );
+    }
+
+    /**
+     * Updates the totals with the ficheSuiviOuvrage which has been written, or moves the totals below the node of the
+     * hierarchy which has been written if its parent has changed.
+     *
+     * @param event the change event.
+     */
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.getEntityType() == FicheSuiviOuvrage.class) {
+            onFicheSuiviOuvrageChange(event);
+        } else if (levelOf(event.getEntityType()) != null && event.getId() != null) {
+            synchronized (hierarchyChanges) {
+                hierarchyChanges.tryEmitNext(event);
+            }
+        }
+    }
+
+    private void onFicheSuiviOuvrageChange(EntityChangeEvent event) {
+        if (event.getId() == null) {
+            log.warn("The hierarchy rollups can't be updated by {}", event);
+            return;
+        }
+        if (event.getOperation() == EntityChangeEvent.Operation.SAVE && event.getEntity() == null) {
+            // the event doesn't provide the saved contribution, it is reloaded
+            ficheSuiviOuvrageRepository
+                .findById(event.getId(), CONTRIBUTION)
+                .subscribe(
+                    ficheSuiviOuvrage -> changed(ficheSuiviOuvrage.getId(), Contribution.of(ficheSuiviOuvrage)),
+                    e -> log.warn("Failed to reload the contribution of FicheSuiviOuvrage {}", event.getId(), e)
+                );
+            return;
+        }
+        changed(
+            event.getId(),
+            event.getOperation() == EntityChangeEvent.Operation.SAVE ? Contribution.of((FicheSuiviOuvrage) event.getEntity()) : null
+        );
+    }
+
+    private void changed(Long id, Contribution contribution) {
+        synchronized (this) {
+            rollup.apply(id, contribution);
+            if (loading != null) {
+                loading.changed.add(id);
+                loading.rollup.apply(id, contribution);
+            }
+        }
+        if (contribution != null) {
+            // normally resolved by the service before the event, see resolvePaths
+            resolveUnresolved(Collections.singleton(contribution.parcelleId))
+                .subscribe(null, e -> log.warn("Failed to resolve the hierarchy of the parcelle {}", contribution.parcelleId, e));
+        }
+    }
+
+    // moves the totals of the parcelles below the node which has been written, if it has a new parent
+    private Mono<Void> move(EntityChangeEvent event) {
+        HierarchyLevel level = levelOf(event.getEntityType());
+        if (level.getParent() == null) {
+            return Mono.empty();
+        }
+        Mono<Optional<Object>> entity;
+        if (event.getOperation() == EntityChangeEvent.Operation.DELETE) {
+            entity = Mono.just(Optional.empty());
+        } else if (event.getEntity() != null) {
+            entity = Mono.just(Optional.of(event.getEntity()));
+        } else {
+            // the event doesn't provide the saved node, it is reloaded
+            entity =
+                referenceDataCache
+                    .findAllById(event.getEntityType(), Collections.singleton(event.getId()))
+                    .map(found -> Optional.ofNullable(found.get(event.getId())));
+        }
+        return entity.flatMap(
+            node -> {
+                Long parentId = node.map(level::getParentId).orElse(null);
+                if (!isMoved(level, event.getId(), parentId)) {
+                    // a new node, or a node which keeps its parent
+                    return Mono.empty();
+                }
+                Long[] path = new Long[LEVELS.length];
+                path[level.getParent().ordinal()] = parentId;
+                return resolveLevel(Collections.singletonMap(event.getId(), path), level.getParent().ordinal())
+                    .then(Mono.fromRunnable(() -> moved(level, event.getId(), path)));
+            }
+        );
+    }
+
+    private synchronized boolean isMoved(HierarchyLevel level, Long id, Long parentId) {
+        return rollup.isMoved(level, id, parentId) || (loading != null && loading.rollup.isMoved(level, id, parentId));
+    }
+
+    private synchronized void moved(HierarchyLevel level, Long id, Long[] path) {
+        generation++;
+        rollup.move(level, id, path);
+        if (loading != null) {
+            loading.rollup.move(level, id, path);
+        }
+    }
+
+    private static HierarchyLevel levelOf(Class<?> entityType) {
+        for (HierarchyLevel level : LEVELS) {
+            if (level.getEntityType() == entityType) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the totals of a node of the hierarchy, in constant time.
+     *
+     * @param level the level of the node.
+     * @param id the id of the node.
+     * @return the totals of the node, zero if it has no ficheSuiviOuvrage.
+     */
+    public synchronized HierarchyStatsDTO getStats(HierarchyLevel level, Long id) {
+        HierarchyStatsDTO stats = new HierarchyStatsDTO();
+        stats.setLevel(level);
+        stats.setId(id);
+        Totals totals = rollup.nodes.get(level).get(id);
+        if (totals != null) {
+            stats.setOuvrages(totals.ouvrages);
+            stats.setNbUsagers(totals.nbUsagers);
+            stats.setSubvOnea(totals.subvOnea);
+            stats.setSubvProjet(totals.subvProjet);
+            stats.setAutreSubv(totals.autreSubv);
+        }
+        return stats;
+    }
+
+    /**
+     * @return whether the totals are loaded.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    // resolves the paths of the parcelles which are not resolved yet, in the totals which are read and in the ones rebuilt
+    private Mono<Void> resolveUnresolved(Collection<Long> parcelleIds) {
+        List<Mono<Void>> resolutions = new ArrayList<>();
+        synchronized (this) {
+            for (Rollup target : loading != null ? Arrays.asList(rollup, loading.rollup) : Collections.singletonList(rollup)) {
+                Set<Long> unresolved = new HashSet<>();
+                for (Long parcelleId : parcelleIds) {
+                    if (target.isUnresolved(parcelleId)) {
+                        unresolved.add(parcelleId);
+                    }
+                }
+                resolutions.add(resolve(target, unresolved));
+            }
+        }
+        return Mono.when(resolutions);
+    }
+
+    private Mono<Void> resolve(Rollup target, Set<Long> parcelleIds) {
+        if (parcelleIds.isEmpty()) {
+            return Mono.empty();
+        }
+        long resolvedGeneration;
+        synchronized (this) {
+            target.resolving.addAll(parcelleIds);
+            resolvedGeneration = generation;
+        }
+        Map<Long, Long[]> resolved = new HashMap<>();
+        for (Long parcelleId : parcelleIds) {
+            Long[] path = new Long[LEVELS.length];
+            path[0] = parcelleId;
+            resolved.put(parcelleId, path);
+        }
+        return resolveLevel(resolved, 0)
+            .then(Mono.defer(() -> resolved(target, resolved, resolvedGeneration)))
+            .doOnError(
+                e -> {
+                    synchronized (this) {
+                        target.resolving.removeAll(parcelleIds);
+                    }
+                }
+            );
+    }
+
+    private Mono<Void> resolved(Rollup target, Map<Long, Long[]> resolved, long resolvedGeneration) {
+        synchronized (this) {
+            target.resolving.removeAll(resolved.keySet());
+            if (resolvedGeneration == generation) {
+                target.resolved(resolved);
+                return Mono.empty();
+            }
+        }
+        // a node has moved since, the paths may be stale
+        return resolve(target, new HashSet<>(resolved.keySet()));
+    }
+
+    private Mono<Void> resolveLevel(Map<Long, Long[]> resolved, int index) {
+        if (index == LEVELS.length - 1) {
+            return Mono.empty();
+        }
+        HierarchyLevel level = LEVELS[index];
+        Set<Long> ids = new HashSet<>();
+        for (Long[] path : resolved.values()) {
+            if (path[index] != null) {
+                ids.add(path[index]);
+            }
+        }
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux
+            .fromIterable(ids)
+            .buffer(PATH_BATCH_SIZE)
+            .concatMap(batch -> findAllById(level.getEntityType(), batch))
+            .reduce(
+                new HashMap<Long, Object>(),
+                (all, found) -> {
+                    all.putAll(found);
+                    return all;
+                }
+            )
+            .flatMap(
+                entities -> {
+                    for (Long[] path : resolved.values()) {
+                        Object entity = path[index] != null ? entities.get(path[index]) : null;
+                        path[index + 1] = entity != null ? level.getParentId(entity) : null;
+                    }
+                    return resolveLevel(resolved, index + 1);
+                }
+            );
+    }
+
+    private <T> Mono<Map<Long, Object>> findAllById(Class<T> entityType, List<Long> ids) {
+        return referenceDataCache.findAllById(entityType, ids).map(found -> new HashMap<Long, Object>(found));
+    }
+
+    // the contributions of the ficheSuiviOuvrages, the paths of their parcelles and the totals which follow from them
+    private static final class Rollup {
+
+        // the contribution of every ficheSuiviOuvrage, by id
+        final Map<Long, Contribution> contributions = new HashMap<>();
+
+        // the totals of every node, by level and by id
+        final Map<HierarchyLevel, Map<Long, Totals>> nodes = new EnumMap<>(HierarchyLevel.class);
+
+        // the ids of the nodes above every parcelle, indexed by level
+        final Map<Long, Long[]> paths = new HashMap<>();
+
+        final Set<Long> resolving = new HashSet<>();
+
+        Rollup() {
+            for (HierarchyLevel level : LEVELS) {
+                nodes.put(level, new HashMap<>());
+            }
+        }
+
+        void apply(Long id, Contribution contribution) {
+            Contribution previous = contribution != null ? contributions.put(id, contribution) : contributions.remove(id);
+            if (previous != null) {
+                add(previous, -1);
+            }
+            if (contribution != null) {
+                add(contribution, 1);
+            }
+        }
+
+        private void add(Contribution contribution, int sign) {
+            if (contribution.parcelleId == null) {
+                return;
+            }
+            nodes.get(HierarchyLevel.PARCELLE).computeIfAbsent(contribution.parcelleId, parcelleId -> new Totals()).add(contribution, sign);
+            Long[] path = paths.get(contribution.parcelleId);
+            if (path != null) {
+                addAbove(path, contribution, sign);
+            }
+        }
+
+        // the totals of a parcelle are only added to the levels above it once its path is resolved
+        private void addAbove(Long[] path, Totals totals, int sign) {
+            for (int i = 1; i < LEVELS.length; i++) {
+                if (path[i] != null) {
+                    nodes.get(LEVELS[i]).computeIfAbsent(path[i], nodeId -> new Totals()).add(totals, sign);
+                }
+            }
+        }
+
+        boolean isUnresolved(Long parcelleId) {
+            return parcelleId != null && !paths.containsKey(parcelleId) && !resolving.contains(parcelleId);
+        }
+
+        Set<Long> unresolvedParcelles() {
+            Set<Long> parcelleIds = new HashSet<>();
+            for (Long parcelleId : nodes.get(HierarchyLevel.PARCELLE).keySet()) {
+                if (isUnresolved(parcelleId)) {
+                    parcelleIds.add(parcelleId);
+                }
+            }
+            return parcelleIds;
+        }
+
+        void resolved(Map<Long, Long[]> resolved) {
+            for (Map.Entry<Long, Long[]> entry : resolved.entrySet()) {
+                if (paths.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+                    Totals totals = nodes.get(HierarchyLevel.PARCELLE).get(entry.getKey());
+                    if (totals != null) {
+                        addAbove(entry.getValue(), totals, 1);
+                    }
+                }
+            }
+        }
+
+        // the paths of the parcelles below a node, the one of the parcelle itself at the parcelle level
+        private List<Long[]> pathsThrough(HierarchyLevel level, Long id) {
+            if (level == HierarchyLevel.PARCELLE) {
+                Long[] path = paths.get(id);
+                return path != null ? Collections.singletonList(path) : Collections.emptyList();
+            }
+            List<Long[]> through = new ArrayList<>();
+            for (Long[] path : paths.values()) {
+                if (id.equals(path[level.ordinal()])) {
+                    through.add(path);
+                }
+            }
+            return through;
+        }
+
+        boolean isMoved(HierarchyLevel level, Long id, Long parentId) {
+            for (Long[] path : pathsThrough(level, id)) {
+                if (!Objects.equals(path[level.getParent().ordinal()], parentId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // replaces the nodes above a node in the paths of the parcelles below it, with their totals
+        void move(HierarchyLevel level, Long id, Long[] pathAbove) {
+            int parentIndex = level.getParent().ordinal();
+            for (Long[] path : pathsThrough(level, id)) {
+                Totals totals = nodes.get(HierarchyLevel.PARCELLE).get(path[0]);
+                if (totals != null) {
+                    addAbove(path, totals, -1);
+                }
+                System.arraycopy(pathAbove, parentIndex, path, parentIndex, LEVELS.length - parentIndex);
+                if (totals != null) {
+                    addAbove(path, totals, 1);
+                }
+            }
+        }
+    }
+
+    // the totals being rebuilt, and the ids changed meanwhile, whose loaded contribution may be stale
+    private static final class Loading {
+
+        final Rollup rollup = new Rollup();
+
+        final Set<Long> changed = new HashSet<>();
+    }
+
+    private static class Totals {
+
+        long ouvrages;
+        long nbUsagers;
+        long subvOnea;
+        long subvProjet;
+        long autreSubv;
+
+        void add(Totals other, int sign) {
+            ouvrages += sign * other.ouvrages;
+            nbUsagers += sign * other.nbUsagers;
+            subvOnea += sign * other.subvOnea;
+            subvProjet += sign * other.subvProjet;
+            autreSubv += sign * other.autreSubv;
+        }
+    }
+
+    private static final class Contribution extends Totals {
+
+        final Long parcelleId;
+
+        private Contribution(Long parcelleId) {
+            this.parcelleId = parcelleId;
+        }
+
+        static Contribution of(FicheSuiviOuvrage ficheSuiviOuvrage) {
+            Contribution contribution = new Contribution(ficheSuiviOuvrage.getParcelleId());
+            contribution.ouvrages = 1;
+            contribution.nbUsagers = valueOf(ficheSuiviOuvrage.getNbUsagers());
+            contribution.subvOnea = valueOf(ficheSuiviOuvrage.getSubvOnea());
+            contribution.subvProjet = valueOf(ficheSuiviOuvrage.getSubvProjet());
+            contribution.autreSubv = valueOf(ficheSuiviOuvrage.getAutreSubv());
+            return contribution;
+        }
+
+        private static long valueOf(Number value) {
+            return value != null ? value.longValue() : 0;
+        }
+    }
+}
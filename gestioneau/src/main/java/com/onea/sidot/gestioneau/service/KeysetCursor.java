@@ -0,0 +1,176 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.util.Assert;
+
+/**
+ * Position of the last row of a keyset (seek) page: the value of every sort property of that row, the id being the last one.
+ * <p>
+ * The cursor is handed to the clients as an opaque token, see {@link #encode()} and {@link #decode(String)}.
+ */
+public final class KeysetCursor {
+
+    private static final String VERSION = "1";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final List<String> properties;
+    private final List<Object> values;
+
+    private KeysetCursor(List<String> properties, List<Object> values) {
+        this.properties = Collections.unmodifiableList(new ArrayList<>(properties));
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    /**
+     * Creates a cursor from the sort properties and the matching values of the last row of a page.
+     * @param properties the sort properties, in the order of the sort.
+     * @param values the values of the sort properties.
+     * @return the cursor.
+     */
+    public static KeysetCursor of(List<String> properties, List<Object> values) {
+        Assert.notEmpty(properties, "properties is empty");
+        Assert.isTrue(properties.size() == values.size(), "a value is required for every property");
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == null) {
+                throw new IllegalArgumentException("Keyset pagination requires a non null value for " + properties.get(i));
+            }
+        }
+        return new KeysetCursor(properties, values);
+    }
+
+    public List<String> getProperties() {
+        return properties;
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Encodes the cursor into an URL-safe token.
+     * @return the token.
+     */
+    public String encode() {
+        StringBuilder builder = new StringBuilder(VERSION);
+        for (int i = 0; i < properties.size(); i++) {
+            Object value = values.get(i);
+            builder
+                .append('.')
+                .append(encodePart(properties.get(i)))
+                .append('.')
+                .append(typeOf(value))
+                .append(encodePart(value.toString()));
+        }
+        return ENCODER.encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token created by {@link #encode()}.
+     * @param token the token.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the token is not a valid cursor.
+     */
+    public static KeysetCursor decode(String token) {
+        Assert.hasText(token, "token is empty");
+        String[] parts = new String(DECODER.decode(token), StandardCharsets.UTF_8).split("\\.", -1);
+        if (!VERSION.equals(parts[0]) || parts.length % 2 == 0 || parts.length < 3) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        List<String> properties = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (int i = 1; i < parts.length; i += 2) {
+            if (parts[i + 1].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            properties.add(decodePart(parts[i]));
+            values.add(parseValue(parts[i + 1].charAt(0), decodePart(parts[i + 1].substring(1))));
+        }
+        return new KeysetCursor(properties, values);
+    }
+
+    private static String encodePart(String part) {
+        return ENCODER.encodeToString(part.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePart(String part) {
+        return new String(DECODER.decode(part), StandardCharsets.UTF_8);
+    }
+
+    private static char typeOf(Object value) {
+        if (value instanceof String) {
+            return 's';
+        } else if (value instanceof Long) {
+            return 'l';
+        } else if (value instanceof Integer) {
+            return 'i';
+        } else if (value instanceof Float) {
+            return 'f';
+        } else if (value instanceof Double) {
+            return 'd';
+        } else if (value instanceof Boolean) {
+            return 'b';
+        } else if (value instanceof Instant) {
+            return 't';
+        } else if (value instanceof LocalDate) {
+            return 'j';
+        }
+        throw new IllegalArgumentException("Unsupported keyset value type: " + value.getClass().getName());
+    }
+
+    private static Object parseValue(char type, String value) {
+        try {
+            switch (type) {
+                case 's':
+                    return value;
+                case 'l':
+                    return Long.valueOf(value);
+                case 'i':
+                    return Integer.valueOf(value);
+                case 'f':
+                    return Float.valueOf(value);
+                case 'd':
+                    return Double.valueOf(value);
+                case 'b':
+                    return Boolean.valueOf(value);
+                case 't':
+                    return Instant.parse(value);
+                case 'j':
+                    return LocalDate.parse(value);
+                default:
+                    throw new IllegalArgumentException("Unsupported keyset value type: " + type);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid keyset value: " + value, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KeysetCursor)) {
+            return false;
+        }
+        KeysetCursor that = (KeysetCursor) o;
+        return properties.equals(that.properties) && values.equals(that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(properties, values);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{properties=" + properties + ", values=" + values + "}";
+    }
+}
@@ -0,0 +1,83 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Pagination information for a keyset (seek) page: the page size, the sort, and the cursor of the previous page.
+ * <p>
+ * The id is always the last sort property, so that the sort is total and every row has a distinct position.
+ */
+public final class KeysetPageable {
+
+    public static final String ID_PROPERTY = "id";
+
+    private final int size;
+    private final Sort sort;
+    private final KeysetCursor after;
+
+    private KeysetPageable(int size, Sort sort, KeysetCursor after) {
+        this.size = size;
+        this.sort = sort;
+        this.after = after;
+    }
+
+    /**
+     * Creates the pagination information of a keyset page.
+     * @param size the page size.
+     * @param sort the requested sort, the id is appended to it if it's missing.
+     * @param after the cursor of the previous page, or null for the first page.
+     * @return the pagination information.
+     * @throws IllegalArgumentException if the cursor was created for another sort.
+     */
+    public static KeysetPageable of(int size, Sort sort, @Nullable KeysetCursor after) {
+        Assert.isTrue(size > 0, "size must be positive");
+        List<Sort.Order> orders = new ArrayList<>();
+        boolean hasId = false;
+        for (Sort.Order order : sort) {
+            orders.add(order);
+            if (ID_PROPERTY.equals(order.getProperty())) {
+                hasId = true;
+                break;
+            }
+        }
+        if (!hasId) {
+            orders.add(Sort.Order.asc(ID_PROPERTY));
+        }
+        Sort keysetSort = Sort.by(orders);
+        if (after != null && !after.getProperties().equals(getProperties(keysetSort))) {
+            throw new IllegalArgumentException("The cursor " + after + " does not match the sort " + keysetSort);
+        }
+        return new KeysetPageable(size, keysetSort, after);
+    }
+
+    private static List<String> getProperties(Sort sort) {
+        return sort.stream().map(Sort.Order::getProperty).collect(Collectors.toList());
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public List<String> getProperties() {
+        return getProperties(sort);
+    }
+
+    @Nullable
+    public KeysetCursor getAfter() {
+        return after;
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPageable{size=" + size + ", sort=" + sort + ", after=" + after + "}";
+    }
+}
@@ -0,0 +1,58 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.lang.Nullable;
+
+/**
+ * The content of a keyset (seek) page, and the cursor of the next page if there is one.
+ *
+ * @param <T> the type of the content.
+ */
+public final class KeysetSlice<T> {
+
+    private final List<T> content;
+    private final KeysetCursor nextCursor;
+
+    private KeysetSlice(List<T> content, KeysetCursor nextCursor) {
+        this.content = Collections.unmodifiableList(content);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Creates a slice from the rows fetched for a keyset page, which contains one extra row if there is a next page,
+     * see {@link EntityManager#createKeysetSelect}.
+     * @param rows the fetched rows.
+     * @param pageable the keyset pagination information.
+     * @param cursorFactory creates the cursor pointing to a row.
+     * @param <T> the type of the rows.
+     * @return the slice.
+     */
+    public static <T> KeysetSlice<T> of(List<T> rows, KeysetPageable pageable, BiFunction<T, KeysetPageable, KeysetCursor> cursorFactory) {
+        if (rows.size() <= pageable.getSize()) {
+            return new KeysetSlice<>(rows, null);
+        }
+        List<T> content = rows.subList(0, pageable.getSize());
+        return new KeysetSlice<>(content, cursorFactory.apply(content.get(content.size() - 1), pageable));
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    @Nullable
+    public KeysetCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public <R> KeysetSlice<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetSlice<>(content.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+}
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,35 @@ public class LocaliteService {
 
     private final LocaliteSearchRepository localiteSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final GeoClosureService geoClosureService;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public LocaliteService(
         LocaliteRepository localiteRepository,
         LocaliteMapper localiteMapper,
-        LocaliteSearchRepository localiteSearchRepository
+        LocaliteSearchRepository localiteSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        GeoClosureService geoClosureService,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.localiteRepository = localiteRepository;
         this.localiteMapper = localiteMapper;
         this.localiteSearchRepository = localiteSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.geoClosureService = geoClosureService;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Localite.class, localiteSearchRepository, localiteRepository::findAllBy);
     }
 
     /**
@@ -50,7 +72,9 @@ public class LocaliteService {
         log.debug("Request to save Localite : {}", localiteDTO);
         return localiteRepository
             .save(localiteMapper.toEntity(localiteDTO))
-            .flatMap(localiteSearchRepository::save)
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.LOCALITE, saved.getId(), saved.getCommuneId()))
+            .delayUntil(saved -> searchOutbox.changed(Localite.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Localite.class, saved.getId(), saved)))
             .map(localiteMapper::toDto);
     }
 
@@ -72,13 +96,9 @@ public class LocaliteService {
                 }
             )
             .flatMap(localiteRepository::save)
-            .flatMap(
-                savedLocalite -> {
-                    localiteSearchRepository.save(savedLocalite);
-
-                    return Mono.just(savedLocalite);
-                }
-            )
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.LOCALITE, saved.getId(), saved.getCommuneId()))
+            .delayUntil(saved -> searchOutbox.changed(Localite.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Localite.class, saved.getId(), saved)))
             .map(localiteMapper::toDto);
     }
 
@@ -100,15 +120,16 @@ public class LocaliteService {
      *
      */
     public Mono<Long> countAll() {
-        return localiteRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of localites available in search repository.
-     *
+     * Returns the number of localites available, cached until a localite is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return localiteSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Localite.class, mode);
     }
 
     /**
@@ -117,10 +138,10 @@ public class LocaliteService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<LocaliteDTO> findOne(Long id) {
         log.debug("Request to get Localite : {}", id);
-        return localiteRepository.findById(id).map(localiteMapper::toDto);
+        return entityCache.findById(Localite.class, id, () -> localiteRepository.findById(id).map(localiteMapper::toDto));
     }
 
     /**
@@ -131,7 +152,11 @@ public class LocaliteService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Localite : {}", id);
-        return localiteRepository.deleteById(id).then(localiteSearchRepository.deleteById(id));
+        return geoClosureService
+            .deleted(HierarchyLevel.LOCALITE, id)
+            .then(localiteRepository.deleteById(id))
+            .then(searchOutbox.changed(Localite.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Localite.class, id)));
     }
 
     /**
@@ -139,11 +164,11 @@ public class LocaliteService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<LocaliteDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<LocaliteDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Localites for query {}", query);
-        return localiteSearchRepository.search(query, pageable).map(localiteMapper::toDto);
+        return localiteSearchRepository.search(query, pageable).map(results -> results.map(localiteMapper::toDto));
     }
 }
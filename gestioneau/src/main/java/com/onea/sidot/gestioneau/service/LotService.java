@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,10 +31,35 @@ public class LotService {
 
     private final LotSearchRepository lotSearchRepository;
 
-    public LotService(LotRepository lotRepository, LotMapper lotMapper, LotSearchRepository lotSearchRepository) {
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final GeoClosureService geoClosureService;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
+    public LotService(
+        LotRepository lotRepository,
+        LotMapper lotMapper,
+        LotSearchRepository lotSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        GeoClosureService geoClosureService,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
+    ) {
         this.lotRepository = lotRepository;
         this.lotMapper = lotMapper;
         this.lotSearchRepository = lotSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.geoClosureService = geoClosureService;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Lot.class, lotSearchRepository, lotRepository::findAllBy);
     }
 
     /**
@@ -44,7 +70,12 @@ public class LotService {
      */
     public Mono<LotDTO> save(LotDTO lotDTO) {
         log.debug("Request to save Lot : {}", lotDTO);
-        return lotRepository.save(lotMapper.toEntity(lotDTO)).flatMap(lotSearchRepository::save).map(lotMapper::toDto);
+        return lotRepository
+            .save(lotMapper.toEntity(lotDTO))
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.LOT, saved.getId(), saved.getSectionId()))
+            .delayUntil(saved -> searchOutbox.changed(Lot.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Lot.class, saved.getId(), saved)))
+            .map(lotMapper::toDto);
     }
 
     /**
@@ -65,13 +96,9 @@ public class LotService {
                 }
             )
             .flatMap(lotRepository::save)
-            .flatMap(
-                savedLot -> {
-                    lotSearchRepository.save(savedLot);
-
-                    return Mono.just(savedLot);
-                }
-            )
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.LOT, saved.getId(), saved.getSectionId()))
+            .delayUntil(saved -> searchOutbox.changed(Lot.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Lot.class, saved.getId(), saved)))
             .map(lotMapper::toDto);
     }
 
@@ -93,15 +120,16 @@ public class LotService {
      *
      */
     public Mono<Long> countAll() {
-        return lotRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of lots available in search repository.
-     *
+     * Returns the number of lots available, cached until a lot is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return lotSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Lot.class, mode);
     }
 
     /**
@@ -110,10 +138,10 @@ public class LotService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<LotDTO> findOne(Long id) {
         log.debug("Request to get Lot : {}", id);
-        return lotRepository.findById(id).map(lotMapper::toDto);
+        return entityCache.findById(Lot.class, id, () -> lotRepository.findById(id).map(lotMapper::toDto));
     }
 
     /**
@@ -124,7 +152,11 @@ public class LotService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Lot : {}", id);
-        return lotRepository.deleteById(id).then(lotSearchRepository.deleteById(id));
+        return geoClosureService
+            .deleted(HierarchyLevel.LOT, id)
+            .then(lotRepository.deleteById(id))
+            .then(searchOutbox.changed(Lot.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Lot.class, id)));
     }
 
     /**
@@ -132,11 +164,11 @@ public class LotService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<LotDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<LotDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Lots for query {}", query);
-        return lotSearchRepository.search(query, pageable).map(lotMapper::toDto);
+        return lotSearchRepository.search(query, pageable).map(results -> results.map(lotMapper::toDto));
     }
 }
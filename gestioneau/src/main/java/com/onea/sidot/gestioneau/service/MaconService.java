@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,10 +31,31 @@ public class MaconService {
 
     private final MaconSearchRepository maconSearchRepository;
 
-    public MaconService(MaconRepository maconRepository, MaconMapper maconMapper, MaconSearchRepository maconSearchRepository) {
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
+    public MaconService(
+        MaconRepository maconRepository,
+        MaconMapper maconMapper,
+        MaconSearchRepository maconSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
+    ) {
         this.maconRepository = maconRepository;
         this.maconMapper = maconMapper;
         this.maconSearchRepository = maconSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Macon.class, maconSearchRepository, maconRepository::findAllBy);
     }
 
     /**
@@ -44,7 +66,11 @@ public class MaconService {
      */
     public Mono<MaconDTO> save(MaconDTO maconDTO) {
         log.debug("Request to save Macon : {}", maconDTO);
-        return maconRepository.save(maconMapper.toEntity(maconDTO)).flatMap(maconSearchRepository::save).map(maconMapper::toDto);
+        return maconRepository
+            .save(maconMapper.toEntity(maconDTO))
+            .delayUntil(saved -> searchOutbox.changed(Macon.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Macon.class, saved.getId())))
+            .map(maconMapper::toDto);
     }
 
     /**
@@ -65,13 +91,8 @@ public class MaconService {
                 }
             )
             .flatMap(maconRepository::save)
-            .flatMap(
-                savedMacon -> {
-                    maconSearchRepository.save(savedMacon);
-
-                    return Mono.just(savedMacon);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(Macon.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Macon.class, saved.getId())))
             .map(maconMapper::toDto);
     }
 
@@ -93,15 +114,16 @@ public class MaconService {
      *
      */
     public Mono<Long> countAll() {
-        return maconRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of macons available in search repository.
-     *
+     * Returns the number of macons available, cached until a macon is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return maconSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Macon.class, mode);
     }
 
     /**
@@ -110,10 +132,10 @@ public class MaconService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<MaconDTO> findOne(Long id) {
         log.debug("Request to get Macon : {}", id);
-        return maconRepository.findById(id).map(maconMapper::toDto);
+        return entityCache.findById(Macon.class, id, () -> maconRepository.findById(id).map(maconMapper::toDto));
     }
 
     /**
@@ -124,7 +146,10 @@ public class MaconService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Macon : {}", id);
-        return maconRepository.deleteById(id).then(maconSearchRepository.deleteById(id));
+        return maconRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(Macon.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Macon.class, id)));
     }
 
     /**
@@ -132,11 +157,11 @@ public class MaconService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<MaconDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<MaconDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Macons for query {}", query);
-        return maconSearchRepository.search(query, pageable).map(maconMapper::toDto);
+        return maconSearchRepository.search(query, pageable).map(results -> results.map(maconMapper::toDto));
     }
 }
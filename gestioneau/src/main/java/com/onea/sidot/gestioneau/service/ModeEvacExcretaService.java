@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,31 @@ public class ModeEvacExcretaService {
 
     private final ModeEvacExcretaSearchRepository modeEvacExcretaSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public ModeEvacExcretaService(
         ModeEvacExcretaRepository modeEvacExcretaRepository,
         ModeEvacExcretaMapper modeEvacExcretaMapper,
-        ModeEvacExcretaSearchRepository modeEvacExcretaSearchRepository
+        ModeEvacExcretaSearchRepository modeEvacExcretaSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.modeEvacExcretaRepository = modeEvacExcretaRepository;
         this.modeEvacExcretaMapper = modeEvacExcretaMapper;
         this.modeEvacExcretaSearchRepository = modeEvacExcretaSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(ModeEvacExcreta.class, modeEvacExcretaSearchRepository, modeEvacExcretaRepository::findAllBy);
     }
 
     /**
@@ -50,7 +68,8 @@ public class ModeEvacExcretaService {
         log.debug("Request to save ModeEvacExcreta : {}", modeEvacExcretaDTO);
         return modeEvacExcretaRepository
             .save(modeEvacExcretaMapper.toEntity(modeEvacExcretaDTO))
-            .flatMap(modeEvacExcretaSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(ModeEvacExcreta.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(ModeEvacExcreta.class, saved.getId())))
             .map(modeEvacExcretaMapper::toDto);
     }
 
@@ -72,13 +91,8 @@ public class ModeEvacExcretaService {
                 }
             )
             .flatMap(modeEvacExcretaRepository::save)
-            .flatMap(
-                savedModeEvacExcreta -> {
-                    modeEvacExcretaSearchRepository.save(savedModeEvacExcreta);
-
-                    return Mono.just(savedModeEvacExcreta);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(ModeEvacExcreta.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(ModeEvacExcreta.class, saved.getId())))
             .map(modeEvacExcretaMapper::toDto);
     }
 
@@ -100,15 +114,16 @@ public class ModeEvacExcretaService {
      *
      */
     public Mono<Long> countAll() {
-        return modeEvacExcretaRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of modeEvacExcretas available in search repository.
-     *
+     * Returns the number of modeEvacExcretas available, cached until a modeEvacExcreta is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return modeEvacExcretaSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(ModeEvacExcreta.class, mode);
     }
 
     /**
@@ -117,10 +132,14 @@ public class ModeEvacExcretaService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<ModeEvacExcretaDTO> findOne(Long id) {
         log.debug("Request to get ModeEvacExcreta : {}", id);
-        return modeEvacExcretaRepository.findById(id).map(modeEvacExcretaMapper::toDto);
+        return entityCache.findById(
+            ModeEvacExcreta.class,
+            id,
+            () -> modeEvacExcretaRepository.findById(id).map(modeEvacExcretaMapper::toDto)
+        );
     }
 
     /**
@@ -131,7 +150,10 @@ public class ModeEvacExcretaService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete ModeEvacExcreta : {}", id);
-        return modeEvacExcretaRepository.deleteById(id).then(modeEvacExcretaSearchRepository.deleteById(id));
+        return modeEvacExcretaRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(ModeEvacExcreta.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(ModeEvacExcreta.class, id)));
     }
 
     /**
@@ -139,11 +161,11 @@ public class ModeEvacExcretaService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<ModeEvacExcretaDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<ModeEvacExcretaDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of ModeEvacExcretas for query {}", query);
-        return modeEvacExcretaSearchRepository.search(query, pageable).map(modeEvacExcretaMapper::toDto);
+        return modeEvacExcretaSearchRepository.search(query, pageable).map(results -> results.map(modeEvacExcretaMapper::toDto));
     }
 }
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,35 @@ public class ModeEvacuationEauUseeService {
 
     private final ModeEvacuationEauUseeSearchRepository modeEvacuationEauUseeSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public ModeEvacuationEauUseeService(
         ModeEvacuationEauUseeRepository modeEvacuationEauUseeRepository,
         ModeEvacuationEauUseeMapper modeEvacuationEauUseeMapper,
-        ModeEvacuationEauUseeSearchRepository modeEvacuationEauUseeSearchRepository
+        ModeEvacuationEauUseeSearchRepository modeEvacuationEauUseeSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.modeEvacuationEauUseeRepository = modeEvacuationEauUseeRepository;
         this.modeEvacuationEauUseeMapper = modeEvacuationEauUseeMapper;
         this.modeEvacuationEauUseeSearchRepository = modeEvacuationEauUseeSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(
+            ModeEvacuationEauUsee.class,
+            modeEvacuationEauUseeSearchRepository,
+            modeEvacuationEauUseeRepository::findAllBy
+        );
     }
 
     /**
@@ -50,7 +72,8 @@ public class ModeEvacuationEauUseeService {
         log.debug("Request to save ModeEvacuationEauUsee : {}", modeEvacuationEauUseeDTO);
         return modeEvacuationEauUseeRepository
             .save(modeEvacuationEauUseeMapper.toEntity(modeEvacuationEauUseeDTO))
-            .flatMap(modeEvacuationEauUseeSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(ModeEvacuationEauUsee.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(ModeEvacuationEauUsee.class, saved.getId())))
             .map(modeEvacuationEauUseeMapper::toDto);
     }
 
@@ -72,13 +95,8 @@ public class ModeEvacuationEauUseeService {
                 }
             )
             .flatMap(modeEvacuationEauUseeRepository::save)
-            .flatMap(
-                savedModeEvacuationEauUsee -> {
-                    modeEvacuationEauUseeSearchRepository.save(savedModeEvacuationEauUsee);
-
-                    return Mono.just(savedModeEvacuationEauUsee);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(ModeEvacuationEauUsee.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(ModeEvacuationEauUsee.class, saved.getId())))
             .map(modeEvacuationEauUseeMapper::toDto);
     }
 
@@ -100,15 +118,16 @@ public class ModeEvacuationEauUseeService {
      *
      */
     public Mono<Long> countAll() {
-        return modeEvacuationEauUseeRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of modeEvacuationEauUsees available in search repository.
-     *
+     * Returns the number of modeEvacuationEauUsees available, cached until a modeEvacuationEauUsee is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return modeEvacuationEauUseeSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(ModeEvacuationEauUsee.class, mode);
     }
 
     /**
@@ -117,10 +136,14 @@ public class ModeEvacuationEauUseeService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<ModeEvacuationEauUseeDTO> findOne(Long id) {
         log.debug("Request to get ModeEvacuationEauUsee : {}", id);
-        return modeEvacuationEauUseeRepository.findById(id).map(modeEvacuationEauUseeMapper::toDto);
+        return entityCache.findById(
+            ModeEvacuationEauUsee.class,
+            id,
+            () -> modeEvacuationEauUseeRepository.findById(id).map(modeEvacuationEauUseeMapper::toDto)
+        );
     }
 
     /**
@@ -131,7 +154,10 @@ public class ModeEvacuationEauUseeService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete ModeEvacuationEauUsee : {}", id);
-        return modeEvacuationEauUseeRepository.deleteById(id).then(modeEvacuationEauUseeSearchRepository.deleteById(id));
+        return modeEvacuationEauUseeRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(ModeEvacuationEauUsee.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(ModeEvacuationEauUsee.class, id)));
     }
 
     /**
@@ -139,11 +165,13 @@ public class ModeEvacuationEauUseeService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<ModeEvacuationEauUseeDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<ModeEvacuationEauUseeDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of ModeEvacuationEauUsees for query {}", query);
-        return modeEvacuationEauUseeSearchRepository.search(query, pageable).map(modeEvacuationEauUseeMapper::toDto);
+        return modeEvacuationEauUseeSearchRepository
+            .search(query, pageable)
+            .map(results -> results.map(modeEvacuationEauUseeMapper::toDto));
     }
 }
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,31 @@ public class NatureOuvrageService {
 
     private final NatureOuvrageSearchRepository natureOuvrageSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public NatureOuvrageService(
         NatureOuvrageRepository natureOuvrageRepository,
         NatureOuvrageMapper natureOuvrageMapper,
-        NatureOuvrageSearchRepository natureOuvrageSearchRepository
+        NatureOuvrageSearchRepository natureOuvrageSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.natureOuvrageRepository = natureOuvrageRepository;
         this.natureOuvrageMapper = natureOuvrageMapper;
         this.natureOuvrageSearchRepository = natureOuvrageSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(NatureOuvrage.class, natureOuvrageSearchRepository, natureOuvrageRepository::findAllBy);
     }
 
     /**
@@ -50,7 +68,8 @@ public class NatureOuvrageService {
         log.debug("Request to save NatureOuvrage : {}", natureOuvrageDTO);
         return natureOuvrageRepository
             .save(natureOuvrageMapper.toEntity(natureOuvrageDTO))
-            .flatMap(natureOuvrageSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(NatureOuvrage.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(NatureOuvrage.class, saved.getId())))
             .map(natureOuvrageMapper::toDto);
     }
 
@@ -72,13 +91,8 @@ public class NatureOuvrageService {
                 }
             )
             .flatMap(natureOuvrageRepository::save)
-            .flatMap(
-                savedNatureOuvrage -> {
-                    natureOuvrageSearchRepository.save(savedNatureOuvrage);
-
-                    return Mono.just(savedNatureOuvrage);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(NatureOuvrage.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(NatureOuvrage.class, saved.getId())))
             .map(natureOuvrageMapper::toDto);
     }
 
@@ -100,15 +114,16 @@ public class NatureOuvrageService {
      *
      */
     public Mono<Long> countAll() {
-        return natureOuvrageRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of natureOuvrages available in search repository.
-     *
+     * Returns the number of natureOuvrages available, cached until a natureOuvrage is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return natureOuvrageSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(NatureOuvrage.class, mode);
     }
 
     /**
@@ -117,10 +132,10 @@ public class NatureOuvrageService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<NatureOuvrageDTO> findOne(Long id) {
         log.debug("Request to get NatureOuvrage : {}", id);
-        return natureOuvrageRepository.findById(id).map(natureOuvrageMapper::toDto);
+        return entityCache.findById(NatureOuvrage.class, id, () -> natureOuvrageRepository.findById(id).map(natureOuvrageMapper::toDto));
     }
 
     /**
@@ -131,7 +146,10 @@ public class NatureOuvrageService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete NatureOuvrage : {}", id);
-        return natureOuvrageRepository.deleteById(id).then(natureOuvrageSearchRepository.deleteById(id));
+        return natureOuvrageRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(NatureOuvrage.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(NatureOuvrage.class, id)));
     }
 
     /**
@@ -139,11 +157,11 @@ public class NatureOuvrageService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<NatureOuvrageDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<NatureOuvrageDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of NatureOuvrages for query {}", query);
-        return natureOuvrageSearchRepository.search(query, pageable).map(natureOuvrageMapper::toDto);
+        return natureOuvrageSearchRepository.search(query, pageable).map(results -> results.map(natureOuvrageMapper::toDto));
     }
 }
@@ -0,0 +1,29 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.onea.sidot.gestioneau.domain.Prevision;
+import java.util.function.Function;
+
+/**
+ * The categories of ouvrages a {@link Prevision} sets a target for.
+ */
+public enum OuvrageCategory {
+    LATRINE(Prevision::getNbLatrine),
+    PUISARD(Prevision::getNbPuisard),
+    PUBLIC(Prevision::getNbPublic),
+    SCOLAIRE(Prevision::getNbScolaire);
+
+    private final Function<Prevision, Integer> target;
+
+    OuvrageCategory(Function<Prevision, Integer> target) {
+        this.target = target;
+    }
+
+    /**
+     * @param prevision a prevision.
+     * @return the number of ouvrages of this category it targets, zero if unset.
+     */
+    public long getTarget(Prevision prevision) {
+        Integer value = target.apply(prevision);
+        return value != null ? value : 0;
+    }
+}
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,35 @@ public class ParcelleService {
 
     private final ParcelleSearchRepository parcelleSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final GeoClosureService geoClosureService;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public ParcelleService(
         ParcelleRepository parcelleRepository,
         ParcelleMapper parcelleMapper,
-        ParcelleSearchRepository parcelleSearchRepository
+        ParcelleSearchRepository parcelleSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        GeoClosureService geoClosureService,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.parcelleRepository = parcelleRepository;
         this.parcelleMapper = parcelleMapper;
         this.parcelleSearchRepository = parcelleSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.geoClosureService = geoClosureService;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Parcelle.class, parcelleSearchRepository, parcelleRepository::findAllBy);
     }
 
     /**
@@ -50,7 +72,9 @@ public class ParcelleService {
         log.debug("Request to save Parcelle : {}", parcelleDTO);
         return parcelleRepository
             .save(parcelleMapper.toEntity(parcelleDTO))
-            .flatMap(parcelleSearchRepository::save)
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.PARCELLE, saved.getId(), saved.getLotId()))
+            .delayUntil(saved -> searchOutbox.changed(Parcelle.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Parcelle.class, saved.getId(), saved)))
             .map(parcelleMapper::toDto);
     }
 
@@ -72,13 +96,9 @@ public class ParcelleService {
                 }
             )
             .flatMap(parcelleRepository::save)
-            .flatMap(
-                savedParcelle -> {
-                    parcelleSearchRepository.save(savedParcelle);
-
-                    return Mono.just(savedParcelle);
-                }
-            )
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.PARCELLE, saved.getId(), saved.getLotId()))
+            .delayUntil(saved -> searchOutbox.changed(Parcelle.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Parcelle.class, saved.getId(), saved)))
             .map(parcelleMapper::toDto);
     }
 
@@ -100,15 +120,16 @@ public class ParcelleService {
      *
      */
     public Mono<Long> countAll() {
-        return parcelleRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of parcelles available in search repository.
-     *
+     * Returns the number of parcelles available, cached until a parcelle is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return parcelleSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Parcelle.class, mode);
     }
 
     /**
@@ -117,10 +138,10 @@ public class ParcelleService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<ParcelleDTO> findOne(Long id) {
         log.debug("Request to get Parcelle : {}", id);
-        return parcelleRepository.findById(id).map(parcelleMapper::toDto);
+        return entityCache.findById(Parcelle.class, id, () -> parcelleRepository.findById(id).map(parcelleMapper::toDto));
     }
 
     /**
@@ -131,7 +152,11 @@ public class ParcelleService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Parcelle : {}", id);
-        return parcelleRepository.deleteById(id).then(parcelleSearchRepository.deleteById(id));
+        return geoClosureService
+            .deleted(HierarchyLevel.PARCELLE, id)
+            .then(parcelleRepository.deleteById(id))
+            .then(searchOutbox.changed(Parcelle.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Parcelle.class, id)));
     }
 
     /**
@@ -139,11 +164,11 @@ public class ParcelleService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<ParcelleDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<ParcelleDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Parcelles for query {}", query);
-        return parcelleSearchRepository.search(query, pageable).map(parcelleMapper::toDto);
+        return parcelleSearchRepository.search(query, pageable).map(results -> results.map(parcelleMapper::toDto));
     }
 }
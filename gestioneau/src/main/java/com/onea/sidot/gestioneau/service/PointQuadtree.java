@@ -0,0 +1,286 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory point quadtree of geographic coordinates, indexed by id.
+ * <p>
+ * The tree covers the whole globe, a node is split into four quadrants once it holds more than {@link #NODE_CAPACITY} points.
+ * The distances are great-circle distances in meters. The tree is not thread-safe.
+ */
+public class PointQuadtree {
+
+    static final int NODE_CAPACITY = 16;
+    static final int MAX_DEPTH = 24;
+
+    public static final double EARTH_RADIUS = 6_371_008.8;
+
+    /**
+     * A point of the tree, and its distance to the point of a radius or nearest neighbour query.
+     */
+    public static final class Entry {
+
+        private final long id;
+        private final double latitude;
+        private final double longitude;
+        private final double distance;
+
+        Entry(long id, double latitude, double longitude, double distance) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.distance = distance;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+    }
+
+    private static final class Node {
+
+        final double minLatitude;
+        final double minLongitude;
+        final double maxLatitude;
+        final double maxLongitude;
+        final int depth;
+
+        List<Entry> entries = new ArrayList<>();
+        Node[] children;
+
+        Node(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, int depth) {
+            this.minLatitude = minLatitude;
+            this.minLongitude = minLongitude;
+            this.maxLatitude = maxLatitude;
+            this.maxLongitude = maxLongitude;
+            this.depth = depth;
+        }
+
+        boolean intersects(double minLat, double minLon, double maxLat, double maxLon) {
+            return minLat <= maxLatitude && maxLat >= minLatitude && minLon <= maxLongitude && maxLon >= minLongitude;
+        }
+
+        Node child(double latitude, double longitude) {
+            double midLatitude = (minLatitude + maxLatitude) / 2;
+            double midLongitude = (minLongitude + maxLongitude) / 2;
+            return children[(latitude < midLatitude ? 0 : 2) + (longitude < midLongitude ? 0 : 1)];
+        }
+
+        void split() {
+            double midLatitude = (minLatitude + maxLatitude) / 2;
+            double midLongitude = (minLongitude + maxLongitude) / 2;
+            children =
+                new Node[] {
+                    new Node(minLatitude, minLongitude, midLatitude, midLongitude, depth + 1),
+                    new Node(minLatitude, midLongitude, midLatitude, maxLongitude, depth + 1),
+                    new Node(midLatitude, minLongitude, maxLatitude, midLongitude, depth + 1),
+                    new Node(midLatitude, midLongitude, maxLatitude, maxLongitude, depth + 1),
+                };
+            for (Entry entry : entries) {
+                child(entry.latitude, entry.longitude).entries.add(entry);
+            }
+            entries = null;
+        }
+    }
+
+    private final Node root = new Node(-90, -180, 90, 180, 0);
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /**
+     * Adds a point to the tree, or moves it if the id is already in the tree.
+     * @param id the id of the point.
+     * @param latitude the latitude, in degrees.
+     * @param longitude the longitude, in degrees.
+     * @throws IllegalArgumentException if the coordinates are out of range.
+     */
+    public void put(long id, double latitude, double longitude) {
+        checkCoordinates(latitude, longitude);
+        remove(id);
+        Entry entry = new Entry(id, latitude, longitude, 0);
+        entries.put(id, entry);
+        Node node = root;
+        while (node.children != null) {
+            node = node.child(latitude, longitude);
+        }
+        node.entries.add(entry);
+        while (node.entries.size() > NODE_CAPACITY && node.depth < MAX_DEPTH) {
+            node.split();
+            node = node.child(latitude, longitude);
+        }
+    }
+
+    /**
+     * Removes a point from the tree.
+     * @param id the id of the point.
+     * @return whether the point was in the tree.
+     */
+    public boolean remove(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        Node node = root;
+        while (node.children != null) {
+            node = node.child(entry.latitude, entry.longitude);
+        }
+        node.entries.remove(entry);
+        return true;
+    }
+
+    /**
+     * Removes all the points.
+     */
+    public void clear() {
+        entries.clear();
+        root.children = null;
+        root.entries = new ArrayList<>();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Finds the points in a bounding box, the bounds being included. The box crosses the antimeridian if its west bound is
+     * greater than its east bound.
+     * @param minLatitude the south bound.
+     * @param minLongitude the west bound.
+     * @param maxLatitude the north bound.
+     * @param maxLongitude the east bound.
+     * @return the points, with a distance of 0.
+     */
+    public List<Entry> within(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        List<Entry> result = new ArrayList<>();
+        if (minLongitude <= maxLongitude) {
+            collect(root, minLatitude, minLongitude, maxLatitude, maxLongitude, result);
+        } else {
+            collect(root, minLatitude, minLongitude, maxLatitude, 180, result);
+            collect(root, minLatitude, -180, maxLatitude, maxLongitude, result);
+        }
+        return result;
+    }
+
+    private static void collect(Node node, double minLat, double minLon, double maxLat, double maxLon, List<Entry> result) {
+        if (!node.intersects(minLat, minLon, maxLat, maxLon)) {
+            return;
+        }
+        if (node.children != null) {
+            for (Node child : node.children) {
+                collect(child, minLat, minLon, maxLat, maxLon, result);
+            }
+            return;
+        }
+        for (Entry entry : node.entries) {
+            if (
+                entry.latitude >= minLat && entry.latitude <= maxLat && entry.longitude >= minLon && entry.longitude <= maxLon
+            ) {
+                result.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Finds the points within a distance of a point, from the nearest to the farthest.
+     * @param latitude the latitude of the center, in degrees.
+     * @param longitude the longitude of the center, in degrees.
+     * @param radius the distance, in meters.
+     * @return the points, with their distance to the center.
+     */
+    public List<Entry> near(double latitude, double longitude, double radius) {
+        checkCoordinates(latitude, longitude);
+        List<Entry> candidates = new ArrayList<>();
+        // the bounding box of the circle, the longitudes are widened at the latitude of the circle which is the nearest to a pole
+        double latitudeDelta = Math.toDegrees(radius / EARTH_RADIUS);
+        double minLatitude = latitude - latitudeDelta;
+        double maxLatitude = latitude + latitudeDelta;
+        if (minLatitude <= -90 || maxLatitude >= 90 || radius >= Math.PI * EARTH_RADIUS / 2) {
+            collect(root, -90, -180, 90, 180, candidates);
+        } else {
+            double cos = Math.cos(Math.toRadians(Math.max(Math.abs(minLatitude), Math.abs(maxLatitude))));
+            double longitudeDelta = Math.toDegrees(radius / (EARTH_RADIUS * cos));
+            double minLongitude = longitude - longitudeDelta;
+            double maxLongitude = longitude + longitudeDelta;
+            collect(root, minLatitude, Math.max(minLongitude, -180), maxLatitude, Math.min(maxLongitude, 180), candidates);
+            // the circle crosses the antimeridian
+            if (minLongitude < -180) {
+                collect(root, minLatitude, minLongitude + 360, maxLatitude, 180, candidates);
+            }
+            if (maxLongitude > 180) {
+                collect(root, minLatitude, -180, maxLatitude, maxLongitude - 360, candidates);
+            }
+        }
+        List<Entry> result = new ArrayList<>();
+        for (Entry candidate : candidates) {
+            double distance = distance(latitude, longitude, candidate.latitude, candidate.longitude);
+            if (distance <= radius) {
+                result.add(new Entry(candidate.id, candidate.latitude, candidate.longitude, distance));
+            }
+        }
+        result.sort(Comparator.comparingDouble(Entry::getDistance));
+        return result;
+    }
+
+    /**
+     * Finds the nearest points of a point: the radius of the search is doubled until it holds enough points.
+     * @param latitude the latitude, in degrees.
+     * @param longitude the longitude, in degrees.
+     * @param count the number of points.
+     * @return at most {@code count} points, from the nearest to the farthest, with their distance to the point.
+     */
+    public List<Entry> nearest(double latitude, double longitude, int count) {
+        checkCoordinates(latitude, longitude);
+        if (count <= 0 || entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Entry> result;
+        double radius = 1000;
+        do {
+            result = near(latitude, longitude, radius);
+            radius *= 2;
+        } while (result.size() < Math.min(count, entries.size()) && radius < 4 * Math.PI * EARTH_RADIUS);
+        return result.size() > count ? new ArrayList<>(result.subList(0, count)) : result;
+    }
+
+    /**
+     * The great-circle distance between two points, with the haversine formula.
+     * @param latitude1 the latitude of the first point, in degrees.
+     * @param longitude1 the longitude of the first point, in degrees.
+     * @param latitude2 the latitude of the second point, in degrees.
+     * @param longitude2 the longitude of the second point, in degrees.
+     * @return the distance, in meters.
+     */
+    public static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinLatitude = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double a =
+            sinLatitude *
+            sinLatitude +
+            Math.cos(Math.toRadians(latitude1)) *
+            Math.cos(Math.toRadians(latitude2)) *
+            sinLongitude *
+            sinLongitude;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static void checkCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Invalid coordinates: " + latitude + ", " + longitude);
+        }
+    }
+}
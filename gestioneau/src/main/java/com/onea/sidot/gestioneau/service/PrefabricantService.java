@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,31 @@ public class PrefabricantService {
 
     private final PrefabricantSearchRepository prefabricantSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public PrefabricantService(
         PrefabricantRepository prefabricantRepository,
         PrefabricantMapper prefabricantMapper,
-        PrefabricantSearchRepository prefabricantSearchRepository
+        PrefabricantSearchRepository prefabricantSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.prefabricantRepository = prefabricantRepository;
         this.prefabricantMapper = prefabricantMapper;
         this.prefabricantSearchRepository = prefabricantSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Prefabricant.class, prefabricantSearchRepository, prefabricantRepository::findAllBy);
     }
 
     /**
@@ -50,7 +68,8 @@ public class PrefabricantService {
         log.debug("Request to save Prefabricant : {}", prefabricantDTO);
         return prefabricantRepository
             .save(prefabricantMapper.toEntity(prefabricantDTO))
-            .flatMap(prefabricantSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(Prefabricant.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Prefabricant.class, saved.getId())))
             .map(prefabricantMapper::toDto);
     }
 
@@ -72,13 +91,8 @@ public class PrefabricantService {
                 }
             )
             .flatMap(prefabricantRepository::save)
-            .flatMap(
-                savedPrefabricant -> {
-                    prefabricantSearchRepository.save(savedPrefabricant);
-
-                    return Mono.just(savedPrefabricant);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(Prefabricant.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Prefabricant.class, saved.getId())))
             .map(prefabricantMapper::toDto);
     }
 
@@ -100,15 +114,16 @@ public class PrefabricantService {
      *
      */
     public Mono<Long> countAll() {
-        return prefabricantRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of prefabricants available in search repository.
-     *
+     * Returns the number of prefabricants available, cached until a prefabricant is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return prefabricantSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Prefabricant.class, mode);
     }
 
     /**
@@ -117,10 +132,10 @@ public class PrefabricantService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<PrefabricantDTO> findOne(Long id) {
         log.debug("Request to get Prefabricant : {}", id);
-        return prefabricantRepository.findById(id).map(prefabricantMapper::toDto);
+        return entityCache.findById(Prefabricant.class, id, () -> prefabricantRepository.findById(id).map(prefabricantMapper::toDto));
     }
 
     /**
@@ -131,7 +146,10 @@ public class PrefabricantService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Prefabricant : {}", id);
-        return prefabricantRepository.deleteById(id).then(prefabricantSearchRepository.deleteById(id));
+        return prefabricantRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(Prefabricant.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Prefabricant.class, id)));
     }
 
     /**
@@ -139,11 +157,11 @@ public class PrefabricantService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<PrefabricantDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<PrefabricantDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Prefabricants for query {}", query);
-        return prefabricantSearchRepository.search(query, pageable).map(prefabricantMapper::toDto);
+        return prefabricantSearchRepository.search(query, pageable).map(results -> results.map(prefabricantMapper::toDto));
     }
 }
@@ -0,0 +1,415 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
+import com.onea.sidot.gestioneau.domain.Centre;
+import com.onea.sidot.gestioneau.domain.CentreRegroupement;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.domain.Prevision;
+import com.onea.sidot.gestioneau.repository.CentreRegroupementRepository;
+import com.onea.sidot.gestioneau.repository.CentreRepository;
+import com.onea.sidot.gestioneau.repository.FicheSuiviOuvrageRepository;
+import com.onea.sidot.gestioneau.repository.PrevisionRepository;
+import com.onea.sidot.gestioneau.service.dto.CategoryAchievementDTO;
+import com.onea.sidot.gestioneau.service.dto.PrevisionAchievementDTO;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Counters of the ficheSuiviOuvrages realised per {@link Prevision} and per natureOuvrage, rolled up through the centres,
+ * the centres de regroupement and the directions regionales.
+ * <p>
+ * The counters are built once the application is ready, then updated incrementally by the {@link EntityChangeEvent}s of the
+ * ficheSuiviOuvrages: the prevision and the nature of every ficheSuiviOuvrage are kept, so that an update or a delete subtracts
+ * its previous count. The previsions, the centres and the centres de regroupement are kept as well, to roll the counters up.
+ * {@link #rebuild()} recounts everything from the database at the configured interval, which picks up the writes made by the
+ * other instances or outside of the application.
+ */
+@Service
+public class PrevisionAchievementService {
+
+    private static final Projection CONTRIBUTION = Projection.of(Arrays.asList("prevision", "natureouvrage"));
+
+    private final Logger log = LoggerFactory.getLogger(PrevisionAchievementService.class);
+
+    private final FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository;
+
+    private final PrevisionRepository previsionRepository;
+
+    private final CentreRepository centreRepository;
+
+    private final CentreRegroupementRepository centreRegroupementRepository;
+
+    private final Map<Long, OuvrageCategory> natureCategories;
+
+    private final Duration rebuildInterval;
+
+    // the prevision and the nature of every ficheSuiviOuvrage, by id
+    private Map<Long, Contribution> contributions = new HashMap<>();
+
+    // the number of ficheSuiviOuvrages by prevision, then by natureOuvrage
+    private final Map<Long, Map<Long, Long>> counters = new HashMap<>();
+
+    private final Map<Long, Prevision> previsions = new HashMap<>();
+
+    // the id of the parent of every node, by level of the node
+    private final Map<AchievementLevel, Map<Long, Long>> parents = new EnumMap<>(AchievementLevel.class);
+
+    // the ids of the children of every node, by level of the node
+    private final Map<AchievementLevel, Map<Long, Set<Long>>> children = new EnumMap<>(AchievementLevel.class);
+
+    private long referencesGeneration;
+
+    // the ids changed while the counters are rebuilt, their loaded contribution may be stale; null otherwise
+    private Set<Long> changedWhileLoading;
+
+    private Mono<Long> rebuilding;
+
+    private Disposable rebuilder;
+
+    private volatile boolean ready;
+
+    public PrevisionAchievementService(
+        FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository,
+        PrevisionRepository previsionRepository,
+        CentreRepository centreRepository,
+        CentreRegroupementRepository centreRegroupementRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.ficheSuiviOuvrageRepository = ficheSuiviOuvrageRepository;
+        this.previsionRepository = previsionRepository;
+        this.centreRepository = centreRepository;
+        this.centreRegroupementRepository = centreRegroupementRepository;
+        this.natureCategories = new HashMap<>(applicationProperties.getAchievement().getNatureCategories());
+        this.rebuildInterval = applicationProperties.getAchievement().getRebuildInterval();
+        for (AchievementLevel level : AchievementLevel.values()) {
+            parents.put(level, new HashMap<>());
+            children.put(level, new HashMap<>());
+        }
+    }
+
+    /**
+     * Builds the counters once the application is ready, then rebuilds them at the configured interval.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Flux<Long> rebuilds = rebuildInterval.isZero() ? Flux.just(0L) : Flux.interval(Duration.ZERO, rebuildInterval);
+        rebuilder =
+            rebuilds
+                .onBackpressureDrop()
+                .concatMap(
+                    tick ->
+                        rebuild()
+                            .onErrorResume(
+                                e -> {
+                                    log.error("Failed to load the achievement of the Previsions", e);
+                                    return Mono.empty();
+                                }
+                            ),
+                    1
+                )
+                .subscribe();
+    }
+
+    /**
+     * Stop the rebuilds.
+     */
+    @PreDestroy
+    public void stop() {
+        if (rebuilder != null) {
+            rebuilder.dispose();
+        }
+    }
+
+    /**
+     * Recounts the ficheSuiviOuvrages of every prevision, and reloads the previsions and the centres. The counters keep being
+     * updated, and read, meanwhile.
+     *
+     * @return the number of ficheSuiviOuvrages counted; the rebuild in progress if there is one.
+     */
+    public synchronized Mono<Long> rebuild() {
+        if (rebuilding == null) {
+            log.debug("Rebuilding the achievement of the Previsions");
+            changedWhileLoading = new HashSet<>();
+            Map<Long, Contribution> loaded = new HashMap<>();
+            rebuilding =
+                loadReferences()
+                    .thenMany(ficheSuiviOuvrageRepository.findAllBy(null, null, CONTRIBUTION))
+                    .doOnNext(ficheSuiviOuvrage -> loaded.put(ficheSuiviOuvrage.getId(), Contribution.of(ficheSuiviOuvrage)))
+                    .count()
+                    .doOnNext(
+                        count -> {
+                            rebuilt(loaded);
+                            log.info("Counted {} FicheSuiviOuvrages against {} Previsions", count, previsions.size());
+                        }
+                    )
+                    .doFinally(signal -> endRebuild())
+                    .cache();
+        }
+        return rebuilding;
+    }
+
+    private synchronized void rebuilt(Map<Long, Contribution> loaded) {
+        for (Long id : changedWhileLoading) {
+            Contribution current = contributions.get(id);
+            if (current != null) {
+                loaded.put(id, current);
+            } else {
+                loaded.remove(id);
+            }
+        }
+        contributions = loaded;
+        counters.clear();
+        for (Contribution contribution : contributions.values()) {
+            add(contribution, 1);
+        }
+        ready = true;
+    }
+
+    private synchronized void endRebuild() {
+        changedWhileLoading = null;
+        rebuilding = null;
+    }
+
+    /**
+     * Updates the counters with the ficheSuiviOuvrage which has been written, or the rollup with the prevision, the centre or
+     * the centre de regroupement which has been written.
+     *
+     * @param event the change event.
+     */
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        Class<?> entityType = event.getEntityType();
+        if (entityType == FicheSuiviOuvrage.class) {
+            onFicheSuiviOuvrageChange(event);
+        } else if (entityType == Prevision.class || entityType == Centre.class || entityType == CentreRegroupement.class) {
+            onReferenceChange(event);
+        }
+    }
+
+    private void onFicheSuiviOuvrageChange(EntityChangeEvent event) {
+        if (event.getId() == null) {
+            log.warn("The achievement of the Previsions can't be updated by {}", event);
+            return;
+        }
+        if (event.getOperation() == EntityChangeEvent.Operation.SAVE && event.getEntity() == null) {
+            // the event doesn't provide the saved contribution, it is reloaded
+            ficheSuiviOuvrageRepository
+                .findById(event.getId(), CONTRIBUTION)
+                .subscribe(
+                    ficheSuiviOuvrage -> changed(ficheSuiviOuvrage.getId(), Contribution.of(ficheSuiviOuvrage)),
+                    e -> log.warn("Failed to reload the contribution of FicheSuiviOuvrage {}", event.getId(), e)
+                );
+            return;
+        }
+        changed(
+            event.getId(),
+            event.getOperation() == EntityChangeEvent.Operation.SAVE ? Contribution.of((FicheSuiviOuvrage) event.getEntity()) : null
+        );
+    }
+
+    private synchronized void changed(Long id, Contribution contribution) {
+        if (changedWhileLoading != null) {
+            changedWhileLoading.add(id);
+        }
+        Contribution previous = contribution != null ? contributions.put(id, contribution) : contributions.remove(id);
+        if (previous != null) {
+            add(previous, -1);
+        }
+        if (contribution != null) {
+            add(contribution, 1);
+        }
+    }
+
+    private void add(Contribution contribution, int sign) {
+        if (contribution.previsionId == null) {
+            return;
+        }
+        Map<Long, Long> natures = counters.computeIfAbsent(contribution.previsionId, previsionId -> new HashMap<>());
+        // a null natureOuvrage is counted under the 0 key
+        Long natureId = contribution.natureouvrageId != null ? contribution.natureouvrageId : 0L;
+        if (natures.merge(natureId, (long) sign, Long::sum) == 0) {
+            natures.remove(natureId);
+        }
+    }
+
+    private void onReferenceChange(EntityChangeEvent event) {
+        Object entity = event.getEntity();
+        if (event.getId() != null && (entity != null || event.getOperation() == EntityChangeEvent.Operation.DELETE)) {
+            synchronized (this) {
+                referencesGeneration++;
+                if (event.getEntityType() == Prevision.class) {
+                    putPrevision(event.getId(), (Prevision) entity);
+                } else if (event.getEntityType() == Centre.class) {
+                    link(AchievementLevel.CENTRE, event.getId(), entity != null ? ((Centre) entity).getCentreregroupementId() : null);
+                } else {
+                    Long parentId = entity != null ? ((CentreRegroupement) entity).getDirectionregionaleId() : null;
+                    link(AchievementLevel.CENTRE_REGROUPEMENT, event.getId(), parentId);
+                }
+            }
+            return;
+        }
+        // the event doesn't provide the saved entity, the references are small enough to be reloaded
+        loadReferences().subscribe(null, e -> log.warn("Failed to reload the Previsions and the Centres", e));
+    }
+
+    private Mono<Void> loadReferences() {
+        long generation;
+        synchronized (this) {
+            generation = referencesGeneration;
+        }
+        return Mono
+            .zip(
+                previsionRepository.findAll().collectList(),
+                centreRepository.findAll().collectList(),
+                centreRegroupementRepository.findAll().collectList()
+            )
+            .flatMap(
+                loaded -> {
+                    synchronized (this) {
+                        if (generation == referencesGeneration) {
+                            referencesLoaded(loaded.getT1(), loaded.getT2(), loaded.getT3());
+                            return Mono.<Void>empty();
+                        }
+                    }
+                    // a reference has changed since, the loaded ones may be stale
+                    return loadReferences();
+                }
+            );
+    }
+
+    private void referencesLoaded(List<Prevision> loadedPrevisions, List<Centre> centres, List<CentreRegroupement> centreRegroupements) {
+        previsions.clear();
+        for (AchievementLevel level : AchievementLevel.values()) {
+            parents.get(level).clear();
+            children.get(level).clear();
+        }
+        for (Prevision prevision : loadedPrevisions) {
+            putPrevision(prevision.getId(), prevision);
+        }
+        for (Centre centre : centres) {
+            link(AchievementLevel.CENTRE, centre.getId(), centre.getCentreregroupementId());
+        }
+        for (CentreRegroupement centreRegroupement : centreRegroupements) {
+            link(AchievementLevel.CENTRE_REGROUPEMENT, centreRegroupement.getId(), centreRegroupement.getDirectionregionaleId());
+        }
+    }
+
+    private void putPrevision(Long id, Prevision prevision) {
+        if (prevision != null) {
+            previsions.put(id, prevision);
+            link(AchievementLevel.PREVISION, id, prevision.getCentreId());
+        } else {
+            previsions.remove(id);
+            link(AchievementLevel.PREVISION, id, null);
+        }
+    }
+
+    // moves a node under its new parent, or detaches it with a null parent
+    private void link(AchievementLevel level, Long id, Long parentId) {
+        Long previousParentId = parentId != null ? parents.get(level).put(id, parentId) : parents.get(level).remove(id);
+        if (Objects.equals(previousParentId, parentId)) {
+            return;
+        }
+        Map<Long, Set<Long>> siblings = children.get(level.getParent());
+        if (previousParentId != null) {
+            Set<Long> previousSiblings = siblings.get(previousParentId);
+            previousSiblings.remove(id);
+            if (previousSiblings.isEmpty()) {
+                siblings.remove(previousParentId);
+            }
+        }
+        if (parentId != null) {
+            siblings.computeIfAbsent(parentId, nodeId -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * Get the achievement of the previsions of a node, in a time proportional to its number of previsions.
+     *
+     * @param level the level of the node.
+     * @param id the id of the node.
+     * @param refanneeId the id of the year of the previsions, or null for all of them.
+     * @return the achievement of the previsions of the node, zero if it has none.
+     */
+    public synchronized PrevisionAchievementDTO getAchievement(AchievementLevel level, Long id, Long refanneeId) {
+        PrevisionAchievementDTO achievement = new PrevisionAchievementDTO();
+        achievement.setLevel(level);
+        achievement.setId(id);
+        achievement.setRefanneeId(refanneeId);
+        for (OuvrageCategory category : OuvrageCategory.values()) {
+            achievement.getCategories().put(category, new CategoryAchievementDTO());
+        }
+        addPrevisions(achievement, level, id);
+        return achievement;
+    }
+
+    private void addPrevisions(PrevisionAchievementDTO achievement, AchievementLevel level, Long id) {
+        if (level != AchievementLevel.PREVISION) {
+            for (Long childId : children.get(level).getOrDefault(id, Collections.emptySet())) {
+                addPrevisions(achievement, level.getChild(), childId);
+            }
+            return;
+        }
+        Prevision prevision = previsions.get(id);
+        if (prevision == null || (achievement.getRefanneeId() != null && !achievement.getRefanneeId().equals(prevision.getRefanneeId()))) {
+            return;
+        }
+        achievement.setPrevisions(achievement.getPrevisions() + 1);
+        CategoryAchievementDTO total = achievement.getTotal();
+        for (OuvrageCategory category : OuvrageCategory.values()) {
+            long target = category.getTarget(prevision);
+            total.setTarget(total.getTarget() + target);
+            CategoryAchievementDTO categoryAchievement = achievement.getCategories().get(category);
+            categoryAchievement.setTarget(categoryAchievement.getTarget() + target);
+        }
+        for (Map.Entry<Long, Long> counter : counters.getOrDefault(id, Collections.emptyMap()).entrySet()) {
+            long realised = counter.getValue();
+            total.setRealised(total.getRealised() + realised);
+            achievement.getNatureOuvrages().merge(counter.getKey(), realised, Long::sum);
+            OuvrageCategory category = natureCategories.get(counter.getKey());
+            if (category != null) {
+                CategoryAchievementDTO categoryAchievement = achievement.getCategories().get(category);
+                categoryAchievement.setRealised(categoryAchievement.getRealised() + realised);
+            }
+        }
+    }
+
+    /**
+     * @return whether the counters are built.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    private static final class Contribution {
+
+        final Long previsionId;
+        final Long natureouvrageId;
+
+        private Contribution(Long previsionId, Long natureouvrageId) {
+            this.previsionId = previsionId;
+            this.natureouvrageId = natureouvrageId;
+        }
+
+        static Contribution of(FicheSuiviOuvrage ficheSuiviOuvrage) {
+            return new Contribution(ficheSuiviOuvrage.getPrevisionId(), ficheSuiviOuvrage.getNatureouvrageId());
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,31 @@ public class PrevisionService {
 
     private final PrevisionSearchRepository previsionSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public PrevisionService(
         PrevisionRepository previsionRepository,
         PrevisionMapper previsionMapper,
-        PrevisionSearchRepository previsionSearchRepository
+        PrevisionSearchRepository previsionSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.previsionRepository = previsionRepository;
         this.previsionMapper = previsionMapper;
         this.previsionSearchRepository = previsionSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Prevision.class, previsionSearchRepository, previsionRepository::findAllBy);
     }
 
     /**
@@ -50,7 +68,8 @@ public class PrevisionService {
         log.debug("Request to save Prevision : {}", previsionDTO);
         return previsionRepository
             .save(previsionMapper.toEntity(previsionDTO))
-            .flatMap(previsionSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(Prevision.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Prevision.class, saved.getId(), saved)))
             .map(previsionMapper::toDto);
     }
 
@@ -72,13 +91,8 @@ public class PrevisionService {
                 }
             )
             .flatMap(previsionRepository::save)
-            .flatMap(
-                savedPrevision -> {
-                    previsionSearchRepository.save(savedPrevision);
-
-                    return Mono.just(savedPrevision);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(Prevision.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Prevision.class, saved.getId(), saved)))
             .map(previsionMapper::toDto);
     }
 
@@ -100,15 +114,16 @@ public class PrevisionService {
      *
      */
     public Mono<Long> countAll() {
-        return previsionRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of previsions available in search repository.
-     *
+     * Returns the number of previsions available, cached until a prevision is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return previsionSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Prevision.class, mode);
     }
 
     /**
@@ -117,10 +132,10 @@ public class PrevisionService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<PrevisionDTO> findOne(Long id) {
         log.debug("Request to get Prevision : {}", id);
-        return previsionRepository.findById(id).map(previsionMapper::toDto);
+        return entityCache.findById(Prevision.class, id, () -> previsionRepository.findById(id).map(previsionMapper::toDto));
     }
 
     /**
@@ -131,7 +146,10 @@ public class PrevisionService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Prevision : {}", id);
-        return previsionRepository.deleteById(id).then(previsionSearchRepository.deleteById(id));
+        return previsionRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(Prevision.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Prevision.class, id)));
     }
 
     /**
@@ -139,11 +157,11 @@ public class PrevisionService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<PrevisionDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<PrevisionDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Previsions for query {}", query);
-        return previsionSearchRepository.search(query, pageable).map(previsionMapper::toDto);
+        return previsionSearchRepository.search(query, pageable).map(results -> results.map(previsionMapper::toDto));
     }
 }
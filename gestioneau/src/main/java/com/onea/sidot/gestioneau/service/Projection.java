@@ -0,0 +1,131 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.beans.PropertyDescriptor;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.beans.BeanUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * The properties of a DTO requested by a client (sparse fieldset): only their columns are selected, only their references are
+ * resolved, and only they are serialized.
+ * <p>
+ * The id is always part of a projection.
+ */
+public final class Projection {
+
+    private static final Projection ALL = new Projection(null);
+
+    private final Set<String> fields;
+
+    private Projection(Set<String> fields) {
+        this.fields = fields != null ? Collections.unmodifiableSet(fields) : null;
+    }
+
+    /**
+     * @return the projection of all the properties.
+     */
+    public static Projection all() {
+        return ALL;
+    }
+
+    /**
+     * Creates the projection of the given properties, and the id.
+     * @param fields the properties.
+     * @return the projection.
+     */
+    public static Projection of(Collection<String> fields) {
+        Set<String> projected = new TreeSet<>(fields);
+        projected.add(KeysetPageable.ID_PROPERTY);
+        return new Projection(projected);
+    }
+
+    /**
+     * Parses a comma separated list of properties of a DTO.
+     * @param fields the list of properties, or null for all of them.
+     * @param dtoType the type of the DTO.
+     * @return the projection.
+     * @throws IllegalArgumentException if the list is empty or contains an unknown property.
+     */
+    public static Projection parse(@Nullable String fields, Class<?> dtoType) {
+        if (fields == null) {
+            return ALL;
+        }
+        Set<String> projected = new TreeSet<>();
+        for (String field : StringUtils.commaDelimitedListToSet(fields)) {
+            String trimmed = field.trim();
+            PropertyDescriptor property = BeanUtils.getPropertyDescriptor(dtoType, trimmed);
+            if (property == null || property.getReadMethod() == null || "class".equals(trimmed)) {
+                throw new IllegalArgumentException("Unknown field: " + trimmed);
+            }
+            projected.add(trimmed);
+        }
+        if (projected.isEmpty()) {
+            throw new IllegalArgumentException("No field requested");
+        }
+        return of(projected);
+    }
+
+    /**
+     * @return whether all the properties are projected.
+     */
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    /**
+     * @param field a property.
+     * @return whether the property is projected.
+     */
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * Returns a projection which also includes the given properties, for instance the sort properties of a keyset page.
+     * @param others the properties to add.
+     * @return the projection.
+     */
+    public Projection include(Collection<String> others) {
+        if (fields == null || fields.containsAll(others)) {
+            return this;
+        }
+        Set<String> projected = new TreeSet<>(fields);
+        projected.addAll(others);
+        return new Projection(projected);
+    }
+
+    /**
+     * @return the projected properties, or null if all of them are.
+     */
+    @Nullable
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Projection)) {
+            return false;
+        }
+        Projection that = (Projection) o;
+        return fields == null ? that.fields == null : fields.equals(that.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields == null ? 0 : fields.hashCode();
+    }
+
+    // used in the keys of the statement cache, the properties are sorted
+    @Override
+    public String toString() {
+        return fields == null ? "*" : String.join(",", fields);
+    }
+}
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,35 @@ public class ProvinceService {
 
     private final ProvinceSearchRepository provinceSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final GeoClosureService geoClosureService;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public ProvinceService(
         ProvinceRepository provinceRepository,
         ProvinceMapper provinceMapper,
-        ProvinceSearchRepository provinceSearchRepository
+        ProvinceSearchRepository provinceSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        GeoClosureService geoClosureService,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.provinceRepository = provinceRepository;
         this.provinceMapper = provinceMapper;
         this.provinceSearchRepository = provinceSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.geoClosureService = geoClosureService;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Province.class, provinceSearchRepository, provinceRepository::findAllBy);
     }
 
     /**
@@ -50,7 +72,9 @@ public class ProvinceService {
         log.debug("Request to save Province : {}", provinceDTO);
         return provinceRepository
             .save(provinceMapper.toEntity(provinceDTO))
-            .flatMap(provinceSearchRepository::save)
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.PROVINCE, saved.getId(), saved.getRegionId()))
+            .delayUntil(saved -> searchOutbox.changed(Province.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Province.class, saved.getId(), saved)))
             .map(provinceMapper::toDto);
     }
 
@@ -72,13 +96,9 @@ public class ProvinceService {
                 }
             )
             .flatMap(provinceRepository::save)
-            .flatMap(
-                savedProvince -> {
-                    provinceSearchRepository.save(savedProvince);
-
-                    return Mono.just(savedProvince);
-                }
-            )
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.PROVINCE, saved.getId(), saved.getRegionId()))
+            .delayUntil(saved -> searchOutbox.changed(Province.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Province.class, saved.getId(), saved)))
             .map(provinceMapper::toDto);
     }
 
@@ -100,15 +120,16 @@ public class ProvinceService {
      *
      */
     public Mono<Long> countAll() {
-        return provinceRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of provinces available in search repository.
-     *
+     * Returns the number of provinces available, cached until a province is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return provinceSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Province.class, mode);
     }
 
     /**
@@ -117,10 +138,10 @@ public class ProvinceService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<ProvinceDTO> findOne(Long id) {
         log.debug("Request to get Province : {}", id);
-        return provinceRepository.findById(id).map(provinceMapper::toDto);
+        return entityCache.findById(Province.class, id, () -> provinceRepository.findById(id).map(provinceMapper::toDto));
     }
 
     /**
@@ -131,7 +152,11 @@ public class ProvinceService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Province : {}", id);
-        return provinceRepository.deleteById(id).then(provinceSearchRepository.deleteById(id));
+        return geoClosureService
+            .deleted(HierarchyLevel.PROVINCE, id)
+            .then(provinceRepository.deleteById(id))
+            .then(searchOutbox.changed(Province.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Province.class, id)));
     }
 
     /**
@@ -139,11 +164,11 @@ public class ProvinceService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<ProvinceDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<ProvinceDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Provinces for query {}", query);
-        return provinceSearchRepository.search(query, pageable).map(provinceMapper::toDto);
+        return provinceSearchRepository.search(query, pageable).map(results -> results.map(provinceMapper::toDto));
     }
 }
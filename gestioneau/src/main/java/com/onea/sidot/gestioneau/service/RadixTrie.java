@@ -0,0 +1,226 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory compressed trie of libelles, indexed by id, for the prefix queries of an autocomplete.
+ * <p>
+ * The libelles are {@link #normalize normalized}, and every word of a libelle is a key of its own, so that a prefix matches
+ * the start of any of its words: {@code "dioul"} finds {@code "Bobo-Dioulasso"}. The edges of the trie are labelled by the
+ * longest common prefix of their keys, a node being split when a key diverges in the middle of its label, and merged back
+ * into its only child when a removal leaves it without ids. The trie is not thread-safe.
+ */
+public class RadixTrie {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final class Node {
+
+        String label;
+
+        // the children, by the first character of their label
+        final TreeMap<Character, Node> children = new TreeMap<>();
+
+        // the ids whose key ends at this node
+        final Set<Long> ids = new TreeSet<>();
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Node root = new Node("");
+
+    private final Map<Long, List<String>> keys = new HashMap<>();
+
+    /**
+     * Normalizes a libelle: lowercase, without the accents, the other characters than letters and digits being replaced by
+     * single spaces.
+     *
+     * @param value the libelle.
+     * @return the normalized libelle, trimmed.
+     */
+    public static String normalize(String value) {
+        String decomposed = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(decomposed.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * The keys of a libelle: its normalized value, from every start of a word.
+     *
+     * @param value the libelle.
+     * @return the keys, from the longest; none if the libelle has no letter nor digit.
+     */
+    public static List<String> keys(String value) {
+        String normalized = normalize(value);
+        List<String> result = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return result;
+        }
+        result.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            result.add(normalized.substring(i + 1));
+        }
+        return result;
+    }
+
+    /**
+     * Adds a libelle to the trie, or replaces it if the id is already in the trie.
+     * @param id the id of the libelle.
+     * @param value the libelle.
+     */
+    public void put(long id, String value) {
+        remove(id);
+        List<String> idKeys = keys(value);
+        if (idKeys.isEmpty()) {
+            return;
+        }
+        keys.put(id, idKeys);
+        for (String key : idKeys) {
+            insert(key).ids.add(id);
+        }
+    }
+
+    private Node insert(String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                return child;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    /**
+     * Removes a libelle from the trie.
+     * @param id the id of the libelle.
+     * @return whether the libelle was in the trie.
+     */
+    public boolean remove(long id) {
+        List<String> idKeys = keys.remove(id);
+        if (idKeys == null) {
+            return false;
+        }
+        for (String key : idKeys) {
+            remove(root, key, 0, id);
+        }
+        return true;
+    }
+
+    private static void remove(Node parent, String key, int i, long id) {
+        Node child = parent.children.get(key.charAt(i));
+        if (child == null || !key.startsWith(child.label, i)) {
+            return;
+        }
+        int end = i + child.label.length();
+        if (end == key.length()) {
+            child.ids.remove(id);
+        } else {
+            remove(child, key, end, id);
+        }
+        if (child.ids.isEmpty()) {
+            if (child.children.isEmpty()) {
+                parent.children.remove(key.charAt(i));
+            } else if (child.children.size() == 1) {
+                Node grandchild = child.children.firstEntry().getValue();
+                grandchild.label = child.label + grandchild.label;
+                parent.children.put(key.charAt(i), grandchild);
+            }
+        }
+    }
+
+    /**
+     * Removes all the libelles.
+     */
+    public void clear() {
+        keys.clear();
+        root.children.clear();
+        root.ids.clear();
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Finds the libelles of which a word starts with a prefix, the prefix being normalized like the libelles.
+     * @param prefix the prefix, all the libelles match an empty one.
+     * @param limit the maximum number of ids.
+     * @return the ids of the libelles, distinct, in the order of their matching keys.
+     */
+    public List<Long> prefix(String prefix, int limit) {
+        String key = normalize(prefix);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                return new ArrayList<>();
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (i + common == key.length()) {
+                // the prefix ends on the label of the child
+                node = child;
+                break;
+            }
+            if (common < child.label.length()) {
+                return new ArrayList<>();
+            }
+            node = child;
+            i += common;
+        }
+        Set<Long> result = new LinkedHashSet<>();
+        collect(node, limit, result);
+        return new ArrayList<>(result);
+    }
+
+    private static void collect(Node node, int limit, Set<Long> result) {
+        for (Long id : node.ids) {
+            if (result.size() >= limit) {
+                return;
+            }
+            result.add(id);
+        }
+        for (Node child : node.children.values()) {
+            if (result.size() >= limit) {
+                return;
+            }
+            collect(child, limit, result);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,85 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
+import com.onea.sidot.gestioneau.security.SecurityUtils;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * The users who wrote within the read-your-writes window of the read replicas, shared by the instances of the application
+ * through Hazelcast.
+ * <p>
+ * The read-only transactions of these users run on the primary, so that they see their own writes before the replicas do.
+ * The {@link EntityChangePublisher} records the current user after every committed write. Nothing is recorded when no
+ * replica is configured.
+ */
+@Service
+public class RecentWriters {
+
+    public static final String RECENT_WRITERS_MAP = "recent-writers";
+
+    private final Logger log = LoggerFactory.getLogger(RecentWriters.class);
+
+    private final IMap<String, Long> writers;
+
+    private final Duration window;
+
+    public RecentWriters(HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties) {
+        ApplicationProperties.ReadReplicas readReplicas = applicationProperties.getReadReplicas();
+        this.writers = hazelcastInstance.getMap(RECENT_WRITERS_MAP);
+        this.window = readReplicas.getUrls().isEmpty() ? Duration.ZERO : readReplicas.getReadYourWritesWindow();
+    }
+
+    /**
+     * Record a write of the current user, if any.
+     *
+     * @return a Mono to signal that the write is recorded.
+     */
+    public Mono<Void> recordWrite() {
+        if (window.isZero()) {
+            return Mono.empty();
+        }
+        return SecurityUtils
+            .getCurrentUserLogin()
+            .flatMap(
+                login ->
+                    Mono.fromCompletionStage(
+                        () -> writers.setAsync(login, System.currentTimeMillis(), window.toMillis(), TimeUnit.MILLISECONDS)
+                    )
+            )
+            .onErrorResume(
+                e -> {
+                    log.warn("Failed to record a write of the current user", e);
+                    return Mono.empty();
+                }
+            );
+    }
+
+    /**
+     * Whether the current user wrote within the read-your-writes window.
+     *
+     * @return a Mono with true if the current user wrote recently, or if it can't be known.
+     */
+    public Mono<Boolean> isRecentWriter() {
+        if (window.isZero()) {
+            return Mono.just(false);
+        }
+        return SecurityUtils
+            .getCurrentUserLogin()
+            .flatMap(login -> Mono.fromCompletionStage(() -> writers.getAsync(login)))
+            .map(writtenAt -> true)
+            .defaultIfEmpty(false)
+            .onErrorResume(
+                e -> {
+                    log.warn("Failed to read the recent writes of the current user", e);
+                    return Mono.just(true);
+                }
+            );
+    }
+}
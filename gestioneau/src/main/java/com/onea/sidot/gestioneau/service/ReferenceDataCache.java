@@ -0,0 +1,227 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Local cache of the reference data, such as the lookup tables, keyed by id.
+ * <p>
+ * The entities are loaded on the first miss, by batch, and evicted by the {@link EntityChangeEvent}s of the services, on
+ * this instance and, through a Hazelcast topic, on the other ones. As the messages of a topic may be lost, the entities also
+ * expire after {@code application.reference-cache.time-to-live}. The readers get private copies of the cached entities,
+ * which they may modify.
+ */
+@Service
+public class ReferenceDataCache {
+
+    static final String EVICTIONS_TOPIC = "reference-data-evictions";
+
+    private final Logger log = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    private final int maxEntriesPerType;
+
+    private final long timeToLiveNanos;
+
+    private final ITopic<Eviction> evictions;
+
+    private final Map<Class<?>, Map<Long, Cached>> caches = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public ReferenceDataCache(
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        HazelcastInstance hazelcastInstance,
+        ApplicationProperties applicationProperties
+    ) {
+        this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+        this.maxEntriesPerType = applicationProperties.getReferenceCache().getMaxEntriesPerType();
+        this.timeToLiveNanos = applicationProperties.getReferenceCache().getTimeToLive().toNanos();
+        this.evictions = hazelcastInstance.getTopic(EVICTIONS_TOPIC);
+        evictions.addMessageListener(this::onEviction);
+    }
+
+    /**
+     * Find the entities of a type with the given ids, from the cache or from the database for the ones which are not cached yet.
+     *
+     * @param entityType the entity type.
+     * @param ids the ids of the entities.
+     * @param <T> the entity type.
+     * @return private copies of the entities which exist, by id.
+     */
+    public <T> Mono<Map<Long, T>> findAllById(Class<T> entityType, Collection<Long> ids) {
+        Map<Long, Cached> cache = caches.computeIfAbsent(entityType, type -> new ConcurrentHashMap<>());
+        Map<Long, T> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Long id : ids) {
+            Cached cached = cache.get(id);
+            if (cached != null && now - cached.loadedAt < timeToLiveNanos) {
+                found.put(id, copy(entityType.cast(cached.reference)));
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(found);
+        }
+        long generation = generation(entityType).get();
+        RelationalPersistentEntity<?> persistentEntity = getPersistentEntity(entityType);
+        return r2dbcEntityTemplate
+            .select(entityType)
+            .matching(query(where(persistentEntity.getRequiredIdProperty().getName()).in(missing)))
+            .all()
+            .collectList()
+            .map(
+                loaded -> {
+                    // an entity written while loading may be stale, it is not cached
+                    boolean cacheable = generation(entityType).get() == generation;
+                    if (cacheable && cache.size() + loaded.size() > maxEntriesPerType) {
+                        log.debug("Clearing the reference data cache of {}, {} entities reached", entityType.getSimpleName(), cache.size());
+                        cache.clear();
+                    }
+                    for (T reference : loaded) {
+                        Long id = (Long) persistentEntity.getIdentifierAccessor(reference).getRequiredIdentifier();
+                        if (cacheable) {
+                            // the loaded instance is kept by the cache, the reader gets a copy
+                            cache.put(id, new Cached(reference, now));
+                            found.put(id, copy(reference));
+                        } else {
+                            found.put(id, reference);
+                        }
+                    }
+                    return found;
+                }
+            );
+    }
+
+    // only the persistent properties are copied
+    @SuppressWarnings("unchecked")
+    private <T> T copy(T reference) {
+        RelationalPersistentEntity<?> persistentEntity = getPersistentEntity(reference.getClass());
+        T copy = (T) BeanUtils.instantiateClass(reference.getClass());
+        PersistentPropertyAccessor<T> source = persistentEntity.getPropertyAccessor(reference);
+        PersistentPropertyAccessor<T> target = persistentEntity.getPropertyAccessor(copy);
+        for (RelationalPersistentProperty property : persistentEntity) {
+            target.setProperty(property, source.getProperty(property));
+        }
+        return copy;
+    }
+
+    /**
+     * Evicts the entity which has been written, before the other listeners of the event may read it from the cache, then
+     * from the caches of the other instances.
+     *
+     * @param event the change event.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onEntityChange(EntityChangeEvent event) {
+        evict(event.getEntityType(), event.getId());
+        try {
+            evictions.publish(new Eviction(event.getEntityType().getName(), event.getId()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to evict {} {} from the reference data cache of the other instances", event.getEntityType(), event.getId(), e);
+        }
+    }
+
+    private void onEviction(Message<Eviction> message) {
+        Member publisher = message.getPublishingMember();
+        if (publisher != null && publisher.localMember()) {
+            return;
+        }
+        Eviction eviction = message.getMessageObject();
+        caches
+            .keySet()
+            .stream()
+            .filter(entityType -> entityType.getName().equals(eviction.entityType))
+            .findFirst()
+            .ifPresent(entityType -> evict(entityType, eviction.id));
+    }
+
+    private void evict(Class<?> entityType, Long id) {
+        generation(entityType).incrementAndGet();
+        Map<Long, Cached> cache = caches.get(entityType);
+        if (cache != null) {
+            if (id != null) {
+                cache.remove(id);
+            } else {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Evicts all the entities of a type, after a write which bypassed the services.
+     *
+     * @param entityType the entity type.
+     */
+    public void evict(Class<?> entityType) {
+        generation(entityType).incrementAndGet();
+        caches.remove(entityType);
+    }
+
+    private AtomicLong generation(Class<?> entityType) {
+        return generations.computeIfAbsent(entityType, type -> new AtomicLong());
+    }
+
+    private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
+        return r2dbcEntityTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entityType);
+    }
+
+    private static final class Cached {
+
+        private final Object reference;
+
+        private final long loadedAt;
+
+        private Cached(Object reference, long loadedAt) {
+            this.reference = reference;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * The eviction of an entity, or of all the entities of a type if the id is null, sent to the other instances.
+     */
+    private static final class Eviction implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String entityType;
+
+        private final Long id;
+
+        private Eviction(String entityType, Long id) {
+            this.entityType = entityType;
+            this.id = id;
+        }
+    }
+}
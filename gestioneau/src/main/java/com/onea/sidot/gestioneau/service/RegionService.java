@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,10 +31,35 @@ public class RegionService {
 
     private final RegionSearchRepository regionSearchRepository;
 
-    public RegionService(RegionRepository regionRepository, RegionMapper regionMapper, RegionSearchRepository regionSearchRepository) {
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final GeoClosureService geoClosureService;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
+    public RegionService(
+        RegionRepository regionRepository,
+        RegionMapper regionMapper,
+        RegionSearchRepository regionSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        GeoClosureService geoClosureService,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
+    ) {
         this.regionRepository = regionRepository;
         this.regionMapper = regionMapper;
         this.regionSearchRepository = regionSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.geoClosureService = geoClosureService;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Region.class, regionSearchRepository, regionRepository::findAllBy);
     }
 
     /**
@@ -44,7 +70,12 @@ public class RegionService {
      */
     public Mono<RegionDTO> save(RegionDTO regionDTO) {
         log.debug("Request to save Region : {}", regionDTO);
-        return regionRepository.save(regionMapper.toEntity(regionDTO)).flatMap(regionSearchRepository::save).map(regionMapper::toDto);
+        return regionRepository
+            .save(regionMapper.toEntity(regionDTO))
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.REGION, saved.getId(), null))
+            .delayUntil(saved -> searchOutbox.changed(Region.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Region.class, saved.getId(), saved)))
+            .map(regionMapper::toDto);
     }
 
     /**
@@ -65,13 +96,9 @@ public class RegionService {
                 }
             )
             .flatMap(regionRepository::save)
-            .flatMap(
-                savedRegion -> {
-                    regionSearchRepository.save(savedRegion);
-
-                    return Mono.just(savedRegion);
-                }
-            )
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.REGION, saved.getId(), null))
+            .delayUntil(saved -> searchOutbox.changed(Region.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Region.class, saved.getId(), saved)))
             .map(regionMapper::toDto);
     }
 
@@ -93,15 +120,16 @@ public class RegionService {
      *
      */
     public Mono<Long> countAll() {
-        return regionRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of regions available in search repository.
-     *
+     * Returns the number of regions available, cached until a region is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return regionSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Region.class, mode);
     }
 
     /**
@@ -110,10 +138,10 @@ public class RegionService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<RegionDTO> findOne(Long id) {
         log.debug("Request to get Region : {}", id);
-        return regionRepository.findById(id).map(regionMapper::toDto);
+        return entityCache.findById(Region.class, id, () -> regionRepository.findById(id).map(regionMapper::toDto));
     }
 
     /**
@@ -124,7 +152,11 @@ public class RegionService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Region : {}", id);
-        return regionRepository.deleteById(id).then(regionSearchRepository.deleteById(id));
+        return geoClosureService
+            .deleted(HierarchyLevel.REGION, id)
+            .then(regionRepository.deleteById(id))
+            .then(searchOutbox.changed(Region.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Region.class, id)));
     }
 
     /**
@@ -132,11 +164,11 @@ public class RegionService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<RegionDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<RegionDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Regions for query {}", query);
-        return regionSearchRepository.search(query, pageable).map(regionMapper::toDto);
+        return regionSearchRepository.search(query, pageable).map(results -> results.map(regionMapper::toDto));
     }
 }
@@ -0,0 +1,589 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The outbox of the Elasticsearch indexing: the services record the ids of the entities they write in the
+ * {@code search_outbox} table, in the transaction of the write, and the indexer brings Elasticsearch up to date with them.
+ * <p>
+ * A write thus doesn't wait for Elasticsearch, and no change is lost when Elasticsearch is down or the application stops:
+ * the change stays in the outbox until it is indexed. The indexer is woken up by the commit of the changes, and polls the
+ * outbox in case another instance recorded them. It indexes the current state of the entities, loaded by the repository
+ * registered with {@link #register}, by a single bulk request per batch and type; the entities which no longer exist are
+ * removed from their index. The batches which fail are retried with an exponential backoff.
+ * <p>
+ * An index may hold documents denormalized from other entity types, such as the libelles of the references of an entity:
+ * the {@link #registerDependents dependents} of a changed entity are then recorded in the outbox once it is indexed, so that
+ * their documents are brought up to date in turn.
+ * <p>
+ * Only the oldest member of the Hazelcast cluster runs the indexer, so that the changes are indexed in order. The indexing of
+ * an entity type can be paused, such as while its index is rebuilt, the changes being indexed once it is resumed.
+ */
+@Service
+public class SearchOutbox {
+
+    private static final String INSERT = "INSERT INTO search_outbox (entity_type, entity_id, attempts, next_attempt_date) VALUES ";
+
+    public static final String PAUSED_TYPES_MAP = "search-outbox-paused";
+
+    private static final String SELECT_DUE =
+        "SELECT id, entity_type, entity_id, attempts FROM search_outbox WHERE next_attempt_date <= :now%s ORDER BY id LIMIT :limit";
+
+    private static final String NOT_PAUSED = " AND entity_type NOT IN (:paused)";
+
+    private static final String DELETE = "DELETE FROM search_outbox WHERE id IN (:ids)";
+
+    private static final String RETRY =
+        "UPDATE search_outbox SET attempts = :attempts, next_attempt_date = :nextAttemptDate WHERE id IN (:ids)";
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutbox.class);
+
+    private final DatabaseClient db;
+
+    private final ReactiveElasticsearchOperations elasticsearchOperations;
+
+    private final HazelcastInstance hazelcastInstance;
+
+    // the owner of the pause of every paused entity type
+    private final IMap<String, String> pausedTypes;
+
+    private final Map<String, SearchIndex<?>> indices = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Dependents>> dependents = new ConcurrentHashMap<>();
+
+    private final Sinks.Many<Boolean> wakeUps = Sinks.many().multicast().directBestEffort();
+
+    private final int batchSize;
+
+    private final Duration pollInterval;
+
+    private final Duration retryBackoff;
+
+    private final Duration maxRetryBackoff;
+
+    private Disposable indexer;
+
+    public SearchOutbox(
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        ReactiveElasticsearchOperations elasticsearchOperations,
+        HazelcastInstance hazelcastInstance,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.SearchOutbox searchOutbox = applicationProperties.getSearchOutbox();
+        this.db = r2dbcEntityTemplate.getDatabaseClient();
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.hazelcastInstance = hazelcastInstance;
+        this.pausedTypes = hazelcastInstance.getMap(PAUSED_TYPES_MAP);
+        this.batchSize = searchOutbox.getBatchSize();
+        this.pollInterval = searchOutbox.getPollInterval();
+        this.retryBackoff = searchOutbox.getRetryBackoff();
+        this.maxRetryBackoff = searchOutbox.getMaxRetryBackoff();
+    }
+
+    /**
+     * Register the index of an entity type. The services register their entity type when they are created.
+     *
+     * @param entityType the entity type.
+     * @param searchRepository the search repository of the entity type.
+     * @param finder the finder of the current state of the entities, such as {@code findAllBy} of their repository.
+     * @param <T> the entity type.
+     */
+    public <T> void register(
+        Class<T> entityType,
+        ReactiveElasticsearchRepository<T, Long> searchRepository,
+        BiFunction<Pageable, Criteria, Flux<T>> finder
+    ) {
+        register(entityType, entityType, searchRepository, finder);
+    }
+
+    /**
+     * Register the index of an entity type, whose documents are of another type, such as a denormalized view of the entities.
+     *
+     * @param entityType the entity type.
+     * @param documentType the type of the documents of the index.
+     * @param searchRepository the search repository of the documents.
+     * @param finder the finder of the current documents of the entities, by the criteria of the entities.
+     * @param <D> the type of the documents.
+     */
+    public <D> void register(
+        Class<?> entityType,
+        Class<D> documentType,
+        ReactiveElasticsearchRepository<D, Long> searchRepository,
+        BiFunction<Pageable, Criteria, Flux<D>> finder
+    ) {
+        @SuppressWarnings("unchecked")
+        ElasticsearchPersistentEntity<D> persistentEntity = (ElasticsearchPersistentEntity<D>) elasticsearchOperations
+            .getElasticsearchConverter()
+            .getMappingContext()
+            .getRequiredPersistentEntity(documentType);
+        indices.put(entityType.getSimpleName(), new SearchIndex<>(entityType, documentType, persistentEntity, searchRepository, finder));
+    }
+
+    /**
+     * Register the entities whose documents depend on the entities of another type: once changes of the latter are indexed,
+     * the dependents are recorded as changed too.
+     *
+     * @param entityType the type of the entities which the documents depend on.
+     * @param dependentType the type of the dependent entities, which must have an index.
+     * @param dependentIds the finder of the ids of the dependents of entities, by their ids.
+     */
+    public void registerDependents(Class<?> entityType, Class<?> dependentType, Function<List<Long>, Flux<Long>> dependentIds) {
+        dependents
+            .computeIfAbsent(entityType.getSimpleName(), type -> new CopyOnWriteArrayList<>())
+            .add(new Dependents(dependentType, dependentIds));
+    }
+
+    /**
+     * @return the registered entity types, ordered by name.
+     */
+    public Set<Class<?>> getEntityTypes() {
+        Set<Class<?>> entityTypes = new TreeSet<>(Comparator.comparing(Class::getSimpleName));
+        for (SearchIndex<?> index : indices.values()) {
+            entityTypes.add(index.entityType);
+        }
+        return entityTypes;
+    }
+
+    /**
+     * Get the type of the documents of the index of a registered entity type.
+     *
+     * @param entityType the entity type.
+     * @return the type of the documents, which is the entity type unless the index holds another view of the entities.
+     * @throws IllegalArgumentException if no index is registered for the entity type.
+     */
+    public Class<?> getDocumentType(Class<?> entityType) {
+        return getIndex(entityType).documentType;
+    }
+
+    /**
+     * Get the current documents of all the entities of a registered type, as they are indexed.
+     *
+     * @param entityType the entity type.
+     * @return the documents, streamed from the database.
+     */
+    public Flux<Object> findAll(Class<?> entityType) {
+        return findAllBy(entityType, null, null);
+    }
+
+    /**
+     * Get the current documents of the entities of a registered type matching criteria, as they are indexed.
+     *
+     * @param entityType the entity type.
+     * @param pageable the pagination information of the entities, or null for all of them.
+     * @param criteria the criteria of the entities, or null for all of them.
+     * @return the documents, read from the database.
+     */
+    public Flux<Object> findAllBy(Class<?> entityType, Pageable pageable, Criteria criteria) {
+        return Flux.defer(() -> getIndex(entityType).finder.apply(pageable, criteria).cast(Object.class));
+    }
+
+    /**
+     * Get the entity type of the index whose documents are of a type.
+     *
+     * @param documentType the type of the documents.
+     * @return the entity type.
+     * @throws IllegalArgumentException if no index is registered for the document type.
+     */
+    public Class<?> getEntityType(Class<?> documentType) {
+        for (SearchIndex<?> index : indices.values()) {
+            if (index.documentType == documentType) {
+                return index.entityType;
+            }
+        }
+        throw new IllegalArgumentException("No search index is registered for the documents " + documentType.getSimpleName());
+    }
+
+    private SearchIndex<?> getIndex(Class<?> entityType) {
+        SearchIndex<?> index = indices.get(entityType.getSimpleName());
+        if (index == null) {
+            throw new IllegalArgumentException("No search index is registered for " + entityType.getSimpleName());
+        }
+        return index;
+    }
+
+    /**
+     * Pause the indexing of the changes of an entity type, on all the instances, unless it is paused already: they stay in the
+     * outbox until it is resumed by the owner of the pause, or until the timeout is over, in case the instance which paused it
+     * stops.
+     *
+     * @param entityType the entity type.
+     * @param owner the unique name of the owner of the pause, such as the rebuild of an index.
+     * @param timeout the timeout of the pause.
+     * @return a Mono with whether the indexing is paused by this owner, false if it is paused by another one.
+     */
+    public Mono<Boolean> pause(Class<?> entityType, String owner, Duration timeout) {
+        String type = entityType.getSimpleName();
+        return Mono
+            .fromCallable(() -> pausedTypes.putIfAbsent(type, owner, timeout.toMillis(), TimeUnit.MILLISECONDS) == null)
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Resume the indexing of the changes of an entity type, if it is still paused by the given owner.
+     *
+     * @param entityType the entity type.
+     * @param owner the owner of the pause.
+     * @return a Mono with whether the indexing is resumed, false if the pause timed out or belongs to another owner.
+     */
+    public Mono<Boolean> resume(Class<?> entityType, String owner) {
+        return Mono
+            .fromCallable(() -> pausedTypes.remove(entityType.getSimpleName(), owner))
+            .subscribeOn(Schedulers.boundedElastic())
+            .doOnNext(
+                resumed -> {
+                    if (resumed) {
+                        wakeUp();
+                    }
+                }
+            );
+    }
+
+    /**
+     * Record a change of an entity, in the current transaction if there is one.
+     *
+     * @param entityType the entity type.
+     * @param id the id of the saved or deleted entity.
+     * @return a Mono to signal that the change is recorded.
+     */
+    public Mono<Void> changed(Class<?> entityType, Long id) {
+        return changed(entityType, Collections.singletonList(id));
+    }
+
+    /**
+     * Record the changes of entities, by a single statement, in the current transaction if there is one.
+     *
+     * @param entityType the entity type.
+     * @param ids the ids of the saved or deleted entities.
+     * @return a Mono to signal that the changes are recorded.
+     */
+    public Mono<Void> changed(Class<?> entityType, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        StringBuilder sql = new StringBuilder(INSERT);
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append("(:entityType, :id").append(i).append(", 0, :now)");
+        }
+        DatabaseClient.GenericExecuteSpec insert = db.sql(sql.toString()).bind("entityType", entityType.getSimpleName()).bind("now", now());
+        int i = 0;
+        for (Long id : ids) {
+            insert = insert.bind("id" + i++, id);
+        }
+        return insert.then().then(wakeUpAfterCommit());
+    }
+
+    private Mono<Void> wakeUpAfterCommit() {
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .doOnNext(
+                synchronizationManager ->
+                    synchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCommit() {
+                                return Mono.fromRunnable(SearchOutbox.this::wakeUp);
+                            }
+                        }
+                    )
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .hasElement()
+            .doOnNext(
+                registered -> {
+                    if (!registered) {
+                        wakeUp();
+                    }
+                }
+            )
+            .then();
+    }
+
+    private void wakeUp() {
+        // the wake-ups which come while the indexer is busy are merged into a single one
+        wakeUps.tryEmitNext(true);
+    }
+
+    /**
+     * Start the indexer.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.debug("Starting the indexer of the search outbox");
+        indexer =
+            Flux
+                .merge(Flux.interval(pollInterval).map(tick -> true), wakeUps.asFlux())
+                .onBackpressureLatest()
+                .concatMap(wakeUp -> drain(), 1)
+                .subscribe();
+    }
+
+    /**
+     * Stop the indexer; the changes it hasn't indexed yet are indexed by the next one.
+     */
+    @PreDestroy
+    public void stop() {
+        if (indexer != null) {
+            indexer.dispose();
+        }
+    }
+
+    /**
+     * Index the changes which are due, batch by batch, if this instance is the one which runs the indexer.
+     *
+     * @return a Mono to signal that the outbox is drained.
+     */
+    public Mono<Void> drain() {
+        if (!isIndexer()) {
+            return Mono.empty();
+        }
+        return drainBatch()
+            .expand(count -> count < batchSize ? Mono.empty() : drainBatch())
+            .then()
+            .onErrorResume(
+                e -> {
+                    log.error("Failed to drain the search outbox", e);
+                    return Mono.empty();
+                }
+            );
+    }
+
+    private boolean isIndexer() {
+        return hazelcastInstance.getCluster().getMembers().iterator().next().localMember();
+    }
+
+    private Mono<Integer> drainBatch() {
+        Set<String> paused = new TreeSet<>(pausedTypes.keySet());
+        DatabaseClient.GenericExecuteSpec select = db
+            .sql(String.format(SELECT_DUE, paused.isEmpty() ? "" : NOT_PAUSED))
+            .bind("now", now())
+            .bind("limit", batchSize);
+        return (paused.isEmpty() ? select : select.bind("paused", new ArrayList<>(paused)))
+            .map(
+                (row, metadata) ->
+                    new Change(
+                        row.get("id", Long.class),
+                        row.get("entity_type", String.class),
+                        row.get("entity_id", Long.class),
+                        row.get("attempts", Integer.class)
+                    )
+            )
+            .all()
+            .collectList()
+            .flatMap(
+                changes -> {
+                    Map<String, List<Change>> changesByType = new LinkedHashMap<>();
+                    for (Change change : changes) {
+                        changesByType.computeIfAbsent(change.entityType, entityType -> new ArrayList<>()).add(change);
+                    }
+                    return Flux
+                        .fromIterable(changesByType.entrySet())
+                        .concatMap(entry -> index(entry.getKey(), entry.getValue()))
+                        .then(Mono.just(changes.size()));
+                }
+            );
+    }
+
+    private Mono<Void> index(String entityType, List<Change> changes) {
+        List<Long> changeIds = new ArrayList<>(changes.size());
+        Set<Long> entityIds = new LinkedHashSet<>();
+        for (Change change : changes) {
+            changeIds.add(change.id);
+            entityIds.add(change.entityId);
+        }
+        SearchIndex<?> index = indices.get(entityType);
+        if (index == null) {
+            log.warn("No search index is registered for the {} changes of {}", changes.size(), entityType);
+            return retry(changes);
+        }
+        List<Long> ids = new ArrayList<>(entityIds);
+        return index
+            .index(ids)
+            .then(Mono.defer(() -> changedDependents(entityType, ids)))
+            .then(db.sql(DELETE).bind("ids", changeIds).then())
+            .doOnSuccess(indexed -> log.debug("Indexed {} changes of {}", changes.size(), entityType))
+            .onErrorResume(
+                e -> {
+                    log.warn("Failed to index {} changes of {}, they are retried later: {}", changes.size(), entityType, e.getMessage());
+                    return retry(changes);
+                }
+            );
+    }
+
+    // records the dependents before the changes are deleted, so that they are not lost if the application stops meanwhile
+    private Mono<Void> changedDependents(String entityType, List<Long> ids) {
+        return Flux
+            .fromIterable(dependents.getOrDefault(entityType, Collections.emptyList()))
+            .concatMap(
+                dependent ->
+                    dependent.dependentIds
+                        .apply(ids)
+                        .distinct()
+                        .buffer(batchSize)
+                        .concatMap(dependentIds -> changed(dependent.dependentType, dependentIds))
+            )
+            .then();
+    }
+
+    private Mono<Void> retry(List<Change> changes) {
+        Map<Integer, List<Long>> changeIdsByAttempts = new TreeMap<>();
+        for (Change change : changes) {
+            changeIdsByAttempts.computeIfAbsent(change.attempts + 1, attempts -> new ArrayList<>()).add(change.id);
+        }
+        return Flux
+            .fromIterable(changeIdsByAttempts.entrySet())
+            .concatMap(
+                entry ->
+                    db
+                        .sql(RETRY)
+                        .bind("attempts", entry.getKey())
+                        .bind("nextAttemptDate", now().plus(getBackoff(entry.getKey())))
+                        .bind("ids", entry.getValue())
+                        .then()
+            )
+            .then();
+    }
+
+    private Duration getBackoff(int attempts) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff;
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    private static class Change {
+
+        private final Long id;
+
+        private final String entityType;
+
+        private final Long entityId;
+
+        private final int attempts;
+
+        Change(Long id, String entityType, Long entityId, Integer attempts) {
+            this.id = id;
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.attempts = attempts != null ? attempts : 0;
+        }
+    }
+
+    private static class Dependents {
+
+        private final Class<?> dependentType;
+
+        private final Function<List<Long>, Flux<Long>> dependentIds;
+
+        Dependents(Class<?> dependentType, Function<List<Long>, Flux<Long>> dependentIds) {
+            this.dependentType = dependentType;
+            this.dependentIds = dependentIds;
+        }
+    }
+
+    private static class SearchIndex<T> {
+
+        private final Class<?> entityType;
+
+        private final Class<T> documentType;
+
+        private final ElasticsearchPersistentEntity<T> persistentEntity;
+
+        private final ReactiveElasticsearchRepository<T, Long> searchRepository;
+
+        private final BiFunction<Pageable, Criteria, Flux<T>> finder;
+
+        SearchIndex(
+            Class<?> entityType,
+            Class<T> documentType,
+            ElasticsearchPersistentEntity<T> persistentEntity,
+            ReactiveElasticsearchRepository<T, Long> searchRepository,
+            BiFunction<Pageable, Criteria, Flux<T>> finder
+        ) {
+            this.entityType = entityType;
+            this.documentType = documentType;
+            this.persistentEntity = persistentEntity;
+            this.searchRepository = searchRepository;
+            this.finder = finder;
+        }
+
+        // saves the entities which exist, removes the other ones
+        Mono<Void> index(List<Long> ids) {
+            return finder
+                .apply(null, where("id").in(ids))
+                .collectList()
+                .flatMap(
+                    entities -> {
+                        Set<Long> deleted = new LinkedHashSet<>(ids);
+                        for (T entity : entities) {
+                            deleted.remove((Long) persistentEntity.getIdentifierAccessor(entity).getIdentifier());
+                        }
+                        Mono<Void> save = Mono.defer(
+                            () -> entities.isEmpty() ? Mono.<Void>empty() : searchRepository.saveAll(entities).then()
+                        );
+                        Mono<Void> delete = Mono.defer(
+                            () -> deleted.isEmpty() ? Mono.<Void>empty() : searchRepository.deleteAll(references(deleted))
+                        );
+                        return save.then(delete);
+                    }
+                );
+        }
+
+        private List<T> references(Collection<Long> ids) {
+            List<T> references = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                T reference = BeanUtils.instantiateClass(documentType);
+                persistentEntity.getPropertyAccessor(reference).setProperty(persistentEntity.getRequiredIdProperty(), id);
+                references.add(reference);
+            }
+            return references;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.Objects;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Pagination information for a search: either an offset page, or a keyset page which follows the sort values of the last hit
+ * of the previous page ({@code search_after}), and how the total number of hits is computed.
+ * <p>
+ * The offset pages are limited to the first {@value #MAX_RESULT_WINDOW} hits, the default {@code index.max_result_window} of
+ * Elasticsearch, as the cost of a page grows with its depth: the deeper hits are reached with keyset pages.
+ */
+public final class SearchPageable {
+
+    public static final int MAX_RESULT_WINDOW = 10000;
+
+    private final Pageable page;
+    private final KeysetPageable keyset;
+    private final CountMode countMode;
+
+    private SearchPageable(Pageable page, KeysetPageable keyset, CountMode countMode) {
+        this.page = page;
+        this.keyset = keyset;
+        this.countMode = countMode;
+    }
+
+    /**
+     * Creates the pagination information of an offset page.
+     * @param pageable the page.
+     * @param countMode how the total is computed: {@link CountMode#APPROXIMATE} caps it.
+     * @return the pagination information.
+     * @throws IllegalArgumentException if the page goes beyond {@value #MAX_RESULT_WINDOW} hits.
+     */
+    public static SearchPageable of(Pageable pageable, CountMode countMode) {
+        Assert.notNull(countMode, "countMode is null");
+        if (pageable.isPaged() && pageable.getOffset() + pageable.getPageSize() > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("The search page " + pageable + " goes beyond " + MAX_RESULT_WINDOW + " hits");
+        }
+        return new SearchPageable(pageable, null, countMode);
+    }
+
+    /**
+     * Creates the pagination information of a keyset page.
+     * @param pageable the keyset page.
+     * @param countMode how the total is computed: {@link CountMode#APPROXIMATE} caps it.
+     * @return the pagination information.
+     */
+    public static SearchPageable of(KeysetPageable pageable, CountMode countMode) {
+        Assert.notNull(countMode, "countMode is null");
+        return new SearchPageable(null, pageable, countMode);
+    }
+
+    public boolean isKeyset() {
+        return keyset != null;
+    }
+
+    /**
+     * @return the offset page, null for a keyset page.
+     */
+    @Nullable
+    public Pageable getPage() {
+        return page;
+    }
+
+    /**
+     * @return the keyset page, null for an offset page.
+     */
+    @Nullable
+    public KeysetPageable getKeyset() {
+        return keyset;
+    }
+
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchPageable)) {
+            return false;
+        }
+        SearchPageable that = (SearchPageable) o;
+        return Objects.equals(page, that.page) && Objects.equals(keyset, that.keyset) && countMode == that.countMode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(page, keyset, countMode);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchPageable{page=" + page + ", keyset=" + keyset + ", countMode=" + countMode + "}";
+    }
+}
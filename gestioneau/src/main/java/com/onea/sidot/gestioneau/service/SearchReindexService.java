@@ -0,0 +1,365 @@
+package com.onea.sidot.gestioneau.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onea.sidot.gestioneau.config.ApplicationProperties;
+import com.onea.sidot.gestioneau.service.dto.SearchReindexJobDTO;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.client.reactive.ReactiveElasticsearchClient;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.ReactiveIndexOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rebuilds the Elasticsearch indices from the database, without downtime.
+ * <p>
+ * The entities of the rebuilt type are streamed from their table into a new index named after the current one and the
+ * time of the rebuild, by bulk requests of {@code batch-size} entities, with at most {@code parallelism} requests in flight:
+ * the rows are read no faster than Elasticsearch loads them. Once the new index is complete, the alias of the entity type,
+ * which the search repositories use, is moved to it and the previous index is deleted, in a single atomic request. The
+ * first rebuild replaces the index created by the search repository, which has the name of the alias, in the same way.
+ * <p>
+ * The {@link SearchOutbox} doesn't index the changes of the type meanwhile, as the new index would miss the changes of the
+ * rows already streamed: they are indexed in the new index once it replaces the current one. A rebuild which fails or times
+ * out deletes its index, and the current one is kept.
+ * <p>
+ * The pause of the type in the outbox, which is shared by the instances, also guards the rebuild: a rebuild started while
+ * another instance rebuilds the same index fails right away, and a rebuild only resumes the indexing if it still owns the
+ * pause. The progress of the rebuilds is kept by the instance which runs them.
+ */
+@Service
+public class SearchReindexService {
+
+    private static final DateTimeFormatter INDEX_VERSION = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC);
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexService.class);
+
+    private final SearchOutbox searchOutbox;
+
+    private final CountService countService;
+
+    private final ReactiveElasticsearchOperations elasticsearchOperations;
+
+    private final ReactiveElasticsearchClient elasticsearchClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    private final int parallelism;
+
+    private final int concurrentIndices;
+
+    private final Duration timeout;
+
+    private final Map<Class<?>, Job> jobs = new ConcurrentHashMap<>();
+
+    public SearchReindexService(
+        SearchOutbox searchOutbox,
+        CountService countService,
+        ReactiveElasticsearchOperations elasticsearchOperations,
+        ReactiveElasticsearchClient elasticsearchClient,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.SearchReindex searchReindex = applicationProperties.getSearchReindex();
+        this.searchOutbox = searchOutbox;
+        this.countService = countService;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchClient = elasticsearchClient;
+        this.objectMapper = objectMapper;
+        this.batchSize = searchReindex.getBatchSize();
+        this.parallelism = searchReindex.getParallelism();
+        this.concurrentIndices = searchReindex.getConcurrentIndices();
+        this.timeout = searchReindex.getTimeout();
+    }
+
+    /**
+     * Resolve the entity types of the indices to rebuild.
+     *
+     * @param entityNames the names of the entity types, such as {@code ficheSuiviOuvrage}, case insensitive, or empty for all.
+     * @return the entity types.
+     * @throws IllegalArgumentException if an entity type has no index.
+     */
+    public List<Class<?>> getEntityTypes(Collection<String> entityNames) {
+        Map<String, Class<?>> entityTypes = new LinkedHashMap<>();
+        for (Class<?> entityType : searchOutbox.getEntityTypes()) {
+            entityTypes.put(entityType.getSimpleName().toLowerCase(), entityType);
+        }
+        if (entityNames.isEmpty()) {
+            return new ArrayList<>(entityTypes.values());
+        }
+        List<Class<?>> selected = new ArrayList<>();
+        for (String entityName : entityNames) {
+            Class<?> entityType = entityTypes.get(entityName.toLowerCase());
+            if (entityType == null) {
+                throw new IllegalArgumentException("No search index for " + entityName);
+            }
+            if (!selected.contains(entityType)) {
+                selected.add(entityType);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Start the rebuild of the indices of entity types, in the background. The indices which are being rebuilt already are
+     * left as they are.
+     *
+     * @param entityTypes the entity types.
+     * @return the progress of the rebuilds.
+     */
+    public List<SearchReindexJobDTO> reindex(List<Class<?>> entityTypes) {
+        List<Job> started = new ArrayList<>();
+        List<SearchReindexJobDTO> progress = new ArrayList<>();
+        for (Class<?> entityType : entityTypes) {
+            Job job = jobs.compute(
+                entityType,
+                (type, current) -> {
+                    if (current != null && current.isRunning()) {
+                        return current;
+                    }
+                    Class<?> documentType = searchOutbox.getDocumentType(type);
+                    Job created = new Job(type, documentType, elasticsearchOperations.getIndexCoordinatesFor(documentType).getIndexName());
+                    started.add(created);
+                    return created;
+                }
+            );
+            progress.add(job.toDto());
+        }
+        log.info("Rebuilding the search indices of {} entity types", started.size());
+        Flux.fromIterable(started).flatMap(this::run, concurrentIndices).subscribe();
+        return progress;
+    }
+
+    /**
+     * Get the progress of the last rebuild of every index.
+     *
+     * @return the progress of the rebuilds, ordered by entity type.
+     */
+    public List<SearchReindexJobDTO> getJobs() {
+        List<SearchReindexJobDTO> progress = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            progress.add(job.toDto());
+        }
+        progress.sort(Comparator.comparing(SearchReindexJobDTO::getEntity));
+        return progress;
+    }
+
+    // the name of the new index identifies the rebuild, it owns the pause of the type
+    private Mono<Void> run(Job job) {
+        return searchOutbox
+            .pause(job.entityType, job.index, timeout)
+            .flatMap(
+                paused -> {
+                    if (!paused) {
+                        job.complete(new IllegalStateException("The search index is being rebuilt by another instance"));
+                        log.warn("The search index {} is being rebuilt by another instance", job.alias);
+                        return Mono.empty();
+                    }
+                    return rebuild(job)
+                        .then(Mono.defer(() -> searchOutbox.resume(job.entityType, job.index)))
+                        .doOnNext(
+                            resumed -> {
+                                if (!resumed) {
+                                    log.warn("The pause of the search indexing of {} timed out", job.entityType.getSimpleName());
+                                }
+                            }
+                        )
+                        .onErrorResume(
+                            e -> {
+                                log.error("Failed to resume the search indexing of {}", job.entityType.getSimpleName(), e);
+                                return Mono.empty();
+                            }
+                        );
+                }
+            )
+            .onErrorResume(
+                e -> {
+                    job.complete(e);
+                    log.error("Failed to pause the search indexing of {}", job.entityType.getSimpleName(), e);
+                    return Mono.empty();
+                }
+            )
+            .then();
+    }
+
+    private Mono<Void> rebuild(Job job) {
+        IndexCoordinates index = IndexCoordinates.of(job.index);
+        ReactiveIndexOperations indexOperations = elasticsearchOperations.indexOps(index);
+        return Mono
+            .defer(() -> countService.count(job.entityType, CountMode.EXACT))
+            .doOnNext(total -> job.total = total)
+            .then(Mono.defer(indexOperations::create))
+            .then(Mono.defer(() -> indexOperations.putMapping(indexOperations.createMapping(job.documentType))))
+            .thenMany(
+                searchOutbox
+                    .findAll(job.entityType)
+                    .buffer(batchSize)
+                    .flatMap(batch -> elasticsearchOperations.saveAll(Mono.just(batch), index).count(), parallelism)
+            )
+            .doOnNext(job.indexed::addAndGet)
+            .then(Mono.defer(indexOperations::refresh))
+            .then(Mono.defer(() -> replace(job.alias, job.index)))
+            .timeout(timeout)
+            .doOnSuccess(
+                replaced -> {
+                    job.complete(null);
+                    log.info("Rebuilt the search index {} of {}: {}", job.index, job.alias, job.toDto());
+                }
+            )
+            .onErrorResume(
+                e -> {
+                    job.complete(e);
+                    log.error("Failed to rebuild the search index {} of {}", job.index, job.alias, e);
+                    return Mono.defer(indexOperations::delete).then().onErrorResume(deleteError -> Mono.empty());
+                }
+            );
+    }
+
+    // moves the alias to the new index, and deletes the indices it was on, or the index which has its name
+    private Mono<Void> replace(String alias, String index) {
+        return getIndices(alias)
+            .flatMap(
+                current ->
+                    current.isEmpty()
+                        ? elasticsearchOperations
+                            .indexOps(IndexCoordinates.of(alias))
+                            .exists()
+                            .map(exists -> exists ? Collections.singletonList(alias) : Collections.<String>emptyList())
+                        : Mono.just(current)
+            )
+            .flatMap(
+                previous -> {
+                    List<Map<String, Object>> actions = new ArrayList<>();
+                    actions.add(Collections.singletonMap("add", Map.of("index", index, "alias", alias)));
+                    for (String previousIndex : previous) {
+                        actions.add(Collections.singletonMap("remove_index", Collections.singletonMap("index", previousIndex)));
+                    }
+                    return updateAliases(Collections.singletonMap("actions", actions));
+                }
+            );
+    }
+
+    private Mono<List<String>> getIndices(String alias) {
+        return elasticsearchClient
+            .execute(client -> client.get().uri("/_alias/{alias}", alias).exchange())
+            .flatMap(
+                response -> {
+                    if (response.statusCode() == HttpStatus.NOT_FOUND) {
+                        return response.releaseBody().then(Mono.just(Collections.<String>emptyList()));
+                    }
+                    return readBody(response)
+                        .flatMap(
+                            body ->
+                                Mono.fromCallable(
+                                    () -> {
+                                        List<String> indices = new ArrayList<>();
+                                        objectMapper.readTree(body).fieldNames().forEachRemaining(indices::add);
+                                        return indices;
+                                    }
+                                )
+                        );
+                }
+            );
+    }
+
+    private Mono<Void> updateAliases(Map<String, Object> request) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        return elasticsearchClient
+            .execute(client -> client.post().uri("/_aliases").contentType(MediaType.APPLICATION_JSON).bodyValue(body).exchange())
+            .flatMap(this::readBody)
+            .then();
+    }
+
+    private Mono<String> readBody(ClientResponse response) {
+        if (response.statusCode().isError()) {
+            return response.createException().flatMap(Mono::error);
+        }
+        return response.bodyToMono(String.class);
+    }
+
+    private static class Job {
+
+        private final Class<?> entityType;
+
+        private final Class<?> documentType;
+
+        private final String alias;
+
+        private final String index;
+
+        private final AtomicLong indexed = new AtomicLong();
+
+        private final Instant startDate = Instant.now();
+
+        private volatile Long total;
+
+        private volatile Instant endDate;
+
+        private volatile Throwable error;
+
+        Job(Class<?> entityType, Class<?> documentType, String alias) {
+            this.entityType = entityType;
+            this.documentType = documentType;
+            this.alias = alias;
+            this.index = alias + "-" + INDEX_VERSION.format(startDate);
+        }
+
+        boolean isRunning() {
+            return endDate == null;
+        }
+
+        void complete(Throwable error) {
+            this.error = error;
+            this.endDate = Instant.now();
+        }
+
+        SearchReindexJobDTO toDto() {
+            SearchReindexJobDTO dto = new SearchReindexJobDTO();
+            dto.setEntity(entityType.getSimpleName());
+            dto.setAlias(alias);
+            dto.setIndex(index);
+            dto.setTotal(total);
+            dto.setIndexed(indexed.get());
+            dto.setStartDate(startDate);
+            dto.setEndDate(endDate);
+            if (endDate == null) {
+                dto.setStatus(SearchReindexJobDTO.Status.RUNNING);
+            } else if (error == null) {
+                dto.setStatus(SearchReindexJobDTO.Status.COMPLETED);
+            } else {
+                dto.setStatus(SearchReindexJobDTO.Status.FAILED);
+                dto.setError(error.getMessage());
+            }
+            long millis = Duration.between(startDate, endDate != null ? endDate : Instant.now()).toMillis();
+            dto.setDocumentsPerSecond(millis > 0 ? indexed.get() * 1000.0 / millis : 0);
+            return dto;
+        }
+    }
+}
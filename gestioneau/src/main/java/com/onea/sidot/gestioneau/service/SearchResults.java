@@ -0,0 +1,86 @@
+package com.onea.sidot.gestioneau.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.lang.Nullable;
+
+/**
+ * A page of the hits of a search, with the total number of hits returned by the same request, and the cursor of the next
+ * keyset page if there is one. The results of a search run in the database while the search engine is unavailable are
+ * flagged as a fallback, as the database matches the words of the query by substring rather than by token.
+ *
+ * @param <T> the type of the content.
+ */
+public final class SearchResults<T> {
+
+    private final List<T> content;
+    private final long total;
+    private final boolean totalExact;
+    private final KeysetCursor nextCursor;
+    private final boolean fallback;
+
+    private SearchResults(List<T> content, long total, boolean totalExact, KeysetCursor nextCursor, boolean fallback) {
+        this.content = Collections.unmodifiableList(content);
+        this.total = total;
+        this.totalExact = totalExact;
+        this.nextCursor = nextCursor;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Creates the results of a search.
+     * @param content the hits of the page.
+     * @param total the total number of hits.
+     * @param totalExact false if the total is a lower bound, as it was capped.
+     * @param nextCursor the cursor of the next keyset page, null for the last page or an offset page.
+     * @param <T> the type of the content.
+     * @return the results.
+     */
+    public static <T> SearchResults<T> of(List<T> content, long total, boolean totalExact, @Nullable KeysetCursor nextCursor) {
+        return new SearchResults<>(content, total, totalExact, nextCursor, false);
+    }
+
+    /**
+     * Creates the results of a search run in the database while the search engine is unavailable.
+     * @param content the hits of the page.
+     * @param total the exact total number of hits.
+     * @param nextCursor the cursor of the next keyset page, null for the last page or an offset page.
+     * @param <T> the type of the content.
+     * @return the results.
+     */
+    public static <T> SearchResults<T> ofFallback(List<T> content, long total, @Nullable KeysetCursor nextCursor) {
+        return new SearchResults<>(content, total, true, nextCursor, true);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+
+    @Nullable
+    public KeysetCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    public <R> SearchResults<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream().map(mapper).collect(Collectors.toList());
+        return new SearchResults<>(mapped, total, totalExact, nextCursor, fallback);
+    }
+}
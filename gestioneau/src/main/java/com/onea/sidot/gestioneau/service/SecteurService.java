@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,35 @@ public class SecteurService {
 
     private final SecteurSearchRepository secteurSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final GeoClosureService geoClosureService;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public SecteurService(
         SecteurRepository secteurRepository,
         SecteurMapper secteurMapper,
-        SecteurSearchRepository secteurSearchRepository
+        SecteurSearchRepository secteurSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        GeoClosureService geoClosureService,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.secteurRepository = secteurRepository;
         this.secteurMapper = secteurMapper;
         this.secteurSearchRepository = secteurSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.geoClosureService = geoClosureService;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Secteur.class, secteurSearchRepository, secteurRepository::findAllBy);
     }
 
     /**
@@ -48,7 +70,12 @@ public class SecteurService {
      */
     public Mono<SecteurDTO> save(SecteurDTO secteurDTO) {
         log.debug("Request to save Secteur : {}", secteurDTO);
-        return secteurRepository.save(secteurMapper.toEntity(secteurDTO)).flatMap(secteurSearchRepository::save).map(secteurMapper::toDto);
+        return secteurRepository
+            .save(secteurMapper.toEntity(secteurDTO))
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.SECTEUR, saved.getId(), saved.getLocaliteId()))
+            .delayUntil(saved -> searchOutbox.changed(Secteur.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Secteur.class, saved.getId(), saved)))
+            .map(secteurMapper::toDto);
     }
 
     /**
@@ -69,13 +96,9 @@ public class SecteurService {
                 }
             )
             .flatMap(secteurRepository::save)
-            .flatMap(
-                savedSecteur -> {
-                    secteurSearchRepository.save(savedSecteur);
-
-                    return Mono.just(savedSecteur);
-                }
-            )
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.SECTEUR, saved.getId(), saved.getLocaliteId()))
+            .delayUntil(saved -> searchOutbox.changed(Secteur.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Secteur.class, saved.getId(), saved)))
             .map(secteurMapper::toDto);
     }
 
@@ -97,15 +120,16 @@ public class SecteurService {
      *
      */
     public Mono<Long> countAll() {
-        return secteurRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of secteurs available in search repository.
-     *
+     * Returns the number of secteurs available, cached until a secteur is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return secteurSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Secteur.class, mode);
     }
 
     /**
@@ -114,10 +138,10 @@ public class SecteurService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<SecteurDTO> findOne(Long id) {
         log.debug("Request to get Secteur : {}", id);
-        return secteurRepository.findById(id).map(secteurMapper::toDto);
+        return entityCache.findById(Secteur.class, id, () -> secteurRepository.findById(id).map(secteurMapper::toDto));
     }
 
     /**
@@ -128,7 +152,11 @@ public class SecteurService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Secteur : {}", id);
-        return secteurRepository.deleteById(id).then(secteurSearchRepository.deleteById(id));
+        return geoClosureService
+            .deleted(HierarchyLevel.SECTEUR, id)
+            .then(secteurRepository.deleteById(id))
+            .then(searchOutbox.changed(Secteur.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Secteur.class, id)));
     }
 
     /**
@@ -136,11 +164,11 @@ public class SecteurService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<SecteurDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<SecteurDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Secteurs for query {}", query);
-        return secteurSearchRepository.search(query, pageable).map(secteurMapper::toDto);
+        return secteurSearchRepository.search(query, pageable).map(results -> results.map(secteurMapper::toDto));
     }
 }
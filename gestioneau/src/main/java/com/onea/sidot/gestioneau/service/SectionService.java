@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,35 @@ public class SectionService {
 
     private final SectionSearchRepository sectionSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final GeoClosureService geoClosureService;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public SectionService(
         SectionRepository sectionRepository,
         SectionMapper sectionMapper,
-        SectionSearchRepository sectionSearchRepository
+        SectionSearchRepository sectionSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        GeoClosureService geoClosureService,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.sectionRepository = sectionRepository;
         this.sectionMapper = sectionMapper;
         this.sectionSearchRepository = sectionSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.geoClosureService = geoClosureService;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(Section.class, sectionSearchRepository, sectionRepository::findAllBy);
     }
 
     /**
@@ -48,7 +70,12 @@ public class SectionService {
      */
     public Mono<SectionDTO> save(SectionDTO sectionDTO) {
         log.debug("Request to save Section : {}", sectionDTO);
-        return sectionRepository.save(sectionMapper.toEntity(sectionDTO)).flatMap(sectionSearchRepository::save).map(sectionMapper::toDto);
+        return sectionRepository
+            .save(sectionMapper.toEntity(sectionDTO))
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.SECTION, saved.getId(), saved.getSecteurId()))
+            .delayUntil(saved -> searchOutbox.changed(Section.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Section.class, saved.getId(), saved)))
+            .map(sectionMapper::toDto);
     }
 
     /**
@@ -69,13 +96,9 @@ public class SectionService {
                 }
             )
             .flatMap(sectionRepository::save)
-            .flatMap(
-                savedSection -> {
-                    sectionSearchRepository.save(savedSection);
-
-                    return Mono.just(savedSection);
-                }
-            )
+            .delayUntil(saved -> geoClosureService.saved(HierarchyLevel.SECTION, saved.getId(), saved.getSecteurId()))
+            .delayUntil(saved -> searchOutbox.changed(Section.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(Section.class, saved.getId(), saved)))
             .map(sectionMapper::toDto);
     }
 
@@ -97,15 +120,16 @@ public class SectionService {
      *
      */
     public Mono<Long> countAll() {
-        return sectionRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of sections available in search repository.
-     *
+     * Returns the number of sections available, cached until a section is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return sectionSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(Section.class, mode);
     }
 
     /**
@@ -114,10 +138,10 @@ public class SectionService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<SectionDTO> findOne(Long id) {
         log.debug("Request to get Section : {}", id);
-        return sectionRepository.findById(id).map(sectionMapper::toDto);
+        return entityCache.findById(Section.class, id, () -> sectionRepository.findById(id).map(sectionMapper::toDto));
     }
 
     /**
@@ -128,7 +152,11 @@ public class SectionService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Section : {}", id);
-        return sectionRepository.deleteById(id).then(sectionSearchRepository.deleteById(id));
+        return geoClosureService
+            .deleted(HierarchyLevel.SECTION, id)
+            .then(sectionRepository.deleteById(id))
+            .then(searchOutbox.changed(Section.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(Section.class, id)));
     }
 
     /**
@@ -136,11 +164,11 @@ public class SectionService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<SectionDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<SectionDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of Sections for query {}", query);
-        return sectionSearchRepository.search(query, pageable).map(sectionMapper::toDto);
+        return sectionSearchRepository.search(query, pageable).map(results -> results.map(sectionMapper::toDto));
     }
 }
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,31 @@ public class SourceApprovEpService {
 
     private final SourceApprovEpSearchRepository sourceApprovEpSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public SourceApprovEpService(
         SourceApprovEpRepository sourceApprovEpRepository,
         SourceApprovEpMapper sourceApprovEpMapper,
-        SourceApprovEpSearchRepository sourceApprovEpSearchRepository
+        SourceApprovEpSearchRepository sourceApprovEpSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.sourceApprovEpRepository = sourceApprovEpRepository;
         this.sourceApprovEpMapper = sourceApprovEpMapper;
         this.sourceApprovEpSearchRepository = sourceApprovEpSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(SourceApprovEp.class, sourceApprovEpSearchRepository, sourceApprovEpRepository::findAllBy);
     }
 
     /**
@@ -50,7 +68,8 @@ public class SourceApprovEpService {
         log.debug("Request to save SourceApprovEp : {}", sourceApprovEpDTO);
         return sourceApprovEpRepository
             .save(sourceApprovEpMapper.toEntity(sourceApprovEpDTO))
-            .flatMap(sourceApprovEpSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(SourceApprovEp.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(SourceApprovEp.class, saved.getId())))
             .map(sourceApprovEpMapper::toDto);
     }
 
@@ -72,13 +91,8 @@ public class SourceApprovEpService {
                 }
             )
             .flatMap(sourceApprovEpRepository::save)
-            .flatMap(
-                savedSourceApprovEp -> {
-                    sourceApprovEpSearchRepository.save(savedSourceApprovEp);
-
-                    return Mono.just(savedSourceApprovEp);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(SourceApprovEp.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(SourceApprovEp.class, saved.getId())))
             .map(sourceApprovEpMapper::toDto);
     }
 
@@ -100,15 +114,16 @@ public class SourceApprovEpService {
      *
      */
     public Mono<Long> countAll() {
-        return sourceApprovEpRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of sourceApprovEps available in search repository.
-     *
+     * Returns the number of sourceApprovEps available, cached until a sourceApprovEp is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return sourceApprovEpSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(SourceApprovEp.class, mode);
     }
 
     /**
@@ -117,10 +132,10 @@ public class SourceApprovEpService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<SourceApprovEpDTO> findOne(Long id) {
         log.debug("Request to get SourceApprovEp : {}", id);
-        return sourceApprovEpRepository.findById(id).map(sourceApprovEpMapper::toDto);
+        return entityCache.findById(SourceApprovEp.class, id, () -> sourceApprovEpRepository.findById(id).map(sourceApprovEpMapper::toDto));
     }
 
     /**
@@ -131,7 +146,10 @@ public class SourceApprovEpService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete SourceApprovEp : {}", id);
-        return sourceApprovEpRepository.deleteById(id).then(sourceApprovEpSearchRepository.deleteById(id));
+        return sourceApprovEpRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(SourceApprovEp.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(SourceApprovEp.class, id)));
     }
 
     /**
@@ -139,11 +157,11 @@ public class SourceApprovEpService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<SourceApprovEpDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<SourceApprovEpDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of SourceApprovEps for query {}", query);
-        return sourceApprovEpSearchRepository.search(query, pageable).map(sourceApprovEpMapper::toDto);
+        return sourceApprovEpSearchRepository.search(query, pageable).map(results -> results.map(sourceApprovEpMapper::toDto));
     }
 }
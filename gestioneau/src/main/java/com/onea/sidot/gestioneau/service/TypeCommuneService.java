@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,31 @@ public class TypeCommuneService {
 
     private final TypeCommuneSearchRepository typeCommuneSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public TypeCommuneService(
         TypeCommuneRepository typeCommuneRepository,
         TypeCommuneMapper typeCommuneMapper,
-        TypeCommuneSearchRepository typeCommuneSearchRepository
+        TypeCommuneSearchRepository typeCommuneSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.typeCommuneRepository = typeCommuneRepository;
         this.typeCommuneMapper = typeCommuneMapper;
         this.typeCommuneSearchRepository = typeCommuneSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(TypeCommune.class, typeCommuneSearchRepository, typeCommuneRepository::findAllBy);
     }
 
     /**
@@ -50,7 +68,8 @@ public class TypeCommuneService {
         log.debug("Request to save TypeCommune : {}", typeCommuneDTO);
         return typeCommuneRepository
             .save(typeCommuneMapper.toEntity(typeCommuneDTO))
-            .flatMap(typeCommuneSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(TypeCommune.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(TypeCommune.class, saved.getId())))
             .map(typeCommuneMapper::toDto);
     }
 
@@ -72,13 +91,8 @@ public class TypeCommuneService {
                 }
             )
             .flatMap(typeCommuneRepository::save)
-            .flatMap(
-                savedTypeCommune -> {
-                    typeCommuneSearchRepository.save(savedTypeCommune);
-
-                    return Mono.just(savedTypeCommune);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(TypeCommune.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(TypeCommune.class, saved.getId())))
             .map(typeCommuneMapper::toDto);
     }
 
@@ -100,15 +114,16 @@ public class TypeCommuneService {
      *
      */
     public Mono<Long> countAll() {
-        return typeCommuneRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of typeCommunes available in search repository.
-     *
+     * Returns the number of typeCommunes available, cached until a typeCommune is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return typeCommuneSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(TypeCommune.class, mode);
     }
 
     /**
@@ -117,10 +132,10 @@ public class TypeCommuneService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<TypeCommuneDTO> findOne(Long id) {
         log.debug("Request to get TypeCommune : {}", id);
-        return typeCommuneRepository.findById(id).map(typeCommuneMapper::toDto);
+        return entityCache.findById(TypeCommune.class, id, () -> typeCommuneRepository.findById(id).map(typeCommuneMapper::toDto));
     }
 
     /**
@@ -131,7 +146,10 @@ public class TypeCommuneService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete TypeCommune : {}", id);
-        return typeCommuneRepository.deleteById(id).then(typeCommuneSearchRepository.deleteById(id));
+        return typeCommuneRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(TypeCommune.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(TypeCommune.class, id)));
     }
 
     /**
@@ -139,11 +157,11 @@ public class TypeCommuneService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<TypeCommuneDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<TypeCommuneDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of TypeCommunes for query {}", query);
-        return typeCommuneSearchRepository.search(query, pageable).map(typeCommuneMapper::toDto);
+        return typeCommuneSearchRepository.search(query, pageable).map(results -> results.map(typeCommuneMapper::toDto));
     }
 }
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,14 +31,31 @@ public class TypeHabitationService {
 
     private final TypeHabitationSearchRepository typeHabitationSearchRepository;
 
+    private final CountService countService;
+
+    private final EntityChangePublisher entityChangePublisher;
+
+    private final EntityCache entityCache;
+
+    private final SearchOutbox searchOutbox;
+
     public TypeHabitationService(
         TypeHabitationRepository typeHabitationRepository,
         TypeHabitationMapper typeHabitationMapper,
-        TypeHabitationSearchRepository typeHabitationSearchRepository
+        TypeHabitationSearchRepository typeHabitationSearchRepository,
+        CountService countService,
+        EntityChangePublisher entityChangePublisher,
+        EntityCache entityCache,
+        SearchOutbox searchOutbox
     ) {
         this.typeHabitationRepository = typeHabitationRepository;
         this.typeHabitationMapper = typeHabitationMapper;
         this.typeHabitationSearchRepository = typeHabitationSearchRepository;
+        this.countService = countService;
+        this.entityChangePublisher = entityChangePublisher;
+        this.entityCache = entityCache;
+        this.searchOutbox = searchOutbox;
+        searchOutbox.register(TypeHabitation.class, typeHabitationSearchRepository, typeHabitationRepository::findAllBy);
     }
 
     /**
@@ -50,7 +68,8 @@ public class TypeHabitationService {
         log.debug("Request to save TypeHabitation : {}", typeHabitationDTO);
         return typeHabitationRepository
             .save(typeHabitationMapper.toEntity(typeHabitationDTO))
-            .flatMap(typeHabitationSearchRepository::save)
+            .delayUntil(saved -> searchOutbox.changed(TypeHabitation.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(TypeHabitation.class, saved.getId())))
             .map(typeHabitationMapper::toDto);
     }
 
@@ -72,13 +91,8 @@ public class TypeHabitationService {
                 }
             )
             .flatMap(typeHabitationRepository::save)
-            .flatMap(
-                savedTypeHabitation -> {
-                    typeHabitationSearchRepository.save(savedTypeHabitation);
-
-                    return Mono.just(savedTypeHabitation);
-                }
-            )
+            .delayUntil(saved -> searchOutbox.changed(TypeHabitation.class, saved.getId()))
+            .delayUntil(saved -> entityChangePublisher.publish(EntityChangeEvent.saved(TypeHabitation.class, saved.getId())))
             .map(typeHabitationMapper::toDto);
     }
 
@@ -100,15 +114,16 @@ public class TypeHabitationService {
      *
      */
     public Mono<Long> countAll() {
-        return typeHabitationRepository.count();
+        return countAll(CountMode.EXACT);
     }
 
     /**
-     * Returns the number of typeHabitations available in search repository.
-     *
+     * Returns the number of typeHabitations available, cached until a typeHabitation is written.
+     * @param mode how the number is computed.
+     * @return the number of entities in the database, exact or approximate depending on the mode.
      */
-    public Mono<Long> searchCount() {
-        return typeHabitationSearchRepository.count();
+    public Mono<Long> countAll(CountMode mode) {
+        return countService.count(TypeHabitation.class, mode);
     }
 
     /**
@@ -117,10 +132,10 @@ public class TypeHabitationService {
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Mono<TypeHabitationDTO> findOne(Long id) {
         log.debug("Request to get TypeHabitation : {}", id);
-        return typeHabitationRepository.findById(id).map(typeHabitationMapper::toDto);
+        return entityCache.findById(TypeHabitation.class, id, () -> typeHabitationRepository.findById(id).map(typeHabitationMapper::toDto));
     }
 
     /**
@@ -131,7 +146,10 @@ public class TypeHabitationService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete TypeHabitation : {}", id);
-        return typeHabitationRepository.deleteById(id).then(typeHabitationSearchRepository.deleteById(id));
+        return typeHabitationRepository
+            .deleteById(id)
+            .then(searchOutbox.changed(TypeHabitation.class, id))
+            .then(entityChangePublisher.publish(EntityChangeEvent.deleted(TypeHabitation.class, id)));
     }
 
     /**
@@ -139,11 +157,11 @@ public class TypeHabitationService {
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of hits and their total.
      */
     @Transactional(readOnly = true)
-    public Flux<TypeHabitationDTO> search(String query, Pageable pageable) {
+    public Mono<SearchResults<TypeHabitationDTO>> search(String query, SearchPageable pageable) {
         log.debug("Request to search for a page of TypeHabitations for query {}", query);
-        return typeHabitationSearchRepository.search(query, pageable).map(typeHabitationMapper::toDto);
+        return typeHabitationSearchRepository.search(query, pageable).map(results -> results.map(typeHabitationMapper::toDto));
     }
 }
@@ -0,0 +1,57 @@
+package com.onea.sidot.gestioneau.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A suggestion of the autocomplete: an entity whose libelle matches the prefix, and the id of its parent, if it has one.
+ */
+public class AutocompleteDTO implements Serializable {
+
+    private Long id;
+
+    private String libelle;
+
+    private Long parentId;
+
+    public AutocompleteDTO() {}
+
+    public AutocompleteDTO(Long id, String libelle, Long parentId) {
+        this.id = id;
+        this.libelle = libelle;
+        this.parentId = parentId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    public void setLibelle(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "AutocompleteDTO{" +
+            "id=" + getId() +
+            ", libelle='" + getLibelle() + "'" +
+            ", parentId=" + getParentId() +
+            "}";
+    }
+}
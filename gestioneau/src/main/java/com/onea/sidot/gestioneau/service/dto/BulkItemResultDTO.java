@@ -0,0 +1,92 @@
+package com.onea.sidot.gestioneau.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a single item of a bulk request.
+ */
+public class BulkItemResultDTO implements Serializable {
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        FAILED,
+    }
+
+    private long index;
+
+    private Status status;
+
+    private Long id;
+
+    private List<String> errors = new ArrayList<>();
+
+    public static BulkItemResultDTO created(long index, Long id) {
+        BulkItemResultDTO result = new BulkItemResultDTO();
+        result.setIndex(index);
+        result.setStatus(Status.CREATED);
+        result.setId(id);
+        return result;
+    }
+
+    public static BulkItemResultDTO invalid(long index, List<String> errors) {
+        BulkItemResultDTO result = new BulkItemResultDTO();
+        result.setIndex(index);
+        result.setStatus(Status.INVALID);
+        result.setErrors(errors);
+        return result;
+    }
+
+    public static BulkItemResultDTO failed(long index, String error) {
+        BulkItemResultDTO result = new BulkItemResultDTO();
+        result.setIndex(index);
+        result.setStatus(Status.FAILED);
+        result.getErrors().add(error);
+        return result;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BulkItemResultDTO{" +
+            "index=" + getIndex() +
+            ", status=" + getStatus() +
+            ", id=" + getId() +
+            ", errors=" + getErrors() +
+            "}";
+    }
+}
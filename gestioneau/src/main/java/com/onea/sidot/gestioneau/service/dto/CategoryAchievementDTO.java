@@ -0,0 +1,45 @@
+package com.onea.sidot.gestioneau.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * The target and the realised ouvrages of a category, or of all of them.
+ */
+public class CategoryAchievementDTO implements Serializable {
+
+    private long target;
+
+    private long realised;
+
+    public long getTarget() {
+        return target;
+    }
+
+    public void setTarget(long target) {
+        this.target = target;
+    }
+
+    public long getRealised() {
+        return realised;
+    }
+
+    public void setRealised(long realised) {
+        this.realised = realised;
+    }
+
+    /**
+     * @return the realised ouvrages divided by the target, or null without a target.
+     */
+    public Double getRate() {
+        return target > 0 ? (double) realised / target : null;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CategoryAchievementDTO{" +
+            "target=" + getTarget() +
+            ", realised=" + getRealised() +
+            "}";
+    }
+}
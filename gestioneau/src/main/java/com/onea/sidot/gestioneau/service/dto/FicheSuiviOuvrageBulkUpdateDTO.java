@@ -0,0 +1,32 @@
+package com.onea.sidot.gestioneau.service.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bulk update of {@link com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage}s: the references of the selected
+ * ficheSuiviOuvrages are set to the ones of the changes.
+ */
+public class FicheSuiviOuvrageBulkUpdateDTO extends FicheSuiviOuvrageSelectionDTO {
+
+    // the new id of every changed reference, e.g. "macon", null to remove it
+    private Map<String, Long> changes = new LinkedHashMap<>();
+
+    public Map<String, Long> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(Map<String, Long> changes) {
+        this.changes = changes;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "FicheSuiviOuvrageBulkUpdateDTO{" +
+            "ids=" + getIds() +
+            ", filter=" + getFilter() +
+            ", changes=" + getChanges() +
+            "}";
+    }
+}
@@ -0,0 +1,51 @@
+package com.onea.sidot.gestioneau.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.validation.constraints.Size;
+
+/**
+ * A selection of {@link com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage}s for a bulk request: the ficheSuiviOuvrages whose
+ * id is in the list, if there is one, and whose references are the ones of the filter.
+ */
+public class FicheSuiviOuvrageSelectionDTO implements Serializable {
+
+    /**
+     * Maximum number of ids of a selection, they are bound as a parameter each to select the ficheSuiviOuvrages.
+     */
+    public static final int MAX_IDS = 10000;
+
+    @Size(max = MAX_IDS)
+    private List<Long> ids = new ArrayList<>();
+
+    // the id of every filtered reference, e.g. "macon", null for the ficheSuiviOuvrages without it
+    private Map<String, Long> filter = new LinkedHashMap<>();
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Map<String, Long> getFilter() {
+        return filter;
+    }
+
+    public void setFilter(Map<String, Long> filter) {
+        this.filter = filter;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "FicheSuiviOuvrageSelectionDTO{" +
+            "ids=" + getIds() +
+            ", filter=" + getFilter() +
+            "}";
+    }
+}
@@ -0,0 +1,94 @@
+package com.onea.sidot.gestioneau.service.dto;
+
+import com.onea.sidot.gestioneau.service.HierarchyLevel;
+import java.io.Serializable;
+
+/**
+ * The totals of the ficheSuiviOuvrages of a node of the administrative hierarchy.
+ */
+public class HierarchyStatsDTO implements Serializable {
+
+    private HierarchyLevel level;
+
+    private Long id;
+
+    private long ouvrages;
+
+    private long nbUsagers;
+
+    private long subvOnea;
+
+    private long subvProjet;
+
+    private long autreSubv;
+
+    public HierarchyLevel getLevel() {
+        return level;
+    }
+
+    public void setLevel(HierarchyLevel level) {
+        this.level = level;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getOuvrages() {
+        return ouvrages;
+    }
+
+    public void setOuvrages(long ouvrages) {
+        this.ouvrages = ouvrages;
+    }
+
+    public long getNbUsagers() {
+        return nbUsagers;
+    }
+
+    public void setNbUsagers(long nbUsagers) {
+        this.nbUsagers = nbUsagers;
+    }
+
+    public long getSubvOnea() {
+        return subvOnea;
+    }
+
+    public void setSubvOnea(long subvOnea) {
+        this.subvOnea = subvOnea;
+    }
+
+    public long getSubvProjet() {
+        return subvProjet;
+    }
+
+    public void setSubvProjet(long subvProjet) {
+        this.subvProjet = subvProjet;
+    }
+
+    public long getAutreSubv() {
+        return autreSubv;
+    }
+
+    public void setAutreSubv(long autreSubv) {
+        this.autreSubv = autreSubv;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "HierarchyStatsDTO{" +
+            "level=" + getLevel() +
+            ", id=" + getId() +
+            ", ouvrages=" + getOuvrages() +
+            ", nbUsagers=" + getNbUsagers() +
+            ", subvOnea=" + getSubvOnea() +
+            ", subvProjet=" + getSubvProjet() +
+            ", autreSubv=" + getAutreSubv() +
+            "}";
+    }
+}
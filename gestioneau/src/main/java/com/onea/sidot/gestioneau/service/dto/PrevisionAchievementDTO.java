@@ -0,0 +1,107 @@
+package com.onea.sidot.gestioneau.service.dto;
+
+import com.onea.sidot.gestioneau.service.AchievementLevel;
+import com.onea.sidot.gestioneau.service.OuvrageCategory;
+import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The achievement of the previsions of a node, from the prevision to the direction regionale: their targets, and the
+ * ficheSuiviOuvrages realised against them.
+ */
+public class PrevisionAchievementDTO implements Serializable {
+
+    private AchievementLevel level;
+
+    private Long id;
+
+    private Long refanneeId;
+
+    private int previsions;
+
+    private CategoryAchievementDTO total = new CategoryAchievementDTO();
+
+    private Map<OuvrageCategory, CategoryAchievementDTO> categories = new EnumMap<>(OuvrageCategory.class);
+
+    private Map<Long, Long> natureOuvrages = new TreeMap<>();
+
+    public AchievementLevel getLevel() {
+        return level;
+    }
+
+    public void setLevel(AchievementLevel level) {
+        this.level = level;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getRefanneeId() {
+        return refanneeId;
+    }
+
+    public void setRefanneeId(Long refanneeId) {
+        this.refanneeId = refanneeId;
+    }
+
+    public int getPrevisions() {
+        return previsions;
+    }
+
+    public void setPrevisions(int previsions) {
+        this.previsions = previsions;
+    }
+
+    /**
+     * @return the sum of the targets of all the categories, and all the realised ficheSuiviOuvrages.
+     */
+    public CategoryAchievementDTO getTotal() {
+        return total;
+    }
+
+    public void setTotal(CategoryAchievementDTO total) {
+        this.total = total;
+    }
+
+    /**
+     * @return the target of every category, and the ficheSuiviOuvrages realised for it according to their nature.
+     */
+    public Map<OuvrageCategory, CategoryAchievementDTO> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(Map<OuvrageCategory, CategoryAchievementDTO> categories) {
+        this.categories = categories;
+    }
+
+    /**
+     * @return the number of realised ficheSuiviOuvrages by id of their natureOuvrage.
+     */
+    public Map<Long, Long> getNatureOuvrages() {
+        return natureOuvrages;
+    }
+
+    public void setNatureOuvrages(Map<Long, Long> natureOuvrages) {
+        this.natureOuvrages = natureOuvrages;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PrevisionAchievementDTO{" +
+            "level=" + getLevel() +
+            ", id=" + getId() +
+            ", refanneeId=" + getRefanneeId() +
+            ", previsions=" + getPrevisions() +
+            ", total=" + getTotal() +
+            ", categories=" + getCategories() +
+            "}";
+    }
+}
@@ -0,0 +1,135 @@
+package com.onea.sidot.gestioneau.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The counts of the hits of a search by facet: by the references of the hits, the most frequent first, and by the
+ * interval of their dates, in chronological order.
+ */
+public class SearchFacetsDTO implements Serializable {
+
+    private long total;
+
+    private Map<String, List<TermDTO>> terms = new LinkedHashMap<>();
+
+    private Map<String, List<DateBucketDTO>> dates = new LinkedHashMap<>();
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<String, List<TermDTO>> getTerms() {
+        return terms;
+    }
+
+    public void setTerms(Map<String, List<TermDTO>> terms) {
+        this.terms = terms;
+    }
+
+    public Map<String, List<DateBucketDTO>> getDates() {
+        return dates;
+    }
+
+    public void setDates(Map<String, List<DateBucketDTO>> dates) {
+        this.dates = dates;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchFacetsDTO{" +
+            "total=" + getTotal() +
+            ", terms=" + getTerms().keySet() +
+            ", dates=" + getDates().keySet() +
+            "}";
+    }
+
+    /**
+     * The number of hits which have a reference.
+     */
+    public static class TermDTO implements Serializable {
+
+        private Long id;
+
+        private String libelle;
+
+        private long count;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getLibelle() {
+            return libelle;
+        }
+
+        public void setLibelle(String libelle) {
+            this.libelle = libelle;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "TermDTO{" +
+                "id=" + getId() +
+                ", libelle='" + getLibelle() + "'" +
+                ", count=" + getCount() +
+                "}";
+        }
+    }
+
+    /**
+     * The number of hits whose date is in an interval, starting at the given date.
+     */
+    public static class DateBucketDTO implements Serializable {
+
+        private Instant date;
+
+        private long count;
+
+        public Instant getDate() {
+            return date;
+        }
+
+        public void setDate(Instant date) {
+            this.date = date;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "DateBucketDTO{" +
+                "date=" + getDate() +
+                ", count=" + getCount() +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.onea.sidot.gestioneau.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The progress of the rebuild of the Elasticsearch index of an entity type.
+ */
+public class SearchReindexJobDTO implements Serializable {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    private String entity;
+
+    private String alias;
+
+    private String index;
+
+    private Status status;
+
+    private Long total;
+
+    private long indexed;
+
+    private double documentsPerSecond;
+
+    private Instant startDate;
+
+    private Instant endDate;
+
+    private String error;
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public void setAlias(String alias) {
+        this.alias = alias;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public void setIndex(String index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public long getIndexed() {
+        return indexed;
+    }
+
+    public void setIndexed(long indexed) {
+        this.indexed = indexed;
+    }
+
+    public double getDocumentsPerSecond() {
+        return documentsPerSecond;
+    }
+
+    public void setDocumentsPerSecond(double documentsPerSecond) {
+        this.documentsPerSecond = documentsPerSecond;
+    }
+
+    public Instant getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Instant startDate) {
+        this.startDate = startDate;
+    }
+
+    public Instant getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(Instant endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchReindexJobDTO{" +
+            "entity='" + getEntity() + "'" +
+            ", index='" + getIndex() + "'" +
+            ", status=" + getStatus() +
+            ", total=" + getTotal() +
+            ", indexed=" + getIndexed() +
+            "}";
+    }
+}
@@ -0,0 +1,78 @@
+package com.onea.sidot.gestioneau.service.mapper;
+
+import com.onea.sidot.gestioneau.domain.*;
+import com.onea.sidot.gestioneau.service.dto.*;
+import org.mapstruct.*;
+
+/**
+ * Mapper for the entity {@link FicheSuiviOuvrage} and its search document {@link FicheSuiviOuvrageDocument}, and for the
+ * document and the DTO {@link FicheSuiviOuvrageDTO}, so that the hits are returned without reading the database.
+ * <p>
+ * The references of the document are set by the {@link com.onea.sidot.gestioneau.service.FicheSuiviOuvrageDocumentLoader}.
+ */
+@Mapper(componentModel = "spring")
+public interface FicheSuiviOuvrageDocumentMapper {
+    @Mapping(target = "region", ignore = true)
+    @Mapping(target = "province", ignore = true)
+    @Mapping(target = "commune", ignore = true)
+    @Mapping(target = "localite", ignore = true)
+    @Mapping(target = "secteur", ignore = true)
+    @Mapping(target = "section", ignore = true)
+    @Mapping(target = "lot", ignore = true)
+    @Mapping(target = "parcelle", ignore = true)
+    @Mapping(target = "prevision", ignore = true)
+    @Mapping(target = "natureouvrage", ignore = true)
+    @Mapping(target = "typehabitation", ignore = true)
+    @Mapping(target = "sourceapprovep", ignore = true)
+    @Mapping(target = "modeevacuationeauusee", ignore = true)
+    @Mapping(target = "modeevacexcreta", ignore = true)
+    @Mapping(target = "macon", ignore = true)
+    @Mapping(target = "prefabricant", ignore = true)
+    FicheSuiviOuvrageDocument toDocument(FicheSuiviOuvrage entity);
+
+    FicheSuiviOuvrageDTO toDto(FicheSuiviOuvrageDocument document);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "libelle", source = "libelle")
+    ParcelleDTO toParcelleDto(FicheSuiviOuvrageDocument.Reference reference);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "libelle", source = "libelle")
+    NatureOuvrageDTO toNatureOuvrageDto(FicheSuiviOuvrageDocument.Reference reference);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "libelle", source = "libelle")
+    TypeHabitationDTO toTypeHabitationDto(FicheSuiviOuvrageDocument.Reference reference);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "libelle", source = "libelle")
+    SourceApprovEpDTO toSourceApprovEpDto(FicheSuiviOuvrageDocument.Reference reference);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "libelle", source = "libelle")
+    ModeEvacuationEauUseeDTO toModeEvacuationEauUseeDto(FicheSuiviOuvrageDocument.Reference reference);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "libelle", source = "libelle")
+    ModeEvacExcretaDTO toModeEvacExcretaDto(FicheSuiviOuvrageDocument.Reference reference);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "libelle", source = "libelle")
+    MaconDTO toMaconDto(FicheSuiviOuvrageDocument.Reference reference);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "libelle", source = "libelle")
+    PrefabricantDTO toPrefabricantDto(FicheSuiviOuvrageDocument.Reference reference);
+
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    PrevisionDTO toPrevisionDto(FicheSuiviOuvrageDocument.Reference reference);
+}
@@ -0,0 +1,69 @@
+package com.onea.sidot.gestioneau.web.rest;
+
+import com.onea.sidot.gestioneau.service.AutocompleteIndex;
+import com.onea.sidot.gestioneau.service.dto.AutocompleteDTO;
+import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller for the autocomplete of the libelles of the reference entities.
+ */
+@RestController
+@RequestMapping("/api")
+public class AutocompleteResource {
+
+    private final Logger log = LoggerFactory.getLogger(AutocompleteResource.class);
+
+    private static final String ENTITY_NAME = "gestioneauAutocomplete";
+
+    private static final int MAX_SIZE = 100;
+
+    private final AutocompleteIndex autocompleteIndex;
+
+    public AutocompleteResource(AutocompleteIndex autocompleteIndex) {
+        this.autocompleteIndex = autocompleteIndex;
+    }
+
+    /**
+     * {@code GET  /_autocomplete/:entity?prefix=:prefix} : get the entities of which a word of the libelle starts with a prefix,
+     * ignoring the case and the accents.
+     *
+     * @param entity the name of the entity, such as {@code commune}, {@code lot} or {@code centre-regroupement}.
+     * @param prefix the prefix, all the entities match an empty one.
+     * @param parent the id of the parent of the entities, such as the section of the lots, or none for all of them.
+     * @param size the maximum number of entities, up to {@value #MAX_SIZE}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the entities in body, in the order of their libelles,
+     * or with status {@code 400 (Bad Request)} if the entity, the parent or the size is not valid.
+     */
+    @GetMapping("/_autocomplete/{entity}")
+    public Mono<ResponseEntity<List<AutocompleteDTO>>> autocomplete(
+        @PathVariable String entity,
+        @RequestParam(defaultValue = "") String prefix,
+        @RequestParam(required = false) Long parent,
+        @RequestParam(defaultValue = "10") int size
+    ) {
+        log.debug("REST request to autocomplete {} : {}", entity, prefix);
+        Class<?> entityType;
+        try {
+            entityType = autocompleteIndex.parseEntityType(entity);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid autocomplete entity", ENTITY_NAME, "entityinvalid");
+        }
+        if (parent != null && !autocompleteIndex.hasParent(entityType)) {
+            throw new BadRequestAlertException("The entity has no parent", ENTITY_NAME, "parentinvalid");
+        }
+        if (size < 1 || size > MAX_SIZE) {
+            throw new BadRequestAlertException("Invalid autocomplete size", ENTITY_NAME, "sizeinvalid");
+        }
+        return Mono.just(ResponseEntity.ok(autocompleteIndex.complete(entityType, prefix, parent, size)));
+    }
+}
@@ -1,12 +1,21 @@
 package com.onea.sidot.gestioneau.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onea.sidot.gestioneau.domain.CentreRegroupement;
 import com.onea.sidot.gestioneau.repository.CentreRegroupementRepository;
 import com.onea.sidot.gestioneau.service.CentreRegroupementService;
+import com.onea.sidot.gestioneau.service.CountMode;
+import com.onea.sidot.gestioneau.service.EntityVersionService;
+import com.onea.sidot.gestioneau.service.Projection;
+import com.onea.sidot.gestioneau.service.SearchPageable;
 import com.onea.sidot.gestioneau.service.dto.CentreRegroupementDTO;
 import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import com.onea.sidot.gestioneau.web.rest.util.CountModeUtil;
+import com.onea.sidot.gestioneau.web.rest.util.ETagUtil;
+import com.onea.sidot.gestioneau.web.rest.util.ProjectionUtil;
+import com.onea.sidot.gestioneau.web.rest.util.SearchPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -26,7 +35,6 @@ import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -50,12 +58,20 @@ public class CentreRegroupementResource {
 
     private final CentreRegroupementRepository centreRegroupementRepository;
 
+    private final EntityVersionService entityVersionService;
+
+    private final ObjectMapper objectMapper;
+
     public CentreRegroupementResource(
         CentreRegroupementService centreRegroupementService,
-        CentreRegroupementRepository centreRegroupementRepository
+        CentreRegroupementRepository centreRegroupementRepository,
+        EntityVersionService entityVersionService,
+        ObjectMapper objectMapper
     ) {
         this.centreRegroupementService = centreRegroupementService;
         this.centreRegroupementRepository = centreRegroupementRepository;
+        this.entityVersionService = entityVersionService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -188,40 +204,71 @@ public class CentreRegroupementResource {
      *
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of centreRegroupements in body.
+     * @param countMode the value of the {@code X-Total-Count-Mode} header: {@code approximate} for an estimated total.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of centreRegroupements in body,
+     * with status {@code 304 (Not Modified)} if they match the {@code If-None-Match} header,
+     * or with status {@code 400 (Bad Request)} if a field is not a property of a centreRegroupement.
      */
     @GetMapping("/centre-regroupements")
-    public Mono<ResponseEntity<List<CentreRegroupementDTO>>> getAllCentreRegroupements(Pageable pageable, ServerHttpRequest request) {
+    public Mono<ResponseEntity<List<Object>>> getAllCentreRegroupements(
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestHeader(value = CountModeUtil.HEADER_COUNT_MODE, required = false) String countMode,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields
+    ) {
         log.debug("REST request to get a page of CentreRegroupements");
-        return centreRegroupementService
-            .countAll()
-            .zipWith(centreRegroupementService.findAll(pageable).collectList())
-            .map(
-                countWithEntities -> {
-                    return ResponseEntity
-                        .ok()
-                        .headers(
-                            PaginationUtil.generatePaginationHttpHeaders(
-                                UriComponentsBuilder.fromHttpRequest(request),
-                                new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                            )
-                        )
-                        .body(countWithEntities.getT2());
-                }
-            );
+        Projection projection = ProjectionUtil.parseFields(fields, CentreRegroupementDTO.class, ENTITY_NAME);
+        CountMode mode = CountModeUtil.parseCountMode(countMode, ENTITY_NAME);
+        return ETagUtil.ifNoneMatch(
+            request,
+            entityVersionService.getETag(CentreRegroupement.class).map(eTag -> CountModeUtil.getETag(eTag, mode)),
+            CountModeUtil.HEADER_COUNT_MODE,
+            () ->
+                centreRegroupementService
+                    .countAll(mode)
+                    .zipWith(centreRegroupementService.findAll(pageable).collectList())
+                    .map(
+                        countWithEntities -> {
+                            return ResponseEntity
+                                .ok()
+                                .headers(
+                                    PaginationUtil.generatePaginationHttpHeaders(
+                                        UriComponentsBuilder.fromHttpRequest(request),
+                                        new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
+                                    )
+                                )
+                                .body(ProjectionUtil.project(countWithEntities.getT2(), projection, objectMapper));
+                        }
+                    )
+        );
     }
 
     /**
      * {@code GET  /centre-regroupements/:id} : get the "id" centreRegroupement.
      *
      * @param id the id of the centreRegroupementDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the centreRegroupementDTO, or with status {@code 404 (Not Found)}.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the centreRegroupementDTO, or with status {@code 404 (Not Found)},
+     * or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header.
      */
     @GetMapping("/centre-regroupements/{id}")
-    public Mono<ResponseEntity<CentreRegroupementDTO>> getCentreRegroupement(@PathVariable Long id) {
+    public Mono<ResponseEntity<Object>> getCentreRegroupement(
+        @PathVariable Long id,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields,
+        ServerHttpRequest request
+    ) {
         log.debug("REST request to get CentreRegroupement : {}", id);
-        Mono<CentreRegroupementDTO> centreRegroupementDTO = centreRegroupementService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(centreRegroupementDTO);
+        Projection projection = ProjectionUtil.parseFields(fields, CentreRegroupementDTO.class, ENTITY_NAME);
+        return ETagUtil.ifNoneMatch(
+            request,
+            entityVersionService.getETag(CentreRegroupement.class, id),
+            () ->
+                ResponseUtil.wrapOrNotFound(
+                    centreRegroupementService.findOne(id).map(dto -> ProjectionUtil.project(dto, projection, objectMapper))
+                )
+        );
     }
 
     /**
@@ -248,23 +295,44 @@ public class CentreRegroupementResource {
     /**
      * {@code SEARCH  /_search/centre-regroupements?query=:query} : search for the centreRegroupement corresponding
      * to the query.
+     * <p>
+     * The hits and their total are returned by a single request. The pages are requested by offset, up to
+     * {@value SearchPageable#MAX_RESULT_WINDOW} hits, or by keyset: with the cursor of the {@code X-Next-Cursor} header in the
+     * {@code after} parameter, an empty cursor requesting the first page, which costs the same at any depth.
      *
      * @param query the query of the centreRegroupement search.
+     * @param after the cursor of the previous page, for a keyset page.
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the result of the search.
+     * @param countMode the value of the {@code X-Total-Count-Mode} header: {@code approximate} for a total capped to a lower bound.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of centreRegroupements in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid or the offset page is too deep.
      */
     @GetMapping("/_search/centre-regroupements")
-    public Mono<ResponseEntity<Flux<CentreRegroupementDTO>>> searchCentreRegroupements(
+    public Mono<ResponseEntity<List<CentreRegroupementDTO>>> searchCentreRegroupements(
         @RequestParam String query,
+        @RequestParam(value = "after", required = false) String after,
         Pageable pageable,
-        ServerHttpRequest request
+        ServerHttpRequest request,
+        @RequestHeader(value = CountModeUtil.HEADER_COUNT_MODE, required = false) String countMode
     ) {
         log.debug("REST request to search for a page of CentreRegroupements for query {}", query);
+        CountMode mode = CountModeUtil.parseCountMode(countMode, ENTITY_NAME);
+        SearchPageable searchPageable = SearchPaginationUtil.parseSearchPageable(after, pageable, mode, ENTITY_NAME);
         return centreRegroupementService
-            .searchCount()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
-            .map(page -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
-            .map(headers -> ResponseEntity.ok().headers(headers).body(centreRegroupementService.search(query, pageable)));
+            .search(query, searchPageable)
+            .map(
+                results ->
+                    ResponseEntity
+                        .ok()
+                        .headers(
+                            SearchPaginationUtil.generateSearchPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                searchPageable,
+                                results
+                            )
+                        )
+                        .body(results.getContent())
+            );
     }
 }
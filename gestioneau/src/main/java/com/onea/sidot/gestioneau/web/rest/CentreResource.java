@@ -1,12 +1,21 @@
 package com.onea.sidot.gestioneau.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onea.sidot.gestioneau.domain.Centre;
 import com.onea.sidot.gestioneau.repository.CentreRepository;
 import com.onea.sidot.gestioneau.service.CentreService;
+import com.onea.sidot.gestioneau.service.CountMode;
+import com.onea.sidot.gestioneau.service.EntityVersionService;
+import com.onea.sidot.gestioneau.service.Projection;
+import com.onea.sidot.gestioneau.service.SearchPageable;
 import com.onea.sidot.gestioneau.service.dto.CentreDTO;
 import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import com.onea.sidot.gestioneau.web.rest.util.CountModeUtil;
+import com.onea.sidot.gestioneau.web.rest.util.ETagUtil;
+import com.onea.sidot.gestioneau.web.rest.util.ProjectionUtil;
+import com.onea.sidot.gestioneau.web.rest.util.SearchPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -26,7 +35,6 @@ import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -50,9 +58,20 @@ public class CentreResource {
 
     private final CentreRepository centreRepository;
 
-    public CentreResource(CentreService centreService, CentreRepository centreRepository) {
+    private final EntityVersionService entityVersionService;
+
+    private final ObjectMapper objectMapper;
+
+    public CentreResource(
+        CentreService centreService,
+        CentreRepository centreRepository,
+        EntityVersionService entityVersionService,
+        ObjectMapper objectMapper
+    ) {
         this.centreService = centreService;
         this.centreRepository = centreRepository;
+        this.entityVersionService = entityVersionService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -184,48 +203,76 @@ public class CentreResource {
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
      * @param filter the filter of the request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of centres in body.
+     * @param countMode the value of the {@code X-Total-Count-Mode} header: {@code approximate} for an estimated total.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of centres in body,
+     * with status {@code 304 (Not Modified)} if they match the {@code If-None-Match} header,
+     * or with status {@code 400 (Bad Request)} if a field is not a property of a centre.
      */
     @GetMapping("/centres")
-    public Mono<ResponseEntity<List<CentreDTO>>> getAllCentres(
+    public Mono<ResponseEntity<List<Object>>> getAllCentres(
         Pageable pageable,
         ServerHttpRequest request,
-        @RequestParam(required = false) String filter
+        @RequestParam(required = false) String filter,
+        @RequestHeader(value = CountModeUtil.HEADER_COUNT_MODE, required = false) String countMode,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields
     ) {
+        Projection projection = ProjectionUtil.parseFields(fields, CentreDTO.class, ENTITY_NAME);
         if ("prevision-is-null".equals(filter)) {
             log.debug("REST request to get all Centres where prevision is null");
-            return centreService.findAllWherePrevisionIsNull().collectList().map(ResponseEntity::ok);
+            return centreService
+                .findAllWherePrevisionIsNull()
+                .collectList()
+                .map(dtos -> ResponseEntity.ok(ProjectionUtil.project(dtos, projection, objectMapper)));
         }
         log.debug("REST request to get a page of Centres");
-        return centreService
-            .countAll()
-            .zipWith(centreService.findAll(pageable).collectList())
-            .map(
-                countWithEntities -> {
-                    return ResponseEntity
-                        .ok()
-                        .headers(
-                            PaginationUtil.generatePaginationHttpHeaders(
-                                UriComponentsBuilder.fromHttpRequest(request),
-                                new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                            )
-                        )
-                        .body(countWithEntities.getT2());
-                }
-            );
+        CountMode mode = CountModeUtil.parseCountMode(countMode, ENTITY_NAME);
+        return ETagUtil.ifNoneMatch(
+            request,
+            entityVersionService.getETag(Centre.class).map(eTag -> CountModeUtil.getETag(eTag, mode)),
+            CountModeUtil.HEADER_COUNT_MODE,
+            () ->
+                centreService
+                    .countAll(mode)
+                    .zipWith(centreService.findAll(pageable).collectList())
+                    .map(
+                        countWithEntities -> {
+                            return ResponseEntity
+                                .ok()
+                                .headers(
+                                    PaginationUtil.generatePaginationHttpHeaders(
+                                        UriComponentsBuilder.fromHttpRequest(request),
+                                        new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
+                                    )
+                                )
+                                .body(ProjectionUtil.project(countWithEntities.getT2(), projection, objectMapper));
+                        }
+                    )
+        );
     }
 
     /**
      * {@code GET  /centres/:id} : get the "id" centre.
      *
      * @param id the id of the centreDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the centreDTO, or with status {@code 404 (Not Found)}.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the centreDTO, or with status {@code 404 (Not Found)},
+     * or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header.
      */
     @GetMapping("/centres/{id}")
-    public Mono<ResponseEntity<CentreDTO>> getCentre(@PathVariable Long id) {
+    public Mono<ResponseEntity<Object>> getCentre(
+        @PathVariable Long id,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields,
+        ServerHttpRequest request
+    ) {
         log.debug("REST request to get Centre : {}", id);
-        Mono<CentreDTO> centreDTO = centreService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(centreDTO);
+        Projection projection = ProjectionUtil.parseFields(fields, CentreDTO.class, ENTITY_NAME);
+        return ETagUtil.ifNoneMatch(
+            request,
+            entityVersionService.getETag(Centre.class, id),
+            () -> ResponseUtil.wrapOrNotFound(centreService.findOne(id).map(dto -> ProjectionUtil.project(dto, projection, objectMapper)))
+        );
     }
 
     /**
@@ -252,19 +299,44 @@ public class CentreResource {
     /**
      * {@code SEARCH  /_search/centres?query=:query} : search for the centre corresponding
      * to the query.
+     * <p>
+     * The hits and their total are returned by a single request. The pages are requested by offset, up to
+     * {@value SearchPageable#MAX_RESULT_WINDOW} hits, or by keyset: with the cursor of the {@code X-Next-Cursor} header in the
+     * {@code after} parameter, an empty cursor requesting the first page, which costs the same at any depth.
      *
      * @param query the query of the centre search.
+     * @param after the cursor of the previous page, for a keyset page.
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the result of the search.
+     * @param countMode the value of the {@code X-Total-Count-Mode} header: {@code approximate} for a total capped to a lower bound.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of centres in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid or the offset page is too deep.
      */
     @GetMapping("/_search/centres")
-    public Mono<ResponseEntity<Flux<CentreDTO>>> searchCentres(@RequestParam String query, Pageable pageable, ServerHttpRequest request) {
+    public Mono<ResponseEntity<List<CentreDTO>>> searchCentres(
+        @RequestParam String query,
+        @RequestParam(value = "after", required = false) String after,
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestHeader(value = CountModeUtil.HEADER_COUNT_MODE, required = false) String countMode
+    ) {
         log.debug("REST request to search for a page of Centres for query {}", query);
+        CountMode mode = CountModeUtil.parseCountMode(countMode, ENTITY_NAME);
+        SearchPageable searchPageable = SearchPaginationUtil.parseSearchPageable(after, pageable, mode, ENTITY_NAME);
         return centreService
-            .searchCount()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
-            .map(page -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
-            .map(headers -> ResponseEntity.ok().headers(headers).body(centreService.search(query, pageable)));
+            .search(query, searchPageable)
+            .map(
+                results ->
+                    ResponseEntity
+                        .ok()
+                        .headers(
+                            SearchPaginationUtil.generateSearchPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                searchPageable,
+                                results
+                            )
+                        )
+                        .body(results.getContent())
+            );
     }
 }
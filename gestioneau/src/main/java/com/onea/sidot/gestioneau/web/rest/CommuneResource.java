@@ -1,12 +1,21 @@
 package com.onea.sidot.gestioneau.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onea.sidot.gestioneau.domain.Commune;
 import com.onea.sidot.gestioneau.repository.CommuneRepository;
 import com.onea.sidot.gestioneau.service.CommuneService;
+import com.onea.sidot.gestioneau.service.CountMode;
+import com.onea.sidot.gestioneau.service.EntityVersionService;
+import com.onea.sidot.gestioneau.service.Projection;
+import com.onea.sidot.gestioneau.service.SearchPageable;
 import com.onea.sidot.gestioneau.service.dto.CommuneDTO;
 import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import com.onea.sidot.gestioneau.web.rest.util.CountModeUtil;
+import com.onea.sidot.gestioneau.web.rest.util.ETagUtil;
+import com.onea.sidot.gestioneau.web.rest.util.ProjectionUtil;
+import com.onea.sidot.gestioneau.web.rest.util.SearchPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -26,7 +35,6 @@ import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -50,9 +58,20 @@ public class CommuneResource {
 
     private final CommuneRepository communeRepository;
 
-    public CommuneResource(CommuneService communeService, CommuneRepository communeRepository) {
+    private final EntityVersionService entityVersionService;
+
+    private final ObjectMapper objectMapper;
+
+    public CommuneResource(
+        CommuneService communeService,
+        CommuneRepository communeRepository,
+        EntityVersionService entityVersionService,
+        ObjectMapper objectMapper
+    ) {
         this.communeService = communeService;
         this.communeRepository = communeRepository;
+        this.entityVersionService = entityVersionService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -183,40 +202,68 @@ public class CommuneResource {
      *
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of communes in body.
+     * @param countMode the value of the {@code X-Total-Count-Mode} header: {@code approximate} for an estimated total.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of communes in body,
+     * with status {@code 304 (Not Modified)} if they match the {@code If-None-Match} header,
+     * or with status {@code 400 (Bad Request)} if a field is not a property of a commune.
      */
     @GetMapping("/communes")
-    public Mono<ResponseEntity<List<CommuneDTO>>> getAllCommunes(Pageable pageable, ServerHttpRequest request) {
+    public Mono<ResponseEntity<List<Object>>> getAllCommunes(
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestHeader(value = CountModeUtil.HEADER_COUNT_MODE, required = false) String countMode,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields
+    ) {
         log.debug("REST request to get a page of Communes");
-        return communeService
-            .countAll()
-            .zipWith(communeService.findAll(pageable).collectList())
-            .map(
-                countWithEntities -> {
-                    return ResponseEntity
-                        .ok()
-                        .headers(
-                            PaginationUtil.generatePaginationHttpHeaders(
-                                UriComponentsBuilder.fromHttpRequest(request),
-                                new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                            )
-                        )
-                        .body(countWithEntities.getT2());
-                }
-            );
+        Projection projection = ProjectionUtil.parseFields(fields, CommuneDTO.class, ENTITY_NAME);
+        CountMode mode = CountModeUtil.parseCountMode(countMode, ENTITY_NAME);
+        return ETagUtil.ifNoneMatch(
+            request,
+            entityVersionService.getETag(Commune.class).map(eTag -> CountModeUtil.getETag(eTag, mode)),
+            CountModeUtil.HEADER_COUNT_MODE,
+            () ->
+                communeService
+                    .countAll(mode)
+                    .zipWith(communeService.findAll(pageable).collectList())
+                    .map(
+                        countWithEntities -> {
+                            return ResponseEntity
+                                .ok()
+                                .headers(
+                                    PaginationUtil.generatePaginationHttpHeaders(
+                                        UriComponentsBuilder.fromHttpRequest(request),
+                                        new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
+                                    )
+                                )
+                                .body(ProjectionUtil.project(countWithEntities.getT2(), projection, objectMapper));
+                        }
+                    )
+        );
     }
 
     /**
      * {@code GET  /communes/:id} : get the "id" commune.
      *
      * @param id the id of the communeDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the communeDTO, or with status {@code 404 (Not Found)}.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the communeDTO, or with status {@code 404 (Not Found)},
+     * or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header.
      */
     @GetMapping("/communes/{id}")
-    public Mono<ResponseEntity<CommuneDTO>> getCommune(@PathVariable Long id) {
+    public Mono<ResponseEntity<Object>> getCommune(
+        @PathVariable Long id,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields,
+        ServerHttpRequest request
+    ) {
         log.debug("REST request to get Commune : {}", id);
-        Mono<CommuneDTO> communeDTO = communeService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(communeDTO);
+        Projection projection = ProjectionUtil.parseFields(fields, CommuneDTO.class, ENTITY_NAME);
+        return ETagUtil.ifNoneMatch(
+            request,
+            entityVersionService.getETag(Commune.class, id),
+            () -> ResponseUtil.wrapOrNotFound(communeService.findOne(id).map(dto -> ProjectionUtil.project(dto, projection, objectMapper)))
+        );
     }
 
     /**
@@ -243,19 +290,44 @@ public class CommuneResource {
     /**
      * {@code SEARCH  /_search/communes?query=:query} : search for the commune corresponding
      * to the query.
+     * <p>
+     * The hits and their total are returned by a single request. The pages are requested by offset, up to
+     * {@value SearchPageable#MAX_RESULT_WINDOW} hits, or by keyset: with the cursor of the {@code X-Next-Cursor} header in the
+     * {@code after} parameter, an empty cursor requesting the first page, which costs the same at any depth.
      *
      * @param query the query of the commune search.
+     * @param after the cursor of the previous page, for a keyset page.
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the result of the search.
+     * @param countMode the value of the {@code X-Total-Count-Mode} header: {@code approximate} for a total capped to a lower bound.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of communes in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid or the offset page is too deep.
      */
     @GetMapping("/_search/communes")
-    public Mono<ResponseEntity<Flux<CommuneDTO>>> searchCommunes(@RequestParam String query, Pageable pageable, ServerHttpRequest request) {
+    public Mono<ResponseEntity<List<CommuneDTO>>> searchCommunes(
+        @RequestParam String query,
+        @RequestParam(value = "after", required = false) String after,
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestHeader(value = CountModeUtil.HEADER_COUNT_MODE, required = false) String countMode
+    ) {
         log.debug("REST request to search for a page of Communes for query {}", query);
+        CountMode mode = CountModeUtil.parseCountMode(countMode, ENTITY_NAME);
+        SearchPageable searchPageable = SearchPaginationUtil.parseSearchPageable(after, pageable, mode, ENTITY_NAME);
         return communeService
-            .searchCount()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
-            .map(page -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
-            .map(headers -> ResponseEntity.ok().headers(headers).body(communeService.search(query, pageable)));
+            .search(query, searchPageable)
+            .map(
+                results ->
+                    ResponseEntity
+                        .ok()
+                        .headers(
+                            SearchPaginationUtil.generateSearchPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                searchPageable,
+                                results
+                            )
+                        )
+                        .body(results.getContent())
+            );
     }
 }
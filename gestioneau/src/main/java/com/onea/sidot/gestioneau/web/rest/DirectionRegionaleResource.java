@@ -1,12 +1,21 @@
 package com.onea.sidot.gestioneau.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onea.sidot.gestioneau.domain.DirectionRegionale;
 import com.onea.sidot.gestioneau.repository.DirectionRegionaleRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.DirectionRegionaleService;
+import com.onea.sidot.gestioneau.service.EntityVersionService;
+import com.onea.sidot.gestioneau.service.Projection;
+import com.onea.sidot.gestioneau.service.SearchPageable;
 import com.onea.sidot.gestioneau.service.dto.DirectionRegionaleDTO;
 import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import com.onea.sidot.gestioneau.web.rest.util.CountModeUtil;
+import com.onea.sidot.gestioneau.web.rest.util.ETagUtil;
+import com.onea.sidot.gestioneau.web.rest.util.ProjectionUtil;
+import com.onea.sidot.gestioneau.web.rest.util.SearchPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -26,7 +35,6 @@ import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -50,12 +58,20 @@ public class DirectionRegionaleResource {
 
     private final DirectionRegionaleRepository directionRegionaleRepository;
 
+    private final EntityVersionService entityVersionService;
+
+    private final ObjectMapper objectMapper;
+
     public DirectionRegionaleResource(
         DirectionRegionaleService directionRegionaleService,
-        DirectionRegionaleRepository directionRegionaleRepository
+        DirectionRegionaleRepository directionRegionaleRepository,
+        EntityVersionService entityVersionService,
+        ObjectMapper objectMapper
     ) {
         this.directionRegionaleService = directionRegionaleService;
         this.directionRegionaleRepository = directionRegionaleRepository;
+        this.entityVersionService = entityVersionService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -188,40 +204,71 @@ public class DirectionRegionaleResource {
      *
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of directionRegionales in body.
+     * @param countMode the value of the {@code X-Total-Count-Mode} header: {@code approximate} for an estimated total.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of directionRegionales in body,
+     * with status {@code 304 (Not Modified)} if they match the {@code If-None-Match} header,
+     * or with status {@code 400 (Bad Request)} if a field is not a property of a directionRegionale.
      */
     @GetMapping("/direction-regionales")
-    public Mono<ResponseEntity<List<DirectionRegionaleDTO>>> getAllDirectionRegionales(Pageable pageable, ServerHttpRequest request) {
+    public Mono<ResponseEntity<List<Object>>> getAllDirectionRegionales(
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestHeader(value = CountModeUtil.HEADER_COUNT_MODE, required = false) String countMode,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields
+    ) {
         log.debug("REST request to get a page of DirectionRegionales");
-        return directionRegionaleService
-            .countAll()
-            .zipWith(directionRegionaleService.findAll(pageable).collectList())
-            .map(
-                countWithEntities -> {
-                    return ResponseEntity
-                        .ok()
-                        .headers(
-                            PaginationUtil.generatePaginationHttpHeaders(
-                                UriComponentsBuilder.fromHttpRequest(request),
-                                new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                            )
-                        )
-                        .body(countWithEntities.getT2());
-                }
-            );
+        Projection projection = ProjectionUtil.parseFields(fields, DirectionRegionaleDTO.class, ENTITY_NAME);
+        CountMode mode = CountModeUtil.parseCountMode(countMode, ENTITY_NAME);
+        return ETagUtil.ifNoneMatch(
+            request,
+            entityVersionService.getETag(DirectionRegionale.class).map(eTag -> CountModeUtil.getETag(eTag, mode)),
+            CountModeUtil.HEADER_COUNT_MODE,
+            () ->
+                directionRegionaleService
+                    .countAll(mode)
+                    .zipWith(directionRegionaleService.findAll(pageable).collectList())
+                    .map(
+                        countWithEntities -> {
+                            return ResponseEntity
+                                .ok()
+                                .headers(
+                                    PaginationUtil.generatePaginationHttpHeaders(
+                                        UriComponentsBuilder.fromHttpRequest(request),
+                                        new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
+                                    )
+                                )
+                                .body(ProjectionUtil.project(countWithEntities.getT2(), projection, objectMapper));
+                        }
+                    )
+        );
     }
 
     /**
      * {@code GET  /direction-regionales/:id} : get the "id" directionRegionale.
      *
      * @param id the id of the directionRegionaleDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the directionRegionaleDTO, or with status {@code 404 (Not Found)}.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the directionRegionaleDTO, or with status {@code 404 (Not Found)},
+     * or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header.
      */
     @GetMapping("/direction-regionales/{id}")
-    public Mono<ResponseEntity<DirectionRegionaleDTO>> getDirectionRegionale(@PathVariable Long id) {
+    public Mono<ResponseEntity<Object>> getDirectionRegionale(
+        @PathVariable Long id,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields,
+        ServerHttpRequest request
+    ) {
         log.debug("REST request to get DirectionRegionale : {}", id);
-        Mono<DirectionRegionaleDTO> directionRegionaleDTO = directionRegionaleService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(directionRegionaleDTO);
+        Projection projection = ProjectionUtil.parseFields(fields, DirectionRegionaleDTO.class, ENTITY_NAME);
+        return ETagUtil.ifNoneMatch(
+            request,
+            entityVersionService.getETag(DirectionRegionale.class, id),
+            () ->
+                ResponseUtil.wrapOrNotFound(
+                    directionRegionaleService.findOne(id).map(dto -> ProjectionUtil.project(dto, projection, objectMapper))
+                )
+        );
     }
 
     /**
@@ -248,23 +295,44 @@ public class DirectionRegionaleResource {
     /**
      * {@code SEARCH  /_search/direction-regionales?query=:query} : search for the directionRegionale corresponding
      * to the query.
+     * <p>
+     * The hits and their total are returned by a single request. The pages are requested by offset, up to
+     * {@value SearchPageable#MAX_RESULT_WINDOW} hits, or by keyset: with the cursor of the {@code X-Next-Cursor} header in the
+     * {@code after} parameter, an empty cursor requesting the first page, which costs the same at any depth.
      *
      * @param query the query of the directionRegionale search.
+     * @param after the cursor of the previous page, for a keyset page.
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the result of the search.
+     * @param countMode the value of the {@code X-Total-Count-Mode} header: {@code approximate} for a total capped to a lower bound.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of directionRegionales in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid or the offset page is too deep.
      */
     @GetMapping("/_search/direction-regionales")
-    public Mono<ResponseEntity<Flux<DirectionRegionaleDTO>>> searchDirectionRegionales(
+    public Mono<ResponseEntity<List<DirectionRegionaleDTO>>> searchDirectionRegionales(
         @RequestParam String query,
+        @RequestParam(value = "after", required = false) String after,
         Pageable pageable,
-        ServerHttpRequest request
+        ServerHttpRequest request,
+        @RequestHeader(value = CountModeUtil.HEADER_COUNT_MODE, required = false) String countMode
     ) {
         log.debug("REST request to search for a page of DirectionRegionales for query {}", query);
+        CountMode mode = CountModeUtil.parseCountMode(countMode, ENTITY_NAME);
+        SearchPageable searchPageable = SearchPaginationUtil.parseSearchPageable(after, pageable, mode, ENTITY_NAME);
         return directionRegionaleService
-            .searchCount()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
-            .map(page -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
-            .map(headers -> ResponseEntity.ok().headers(headers).body(directionRegionaleService.search(query, pageable)));
+            .search(query, searchPageable)
+            .map(
+                results ->
+                    ResponseEntity
+                        .ok()
+                        .headers(
+                            SearchPaginationUtil.generateSearchPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                searchPageable,
+                                results
+                            )
+                        )
+                        .body(results.getContent())
+            );
     }
 }
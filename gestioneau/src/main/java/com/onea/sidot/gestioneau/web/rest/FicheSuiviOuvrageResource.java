@@ -1,28 +1,59 @@
 package com.onea.sidot.gestioneau.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
 import com.onea.sidot.gestioneau.repository.FicheSuiviOuvrageRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
+import com.onea.sidot.gestioneau.service.EntityVersionService;
+import com.onea.sidot.gestioneau.service.ExportFormat;
+import com.onea.sidot.gestioneau.service.FacetInterval;
+import com.onea.sidot.gestioneau.service.FicheSuiviOuvrageExportService;
+import com.onea.sidot.gestioneau.service.FicheSuiviOuvrageReference;
 import com.onea.sidot.gestioneau.service.FicheSuiviOuvrageService;
+import com.onea.sidot.gestioneau.service.HierarchyLevel;
+import com.onea.sidot.gestioneau.service.KeysetCursor;
+import com.onea.sidot.gestioneau.service.KeysetPageable;
+import com.onea.sidot.gestioneau.service.Projection;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.dto.BulkItemResultDTO;
+import com.onea.sidot.gestioneau.service.dto.FicheSuiviOuvrageBulkUpdateDTO;
 import com.onea.sidot.gestioneau.service.dto.FicheSuiviOuvrageDTO;
+import com.onea.sidot.gestioneau.service.dto.FicheSuiviOuvrageSelectionDTO;
+import com.onea.sidot.gestioneau.service.dto.SearchFacetsDTO;
 import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import com.onea.sidot.gestioneau.web.rest.util.CountModeUtil;
+import com.onea.sidot.gestioneau.web.rest.util.ETagUtil;
+import com.onea.sidot.gestioneau.web.rest.util.KeysetPaginationUtil;
+import com.onea.sidot.gestioneau.web.rest.util.ProjectionUtil;
+import com.onea.sidot.gestioneau.web.rest.util.SearchPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -43,6 +74,12 @@ public class FicheSuiviOuvrageResource {
 
     private static final String ENTITY_NAME = "gestioneauFicheSuiviOuvrage";
 
+    private static final int EXPORT_FRAGMENTS_PER_BUFFER = 100;
+
+    private static final int MAX_NEAREST = 100;
+
+    private static final int MAX_FACET_SIZE = 100;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -50,12 +87,24 @@ public class FicheSuiviOuvrageResource {
 
     private final FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository;
 
+    private final FicheSuiviOuvrageExportService ficheSuiviOuvrageExportService;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityVersionService entityVersionService;
+
     public FicheSuiviOuvrageResource(
         FicheSuiviOuvrageService ficheSuiviOuvrageService,
-        FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository
+        FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository,
+        FicheSuiviOuvrageExportService ficheSuiviOuvrageExportService,
+        ObjectMapper objectMapper,
+        EntityVersionService entityVersionService
     ) {
         this.ficheSuiviOuvrageService = ficheSuiviOuvrageService;
         this.ficheSuiviOuvrageRepository = ficheSuiviOuvrageRepository;
+        this.ficheSuiviOuvrageExportService = ficheSuiviOuvrageExportService;
+        this.objectMapper = objectMapper;
+        this.entityVersionService = entityVersionService;
     }
 
     /**
@@ -89,6 +138,95 @@ public class FicheSuiviOuvrageResource {
             );
     }
 
+    /**
+     * {@code POST  /fiche-suivi-ouvrages/bulk} : Create a batch of new ficheSuiviOuvrages.
+     * <p>
+     * The body is either a JSON array, or a stream of newline delimited JSON ({@code application/x-ndjson}) ficheSuiviOuvrages.
+     * The items are validated one by one: an invalid item is reported in its result, and doesn't reject the whole batch.
+     *
+     * @param ficheSuiviOuvrageDTOs the ficheSuiviOuvrageDTOs to create.
+     * @return the result of every item, in the order of the request, as a JSON array or as a stream of newline delimited JSON
+     * depending on the {@code Accept} header.
+     */
+    @PostMapping(
+        value = "/fiche-suivi-ouvrages/bulk",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE }
+    )
+    public Flux<BulkItemResultDTO> createFicheSuiviOuvrages(@RequestBody Flux<FicheSuiviOuvrageDTO> ficheSuiviOuvrageDTOs) {
+        log.debug("REST request to save a batch of FicheSuiviOuvrages");
+        return ficheSuiviOuvrageService.saveAll(ficheSuiviOuvrageDTOs);
+    }
+
+    /**
+     * {@code PATCH  /fiche-suivi-ouvrages/bulk} : Set the references of a selection of ficheSuiviOuvrages, e.g. to reassign them
+     * to another macon or prevision.
+     *
+     * @param bulkUpdateDTO the selection, by ids and/or by the ids of their references, and the new ids of the references.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of updated ficheSuiviOuvrages in body,
+     * or with status {@code 400 (Bad Request)} if the selection or the changes are empty, or name an unknown reference,
+     * if the selection has more than {@link FicheSuiviOuvrageSelectionDTO#MAX_IDS} ids, or if a new reference doesn't exist.
+     */
+    @PatchMapping("/fiche-suivi-ouvrages/bulk")
+    public Mono<ResponseEntity<Long>> partialUpdateFicheSuiviOuvrages(@Valid @RequestBody FicheSuiviOuvrageBulkUpdateDTO bulkUpdateDTO) {
+        log.debug("REST request to update a selection of FicheSuiviOuvrages : {}", bulkUpdateDTO);
+        List<Long> ids = getSelectedIds(bulkUpdateDTO);
+        Map<FicheSuiviOuvrageReference, Long> filter = parseReferences(bulkUpdateDTO.getFilter());
+        Map<FicheSuiviOuvrageReference, Long> changes = parseReferences(bulkUpdateDTO.getChanges());
+        if (changes.isEmpty()) {
+            throw new BadRequestAlertException("No reference to change", ENTITY_NAME, "changesempty");
+        }
+        return ficheSuiviOuvrageService
+            .updateAll(ids, filter, changes)
+            .onErrorMap(
+                DataIntegrityViolationException.class,
+                e -> new BadRequestAlertException("A new reference doesn't exist", ENTITY_NAME, "referencenotfound")
+            )
+            .map(ResponseEntity::ok);
+    }
+
+    /**
+     * {@code DELETE  /fiche-suivi-ouvrages/bulk} : delete a selection of ficheSuiviOuvrages.
+     *
+     * @param selectionDTO the selection, by ids and/or by the ids of their references.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of deleted ficheSuiviOuvrages in body,
+     * or with status {@code 400 (Bad Request)} if the selection is empty, names an unknown reference or has more than
+     * {@link FicheSuiviOuvrageSelectionDTO#MAX_IDS} ids.
+     */
+    @DeleteMapping("/fiche-suivi-ouvrages/bulk")
+    public Mono<ResponseEntity<Long>> deleteFicheSuiviOuvrages(@Valid @RequestBody FicheSuiviOuvrageSelectionDTO selectionDTO) {
+        log.debug("REST request to delete a selection of FicheSuiviOuvrages : {}", selectionDTO);
+        List<Long> ids = getSelectedIds(selectionDTO);
+        Map<FicheSuiviOuvrageReference, Long> filter = parseReferences(selectionDTO.getFilter());
+        return ficheSuiviOuvrageService.deleteAll(ids, filter).map(ResponseEntity::ok);
+    }
+
+    // an empty selection would select all the ficheSuiviOuvrages, it's rejected
+    private static List<Long> getSelectedIds(FicheSuiviOuvrageSelectionDTO selectionDTO) {
+        List<Long> ids = selectionDTO.getIds() != null ? selectionDTO.getIds() : Collections.emptyList();
+        if (ids.isEmpty() && (selectionDTO.getFilter() == null || selectionDTO.getFilter().isEmpty())) {
+            throw new BadRequestAlertException("Neither ids nor filter", ENTITY_NAME, "selectionempty");
+        }
+        if (ids.contains(null)) {
+            throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
+        }
+        return ids;
+    }
+
+    private static Map<FicheSuiviOuvrageReference, Long> parseReferences(Map<String, Long> references) {
+        Map<FicheSuiviOuvrageReference, Long> parsed = new EnumMap<>(FicheSuiviOuvrageReference.class);
+        if (references != null) {
+            for (Map.Entry<String, Long> reference : references.entrySet()) {
+                try {
+                    parsed.put(FicheSuiviOuvrageReference.parse(reference.getKey()), reference.getValue());
+                } catch (IllegalArgumentException e) {
+                    throw new BadRequestAlertException("Unknown reference: " + reference.getKey(), ENTITY_NAME, "referenceinvalid");
+                }
+            }
+        }
+        return parsed;
+    }
+
     /**
      * {@code PUT  /fiche-suivi-ouvrages/:id} : Updates an existing ficheSuiviOuvrage.
      *
@@ -188,40 +326,300 @@ public class FicheSuiviOuvrageResource {
      *
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ficheSuiviOuvrages in body.
+     * @param countMode the value of the {@code X-Total-Count-Mode} header: {@code approximate} for an estimated total.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @param ancestorLevel the level of the node of the geography hierarchy to filter by, e.g. {@code region}, with {@code ancestorId}.
+     * @param ancestorId the id of the node of the geography hierarchy to filter by: only its ficheSuiviOuvrages are returned.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ficheSuiviOuvrages in body,
+     * with status {@code 304 (Not Modified)} if they match the {@code If-None-Match} header,
+     * or with status {@code 400 (Bad Request)} if a field is not a property of a ficheSuiviOuvrage or the node is not valid.
      */
     @GetMapping("/fiche-suivi-ouvrages")
-    public Mono<ResponseEntity<List<FicheSuiviOuvrageDTO>>> getAllFicheSuiviOuvrages(Pageable pageable, ServerHttpRequest request) {
+    public Mono<ResponseEntity<List<Object>>> getAllFicheSuiviOuvrages(
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestHeader(value = CountModeUtil.HEADER_COUNT_MODE, required = false) String countMode,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields,
+        @RequestParam(value = "ancestorLevel", required = false) String ancestorLevel,
+        @RequestParam(value = "ancestorId", required = false) Long ancestorId
+    ) {
         log.debug("REST request to get a page of FicheSuiviOuvrages");
+        Projection projection = ProjectionUtil.parseFields(fields, FicheSuiviOuvrageDTO.class, ENTITY_NAME);
+        CountMode mode = CountModeUtil.parseCountMode(countMode, ENTITY_NAME);
+        Supplier<Mono<Long>> count;
+        Supplier<Flux<FicheSuiviOuvrageDTO>> ficheSuiviOuvrages;
+        Mono<String> eTag;
+        if (ancestorLevel == null && ancestorId == null) {
+            count = () -> ficheSuiviOuvrageService.countAll(mode);
+            ficheSuiviOuvrages = () -> ficheSuiviOuvrageService.findAll(pageable, projection);
+            eTag = entityVersionService.getETag(FicheSuiviOuvrage.class);
+        } else {
+            HierarchyLevel level = parseAncestorLevel(ancestorLevel, ancestorId);
+            count = () -> ficheSuiviOuvrageService.countUnder(level, ancestorId);
+            ficheSuiviOuvrages = () -> ficheSuiviOuvrageService.findAllUnder(level, ancestorId, pageable, projection);
+            // the ficheSuiviOuvrages under a node also change when the nodes of the hierarchy are moved
+            eTag =
+                entityVersionService.getETag(
+                    FicheSuiviOuvrage.class,
+                    Arrays.stream(HierarchyLevel.values()).map(HierarchyLevel::getEntityType).toArray(Class<?>[]::new)
+                );
+        }
+        return ETagUtil.ifNoneMatch(
+            request,
+            eTag.map(tag -> CountModeUtil.getETag(tag, mode)),
+            CountModeUtil.HEADER_COUNT_MODE,
+            () ->
+                count
+                    .get()
+                    .zipWith(ficheSuiviOuvrages.get().collectList())
+                    .map(
+                        countWithEntities -> {
+                            return ResponseEntity
+                                .ok()
+                                .headers(
+                                    PaginationUtil.generatePaginationHttpHeaders(
+                                        UriComponentsBuilder.fromHttpRequest(request),
+                                        new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
+                                    )
+                                )
+                                .body(ProjectionUtil.project(countWithEntities.getT2(), projection, objectMapper));
+                        }
+                    )
+        );
+    }
+
+    private static HierarchyLevel parseAncestorLevel(String ancestorLevel, Long ancestorId) {
+        if (ancestorLevel == null || ancestorId == null) {
+            throw new BadRequestAlertException("Both ancestorLevel and ancestorId are required", ENTITY_NAME, "ancestorinvalid");
+        }
+        try {
+            return HierarchyLevel.parse(ancestorLevel);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid ancestor level", ENTITY_NAME, "ancestorinvalid");
+        }
+    }
+
+    /**
+     * {@code GET  /fiche-suivi-ouvrages?after=:cursor} : get a keyset page of the ficheSuiviOuvrages.
+     * <p>
+     * Unlike the offset pagination, the cost of a page doesn't grow with its depth, and no total count is computed:
+     * the next page is requested with the cursor of the {@code X-Next-Cursor} header, an empty cursor requests the first page.
+     *
+     * @param after the cursor of the previous page.
+     * @param pageable the pagination information, only the size and the sort are used.
+     * @param request a {@link ServerHttpRequest} request.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ficheSuiviOuvrages in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid, a field is not a property of a ficheSuiviOuvrage,
+     * or a sort property is not a non null property of a ficheSuiviOuvrage.
+     */
+    @GetMapping(value = "/fiche-suivi-ouvrages", params = "after")
+    public Mono<ResponseEntity<List<Object>>> getAllFicheSuiviOuvragesAfter(
+        @RequestParam(value = "after") String after,
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields
+    ) {
+        log.debug("REST request to get a keyset page of FicheSuiviOuvrages after : {}", after);
+        Projection projection = ProjectionUtil.parseFields(fields, FicheSuiviOuvrageDTO.class, ENTITY_NAME);
+        KeysetPageable keysetPageable;
+        try {
+            KeysetCursor cursor = after.isEmpty() ? null : KeysetCursor.decode(after);
+            keysetPageable = KeysetPageable.of(pageable.getPageSize(), pageable.getSort(), cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        try {
+            ficheSuiviOuvrageService.checkKeysetSort(keysetPageable.getSort());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "sortinvalid");
+        }
         return ficheSuiviOuvrageService
-            .countAll()
-            .zipWith(ficheSuiviOuvrageService.findAll(pageable).collectList())
+            .findAll(keysetPageable, projection)
             .map(
-                countWithEntities -> {
-                    return ResponseEntity
+                slice ->
+                    ResponseEntity
                         .ok()
                         .headers(
-                            PaginationUtil.generatePaginationHttpHeaders(
-                                UriComponentsBuilder.fromHttpRequest(request),
-                                new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                            )
+                            KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), slice)
                         )
-                        .body(countWithEntities.getT2());
-                }
+                        .body(ProjectionUtil.project(slice.getContent(), projection, objectMapper))
             );
     }
 
+    /**
+     * {@code GET  /fiche-suivi-ouvrages/within} : get the ficheSuiviOuvrages in a bounding box, sorted by id. The box crosses
+     * the antimeridian if its west bound is greater than its east bound.
+     *
+     * @param minLatitude the south bound, in degrees.
+     * @param minLongitude the west bound, in degrees.
+     * @param maxLatitude the north bound, in degrees.
+     * @param maxLongitude the east bound, in degrees.
+     * @param pageable the pagination information, the sort is ignored.
+     * @param request a {@link ServerHttpRequest} request.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ficheSuiviOuvrages in body,
+     * or with status {@code 400 (Bad Request)} if the bounding box is not valid or a field is not a property of a ficheSuiviOuvrage.
+     */
+    @GetMapping("/fiche-suivi-ouvrages/within")
+    public Mono<ResponseEntity<List<Object>>> getAllFicheSuiviOuvragesWithin(
+        @RequestParam double minLatitude,
+        @RequestParam double minLongitude,
+        @RequestParam double maxLatitude,
+        @RequestParam double maxLongitude,
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields
+    ) {
+        log.debug("REST request to get the FicheSuiviOuvrages within {},{} {},{}", minLatitude, minLongitude, maxLatitude, maxLongitude);
+        Projection projection = ProjectionUtil.parseFields(fields, FicheSuiviOuvrageDTO.class, ENTITY_NAME);
+        checkCoordinates(minLatitude, minLongitude);
+        checkCoordinates(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude) {
+            throw new BadRequestAlertException("Invalid bounding box", ENTITY_NAME, "boundsinvalid");
+        }
+        return ficheSuiviOuvrageService
+            .findAllWithin(minLatitude, minLongitude, maxLatitude, maxLongitude, pageable, projection)
+            .map(page -> toPageResponse(page, request, projection));
+    }
+
+    /**
+     * {@code GET  /fiche-suivi-ouvrages/near} : get the ficheSuiviOuvrages within a distance of a point,
+     * from the nearest to the farthest.
+     *
+     * @param latitude the latitude of the point, in degrees.
+     * @param longitude the longitude of the point, in degrees.
+     * @param radius the distance, in meters.
+     * @param pageable the pagination information, the sort is ignored.
+     * @param request a {@link ServerHttpRequest} request.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ficheSuiviOuvrages in body,
+     * or with status {@code 400 (Bad Request)} if the point or the radius is not valid or a field is not a property of a ficheSuiviOuvrage.
+     */
+    @GetMapping("/fiche-suivi-ouvrages/near")
+    public Mono<ResponseEntity<List<Object>>> getAllFicheSuiviOuvragesNear(
+        @RequestParam double latitude,
+        @RequestParam double longitude,
+        @RequestParam double radius,
+        Pageable pageable,
+        ServerHttpRequest request,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields
+    ) {
+        log.debug("REST request to get the FicheSuiviOuvrages within {}m of {},{}", radius, latitude, longitude);
+        Projection projection = ProjectionUtil.parseFields(fields, FicheSuiviOuvrageDTO.class, ENTITY_NAME);
+        checkCoordinates(latitude, longitude);
+        if (!(radius > 0) || Double.isInfinite(radius)) {
+            throw new BadRequestAlertException("Invalid radius", ENTITY_NAME, "radiusinvalid");
+        }
+        return ficheSuiviOuvrageService
+            .findAllNear(latitude, longitude, radius, pageable, projection)
+            .map(page -> toPageResponse(page, request, projection));
+    }
+
+    /**
+     * {@code GET  /fiche-suivi-ouvrages/nearest} : get the nearest ficheSuiviOuvrages of a point, from the nearest to the farthest.
+     *
+     * @param latitude the latitude of the point, in degrees.
+     * @param longitude the longitude of the point, in degrees.
+     * @param count the number of ficheSuiviOuvrages, at most 100.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ficheSuiviOuvrages in body,
+     * or with status {@code 400 (Bad Request)} if the point or the count is not valid or a field is not a property of a ficheSuiviOuvrage.
+     */
+    @GetMapping("/fiche-suivi-ouvrages/nearest")
+    public Mono<ResponseEntity<List<Object>>> getNearestFicheSuiviOuvrages(
+        @RequestParam double latitude,
+        @RequestParam double longitude,
+        @RequestParam(defaultValue = "10") int count,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields
+    ) {
+        log.debug("REST request to get the {} nearest FicheSuiviOuvrages of {},{}", count, latitude, longitude);
+        Projection projection = ProjectionUtil.parseFields(fields, FicheSuiviOuvrageDTO.class, ENTITY_NAME);
+        checkCoordinates(latitude, longitude);
+        if (count < 1 || count > MAX_NEAREST) {
+            throw new BadRequestAlertException("Invalid count", ENTITY_NAME, "countinvalid");
+        }
+        return ficheSuiviOuvrageService
+            .findNearest(latitude, longitude, count, projection)
+            .collectList()
+            .map(dtos -> ResponseEntity.ok().body(ProjectionUtil.project(dtos, projection, objectMapper)));
+    }
+
+    private ResponseEntity<List<Object>> toPageResponse(Page<FicheSuiviOuvrageDTO> page, ServerHttpRequest request, Projection projection) {
+        return ResponseEntity
+            .ok()
+            .headers(PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
+            .body(ProjectionUtil.project(page.getContent(), projection, objectMapper));
+    }
+
+    private void checkCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new BadRequestAlertException("Invalid coordinates", ENTITY_NAME, "coordinatesinvalid");
+        }
+    }
+
+    /**
+     * {@code GET  /fiche-suivi-ouvrages/export} : export the ficheSuiviOuvrages.
+     * <p>
+     * The export is streamed: the rows are written to the response as they are read from the database.
+     *
+     * @param format the format of the export: {@code csv}, {@code ndjson} or {@code geojson}.
+     * @param directionRegionaleId the id of the directionRegionale of the ficheSuiviOuvrages to export, all of them if missing.
+     * @param response a {@link ServerHttpResponse} response.
+     * @return a Mono to signal the end of the export, with status {@code 200 (OK)}, or with status {@code 400 (Bad Request)}
+     * if the format is not supported.
+     */
+    @GetMapping("/fiche-suivi-ouvrages/export")
+    public Mono<Void> exportFicheSuiviOuvrages(
+        @RequestParam(value = "format", defaultValue = "csv") String format,
+        @RequestParam(value = "directionRegionaleId", required = false) Long directionRegionaleId,
+        ServerHttpResponse response
+    ) {
+        log.debug("REST request to export FicheSuiviOuvrages as {}", format);
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid export format", ENTITY_NAME, "formatinvalid");
+        }
+        response.getHeaders().setContentType(new MediaType(MediaType.parseMediaType(exportFormat.getMediaType()), StandardCharsets.UTF_8));
+        response
+            .getHeaders()
+            .setContentDisposition(ContentDisposition.attachment().filename("fiche-suivi-ouvrages." + exportFormat.getExtension()).build());
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        return response.writeWith(
+            ficheSuiviOuvrageExportService
+                .export(exportFormat, directionRegionaleId)
+                .buffer(EXPORT_FRAGMENTS_PER_BUFFER)
+                .map(fragments -> bufferFactory.wrap(String.join("", fragments).getBytes(StandardCharsets.UTF_8)))
+        );
+    }
+
     /**
      * {@code GET  /fiche-suivi-ouvrages/:id} : get the "id" ficheSuiviOuvrage.
      *
      * @param id the id of the ficheSuiviOuvrageDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ficheSuiviOuvrageDTO, or with status {@code 404 (Not Found)}.
+     * @param fields the comma separated properties to return, all of them if missing.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ficheSuiviOuvrageDTO, or with status {@code 404 (Not Found)},
+     * or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header.
      */
     @GetMapping("/fiche-suivi-ouvrages/{id}")
-    public Mono<ResponseEntity<FicheSuiviOuvrageDTO>> getFicheSuiviOuvrage(@PathVariable Long id) {
+    public Mono<ResponseEntity<Object>> getFicheSuiviOuvrage(
+        @PathVariable Long id,
+        @RequestParam(value = ProjectionUtil.PARAM_FIELDS, required = false) String fields,
+        ServerHttpRequest request
+    ) {
         log.debug("REST request to get FicheSuiviOuvrage : {}", id);
-        Mono<FicheSuiviOuvrageDTO> ficheSuiviOuvrageDTO = ficheSuiviOuvrageService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(ficheSuiviOuvrageDTO);
+        Projection projection = ProjectionUtil.parseFields(fields, FicheSuiviOuvrageDTO.class, ENTITY_NAME);
+        return ETagUtil.ifNoneMatch(
+            request,
+            entityVersionService.getETag(FicheSuiviOuvrage.class, id),
+            () ->
+                ResponseUtil.wrapOrNotFound(
+                    ficheSuiviOuvrageService.findOne(id, projection).map(dto -> ProjectionUtil.project(dto, projection, objectMapper))
+                )
+        );
     }
 
     /**
@@ -248,23 +646,85 @@ public class FicheSuiviOuvrageResource {
     /**
      * {@code SEARCH  /_search/fiche-suivi-ouvrages?query=:query} : search for the ficheSuiviOuvrage corresponding
      * to the query.
+     * <p>
+     * The hits and their total are returned by a single request. The pages are requested by offset, up to
+     * {@value SearchPageable#MAX_RESULT_WINDOW} hits, or by keyset: with the cursor of the {@code X-Next-Cursor} header in the
+     * {@code after} parameter, an empty cursor requesting the first page, which costs the same at any depth.
      *
      * @param query the query of the ficheSuiviOuvrage search.
+     * @param after the cursor of the previous page, for a keyset page.
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the result of the search.
+     * @param countMode the value of the {@code X-Total-Count-Mode} header: {@code approximate} for a total capped to a lower bound.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ficheSuiviOuvrages in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid or the offset page is too deep.
      */
     @GetMapping("/_search/fiche-suivi-ouvrages")
-    public Mono<ResponseEntity<Flux<FicheSuiviOuvrageDTO>>> searchFicheSuiviOuvrages(
+    public Mono<ResponseEntity<List<FicheSuiviOuvrageDTO>>> searchFicheSuiviOuvrages(
         @RequestParam String query,
+        @RequestParam(value = "after", required = false) String after,
         Pageable pageable,
-        ServerHttpRequest request
+        ServerHttpRequest request,
+        @RequestHeader(value = CountModeUtil.HEADER_COUNT_MODE, required = false) String countMode
     ) {
         log.debug("REST request to search for a page of FicheSuiviOuvrages for query {}", query);
+        CountMode mode = CountModeUtil.parseCountMode(countMode, ENTITY_NAME);
+        SearchPageable searchPageable = SearchPaginationUtil.parseSearchPageable(after, pageable, mode, ENTITY_NAME);
         return ficheSuiviOuvrageService
-            .searchCount()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
-            .map(page -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
-            .map(headers -> ResponseEntity.ok().headers(headers).body(ficheSuiviOuvrageService.search(query, pageable)));
+            .search(query, searchPageable)
+            .map(
+                results ->
+                    ResponseEntity
+                        .ok()
+                        .headers(
+                            SearchPaginationUtil.generateSearchPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                searchPageable,
+                                results
+                            )
+                        )
+                        .body(results.getContent())
+            );
+    }
+
+    /**
+     * {@code GET  /_search/fiche-suivi-ouvrages/facets?query=:query} : count the ficheSuiviOuvrages corresponding to the query
+     * by facet.
+     * <p>
+     * The total of the hits and all their counts are returned by a single search: the references, such as the region or the
+     * macon, are counted by id with their libelle, the most frequent first, and the dates by calendar interval. The facets
+     * are filtered by the query, such as {@code commune.id:12 AND macon.id:3}.
+     *
+     * @param query the query of the ficheSuiviOuvrage search.
+     * @param facets the facets, such as {@code region} or {@code dateDebutTravaux}, or none for all of them.
+     * @param interval the interval of the dates: {@code day}, {@code week}, {@code month}, {@code quarter} or {@code year}.
+     * @param size the maximum number of references per facet, up to {@value #MAX_FACET_SIZE}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the counts in body,
+     * or with status {@code 400 (Bad Request)} if a facet, the interval or the size is not valid.
+     */
+    @GetMapping("/_search/fiche-suivi-ouvrages/facets")
+    public Mono<ResponseEntity<SearchFacetsDTO>> searchFicheSuiviOuvrageFacets(
+        @RequestParam String query,
+        @RequestParam(value = "facet", required = false) List<String> facets,
+        @RequestParam(value = "interval", defaultValue = "month") String interval,
+        @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        log.debug("REST request to count the FicheSuiviOuvrages for query {} by {}", query, facets);
+        FacetInterval facetInterval;
+        try {
+            facetInterval = FacetInterval.parse(interval);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid facet interval", ENTITY_NAME, "intervalinvalid");
+        }
+        if (size < 1 || size > MAX_FACET_SIZE) {
+            throw new BadRequestAlertException("Invalid facet size", ENTITY_NAME, "facetsizeinvalid");
+        }
+        Mono<SearchFacetsDTO> counts;
+        try {
+            counts = ficheSuiviOuvrageService.facets(query, facets != null ? facets : Collections.emptyList(), facetInterval, size);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "facetinvalid");
+        }
+        return counts.map(ResponseEntity::ok);
     }
 }
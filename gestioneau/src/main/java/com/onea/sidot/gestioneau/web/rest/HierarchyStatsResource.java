@@ -0,0 +1,71 @@
+package com.onea.sidot.gestioneau.web.rest;
+
+import com.onea.sidot.gestioneau.service.HierarchyLevel;
+import com.onea.sidot.gestioneau.service.HierarchyRollupService;
+import com.onea.sidot.gestioneau.service.dto.HierarchyStatsDTO;
+import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller for the totals of the ficheSuiviOuvrages along the administrative hierarchy.
+ */
+@RestController
+@RequestMapping("/api")
+public class HierarchyStatsResource {
+
+    private final Logger log = LoggerFactory.getLogger(HierarchyStatsResource.class);
+
+    private static final String ENTITY_NAME = "gestioneauHierarchyStats";
+
+    private final HierarchyRollupService hierarchyRollupService;
+
+    public HierarchyStatsResource(HierarchyRollupService hierarchyRollupService) {
+        this.hierarchyRollupService = hierarchyRollupService;
+    }
+
+    /**
+     * {@code GET  /stats/hierarchy/:level/:id} : get the totals of the ficheSuiviOuvrages of a node of the hierarchy.
+     *
+     * @param level the level of the node: {@code region}, {@code province}, {@code commune}, {@code localite}, {@code secteur},
+     * {@code section}, {@code lot} or {@code parcelle}.
+     * @param id the id of the node.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the totals in body,
+     * with status {@code 400 (Bad Request)} if the level is not valid,
+     * or with status {@code 503 (Service Unavailable)} if the totals are not loaded yet.
+     */
+    @GetMapping("/stats/hierarchy/{level}/{id}")
+    public Mono<ResponseEntity<HierarchyStatsDTO>> getHierarchyStats(@PathVariable String level, @PathVariable Long id) {
+        log.debug("REST request to get the stats of {} : {}", level, id);
+        HierarchyLevel hierarchyLevel;
+        try {
+            hierarchyLevel = HierarchyLevel.parse(level);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid hierarchy level", ENTITY_NAME, "levelinvalid");
+        }
+        if (!hierarchyRollupService.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The hierarchy stats are loading");
+        }
+        return Mono.just(ResponseEntity.ok(hierarchyRollupService.getStats(hierarchyLevel, id)));
+    }
+
+    /**
+     * {@code POST  /admin/stats/hierarchy/rebuild} : reload the totals of the ficheSuiviOuvrages along the hierarchy.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of ficheSuiviOuvrages loaded in body.
+     */
+    @PostMapping("/admin/stats/hierarchy/rebuild")
+    public Mono<ResponseEntity<Long>> rebuildHierarchyStats() {
+        log.debug("REST request to rebuild the stats of the hierarchy");
+        return hierarchyRollupService.rebuild().map(ResponseEntity::ok);
+    }
+}
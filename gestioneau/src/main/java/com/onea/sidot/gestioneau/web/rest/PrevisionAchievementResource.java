@@ -0,0 +1,78 @@
+package com.onea.sidot.gestioneau.web.rest;
+
+import com.onea.sidot.gestioneau.service.AchievementLevel;
+import com.onea.sidot.gestioneau.service.PrevisionAchievementService;
+import com.onea.sidot.gestioneau.service.dto.PrevisionAchievementDTO;
+import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller for the achievement of the {@link com.onea.sidot.gestioneau.domain.Prevision}s.
+ */
+@RestController
+@RequestMapping("/api")
+public class PrevisionAchievementResource {
+
+    private final Logger log = LoggerFactory.getLogger(PrevisionAchievementResource.class);
+
+    private static final String ENTITY_NAME = "gestioneauPrevisionAchievement";
+
+    private final PrevisionAchievementService previsionAchievementService;
+
+    public PrevisionAchievementResource(PrevisionAchievementService previsionAchievementService) {
+        this.previsionAchievementService = previsionAchievementService;
+    }
+
+    /**
+     * {@code GET  /stats/previsions/:level/:id} : get the achievement of the previsions of a node.
+     *
+     * @param level the level of the node: {@code prevision}, {@code centre}, {@code centre-regroupement} or
+     * {@code direction-regionale}.
+     * @param id the id of the node.
+     * @param refanneeId the id of the year of the previsions, all of them if omitted.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the achievement in body,
+     * with status {@code 400 (Bad Request)} if the level is not valid,
+     * or with status {@code 503 (Service Unavailable)} if the counters are not built yet.
+     */
+    @GetMapping("/stats/previsions/{level}/{id}")
+    public Mono<ResponseEntity<PrevisionAchievementDTO>> getPrevisionAchievement(
+        @PathVariable String level,
+        @PathVariable Long id,
+        @RequestParam(required = false) Long refanneeId
+    ) {
+        log.debug("REST request to get the achievement of the Previsions of {} : {}, year {}", level, id, refanneeId);
+        AchievementLevel achievementLevel;
+        try {
+            achievementLevel = AchievementLevel.parse(level);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid achievement level", ENTITY_NAME, "levelinvalid");
+        }
+        if (!previsionAchievementService.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The achievement of the previsions is loading");
+        }
+        return Mono.just(ResponseEntity.ok(previsionAchievementService.getAchievement(achievementLevel, id, refanneeId)));
+    }
+
+    /**
+     * {@code POST  /admin/stats/previsions/rebuild} : recount the ficheSuiviOuvrages realised against every prevision, on the
+     * instance which receives the request; the other instances recount them at their configured interval.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of ficheSuiviOuvrages counted in body.
+     */
+    @PostMapping("/admin/stats/previsions/rebuild")
+    public Mono<ResponseEntity<Long>> rebuildPrevisionAchievement() {
+        log.debug("REST request to rebuild the achievement of the Previsions");
+        return previsionAchievementService.rebuild().map(ResponseEntity::ok);
+    }
+}
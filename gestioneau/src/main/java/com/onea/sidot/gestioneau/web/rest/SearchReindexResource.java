@@ -0,0 +1,67 @@
+package com.onea.sidot.gestioneau.web.rest;
+
+import com.onea.sidot.gestioneau.service.SearchReindexService;
+import com.onea.sidot.gestioneau.service.dto.SearchReindexJobDTO;
+import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import java.util.Collections;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller for rebuilding the Elasticsearch indices from the database, restricted to the administrators.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class SearchReindexResource {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexResource.class);
+
+    private static final String ENTITY_NAME = "gestioneauSearchReindex";
+
+    private final SearchReindexService searchReindexService;
+
+    public SearchReindexResource(SearchReindexService searchReindexService) {
+        this.searchReindexService = searchReindexService;
+    }
+
+    /**
+     * {@code POST  /search/reindex} : start the rebuild of the Elasticsearch indices, in the background.
+     * <p>
+     * The current index of an entity type keeps serving the searches until the new one is complete.
+     *
+     * @param entities the entity types of the indices to rebuild, such as {@code ficheSuiviOuvrage}, or none for all.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the progress of the rebuilds in body,
+     * or with status {@code 400 (Bad Request)} if an entity type has no index.
+     */
+    @PostMapping("/search/reindex")
+    public Mono<ResponseEntity<List<SearchReindexJobDTO>>> reindex(@RequestParam(name = "entity", required = false) List<String> entities) {
+        log.debug("REST request to rebuild the search indices of {}", entities);
+        List<Class<?>> entityTypes;
+        try {
+            entityTypes = searchReindexService.getEntityTypes(entities != null ? entities : Collections.emptyList());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "entityinvalid");
+        }
+        return Mono.fromSupplier(() -> ResponseEntity.accepted().body(searchReindexService.reindex(entityTypes)));
+    }
+
+    /**
+     * {@code GET  /search/reindex} : get the progress of the last rebuild of every index: the number of indexed entities
+     * out of the total, and the throughput.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the progress of the rebuilds in body.
+     */
+    @GetMapping("/search/reindex")
+    public Mono<ResponseEntity<List<SearchReindexJobDTO>>> getReindexJobs() {
+        log.debug("REST request to get the progress of the search index rebuilds");
+        return Mono.fromSupplier(() -> ResponseEntity.ok(searchReindexService.getJobs()));
+    }
+}
@@ -1,5 +1,6 @@
 package com.onea.sidot.gestioneau.web.rest.errors;
 
+import com.onea.sidot.gestioneau.repository.search.SearchUnavailableException;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
@@ -131,6 +132,17 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(ex, problem, request);
     }
 
+    @ExceptionHandler
+    public Mono<ResponseEntity<Problem>> handleSearchUnavailable(SearchUnavailableException ex, ServerWebExchange request) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.SERVICE_UNAVAILABLE)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_SEARCH_UNAVAILABLE)
+            .build();
+        return create(ex, problem, request);
+    }
+
     @Override
     public ProblemBuilder prepare(final Throwable throwable, final StatusType status, final URI type) {
         Collection<String> activeProfiles = Arrays.asList(env.getActiveProfiles());
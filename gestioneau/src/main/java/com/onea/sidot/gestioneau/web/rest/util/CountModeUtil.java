@@ -0,0 +1,45 @@
+package com.onea.sidot.gestioneau.web.rest.util;
+
+import com.onea.sidot.gestioneau.service.CountMode;
+import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import java.util.Locale;
+
+/**
+ * Utility class for the {@code X-Total-Count-Mode} request header, which selects how the {@code X-Total-Count} header is computed.
+ * <p>
+ * The header is optional: without it, the total is exact. With {@code approximate}, the total is an estimate of the database,
+ * which is much cheaper for very large tables.
+ */
+public final class CountModeUtil {
+
+    public static final String HEADER_COUNT_MODE = "X-Total-Count-Mode";
+
+    private CountModeUtil() {}
+
+    /**
+     * Parse the value of the {@code X-Total-Count-Mode} header.
+     *
+     * @param header the value of the header, or null.
+     * @param entityName the name of the entity, for the error message.
+     * @return the count mode.
+     * @throws BadRequestAlertException if the value is not a known mode.
+     */
+    public static CountMode parseCountMode(String header, String entityName) {
+        try {
+            return CountMode.parse(header);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid count mode", entityName, "countmodeinvalid");
+        }
+    }
+
+    /**
+     * Derive the ETag of a page from the ETag of its entities, as the total of the page depends on the count mode.
+     *
+     * @param eTag the ETag of the entities, not quoted.
+     * @param mode the count mode.
+     * @return the ETag of the page, not quoted.
+     */
+    public static String getETag(String eTag, CountMode mode) {
+        return mode == CountMode.EXACT ? eTag : eTag + "-" + mode.name().toLowerCase(Locale.ROOT);
+    }
+}
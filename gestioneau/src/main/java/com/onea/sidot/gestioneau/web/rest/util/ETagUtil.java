@@ -0,0 +1,101 @@
+package com.onea.sidot.gestioneau.web.rest.util;
+
+import com.onea.sidot.gestioneau.config.ReplicaRoutingConnectionFactory;
+import java.util.function.Supplier;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import reactor.core.publisher.Mono;
+
+/**
+ * Utility class for the conditional reads of the REST API, with an {@code ETag} derived from the versions of the entities.
+ * <p>
+ * When the {@code If-None-Match} header of the request matches the current ETag, the response is a {@code 304 (Not Modified)}
+ * and the read itself is not run. The responses are only cached by the clients, which revalidate them on every use.
+ * <p>
+ * The reads are run on the primary database: a lagging read replica would serve an outdated body under the current ETag,
+ * which the later {@code 304 (Not Modified)} responses would keep confirming.
+ */
+public final class ETagUtil {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private ETagUtil() {}
+
+    /**
+     * Answer a read conditionally.
+     *
+     * @param request the request, with its {@code If-None-Match} header.
+     * @param eTag the current ETag, not quoted, computed before the read so that a write during the read changes it.
+     * @param response the read, only run if the ETag doesn't match.
+     * @param <T> the type of the body.
+     * @return the {@link ResponseEntity} with status {@code 304 (Not Modified)} if the ETag matches, else the response of the
+     * read, with the ETag if successful.
+     */
+    public static <T> Mono<ResponseEntity<T>> ifNoneMatch(
+        ServerHttpRequest request,
+        Mono<String> eTag,
+        Supplier<Mono<ResponseEntity<T>>> response
+    ) {
+        return ifNoneMatch(request, eTag, null, response);
+    }
+
+    /**
+     * Answer a read conditionally, whose response also depends on a header of the request.
+     *
+     * @param request the request, with its {@code If-None-Match} header.
+     * @param eTag the current ETag, not quoted, computed before the read so that a write during the read changes it; it must
+     * differ with the value of the header.
+     * @param varyHeader the name of the request header which the response depends on, sent in the {@code Vary} header, or null.
+     * @param response the read, only run if the ETag doesn't match.
+     * @param <T> the type of the body.
+     * @return the {@link ResponseEntity} with status {@code 304 (Not Modified)} if the ETag matches, else the response of the
+     * read, with the ETag if successful.
+     */
+    public static <T> Mono<ResponseEntity<T>> ifNoneMatch(
+        ServerHttpRequest request,
+        Mono<String> eTag,
+        String varyHeader,
+        Supplier<Mono<ResponseEntity<T>>> response
+    ) {
+        return eTag.flatMap(
+            tag -> {
+                String quotedTag = "\"" + tag + "\"";
+                if (matches(request, quotedTag)) {
+                    ResponseEntity.BodyBuilder notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+                    if (varyHeader != null) {
+                        notModified.varyBy(varyHeader);
+                    }
+                    return Mono.just(notModified.eTag(quotedTag).cacheControl(CACHE_CONTROL).build());
+                }
+                return response
+                    .get()
+                    .contextWrite(ReplicaRoutingConnectionFactory::primary)
+                    .map(
+                        entity -> {
+                            if (!entity.getStatusCode().is2xxSuccessful()) {
+                                return entity;
+                            }
+                            ResponseEntity.BodyBuilder ok = ResponseEntity.status(entity.getStatusCode()).headers(entity.getHeaders());
+                            if (varyHeader != null) {
+                                ok.varyBy(varyHeader);
+                            }
+                            return ok.eTag(quotedTag).cacheControl(CACHE_CONTROL).body(entity.getBody());
+                        }
+                    );
+            }
+        );
+    }
+
+    private static boolean matches(ServerHttpRequest request, String quotedTag) {
+        for (String candidate : request.getHeaders().getIfNoneMatch()) {
+            // the weak comparison of RFC 7232: a weak ETag of a client matches the strong one it was derived from
+            String tag = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if ("*".equals(tag) || quotedTag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
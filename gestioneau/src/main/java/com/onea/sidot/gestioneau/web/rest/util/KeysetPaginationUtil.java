@@ -0,0 +1,68 @@
+package com.onea.sidot.gestioneau.web.rest.util;
+
+import com.onea.sidot.gestioneau.service.KeysetCursor;
+import com.onea.sidot.gestioneau.service.KeysetSlice;
+import java.text.MessageFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (seek) pagination.
+ *
+ * <p>
+ * Pagination uses the same principles as the <a href="https://developer.github.com/v3/#pagination">GitHub API</a>,
+ * and follow <a href="http://tools.ietf.org/html/rfc5988">RFC 5988 (Link header)</a>, with an opaque cursor instead of a page number.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Generate keyset pagination headers for a {@link KeysetSlice} object.
+     *
+     * @param uriBuilder The URI builder.
+     * @param slice The keyset page.
+     * @return http header.
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(UriComponentsBuilder uriBuilder, KeysetSlice<?> slice) {
+        return generateKeysetPaginationHttpHeaders(uriBuilder, slice.getNextCursor());
+    }
+
+    /**
+     * Generate keyset pagination headers for the cursor of the next page.
+     *
+     * @param uriBuilder The URI builder.
+     * @param nextCursor The cursor of the next page, null for the last page.
+     * @return http header.
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(UriComponentsBuilder uriBuilder, @Nullable KeysetCursor nextCursor) {
+        HttpHeaders headers = new HttpHeaders();
+        StringBuilder link = new StringBuilder();
+        if (nextCursor != null) {
+            String cursor = nextCursor.encode();
+            headers.add(HEADER_NEXT_CURSOR, cursor);
+            link.append(prepareLink(uriBuilder, cursor, "next")).append(",");
+        }
+        link.append(prepareLink(uriBuilder, "", "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, String cursor, String relType) {
+        return MessageFormat.format(HEADER_LINK_FORMAT, preparePageUri(uriBuilder, cursor), relType);
+    }
+
+    private static String preparePageUri(UriComponentsBuilder uriBuilder, String cursor) {
+        return uriBuilder
+            .replaceQueryParam("after", cursor)
+            .replaceQueryParam("page")
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B");
+    }
+}
@@ -0,0 +1,70 @@
+package com.onea.sidot.gestioneau.web.rest.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.onea.sidot.gestioneau.service.Projection;
+import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for the {@code fields} request parameter, which selects the properties returned by the list and get endpoints
+ * (sparse fieldset), e.g. {@code ?fields=id,latitude,longitude,natureouvrage}.
+ * <p>
+ * The parameter is optional: without it, all the properties are returned.
+ */
+public final class ProjectionUtil {
+
+    public static final String PARAM_FIELDS = "fields";
+
+    private ProjectionUtil() {}
+
+    /**
+     * Parse the value of the {@code fields} parameter.
+     *
+     * @param fields the comma separated properties, or null.
+     * @param dtoType the type of the returned DTO.
+     * @param entityName the name of the entity, for the error message.
+     * @return the projection.
+     * @throws BadRequestAlertException if a property is not a property of the DTO.
+     */
+    public static Projection parseFields(String fields, Class<?> dtoType, String entityName) {
+        try {
+            return Projection.parse(fields, dtoType);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid fields", entityName, "fieldsinvalid");
+        }
+    }
+
+    /**
+     * Keep only the projected properties of a DTO.
+     *
+     * @param dto the DTO.
+     * @param projection the projection.
+     * @param objectMapper the mapper serializing the responses.
+     * @return the DTO itself if all the properties are projected, or a JSON object with the projected properties.
+     */
+    public static Object project(Object dto, Projection projection, ObjectMapper objectMapper) {
+        if (projection.isAll()) {
+            return dto;
+        }
+        ObjectNode node = objectMapper.valueToTree(dto);
+        return node.retain(projection.getFields());
+    }
+
+    /**
+     * Keep only the projected properties of a list of DTOs.
+     *
+     * @param dtos the DTOs.
+     * @param projection the projection.
+     * @param objectMapper the mapper serializing the responses.
+     * @return the list of DTOs, or of JSON objects with the projected properties.
+     */
+    public static List<Object> project(List<?> dtos, Projection projection, ObjectMapper objectMapper) {
+        List<Object> projected = new ArrayList<>(dtos.size());
+        for (Object dto : dtos) {
+            projected.add(project(dto, projection, objectMapper));
+        }
+        return projected;
+    }
+}
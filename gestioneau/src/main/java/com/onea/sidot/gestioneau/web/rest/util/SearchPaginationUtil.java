@@ -0,0 +1,91 @@
+package com.onea.sidot.gestioneau.web.rest.util;
+
+import com.onea.sidot.gestioneau.service.CountMode;
+import com.onea.sidot.gestioneau.service.KeysetCursor;
+import com.onea.sidot.gestioneau.service.KeysetPageable;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
+import com.onea.sidot.gestioneau.web.rest.errors.BadRequestAlertException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.web.util.UriComponentsBuilder;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * Utility class for the pagination of the {@code _search} endpoints.
+ * <p>
+ * A search is paginated by offset, like the other endpoints, or by keyset with the {@code after} parameter, like
+ * {@link KeysetPaginationUtil}. Either way, the {@code X-Total-Count} header is the total number of hits of the query,
+ * and the {@code X-Total-Count-Relation} header is {@code gte} when that total was capped by the approximate count mode,
+ * {@code eq} otherwise. The {@code X-Search-Fallback} header is {@code sql} when the hits were searched in the database
+ * while the search engine is unavailable: they match the words of the query by substring, rather than by token.
+ */
+public final class SearchPaginationUtil {
+
+    public static final String HEADER_TOTAL_COUNT = "X-Total-Count";
+
+    public static final String HEADER_TOTAL_COUNT_RELATION = "X-Total-Count-Relation";
+
+    public static final String HEADER_SEARCH_FALLBACK = "X-Search-Fallback";
+
+    private SearchPaginationUtil() {}
+
+    /**
+     * Parse the pagination information of a search.
+     *
+     * @param after the cursor of the previous page for a keyset page, empty for the first one, or null for an offset page.
+     * @param pageable the pagination information, only the size and the sort are used for a keyset page.
+     * @param countMode how the total is computed.
+     * @param entityName the name of the entity, for the error message.
+     * @return the pagination information.
+     * @throws BadRequestAlertException if the cursor is not valid, or the offset page is too deep.
+     */
+    public static SearchPageable parseSearchPageable(@Nullable String after, Pageable pageable, CountMode countMode, String entityName) {
+        if (after == null) {
+            try {
+                return SearchPageable.of(pageable, countMode);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException("Search page too deep, use the after cursor", entityName, "searchpagetoodeep");
+            }
+        }
+        try {
+            KeysetCursor cursor = after.isEmpty() ? null : KeysetCursor.decode(after);
+            return SearchPageable.of(KeysetPageable.of(pageable.getPageSize(), pageable.getSort(), cursor), countMode);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", entityName, "cursorinvalid");
+        }
+    }
+
+    /**
+     * Generate the pagination headers of the results of a search.
+     *
+     * @param uriBuilder The URI builder.
+     * @param pageable The pagination information of the search.
+     * @param results The results of the search.
+     * @return http header.
+     */
+    public static HttpHeaders generateSearchPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        SearchPageable pageable,
+        SearchResults<?> results
+    ) {
+        HttpHeaders headers;
+        if (pageable.isKeyset()) {
+            headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(uriBuilder, results.getNextCursor());
+            headers.add(HEADER_TOTAL_COUNT, Long.toString(results.getTotal()));
+        } else {
+            headers =
+                PaginationUtil.generatePaginationHttpHeaders(
+                    uriBuilder,
+                    new PageImpl<>(results.getContent(), pageable.getPage(), results.getTotal())
+                );
+        }
+        headers.add(HEADER_TOTAL_COUNT_RELATION, results.isTotalExact() ? "eq" : "gte");
+        if (results.isFallback()) {
+            headers.add(HEADER_SEARCH_FALLBACK, "sql");
+        }
+        return headers;
+    }
+}
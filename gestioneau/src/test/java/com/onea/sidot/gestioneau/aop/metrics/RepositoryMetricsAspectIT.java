@@ -0,0 +1,63 @@
+package com.onea.sidot.gestioneau.aop.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.domain.Region;
+import com.onea.sidot.gestioneau.repository.RegionRepository;
+import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.web.rest.RegionResourceIT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for the {@link RepositoryMetricsAspect}.
+ */
+@IntegrationTest
+class RepositoryMetricsAspectIT {
+
+    @Autowired
+    private RegionRepository regionRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanup() {
+        RegionResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void queriesAreTimedWhenSubscribed() {
+        Region region = regionRepository.save(RegionResourceIT.createEntity(em)).block();
+
+        Timer timer = getTimer("findById");
+        long countBefore = timer != null ? timer.count() : 0;
+
+        regionRepository.findById(region.getId());
+        assertThat(count(getTimer("findById"))).isEqualTo(countBefore);
+
+        assertThat(regionRepository.findById(region.getId()).block()).isNotNull();
+        assertThat(count(getTimer("findById"))).isEqualTo(countBefore + 1);
+        assertThat(count(getTimer("save"))).isPositive();
+    }
+
+    private Timer getTimer(String operation) {
+        return meterRegistry
+            .find(RepositoryMetricsAspect.METRIC_NAME)
+            .tag("entity", "Region")
+            .tag("operation", operation)
+            .tag("outcome", "success")
+            .timer();
+    }
+
+    private static long count(Timer timer) {
+        return timer != null ? timer.count() : 0;
+    }
+}
@@ -0,0 +1,44 @@
+package com.onea.sidot.gestioneau.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Integration tests for the {@link MeteredConnectionPool}.
+ */
+@IntegrationTest
+class MeteredConnectionPoolIT {
+
+    @Autowired
+    private MeteredConnectionPool connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void acquireIsTimed() {
+        Timer acquired = meterRegistry.get("r2dbc.pool.acquire").tag("outcome", "success").timer();
+        long countBefore = acquired.count();
+
+        databaseClient.sql("SELECT 1").fetch().first().block();
+
+        assertThat(acquired.count()).isGreaterThan(countBefore);
+    }
+
+    @Test
+    void poolIsConfigured() {
+        assertThat(connectionFactory.unwrap()).isInstanceOf(ConnectionPool.class);
+        ConnectionPool pool = (ConnectionPool) connectionFactory.unwrap();
+        assertThat(pool.getMetrics()).hasValueSatisfying(metrics -> assertThat(metrics.getMaxAllocatedSize()).isEqualTo(10));
+    }
+}
@@ -0,0 +1,135 @@
+package com.onea.sidot.gestioneau.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.onea.sidot.gestioneau.service.RecentWriters;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Test class for the {@link ReplicaRoutingConnectionFactory}, with a primary and a replica which are two H2 databases.
+ */
+class ReplicaRoutingConnectionFactoryUnitTest {
+
+    private ConnectionFactory primary;
+
+    private ConnectionFactory replica;
+
+    private RecentWriters recentWriters;
+
+    private ReplicaRoutingConnectionFactory routingConnectionFactory;
+
+    @BeforeEach
+    void initTest() {
+        primary = createDatabase("primary");
+        replica = createDatabase("replica");
+        recentWriters = mock(RecentWriters.class);
+        when(recentWriters.isRecentWriter()).thenReturn(Mono.just(false));
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (routingConnectionFactory != null) {
+            routingConnectionFactory.dispose();
+        }
+    }
+
+    @Test
+    void readOnlyWorkGoesToTheReplica() {
+        routingConnectionFactory = createRoutingConnectionFactory(replica);
+
+        assertThat(readDatabaseName(false)).isEqualTo("primary");
+        assertThat(readDatabaseName(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readOnlyWorkFlaggedForThePrimaryGoesToThePrimary() {
+        routingConnectionFactory = createRoutingConnectionFactory(replica);
+
+        String name = readDatabaseName(true, ReplicaRoutingConnectionFactory::primary);
+
+        assertThat(name).isEqualTo("primary");
+    }
+
+    @Test
+    void recentWriterReadsThePrimary() {
+        routingConnectionFactory = createRoutingConnectionFactory(replica);
+        when(recentWriters.isRecentWriter()).thenReturn(Mono.just(true));
+
+        assertThat(readDatabaseName(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void downReplicaFallsBackToThePrimary() {
+        AtomicBoolean down = new AtomicBoolean(true);
+        ConnectionFactory flakyReplica = mock(ConnectionFactory.class);
+        when(flakyReplica.create())
+            .thenAnswer(
+                invocation -> down.get() ? Mono.error(new R2dbcNonTransientResourceException("Replica is down")) : replica.create()
+            );
+        routingConnectionFactory = createRoutingConnectionFactory(flakyReplica);
+
+        assertThat(readDatabaseName(true)).isEqualTo("primary");
+
+        // Until it passes a health check, the replica isn't tried again
+        down.set(false);
+        assertThat(readDatabaseName(true)).isEqualTo("primary");
+
+        routingConnectionFactory.checkReplicas().block();
+        assertThat(readDatabaseName(true)).isEqualTo("replica");
+    }
+
+    private ReplicaRoutingConnectionFactory createRoutingConnectionFactory(ConnectionFactory replica) {
+        return new ReplicaRoutingConnectionFactory(primary, Collections.singletonList(replica), recentWriters, Duration.ofHours(1));
+    }
+
+    private String readDatabaseName(boolean readOnly) {
+        return readDatabaseName(readOnly, Function.identity());
+    }
+
+    private String readDatabaseName(boolean readOnly, Function<Context, Context> context) {
+        Mono<String> name = Mono.usingWhen(
+            routingConnectionFactory.create(),
+            connection ->
+                Mono
+                    .from(connection.createStatement("SELECT name FROM database_name").execute())
+                    .flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, String.class)))),
+            Connection::close
+        );
+        return (readOnly ? name.contextWrite(ReplicaRoutingConnectionFactory::readOnly) : name).contextWrite(context).block();
+    }
+
+    private static ConnectionFactory createDatabase(String name) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(
+            "r2dbc:h2:mem:///routing-" + name + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+        );
+        Mono
+            .usingWhen(
+                connectionFactory.create(),
+                connection ->
+                    execute(connection, "DROP TABLE IF EXISTS database_name")
+                        .then(execute(connection, "CREATE TABLE database_name (name VARCHAR(16))"))
+                        .then(execute(connection, "INSERT INTO database_name VALUES ('" + name + "')")),
+                Connection::close
+            )
+            .block();
+        return connectionFactory;
+    }
+
+    private static Mono<Integer> execute(Connection connection, String sql) {
+        return Mono.defer(() -> Mono.from(connection.createStatement(sql).execute())).flatMap(result -> Mono.from(result.getRowsUpdated()));
+    }
+}
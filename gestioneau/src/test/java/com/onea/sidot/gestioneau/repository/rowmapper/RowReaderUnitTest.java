@@ -0,0 +1,59 @@
+package com.onea.sidot.gestioneau.repository.rowmapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link RowReader} class.
+ */
+class RowReaderUnitTest {
+
+    @Test
+    void testIndexes() {
+        RowMetadata metadata = metadata("E_ID", "E_LIBELLE", "centre_id", "centre_libelle");
+
+        assertThat(RowReader.indexes(metadata, "e", "id", "libelle")).containsExactly(0, 1);
+        assertThat(RowReader.indexes(metadata, "centre", "id", "libelle", "centreregroupement_id")).containsExactly(2, 3, -1);
+    }
+
+    @Test
+    void testCompiledOncePerResultSet() {
+        RowMetadata metadata = metadata("e_id");
+        AtomicInteger compilations = new AtomicInteger();
+        RowReader<Object> reader = RowReader.of(
+            rowMetadata -> {
+                compilations.incrementAndGet();
+                int[] indexes = RowReader.indexes(rowMetadata, "e", "id");
+                return row -> row.get(indexes[0]);
+            }
+        );
+
+        for (long id = 1; id <= 3; id++) {
+            Row row = mock(Row.class);
+            when(row.get(0)).thenReturn(id);
+            assertThat(reader.apply(row, metadata)).isEqualTo(id);
+        }
+        assertThat(compilations).hasValue(1);
+    }
+
+    private static RowMetadata metadata(String... names) {
+        List<ColumnMetadata> columns = new ArrayList<>();
+        for (String name : names) {
+            ColumnMetadata column = mock(ColumnMetadata.class);
+            when(column.getName()).thenReturn(name);
+            columns.add(column);
+        }
+        RowMetadata metadata = mock(RowMetadata.class);
+        when(metadata.getColumnMetadatas()).thenAnswer(invocation -> columns);
+        return metadata;
+    }
+}
@@ -0,0 +1,148 @@
+package com.onea.sidot.gestioneau.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.domain.Lot;
+import com.onea.sidot.gestioneau.service.CountMode;
+import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.KeysetPageable;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
+import com.onea.sidot.gestioneau.web.rest.LotResourceIT;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Integration tests for the {@link SqlSearchFallback}.
+ */
+@IntegrationTest
+class SqlSearchFallbackIT {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private SqlSearchFallback sqlSearchFallback;
+
+    private Lot kossodo;
+
+    private Lot tampouy;
+
+    private Lot kossyam;
+
+    @BeforeEach
+    void initTest() {
+        LotResourceIT.deleteEntities(em);
+        kossodo = em.insert(LotResourceIT.createEntity(em).libelle("Lot Kossodo")).block();
+        tampouy = em.insert(LotResourceIT.createEntity(em).libelle("Lot Tampouy")).block();
+        kossyam = em.insert(LotResourceIT.createEntity(em).libelle("Lot Kossyam")).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        LotResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void searchMatchesAnyTermIgnoringTheCase() {
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 10, Sort.by("libelle")), CountMode.EXACT);
+
+        SearchResults<Lot> results = sqlSearchFallback.search("libelle:kossodo OR TAMPOUY", pageable, Lot.class).block();
+
+        assertThat(results.getContent()).extracting(Lot::getId).containsExactly(kossodo.getId(), tampouy.getId());
+        assertThat(results.getTotal()).isEqualTo(2);
+        assertThat(results.isTotalExact()).isTrue();
+        assertThat(results.isFallback()).isTrue();
+    }
+
+    @Test
+    void searchMatchesAllTheTermsOfAConjunction() {
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 10), CountMode.EXACT);
+
+        SearchResults<Lot> results = sqlSearchFallback.search("lot AND koss* AND yam", pageable, Lot.class).block();
+
+        assertThat(results.getContent()).extracting(Lot::getId).containsExactly(kossyam.getId());
+    }
+
+    @Test
+    void searchMatchesTheIntegerFields() {
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 10), CountMode.EXACT);
+
+        SearchResults<Lot> results = sqlSearchFallback.search("id:" + tampouy.getId(), pageable, Lot.class).block();
+
+        assertThat(results.getContent()).extracting(Lot::getId).containsExactly(tampouy.getId());
+    }
+
+    @Test
+    void searchWithAnUnsupportedQueryFails() {
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 10), CountMode.EXACT);
+
+        for (String query : List.of("NOT kossodo", "-kossodo", "unknown:kossodo", "kossodo OR lot AND tampouy", "\"lot kossodo\"")) {
+            assertThatThrownBy(() -> sqlSearchFallback.search(query, pageable, Lot.class).block())
+                .as(query)
+                .isInstanceOf(SearchUnavailableException.class);
+        }
+    }
+
+    @Test
+    void searchWithoutTermsMatchesAllTheEntities() {
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(1, 2), CountMode.EXACT);
+
+        SearchResults<Lot> results = sqlSearchFallback.search("*", pageable, Lot.class).block();
+
+        assertThat(results.getContent()).extracting(Lot::getId).containsExactly(kossyam.getId());
+        assertThat(results.getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void searchPagesByKeyset() {
+        Sort sort = Sort.by(Sort.Order.desc("libelle"));
+        SearchPageable first = SearchPageable.of(KeysetPageable.of(1, sort, null), CountMode.EXACT);
+
+        SearchResults<Lot> page = sqlSearchFallback.search("koss", first, Lot.class).block();
+
+        assertThat(page.getContent()).extracting(Lot::getId).containsExactly(kossyam.getId());
+        assertThat(page.getTotal()).isEqualTo(2);
+        assertThat(page.hasNext()).isTrue();
+
+        SearchPageable next = SearchPageable.of(KeysetPageable.of(1, sort, page.getNextCursor()), CountMode.EXACT);
+        page = sqlSearchFallback.search("koss", next, Lot.class).block();
+
+        assertThat(page.getContent()).extracting(Lot::getId).containsExactly(kossodo.getId());
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void parseSupportsTheWordsCombinedWithASingleOperator() {
+        SqlSearchFallback.ParsedQuery query = SqlSearchFallback.parse("libelle:Kossodo OR Bobo-Dioulasso OR koss*");
+        assertThat(query.terms).extracting(Object::toString).containsExactly("libelle:Kossodo", "Bobo", "Dioulasso", "koss");
+        assertThat(query.conjunction).isFalse();
+
+        assertThat(SqlSearchFallback.parse("kossodo AND tampouy").conjunction).isTrue();
+        assertThat(SqlSearchFallback.parse("*").terms).isEmpty();
+    }
+
+    @Test
+    void parseRejectsTheUnsupportedSyntax() {
+        List<String> queries = List.of(
+            "NOT secteur",
+            "+secteur",
+            "libelle:(Kossodo OR Tampouy)",
+            "date:[2021 TO 2022]",
+            "kossodo~2",
+            "k*sso",
+            "kossodo AND",
+            "a b c d e f g h i"
+        );
+        for (String query : queries) {
+            assertThatThrownBy(() -> SqlSearchFallback.parse(query)).as(query).isInstanceOf(SearchUnavailableException.class);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.onea.sidot.gestioneau.config.DatabaseConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+
+/**
+ * Test class for the {@link ColumnConverter} and {@link ColumnReader} classes.
+ */
+class ColumnConverterUnitTest {
+
+    private static final LocalDateTime DATE_TIME = LocalDateTime.of(2021, 4, 1, 10, 15, 30);
+
+    private SimpleMeterRegistry meterRegistry;
+    private ColumnConverter converter;
+
+    @BeforeEach
+    void init() {
+        R2dbcCustomConversions conversions = new R2dbcCustomConversions(
+            Collections.singletonList(DatabaseConfiguration.InstantReadConverter.INSTANCE)
+        );
+        DefaultConversionService conversionService = new DefaultConversionService();
+        conversions.registerConvertersIn(conversionService);
+        R2dbcConverter r2dbcConverter = mock(R2dbcConverter.class);
+        when(r2dbcConverter.getConversionService()).thenReturn(conversionService);
+        meterRegistry = new SimpleMeterRegistry();
+        converter = new ColumnConverter(conversions, r2dbcConverter, meterRegistry);
+    }
+
+    @Test
+    void testReaderConvertsTheNativeType() {
+        RowMetadata metadata = metadata(LocalDateTime.class, Long.class);
+        ColumnReader<Instant> instantReader = converter.reader(metadata, 0, Instant.class);
+        ColumnReader<Long> longReader = converter.reader(metadata, 1, Long.class);
+
+        assertThat(instantReader.read(row(DATE_TIME, 42L))).isEqualTo(DATE_TIME.toInstant(ZoneOffset.UTC));
+        assertThat(longReader.read(row(DATE_TIME, 42L))).isEqualTo(42L);
+        assertThat(instantReader.read(row(null, null))).isNull();
+        assertThat(fallbacks("type_mismatch")).isZero();
+    }
+
+    @Test
+    void testReaderWithoutNativeType() {
+        ColumnReader<Long> reader = converter.reader(metadata(new Class<?>[] { null }), 0, Long.class);
+
+        assertThat(reader.read(row(42))).isEqualTo(42L);
+        assertThat(reader.read(row(43))).isEqualTo(43L);
+        assertThat(fallbacks("type_mismatch")).isZero();
+    }
+
+    @Test
+    void testReaderTypeMismatch() {
+        ColumnReader<Long> reader = converter.reader(metadata(Long.class), 0, Long.class);
+
+        assertThat(reader.read(row(42))).isEqualTo(42L);
+        assertThat(fallbacks("type_mismatch")).isEqualTo(1);
+    }
+
+    @Test
+    void testReaderMissingColumn() {
+        ColumnReader<Long> reader = converter.reader(metadata(Long.class), -1, Long.class);
+
+        assertThat(reader.read(row(42L))).isNull();
+    }
+
+    private double fallbacks(String reason) {
+        return meterRegistry.get("column.converter.fallback").tag("reason", reason).counter().count();
+    }
+
+    private static RowMetadata metadata(Class<?>... types) {
+        RowMetadata metadata = mock(RowMetadata.class);
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            ColumnMetadata column = mock(ColumnMetadata.class);
+            when(column.getJavaType()).thenAnswer(invocation -> type);
+            when(metadata.getColumnMetadata(i)).thenReturn(column);
+        }
+        return metadata;
+    }
+
+    private static Row row(Object... values) {
+        Row row = mock(Row.class);
+        for (int i = 0; i < values.length; i++) {
+            when(row.get(i)).thenReturn(values[i]);
+        }
+        return row;
+    }
+}
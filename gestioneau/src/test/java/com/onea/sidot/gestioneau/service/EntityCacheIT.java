@@ -0,0 +1,115 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.domain.Province;
+import com.onea.sidot.gestioneau.domain.Region;
+import com.onea.sidot.gestioneau.repository.RegionRepository;
+import com.onea.sidot.gestioneau.repository.search.RegionSearchRepository;
+import com.onea.sidot.gestioneau.service.dto.RegionDTO;
+import com.onea.sidot.gestioneau.service.mapper.RegionMapper;
+import com.onea.sidot.gestioneau.web.rest.ProvinceResourceIT;
+import com.onea.sidot.gestioneau.web.rest.RegionResourceIT;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the {@link EntityCache}, through the services which read by id.
+ */
+@IntegrationTest
+class EntityCacheIT {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private EntityVersionService entityVersionService;
+
+    @Autowired
+    private RegionService regionService;
+
+    @Autowired
+    private ProvinceService provinceService;
+
+    @Autowired
+    private RegionRepository regionRepository;
+
+    @Autowired
+    private RegionMapper regionMapper;
+
+    /**
+     * This repository is mocked in the com.onea.sidot.gestioneau.repository.search test package.
+     *
+     * @see com.onea.sidot.gestioneau.repository.search.RegionSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private RegionSearchRepository mockRegionSearchRepository;
+
+    private Region region;
+
+    @BeforeEach
+    void initTest() {
+        deleteEntities();
+        region = em.insert(RegionResourceIT.createEntity(em).libelle("cached")).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        deleteEntities();
+    }
+
+    private void deleteEntities() {
+        ProvinceResourceIT.deleteEntities(em);
+        RegionResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void findOneReadsThroughTheCache() {
+        when(mockRegionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        Province province = em.insert(ProvinceResourceIT.createEntity(em).region(region)).block();
+
+        assertThat(regionService.findOne(region.getId()).block().getLibelle()).isEqualTo("cached");
+        assertThat(provinceService.findOne(province.getId()).block().getRegion().getLibelle()).isEqualTo("cached");
+
+        // A write which doesn't go through the service isn't seen
+        regionRepository.save(region.libelle("bypassed")).block();
+        assertThat(regionService.findOne(region.getId()).block().getLibelle()).isEqualTo("cached");
+
+        // A write through the service evicts the entity, and the entities which embed it
+        RegionDTO regionDTO = regionMapper.toDto(region.libelle("saved"));
+        regionService.save(regionDTO).block();
+        assertThat(regionService.findOne(region.getId()).block().getLibelle()).isEqualTo("saved");
+        assertThat(provinceService.findOne(province.getId()).block().getRegion().getLibelle()).isEqualTo("saved");
+    }
+
+    @Test
+    void loadOverlappingAWriteIsNotServed() {
+        Long id = region.getId();
+
+        // a write committed on another instance while the entity is loaded: its eviction happens before the load is cached
+        Mono<String> staleLoad = entityVersionService.increment(Region.class, id).then(Mono.just("stale"));
+        assertThat(entityCache.findById(Region.class, id, () -> staleLoad).block()).isEqualTo("stale");
+
+        assertThat(entityCache.findById(Region.class, id, () -> Mono.just("fresh")).block()).isEqualTo("fresh");
+        assertThat(entityCache.findById(Region.class, id, () -> Mono.just("reloaded")).block()).isEqualTo("fresh");
+    }
+
+    @Test
+    void deleteEvictsTheEntity() {
+        when(mockRegionSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
+
+        assertThat(regionService.findOne(region.getId()).block()).isNotNull();
+
+        regionService.delete(region.getId()).block();
+        assertThat(regionService.findOne(region.getId()).block()).isNull();
+    }
+}
@@ -0,0 +1,114 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.domain.NatureOuvrage;
+import com.onea.sidot.gestioneau.repository.NatureOuvrageRepository;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
+import org.springframework.data.relational.core.sql.Table;
+
+/**
+ * Integration tests for the parameterized selects of {@link EntityManager}.
+ */
+@IntegrationTest
+class EntityManagerIT {
+
+    private static final Table TABLE = Table.aliased("nature_ouvrage", EntityManager.ENTITY_ALIAS);
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private NatureOuvrageRepository natureOuvrageRepository;
+
+    private List<NatureOuvrage> natureOuvrages;
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @BeforeEach
+    void initTest() {
+        em.deleteAll(NatureOuvrage.class).block();
+        natureOuvrages =
+            natureOuvrageRepository
+                .saveAll(
+                    Arrays.asList(
+                        new NatureOuvrage().libelle("latrine"),
+                        new NatureOuvrage().libelle("puisard"),
+                        new NatureOuvrage().libelle("fosse")
+                    )
+                )
+                .collectList()
+                .block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        em.deleteAll(NatureOuvrage.class).block();
+    }
+
+    @Test
+    void createSelectRendersAShapeOnce() {
+        for (NatureOuvrage natureOuvrage : natureOuvrages) {
+            assertThat(select(null, where("id").is(natureOuvrage.getId()))).containsExactly(natureOuvrage.getLibelle());
+        }
+        // the shape may already have been rendered by the repository
+        assertThat(renders.get()).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void createSelectBindsTheCriteria() {
+        Long first = natureOuvrages.get(0).getId();
+        Long last = natureOuvrages.get(2).getId();
+
+        assertThat(select(null, where("libelle").like("p%"))).containsExactly("puisard");
+        assertThat(select(null, where("libelle").is("LATRINE").ignoreCase(true))).containsExactly("latrine");
+        assertThat(select(null, where("id").in(first, last))).containsExactlyInAnyOrder("latrine", "fosse");
+        assertThat(select(null, where("id").between(first, last).and("libelle").not("puisard")))
+            .containsExactlyInAnyOrder("latrine", "fosse");
+        // (id = first OR id = last) AND libelle = 'fosse', the combinators are applied from left to right
+        assertThat(select(null, where("id").is(first).or("id").is(last).and("libelle").is("fosse"))).containsExactly("fosse");
+    }
+
+    @Test
+    void createSelectBindsThePaging() {
+        Pageable firstPage = PageRequest.of(0, 2, Sort.by("libelle"));
+        Pageable secondPage = PageRequest.of(1, 2, Sort.by("libelle"));
+
+        assertThat(select(firstPage, null)).containsExactly("fosse", "latrine");
+        assertThat(select(secondPage, null)).containsExactly("puisard");
+        assertThat(renders.get()).isLessThanOrEqualTo(1);
+    }
+
+    private List<String> select(Pageable pageable, Criteria criteria) {
+        return em
+            .createSelect(this::createSelectFrom, NatureOuvrage.class, pageable, criteria)
+            .map(row -> row.get("e_libelle", String.class))
+            .all()
+            .collectList()
+            .block();
+    }
+
+    // same fragment as the repository, as the statements are cached by entity type
+    private SelectFromAndJoin createSelectFrom() {
+        renders.incrementAndGet();
+        return Select
+            .builder()
+            .select(Column.aliased("id", TABLE, "e_id"), Column.aliased("libelle", TABLE, "e_libelle"))
+            .from(TABLE);
+    }
+}
@@ -0,0 +1,192 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.domain.Commune;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrageDocument;
+import com.onea.sidot.gestioneau.domain.Localite;
+import com.onea.sidot.gestioneau.domain.Lot;
+import com.onea.sidot.gestioneau.domain.NatureOuvrage;
+import com.onea.sidot.gestioneau.domain.Parcelle;
+import com.onea.sidot.gestioneau.domain.Province;
+import com.onea.sidot.gestioneau.domain.Region;
+import com.onea.sidot.gestioneau.domain.Secteur;
+import com.onea.sidot.gestioneau.domain.Section;
+import com.onea.sidot.gestioneau.repository.search.CommuneSearchRepository;
+import com.onea.sidot.gestioneau.repository.search.FicheSuiviOuvrageSearchRepository;
+import com.onea.sidot.gestioneau.service.dto.CommuneDTO;
+import com.onea.sidot.gestioneau.service.mapper.CommuneMapper;
+import com.onea.sidot.gestioneau.web.rest.CommuneResourceIT;
+import com.onea.sidot.gestioneau.web.rest.FicheSuiviOuvrageResourceIT;
+import com.onea.sidot.gestioneau.web.rest.LocaliteResourceIT;
+import com.onea.sidot.gestioneau.web.rest.LotResourceIT;
+import com.onea.sidot.gestioneau.web.rest.NatureOuvrageResourceIT;
+import com.onea.sidot.gestioneau.web.rest.ParcelleResourceIT;
+import com.onea.sidot.gestioneau.web.rest.ProvinceResourceIT;
+import com.onea.sidot.gestioneau.web.rest.RegionResourceIT;
+import com.onea.sidot.gestioneau.web.rest.SecteurResourceIT;
+import com.onea.sidot.gestioneau.web.rest.SectionResourceIT;
+import com.onea.sidot.gestioneau.web.rest.TestUtil;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+
+/**
+ * Integration tests for the {@link FicheSuiviOuvrageDocumentLoader}.
+ */
+@IntegrationTest
+class FicheSuiviOuvrageDocumentLoaderIT {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private GeoClosureService geoClosureService;
+
+    @Autowired
+    private FicheSuiviOuvrageDocumentLoader ficheSuiviOuvrageDocumentLoader;
+
+    @Autowired
+    private CommuneService communeService;
+
+    @Autowired
+    private CommuneMapper communeMapper;
+
+    /**
+     * These repositories are mocked in the com.onea.sidot.gestioneau.repository.search test package.
+     *
+     * @see com.onea.sidot.gestioneau.repository.search.FicheSuiviOuvrageSearchRepositoryMockConfiguration
+     * @see com.onea.sidot.gestioneau.repository.search.CommuneSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private FicheSuiviOuvrageSearchRepository mockFicheSuiviOuvrageSearchRepository;
+
+    @Autowired
+    private CommuneSearchRepository mockCommuneSearchRepository;
+
+    private Region region;
+
+    private Commune commune;
+
+    private Lot lot;
+
+    private Parcelle parcelle;
+
+    private NatureOuvrage natureOuvrage;
+
+    private FicheSuiviOuvrage fiche;
+
+    @BeforeEach
+    void initTest() {
+        deleteEntities();
+        region = insert(HierarchyLevel.REGION, RegionResourceIT.createEntity(em).libelle("Centre"), Region::getId, null);
+        Province province = insert(
+            HierarchyLevel.PROVINCE,
+            ProvinceResourceIT.createEntity(em).region(region),
+            Province::getId,
+            region.getId()
+        );
+        commune =
+            insert(
+                HierarchyLevel.COMMUNE,
+                CommuneResourceIT.createEntity(em).libelle("Ouagadougou").province(province),
+                Commune::getId,
+                province.getId()
+            );
+        Localite localite = insert(
+            HierarchyLevel.LOCALITE,
+            LocaliteResourceIT.createEntity(em).commune(commune),
+            Localite::getId,
+            commune.getId()
+        );
+        Secteur secteur = insert(
+            HierarchyLevel.SECTEUR,
+            SecteurResourceIT.createEntity(em).localite(localite),
+            Secteur::getId,
+            localite.getId()
+        );
+        Section section = insert(
+            HierarchyLevel.SECTION,
+            SectionResourceIT.createEntity(em).secteur(secteur),
+            Section::getId,
+            secteur.getId()
+        );
+        lot = insert(HierarchyLevel.LOT, LotResourceIT.createEntity(em).section(section), Lot::getId, section.getId());
+        parcelle = insert(HierarchyLevel.PARCELLE, ParcelleResourceIT.createEntity(em).lot(lot), Parcelle::getId, lot.getId());
+        natureOuvrage = em.insert(NatureOuvrageResourceIT.createEntity(em).libelle("Latrine")).block();
+        fiche = em.insert(FicheSuiviOuvrageResourceIT.createEntity(em).parcelle(parcelle).natureouvrage(natureOuvrage)).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        deleteEntities();
+    }
+
+    private void deleteEntities() {
+        FicheSuiviOuvrageResourceIT.deleteEntities(em);
+        NatureOuvrageResourceIT.deleteEntities(em);
+        ParcelleResourceIT.deleteEntities(em);
+        LotResourceIT.deleteEntities(em);
+        SectionResourceIT.deleteEntities(em);
+        SecteurResourceIT.deleteEntities(em);
+        LocaliteResourceIT.deleteEntities(em);
+        CommuneResourceIT.deleteEntities(em);
+        ProvinceResourceIT.deleteEntities(em);
+        RegionResourceIT.deleteEntities(em);
+        em.deleteAll("geo_closure").block();
+    }
+
+    @Test
+    void documentsHoldTheLibellesOfTheReferencesAndAncestors() {
+        FicheSuiviOuvrageDocument document = ficheSuiviOuvrageDocumentLoader.findAllBy(null, where("id").is(fiche.getId())).blockFirst();
+
+        assertThat(document.getId()).isEqualTo(fiche.getId());
+        assertThat(document.getNomBenef()).isEqualTo(fiche.getNomBenef());
+        assertThat(document.getNatureouvrage().getId()).isEqualTo(natureOuvrage.getId());
+        assertThat(document.getNatureouvrage().getLibelle()).isEqualTo("Latrine");
+        assertThat(document.getParcelle().getId()).isEqualTo(parcelle.getId());
+        assertThat(document.getLot().getId()).isEqualTo(lot.getId());
+        assertThat(document.getCommune().getId()).isEqualTo(commune.getId());
+        assertThat(document.getCommune().getLibelle()).isEqualTo("Ouagadougou");
+        assertThat(document.getRegion().getId()).isEqualTo(region.getId());
+        assertThat(document.getRegion().getLibelle()).isEqualTo("Centre");
+        assertThat(document.getMacon()).isNull();
+    }
+
+    @Test
+    void documentsAreReindexedWhenAnAncestorChanges() {
+        when(mockCommuneSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        CommuneDTO communeDTO = communeMapper.toDto(commune);
+        communeDTO.setLibelle("Bobo-Dioulasso");
+        communeService.save(communeDTO).block();
+
+        verify(mockFicheSuiviOuvrageSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(ArgumentMatchers.<Iterable<FicheSuiviOuvrageDocument>>argThat(documents -> hasCommune(documents, "Bobo-Dioulasso")));
+    }
+
+    private boolean hasCommune(Iterable<FicheSuiviOuvrageDocument> documents, String libelle) {
+        for (FicheSuiviOuvrageDocument document : documents) {
+            if (fiche.getId().equals(document.getId()) && document.getCommune() != null) {
+                return libelle.equals(document.getCommune().getLibelle());
+            }
+        }
+        return false;
+    }
+
+    private <T> T insert(HierarchyLevel level, T entity, Function<T, Long> id, Long parentId) {
+        T inserted = em.insert(entity).block();
+        geoClosureService.saved(level, id.apply(inserted), parentId).block();
+        return inserted;
+    }
+}
@@ -0,0 +1,173 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.domain.Commune;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.domain.Localite;
+import com.onea.sidot.gestioneau.domain.Lot;
+import com.onea.sidot.gestioneau.domain.Parcelle;
+import com.onea.sidot.gestioneau.domain.Province;
+import com.onea.sidot.gestioneau.domain.Region;
+import com.onea.sidot.gestioneau.domain.Secteur;
+import com.onea.sidot.gestioneau.domain.Section;
+import com.onea.sidot.gestioneau.repository.FicheSuiviOuvrageRepository;
+import com.onea.sidot.gestioneau.repository.ProvinceRepository;
+import com.onea.sidot.gestioneau.web.rest.CommuneResourceIT;
+import com.onea.sidot.gestioneau.web.rest.FicheSuiviOuvrageResourceIT;
+import com.onea.sidot.gestioneau.web.rest.LocaliteResourceIT;
+import com.onea.sidot.gestioneau.web.rest.LotResourceIT;
+import com.onea.sidot.gestioneau.web.rest.ParcelleResourceIT;
+import com.onea.sidot.gestioneau.web.rest.ProvinceResourceIT;
+import com.onea.sidot.gestioneau.web.rest.RegionResourceIT;
+import com.onea.sidot.gestioneau.web.rest.SecteurResourceIT;
+import com.onea.sidot.gestioneau.web.rest.SectionResourceIT;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for the {@link GeoClosureService}.
+ */
+@IntegrationTest
+class GeoClosureServiceIT {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private GeoClosureService geoClosureService;
+
+    @Autowired
+    private FicheSuiviOuvrageRepository ficheSuiviOuvrageRepository;
+
+    @Autowired
+    private ProvinceRepository provinceRepository;
+
+    private Region region;
+
+    private Region otherRegion;
+
+    private Province province;
+
+    private Parcelle parcelle;
+
+    private FicheSuiviOuvrage fiche;
+
+    private FicheSuiviOuvrage otherFiche;
+
+    @BeforeEach
+    void initTest() {
+        deleteEntities();
+        region = insert(HierarchyLevel.REGION, RegionResourceIT.createEntity(em), Region::getId, null);
+        otherRegion = insert(HierarchyLevel.REGION, RegionResourceIT.createEntity(em), Region::getId, null);
+        province = insert(HierarchyLevel.PROVINCE, ProvinceResourceIT.createEntity(em).region(region), Province::getId, region.getId());
+        Province otherProvince = insert(
+            HierarchyLevel.PROVINCE,
+            ProvinceResourceIT.createEntity(em).region(otherRegion),
+            Province::getId,
+            otherRegion.getId()
+        );
+        parcelle = insertParcelle(province);
+        Parcelle otherParcelle = insertParcelle(otherProvince);
+        fiche = em.insert(FicheSuiviOuvrageResourceIT.createEntity(em).parcelle(parcelle)).block();
+        otherFiche = em.insert(FicheSuiviOuvrageResourceIT.createEntity(em).parcelle(otherParcelle)).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        deleteEntities();
+    }
+
+    private void deleteEntities() {
+        FicheSuiviOuvrageResourceIT.deleteEntities(em);
+        ParcelleResourceIT.deleteEntities(em);
+        LotResourceIT.deleteEntities(em);
+        SectionResourceIT.deleteEntities(em);
+        SecteurResourceIT.deleteEntities(em);
+        LocaliteResourceIT.deleteEntities(em);
+        CommuneResourceIT.deleteEntities(em);
+        ProvinceResourceIT.deleteEntities(em);
+        RegionResourceIT.deleteEntities(em);
+        em.deleteAll("geo_closure").block();
+    }
+
+    @Test
+    void findAllUnderAnyAncestor() {
+        assertThat(findAllUnder(HierarchyLevel.REGION, region.getId())).containsExactly(fiche.getId());
+        assertThat(findAllUnder(HierarchyLevel.PROVINCE, province.getId())).containsExactly(fiche.getId());
+        assertThat(findAllUnder(HierarchyLevel.LOT, parcelle.getLotId())).containsExactly(fiche.getId());
+        assertThat(findAllUnder(HierarchyLevel.PARCELLE, parcelle.getId())).containsExactly(fiche.getId());
+        assertThat(findAllUnder(HierarchyLevel.REGION, otherRegion.getId())).containsExactly(otherFiche.getId());
+        assertThat(ficheSuiviOuvrageRepository.countUnder(HierarchyLevel.REGION, region.getId()).block()).isEqualTo(1L);
+    }
+
+    @Test
+    void savedMovesTheSubtree() {
+        provinceRepository.save(province.region(otherRegion)).block();
+        geoClosureService.saved(HierarchyLevel.PROVINCE, province.getId(), otherRegion.getId()).block();
+
+        assertThat(findAllUnder(HierarchyLevel.REGION, region.getId())).isEmpty();
+        assertThat(findAllUnder(HierarchyLevel.REGION, otherRegion.getId())).containsExactlyInAnyOrder(fiche.getId(), otherFiche.getId());
+        assertThat(findAllUnder(HierarchyLevel.PROVINCE, province.getId())).containsExactly(fiche.getId());
+
+        // saving it again without a change keeps the closure
+        geoClosureService.saved(HierarchyLevel.PROVINCE, province.getId(), otherRegion.getId()).block();
+        assertThat(ficheSuiviOuvrageRepository.countUnder(HierarchyLevel.REGION, otherRegion.getId()).block()).isEqualTo(2L);
+    }
+
+    @Test
+    void deletedRemovesTheNode() {
+        geoClosureService.deleted(HierarchyLevel.PARCELLE, parcelle.getId()).block();
+
+        assertThat(findAllUnder(HierarchyLevel.REGION, region.getId())).isEmpty();
+        assertThat(findAllUnder(HierarchyLevel.REGION, otherRegion.getId())).containsExactly(otherFiche.getId());
+    }
+
+    private Parcelle insertParcelle(Province province) {
+        Commune commune = insert(
+            HierarchyLevel.COMMUNE,
+            CommuneResourceIT.createEntity(em).province(province),
+            Commune::getId,
+            province.getId()
+        );
+        Localite localite = insert(
+            HierarchyLevel.LOCALITE,
+            LocaliteResourceIT.createEntity(em).commune(commune),
+            Localite::getId,
+            commune.getId()
+        );
+        Secteur secteur = insert(
+            HierarchyLevel.SECTEUR,
+            SecteurResourceIT.createEntity(em).localite(localite),
+            Secteur::getId,
+            localite.getId()
+        );
+        Section section = insert(
+            HierarchyLevel.SECTION,
+            SectionResourceIT.createEntity(em).secteur(secteur),
+            Section::getId,
+            secteur.getId()
+        );
+        Lot lot = insert(HierarchyLevel.LOT, LotResourceIT.createEntity(em).section(section), Lot::getId, section.getId());
+        return insert(HierarchyLevel.PARCELLE, ParcelleResourceIT.createEntity(em).lot(lot), Parcelle::getId, lot.getId());
+    }
+
+    private <T> T insert(HierarchyLevel level, T entity, Function<T, Long> id, Long parentId) {
+        T inserted = em.insert(entity).block();
+        geoClosureService.saved(level, id.apply(inserted), parentId).block();
+        return inserted;
+    }
+
+    private List<Long> findAllUnder(HierarchyLevel level, Long nodeId) {
+        return ficheSuiviOuvrageRepository
+            .findAllUnder(level, nodeId, null, Projection.all())
+            .map(FicheSuiviOuvrage::getId)
+            .collectList()
+            .block();
+    }
+}
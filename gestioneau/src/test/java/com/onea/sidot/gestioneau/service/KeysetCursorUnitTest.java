@@ -0,0 +1,57 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Test class for the {@link KeysetCursor} and {@link KeysetPageable} classes.
+ */
+class KeysetCursorUnitTest {
+
+    @Test
+    void testEncodeDecode() {
+        KeysetCursor cursor = KeysetCursor.of(
+            Arrays.asList("contacts", "dateRemiseDevis", "dateDebutTravaux", "nbUsagers", "id"),
+            Arrays.asList("a.b;c,d", Instant.parse("2021-04-01T10:15:30Z"), LocalDate.of(2021, 4, 1), 3, 42L)
+        );
+        String token = cursor.encode();
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void testDecodeInvalidToken() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("Mg")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testNullValue() {
+        assertThatThrownBy(() -> KeysetCursor.of(Arrays.asList("contacts", "id"), Arrays.asList(null, 1L)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testPageableAppendsId() {
+        KeysetPageable pageable = KeysetPageable.of(20, Sort.by(Sort.Order.desc("dateDebutTravaux")), null);
+        assertThat(pageable.getProperties()).containsExactly("dateDebutTravaux", "id");
+
+        pageable = KeysetPageable.of(20, Sort.by("id", "dateDebutTravaux"), null);
+        assertThat(pageable.getProperties()).containsExactly("id");
+    }
+
+    @Test
+    void testPageableCursorMismatch() {
+        List<String> properties = Arrays.asList("dateDebutTravaux", "id");
+        KeysetCursor cursor = KeysetCursor.of(properties, Arrays.asList(LocalDate.of(2021, 4, 1), 1L));
+        assertThat(KeysetPageable.of(20, Sort.by("dateDebutTravaux"), cursor).getAfter()).isEqualTo(cursor);
+        assertThatThrownBy(() -> KeysetPageable.of(20, Sort.by("id"), cursor)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
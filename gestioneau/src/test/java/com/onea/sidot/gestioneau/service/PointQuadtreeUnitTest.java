@@ -0,0 +1,117 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class PointQuadtreeUnitTest {
+
+    private final PointQuadtree tree = new PointQuadtree();
+
+    @Test
+    void withinFindsThePointsOfTheBox() {
+        tree.put(1, 12.37, -1.52);
+        tree.put(2, 12.38, -1.51);
+        tree.put(3, 11.18, -4.29);
+
+        assertThat(ids(tree.within(12, -2, 13, -1))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(tree.within(12.37, -1.52, 12.37, -1.52))).containsExactly(1L);
+        assertThat(tree.within(0, 0, 1, 1)).isEmpty();
+    }
+
+    @Test
+    void withinSplitsTheBoxesAcrossTheAntimeridian() {
+        tree.put(1, -17.7, 178.4);
+        tree.put(2, -13.8, -171.8);
+        tree.put(3, -17.7, 0);
+
+        assertThat(ids(tree.within(-20, 170, -10, -170))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(tree.within(-20, 180, -10, -180))).isEmpty();
+    }
+
+    @Test
+    void putMovesAnExistingPoint() {
+        tree.put(1, 12.37, -1.52);
+        tree.put(1, 11.18, -4.29);
+
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.within(12, -2, 13, -1)).isEmpty();
+        assertThat(ids(tree.within(11, -5, 12, -4))).containsExactly(1L);
+    }
+
+    @Test
+    void removeDeletesAPoint() {
+        tree.put(1, 12.37, -1.52);
+
+        assertThat(tree.remove(1)).isTrue();
+        assertThat(tree.remove(1)).isFalse();
+        assertThat(tree.size()).isZero();
+        assertThat(tree.within(-90, -180, 90, 180)).isEmpty();
+    }
+
+    @Test
+    void nearSortsThePointsByDistance() {
+        tree.put(1, 12.37, -1.52);
+        tree.put(2, 12.38, -1.52);
+        tree.put(3, 12.5, -1.52);
+
+        List<PointQuadtree.Entry> near = tree.near(12.381, -1.52, 5000);
+
+        assertThat(ids(near)).containsExactly(2L, 1L);
+        assertThat(near.get(0).getDistance()).isBetween(100.0, 120.0);
+    }
+
+    @Test
+    void nearCrossesTheAntimeridian() {
+        tree.put(1, 0, 179.99);
+        tree.put(2, 0, -179.99);
+
+        assertThat(ids(tree.near(0, 179.995, 5000))).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void nearestMatchesAnExhaustiveSearch() {
+        Random random = new Random(42);
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            double latitude = 9 + random.nextDouble() * 6;
+            double longitude = -6 + random.nextDouble() * 8;
+            points.add(new double[] { latitude, longitude });
+            tree.put(i, latitude, longitude);
+        }
+
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < points.size(); i++) {
+            expected.add((long) i);
+        }
+        expected.sort(
+            Comparator.comparingDouble(i -> PointQuadtree.distance(12.37, -1.52, points.get(i.intValue())[0], points.get(i.intValue())[1]))
+        );
+
+        assertThat(ids(tree.nearest(12.37, -1.52, 10))).containsExactlyElementsOf(expected.subList(0, 10));
+        assertThat(tree.nearest(12.37, -1.52, 10000)).hasSize(5000);
+    }
+
+    @Test
+    void distanceIsTheGreatCircleDistance() {
+        // one degree of latitude
+        assertThat(PointQuadtree.distance(0, 0, 1, 0)).isBetween(111_000.0, 111_300.0);
+        assertThat(PointQuadtree.distance(12.37, -1.52, 12.37, -1.52)).isZero();
+    }
+
+    @Test
+    void putRejectsInvalidCoordinates() {
+        assertThatThrownBy(() -> tree.put(1, 91, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tree.put(1, 0, Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Long> ids(List<PointQuadtree.Entry> entries) {
+        return entries.stream().map(PointQuadtree.Entry::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,114 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class RadixTrieUnitTest {
+
+    private final RadixTrie trie = new RadixTrie();
+
+    @Test
+    void normalizeRemovesTheAccentsAndThePunctuation() {
+        assertThat(RadixTrie.normalize("  Bobo-Dioulasso ")).isEqualTo("bobo dioulasso");
+        assertThat(RadixTrie.normalize("Fada N'Gourma")).isEqualTo("fada n gourma");
+        assertThat(RadixTrie.normalize("K\u00e9n\u00e9dougou")).isEqualTo("kenedougou");
+        assertThat(RadixTrie.keys("Bobo-Dioulasso")).containsExactly("bobo dioulasso", "dioulasso");
+        assertThat(RadixTrie.keys("--")).isEmpty();
+    }
+
+    @Test
+    void prefixFindsTheStartsOfTheWords() {
+        trie.put(1, "Bobo-Dioulasso");
+        trie.put(2, "Boromo");
+        trie.put(3, "Ouagadougou");
+
+        assertThat(trie.prefix("bo", 10)).containsExactly(1L, 2L);
+        assertThat(trie.prefix("BOBO d", 10)).containsExactly(1L);
+        assertThat(trie.prefix("dioul", 10)).containsExactly(1L);
+        assertThat(trie.prefix("ouaga", 10)).containsExactly(3L);
+        assertThat(trie.prefix("bobos", 10)).isEmpty();
+        assertThat(trie.prefix("x", 10)).isEmpty();
+        assertThat(trie.prefix("", 10)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void prefixIsLimited() {
+        trie.put(1, "Secteur 1");
+        trie.put(2, "Secteur 2");
+        trie.put(3, "Secteur 3");
+
+        assertThat(trie.prefix("secteur", 2)).containsExactly(1L, 2L);
+        // an id matching by several of its keys is only returned once
+        trie.put(4, "Secteur secteur");
+        assertThat(trie.prefix("sec", 10)).containsExactly(4L, 1L, 2L, 3L);
+    }
+
+    @Test
+    void putReplacesAnExistingLibelle() {
+        trie.put(1, "Koudougou");
+        trie.put(1, "Kaya");
+
+        assertThat(trie.size()).isEqualTo(1);
+        assertThat(trie.prefix("kou", 10)).isEmpty();
+        assertThat(trie.prefix("ka", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void removeDeletesALibelle() {
+        trie.put(1, "Banfora");
+        trie.put(2, "Bangui");
+
+        assertThat(trie.remove(1)).isTrue();
+        assertThat(trie.remove(1)).isFalse();
+        assertThat(trie.size()).isEqualTo(1);
+        assertThat(trie.prefix("ban", 10)).containsExactly(2L);
+        assertThat(trie.prefix("banf", 10)).isEmpty();
+        assertThat(trie.prefix("bangui", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void prefixMatchesASortedScanOfTheKeys() {
+        Random random = new Random(42);
+        String[] syllables = { "ba", "bo", "da", "dou", "gou", "ka", "ko", "ma", "ou", "sa", "te", "ya" };
+        TreeMap<Long, String> libelles = new TreeMap<>();
+        for (long id = 0; id < 2000; id++) {
+            StringBuilder libelle = new StringBuilder();
+            int words = 1 + random.nextInt(3);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    libelle.append(random.nextBoolean() ? ' ' : '-');
+                }
+                for (int s = 0, length = 1 + random.nextInt(3); s < length; s++) {
+                    libelle.append(syllables[random.nextInt(syllables.length)]);
+                }
+            }
+            trie.put(id, libelle.toString());
+            libelles.put(id, libelle.toString());
+        }
+        for (long id = 0; id < 2000; id += 3) {
+            trie.remove(id);
+            libelles.remove(id);
+        }
+
+        for (String prefix : new String[] { "b", "bo", "kaya", "dougou", "ou", "sate", "ya ka" }) {
+            // the ids of the matching keys, sorted by key then id
+            TreeMap<String, List<Long>> matches = new TreeMap<>();
+            for (var libelle : libelles.entrySet()) {
+                for (String key : RadixTrie.keys(libelle.getValue())) {
+                    if (key.startsWith(prefix)) {
+                        matches.computeIfAbsent(key, k -> new ArrayList<>()).add(libelle.getKey());
+                    }
+                }
+            }
+            List<Long> expected = new ArrayList<>();
+            matches.values().forEach(ids -> ids.stream().sorted().filter(id -> !expected.contains(id)).forEach(expected::add));
+            assertThat(trie.prefix(prefix, Integer.MAX_VALUE)).as(prefix).isEqualTo(expected);
+            assertThat(trie.prefix(prefix, 5)).as(prefix).isEqualTo(expected.subList(0, Math.min(5, expected.size())));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.onea.sidot.gestioneau.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.domain.Region;
+import com.onea.sidot.gestioneau.repository.search.RegionSearchRepository;
+import com.onea.sidot.gestioneau.web.rest.RegionResourceIT;
+import com.onea.sidot.gestioneau.web.rest.TestUtil;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the {@link SearchOutbox}.
+ */
+@IntegrationTest
+class SearchOutboxIT {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private SearchOutbox searchOutbox;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    /**
+     * This repository is mocked in the com.onea.sidot.gestioneau.repository.search test package.
+     *
+     * @see com.onea.sidot.gestioneau.repository.search.RegionSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private RegionSearchRepository mockRegionSearchRepository;
+
+    private Region region;
+
+    @BeforeEach
+    void initTest() {
+        RegionResourceIT.deleteEntities(em);
+        region = em.insert(RegionResourceIT.createEntity(em)).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        RegionResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void pauseIsResumedByItsOwnerOnly() {
+        Duration timeout = Duration.ofMinutes(1);
+        try {
+            assertThat(searchOutbox.pause(Region.class, "first", timeout).block()).isTrue();
+            assertThat(searchOutbox.pause(Region.class, "second", timeout).block()).isFalse();
+
+            assertThat(searchOutbox.resume(Region.class, "second").block()).isFalse();
+            assertThat(searchOutbox.resume(Region.class, "first").block()).isTrue();
+
+            assertThat(searchOutbox.pause(Region.class, "second", timeout).block()).isTrue();
+        } finally {
+            searchOutbox.resume(Region.class, "first").block();
+            searchOutbox.resume(Region.class, "second").block();
+        }
+    }
+
+    @Test
+    void failedIndexingIsRetried() {
+        AtomicBoolean down = new AtomicBoolean(true);
+        when(mockRegionSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(
+                invocation ->
+                    down.getAndSet(false)
+                        ? Flux.error(new IllegalStateException("Elasticsearch is down"))
+                        : Flux.fromIterable(invocation.getArgument(0))
+            );
+
+        searchOutbox.changed(Region.class, region.getId()).block();
+
+        verify(mockRegionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT).times(2))
+            .saveAll(TestUtil.anyIterableContaining(region));
+    }
+
+    @Test
+    void rolledBackChangeIsNotIndexed() {
+        when(mockRegionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        Region committed = em.insert(RegionResourceIT.createEntity(em)).block();
+
+        Mono<Void> rolledBack = searchOutbox
+            .changed(Region.class, region.getId())
+            .then(Mono.error(new IllegalStateException("Rolled back")));
+        assertThatThrownBy(() -> transactionalOperator.transactional(rolledBack).block()).hasMessage("Rolled back");
+        transactionalOperator.transactional(searchOutbox.changed(Region.class, committed.getId())).block();
+
+        // The changes are indexed in order, so the rolled back one would be indexed by now
+        verify(mockRegionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(committed));
+        verify(mockRegionSearchRepository, never()).saveAll(TestUtil.anyIterableContaining(region));
+    }
+}
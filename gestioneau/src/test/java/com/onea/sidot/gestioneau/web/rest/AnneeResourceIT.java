@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Annee;
 import com.onea.sidot.gestioneau.repository.AnneeRepository;
 import com.onea.sidot.gestioneau.repository.search.AnneeSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.AnneeDTO;
 import com.onea.sidot.gestioneau.service.mapper.AnneeMapper;
 import java.time.Duration;
@@ -118,7 +121,7 @@ class AnneeResourceIT {
     void createAnnee() throws Exception {
         int databaseSizeBeforeCreate = anneeRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockAnneeSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockAnneeSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Annee
         AnneeDTO anneeDTO = anneeMapper.toDto(annee);
         webTestClient
@@ -137,7 +140,7 @@ class AnneeResourceIT {
         assertThat(testAnnee.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Annee in Elasticsearch
-        verify(mockAnneeSearchRepository, times(1)).save(testAnnee);
+        verify(mockAnneeSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testAnnee));
     }
 
     @Test
@@ -163,7 +166,7 @@ class AnneeResourceIT {
         assertThat(anneeList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Annee in Elasticsearch
-        verify(mockAnneeSearchRepository, times(0)).save(annee);
+        verify(mockAnneeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(annee));
     }
 
     @Test
@@ -247,7 +250,7 @@ class AnneeResourceIT {
     @Test
     void putNewAnnee() throws Exception {
         // Configure the mock search repository
-        when(mockAnneeSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockAnneeSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         anneeRepository.save(annee).block();
 
@@ -274,7 +277,7 @@ class AnneeResourceIT {
         assertThat(testAnnee.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Annee in Elasticsearch
-        verify(mockAnneeSearchRepository).save(testAnnee);
+        verify(mockAnneeSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testAnnee));
     }
 
     @Test
@@ -300,7 +303,7 @@ class AnneeResourceIT {
         assertThat(anneeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Annee in Elasticsearch
-        verify(mockAnneeSearchRepository, times(0)).save(annee);
+        verify(mockAnneeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(annee));
     }
 
     @Test
@@ -326,7 +329,7 @@ class AnneeResourceIT {
         assertThat(anneeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Annee in Elasticsearch
-        verify(mockAnneeSearchRepository, times(0)).save(annee);
+        verify(mockAnneeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(annee));
     }
 
     @Test
@@ -352,7 +355,7 @@ class AnneeResourceIT {
         assertThat(anneeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Annee in Elasticsearch
-        verify(mockAnneeSearchRepository, times(0)).save(annee);
+        verify(mockAnneeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(annee));
     }
 
     @Test
@@ -436,7 +439,7 @@ class AnneeResourceIT {
         assertThat(anneeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Annee in Elasticsearch
-        verify(mockAnneeSearchRepository, times(0)).save(annee);
+        verify(mockAnneeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(annee));
     }
 
     @Test
@@ -462,7 +465,7 @@ class AnneeResourceIT {
         assertThat(anneeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Annee in Elasticsearch
-        verify(mockAnneeSearchRepository, times(0)).save(annee);
+        verify(mockAnneeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(annee));
     }
 
     @Test
@@ -488,14 +491,14 @@ class AnneeResourceIT {
         assertThat(anneeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Annee in Elasticsearch
-        verify(mockAnneeSearchRepository, times(0)).save(annee);
+        verify(mockAnneeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(annee));
     }
 
     @Test
     void deleteAnnee() {
         // Configure the mock search repository
-        when(mockAnneeSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockAnneeSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockAnneeSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockAnneeSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         anneeRepository.save(annee).block();
 
@@ -515,17 +518,18 @@ class AnneeResourceIT {
         assertThat(anneeList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Annee in Elasticsearch
-        verify(mockAnneeSearchRepository, times(1)).deleteById(annee.getId());
+        verify(mockAnneeSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(annee));
     }
 
     @Test
     void searchAnnee() {
         // Configure the mock search repository
-        when(mockAnneeSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockAnneeSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockAnneeSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         anneeRepository.save(annee).block();
-        when(mockAnneeSearchRepository.search("id:" + annee.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(annee));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockAnneeSearchRepository.search("id:" + annee.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(annee), 1L, true, null)));
 
         // Search the annee
         webTestClient
@@ -536,6 +540,8 @@ class AnneeResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(annee.getId().intValue()))
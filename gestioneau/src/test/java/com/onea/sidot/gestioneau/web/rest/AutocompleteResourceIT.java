@@ -0,0 +1,235 @@
+package com.onea.sidot.gestioneau.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.*;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.domain.Commune;
+import com.onea.sidot.gestioneau.domain.Localite;
+import com.onea.sidot.gestioneau.domain.Lot;
+import com.onea.sidot.gestioneau.domain.Province;
+import com.onea.sidot.gestioneau.domain.Region;
+import com.onea.sidot.gestioneau.domain.Secteur;
+import com.onea.sidot.gestioneau.domain.Section;
+import com.onea.sidot.gestioneau.repository.search.CommuneSearchRepository;
+import com.onea.sidot.gestioneau.repository.search.LotSearchRepository;
+import com.onea.sidot.gestioneau.service.AutocompleteIndex;
+import com.onea.sidot.gestioneau.service.CommuneService;
+import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.LotService;
+import com.onea.sidot.gestioneau.service.dto.CommuneDTO;
+import com.onea.sidot.gestioneau.service.mapper.CommuneMapper;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the {@link AutocompleteResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient
+@WithMockUser
+class AutocompleteResourceIT {
+
+    private static final String AUTOCOMPLETE_API_URL = "/api/_autocomplete/{entity}";
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+
+    @Autowired
+    private CommuneService communeService;
+
+    @Autowired
+    private CommuneMapper communeMapper;
+
+    @Autowired
+    private LotService lotService;
+
+    /**
+     * These repositories are mocked in the com.onea.sidot.gestioneau.repository.search test package.
+     *
+     * @see com.onea.sidot.gestioneau.repository.search.CommuneSearchRepositoryMockConfiguration
+     * @see com.onea.sidot.gestioneau.repository.search.LotSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private CommuneSearchRepository mockCommuneSearchRepository;
+
+    @Autowired
+    private LotSearchRepository mockLotSearchRepository;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Province province;
+
+    private Commune commune;
+
+    private Section section;
+
+    private Lot kossodo;
+
+    private Lot kossyam;
+
+    @BeforeEach
+    void initTest() {
+        deleteEntities();
+        Region region = em.insert(RegionResourceIT.createEntity(em)).block();
+        province = em.insert(ProvinceResourceIT.createEntity(em).region(region)).block();
+        commune = em.insert(CommuneResourceIT.createEntity(em).libelle("Bobo-Dioulasso").province(province)).block();
+        Localite localite = em.insert(LocaliteResourceIT.createEntity(em).commune(commune)).block();
+        Secteur secteur = em.insert(SecteurResourceIT.createEntity(em).localite(localite)).block();
+        section = em.insert(SectionResourceIT.createEntity(em).secteur(secteur)).block();
+        Section otherSection = em.insert(SectionResourceIT.createEntity(em).secteur(secteur)).block();
+        kossodo = em.insert(LotResourceIT.createEntity(em).libelle("Lot Kossodo").section(section)).block();
+        em.insert(LotResourceIT.createEntity(em).libelle("Lot Tampouy").section(section)).block();
+        kossyam = em.insert(LotResourceIT.createEntity(em).libelle("Lot Kossyam").section(otherSection)).block();
+        // the entities are inserted without the services, the index is rebuilt to see them
+        autocompleteIndex.rebuild().block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        deleteEntities();
+    }
+
+    private void deleteEntities() {
+        LotResourceIT.deleteEntities(em);
+        SectionResourceIT.deleteEntities(em);
+        SecteurResourceIT.deleteEntities(em);
+        LocaliteResourceIT.deleteEntities(em);
+        CommuneResourceIT.deleteEntities(em);
+        ProvinceResourceIT.deleteEntities(em);
+        RegionResourceIT.deleteEntities(em);
+        em.deleteAll("geo_closure").block();
+    }
+
+    @Test
+    void autocompleteMatchesTheStartsOfTheWords() {
+        webTestClient
+            .get()
+            .uri(uriBuilder -> uriBuilder.path(AUTOCOMPLETE_API_URL).queryParam("prefix", "KOSS").build("lot"))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(2)
+            .jsonPath("$.[0].id")
+            .isEqualTo(kossodo.getId().intValue())
+            .jsonPath("$.[0].libelle")
+            .isEqualTo("Lot Kossodo")
+            .jsonPath("$.[0].parentId")
+            .isEqualTo(section.getId().intValue())
+            .jsonPath("$.[1].id")
+            .isEqualTo(kossyam.getId().intValue());
+
+        webTestClient
+            .get()
+            .uri(uriBuilder -> uriBuilder.path(AUTOCOMPLETE_API_URL).queryParam("prefix", "dioul").build("commune"))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .isEqualTo(commune.getId().intValue())
+            .jsonPath("$.[0].parentId")
+            .isEqualTo(province.getId().intValue());
+    }
+
+    @Test
+    void autocompleteScopedToAParent() {
+        webTestClient
+            .get()
+            .uri(
+                uriBuilder ->
+                    uriBuilder
+                        .path(AUTOCOMPLETE_API_URL)
+                        .queryParam("prefix", "lot")
+                        .queryParam("parent", section.getId())
+                        .queryParam("size", 1)
+                        .build("lot")
+            )
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].libelle")
+            .isEqualTo("Lot Kossodo");
+    }
+
+    @Test
+    void autocompleteFollowsTheWrites() {
+        when(mockCommuneSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockLotSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
+
+        CommuneDTO communeDTO = communeMapper.toDto(commune);
+        communeDTO.setLibelle("Banfora");
+        communeService.save(communeDTO).block();
+        lotService.delete(kossodo.getId()).block();
+
+        // the saved libelles are reloaded after the events
+        await(() -> !autocompleteIndex.complete(Commune.class, "banf", null, 10).isEmpty());
+        expectLibelles("commune", "bobo", "Bobo-Dioulasso", false);
+        expectLibelles("commune", "banf", "Banfora", true);
+        expectLibelles("lot", "koss", "Lot Kossodo", false);
+    }
+
+    @Test
+    void autocompleteWithAnInvalidRequest() {
+        webTestClient.get().uri(AUTOCOMPLETE_API_URL, "country").exchange().expectStatus().isBadRequest();
+        webTestClient
+            .get()
+            .uri(uriBuilder -> uriBuilder.path(AUTOCOMPLETE_API_URL).queryParam("parent", 1).build("region"))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+        webTestClient
+            .get()
+            .uri(uriBuilder -> uriBuilder.path(AUTOCOMPLETE_API_URL).queryParam("size", 0).build("lot"))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    private void expectLibelles(String entity, String prefix, String libelle, boolean present) {
+        webTestClient
+            .get()
+            .uri(uriBuilder -> uriBuilder.path(AUTOCOMPLETE_API_URL).queryParam("prefix", prefix).build(entity))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].libelle")
+            .value(present ? hasItem(libelle) : not(hasItem(libelle)));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TestUtil.SEARCH_INDEXING_TIMEOUT;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
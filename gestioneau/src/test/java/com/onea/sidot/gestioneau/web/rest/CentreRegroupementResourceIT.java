@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.CentreRegroupement;
 import com.onea.sidot.gestioneau.repository.CentreRegroupementRepository;
 import com.onea.sidot.gestioneau.repository.search.CentreRegroupementSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.CentreRegroupementDTO;
 import com.onea.sidot.gestioneau.service.mapper.CentreRegroupementMapper;
 import java.time.Duration;
@@ -130,7 +133,8 @@ class CentreRegroupementResourceIT {
     void createCentreRegroupement() throws Exception {
         int databaseSizeBeforeCreate = centreRegroupementRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockCentreRegroupementSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockCentreRegroupementSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the CentreRegroupement
         CentreRegroupementDTO centreRegroupementDTO = centreRegroupementMapper.toDto(centreRegroupement);
         webTestClient
@@ -151,7 +155,8 @@ class CentreRegroupementResourceIT {
         assertThat(testCentreRegroupement.getContact()).isEqualTo(DEFAULT_CONTACT);
 
         // Validate the CentreRegroupement in Elasticsearch
-        verify(mockCentreRegroupementSearchRepository, times(1)).save(testCentreRegroupement);
+        verify(mockCentreRegroupementSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testCentreRegroupement));
     }
 
     @Test
@@ -177,7 +182,7 @@ class CentreRegroupementResourceIT {
         assertThat(centreRegroupementList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the CentreRegroupement in Elasticsearch
-        verify(mockCentreRegroupementSearchRepository, times(0)).save(centreRegroupement);
+        verify(mockCentreRegroupementSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centreRegroupement));
     }
 
     @Test
@@ -313,7 +318,8 @@ class CentreRegroupementResourceIT {
     @Test
     void putNewCentreRegroupement() throws Exception {
         // Configure the mock search repository
-        when(mockCentreRegroupementSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockCentreRegroupementSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         centreRegroupementRepository.save(centreRegroupement).block();
 
@@ -342,7 +348,8 @@ class CentreRegroupementResourceIT {
         assertThat(testCentreRegroupement.getContact()).isEqualTo(UPDATED_CONTACT);
 
         // Validate the CentreRegroupement in Elasticsearch
-        verify(mockCentreRegroupementSearchRepository).save(testCentreRegroupement);
+        verify(mockCentreRegroupementSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testCentreRegroupement));
     }
 
     @Test
@@ -368,7 +375,7 @@ class CentreRegroupementResourceIT {
         assertThat(centreRegroupementList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the CentreRegroupement in Elasticsearch
-        verify(mockCentreRegroupementSearchRepository, times(0)).save(centreRegroupement);
+        verify(mockCentreRegroupementSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centreRegroupement));
     }
 
     @Test
@@ -394,7 +401,7 @@ class CentreRegroupementResourceIT {
         assertThat(centreRegroupementList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the CentreRegroupement in Elasticsearch
-        verify(mockCentreRegroupementSearchRepository, times(0)).save(centreRegroupement);
+        verify(mockCentreRegroupementSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centreRegroupement));
     }
 
     @Test
@@ -420,7 +427,7 @@ class CentreRegroupementResourceIT {
         assertThat(centreRegroupementList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the CentreRegroupement in Elasticsearch
-        verify(mockCentreRegroupementSearchRepository, times(0)).save(centreRegroupement);
+        verify(mockCentreRegroupementSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centreRegroupement));
     }
 
     @Test
@@ -508,7 +515,7 @@ class CentreRegroupementResourceIT {
         assertThat(centreRegroupementList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the CentreRegroupement in Elasticsearch
-        verify(mockCentreRegroupementSearchRepository, times(0)).save(centreRegroupement);
+        verify(mockCentreRegroupementSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centreRegroupement));
     }
 
     @Test
@@ -534,7 +541,7 @@ class CentreRegroupementResourceIT {
         assertThat(centreRegroupementList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the CentreRegroupement in Elasticsearch
-        verify(mockCentreRegroupementSearchRepository, times(0)).save(centreRegroupement);
+        verify(mockCentreRegroupementSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centreRegroupement));
     }
 
     @Test
@@ -560,14 +567,15 @@ class CentreRegroupementResourceIT {
         assertThat(centreRegroupementList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the CentreRegroupement in Elasticsearch
-        verify(mockCentreRegroupementSearchRepository, times(0)).save(centreRegroupement);
+        verify(mockCentreRegroupementSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centreRegroupement));
     }
 
     @Test
     void deleteCentreRegroupement() {
         // Configure the mock search repository
-        when(mockCentreRegroupementSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockCentreRegroupementSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockCentreRegroupementSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockCentreRegroupementSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         centreRegroupementRepository.save(centreRegroupement).block();
 
@@ -587,18 +595,20 @@ class CentreRegroupementResourceIT {
         assertThat(centreRegroupementList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the CentreRegroupement in Elasticsearch
-        verify(mockCentreRegroupementSearchRepository, times(1)).deleteById(centreRegroupement.getId());
+        verify(mockCentreRegroupementSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(centreRegroupement));
     }
 
     @Test
     void searchCentreRegroupement() {
         // Configure the mock search repository
-        when(mockCentreRegroupementSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockCentreRegroupementSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockCentreRegroupementSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         centreRegroupementRepository.save(centreRegroupement).block();
-        when(mockCentreRegroupementSearchRepository.search("id:" + centreRegroupement.getId(), PageRequest.of(0, 20)))
-            .thenReturn(Flux.just(centreRegroupement));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockCentreRegroupementSearchRepository.search("id:" + centreRegroupement.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(centreRegroupement), 1L, true, null)));
 
         // Search the centreRegroupement
         webTestClient
@@ -609,6 +619,8 @@ class CentreRegroupementResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(centreRegroupement.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Centre;
 import com.onea.sidot.gestioneau.repository.CentreRepository;
 import com.onea.sidot.gestioneau.repository.search.CentreSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.CentreDTO;
 import com.onea.sidot.gestioneau.service.mapper.CentreMapper;
 import java.time.Duration;
@@ -124,7 +127,7 @@ class CentreResourceIT {
     void createCentre() throws Exception {
         int databaseSizeBeforeCreate = centreRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockCentreSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockCentreSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Centre
         CentreDTO centreDTO = centreMapper.toDto(centre);
         webTestClient
@@ -145,7 +148,7 @@ class CentreResourceIT {
         assertThat(testCentre.getContact()).isEqualTo(DEFAULT_CONTACT);
 
         // Validate the Centre in Elasticsearch
-        verify(mockCentreSearchRepository, times(1)).save(testCentre);
+        verify(mockCentreSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testCentre));
     }
 
     @Test
@@ -171,7 +174,7 @@ class CentreResourceIT {
         assertThat(centreList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Centre in Elasticsearch
-        verify(mockCentreSearchRepository, times(0)).save(centre);
+        verify(mockCentreSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centre));
     }
 
     @Test
@@ -307,7 +310,7 @@ class CentreResourceIT {
     @Test
     void putNewCentre() throws Exception {
         // Configure the mock search repository
-        when(mockCentreSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockCentreSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         centreRepository.save(centre).block();
 
@@ -336,7 +339,7 @@ class CentreResourceIT {
         assertThat(testCentre.getContact()).isEqualTo(UPDATED_CONTACT);
 
         // Validate the Centre in Elasticsearch
-        verify(mockCentreSearchRepository).save(testCentre);
+        verify(mockCentreSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testCentre));
     }
 
     @Test
@@ -362,7 +365,7 @@ class CentreResourceIT {
         assertThat(centreList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Centre in Elasticsearch
-        verify(mockCentreSearchRepository, times(0)).save(centre);
+        verify(mockCentreSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centre));
     }
 
     @Test
@@ -388,7 +391,7 @@ class CentreResourceIT {
         assertThat(centreList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Centre in Elasticsearch
-        verify(mockCentreSearchRepository, times(0)).save(centre);
+        verify(mockCentreSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centre));
     }
 
     @Test
@@ -414,7 +417,7 @@ class CentreResourceIT {
         assertThat(centreList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Centre in Elasticsearch
-        verify(mockCentreSearchRepository, times(0)).save(centre);
+        verify(mockCentreSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centre));
     }
 
     @Test
@@ -500,7 +503,7 @@ class CentreResourceIT {
         assertThat(centreList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Centre in Elasticsearch
-        verify(mockCentreSearchRepository, times(0)).save(centre);
+        verify(mockCentreSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centre));
     }
 
     @Test
@@ -526,7 +529,7 @@ class CentreResourceIT {
         assertThat(centreList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Centre in Elasticsearch
-        verify(mockCentreSearchRepository, times(0)).save(centre);
+        verify(mockCentreSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centre));
     }
 
     @Test
@@ -552,14 +555,14 @@ class CentreResourceIT {
         assertThat(centreList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Centre in Elasticsearch
-        verify(mockCentreSearchRepository, times(0)).save(centre);
+        verify(mockCentreSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(centre));
     }
 
     @Test
     void deleteCentre() {
         // Configure the mock search repository
-        when(mockCentreSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockCentreSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockCentreSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockCentreSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         centreRepository.save(centre).block();
 
@@ -579,17 +582,18 @@ class CentreResourceIT {
         assertThat(centreList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Centre in Elasticsearch
-        verify(mockCentreSearchRepository, times(1)).deleteById(centre.getId());
+        verify(mockCentreSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(centre));
     }
 
     @Test
     void searchCentre() {
         // Configure the mock search repository
-        when(mockCentreSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockCentreSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockCentreSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         centreRepository.save(centre).block();
-        when(mockCentreSearchRepository.search("id:" + centre.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(centre));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockCentreSearchRepository.search("id:" + centre.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(centre), 1L, true, null)));
 
         // Search the centre
         webTestClient
@@ -600,6 +604,8 @@ class CentreResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(centre.getId().intValue()))
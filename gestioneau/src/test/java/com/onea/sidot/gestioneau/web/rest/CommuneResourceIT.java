@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Commune;
 import com.onea.sidot.gestioneau.repository.CommuneRepository;
 import com.onea.sidot.gestioneau.repository.search.CommuneSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.CommuneDTO;
 import com.onea.sidot.gestioneau.service.mapper.CommuneMapper;
 import java.time.Duration;
@@ -118,7 +121,7 @@ class CommuneResourceIT {
     void createCommune() throws Exception {
         int databaseSizeBeforeCreate = communeRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockCommuneSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockCommuneSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Commune
         CommuneDTO communeDTO = communeMapper.toDto(commune);
         webTestClient
@@ -137,7 +140,7 @@ class CommuneResourceIT {
         assertThat(testCommune.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Commune in Elasticsearch
-        verify(mockCommuneSearchRepository, times(1)).save(testCommune);
+        verify(mockCommuneSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testCommune));
     }
 
     @Test
@@ -163,7 +166,7 @@ class CommuneResourceIT {
         assertThat(communeList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Commune in Elasticsearch
-        verify(mockCommuneSearchRepository, times(0)).save(commune);
+        verify(mockCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(commune));
     }
 
     @Test
@@ -247,7 +250,7 @@ class CommuneResourceIT {
     @Test
     void putNewCommune() throws Exception {
         // Configure the mock search repository
-        when(mockCommuneSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockCommuneSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         communeRepository.save(commune).block();
 
@@ -274,7 +277,7 @@ class CommuneResourceIT {
         assertThat(testCommune.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Commune in Elasticsearch
-        verify(mockCommuneSearchRepository).save(testCommune);
+        verify(mockCommuneSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testCommune));
     }
 
     @Test
@@ -300,7 +303,7 @@ class CommuneResourceIT {
         assertThat(communeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Commune in Elasticsearch
-        verify(mockCommuneSearchRepository, times(0)).save(commune);
+        verify(mockCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(commune));
     }
 
     @Test
@@ -326,7 +329,7 @@ class CommuneResourceIT {
         assertThat(communeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Commune in Elasticsearch
-        verify(mockCommuneSearchRepository, times(0)).save(commune);
+        verify(mockCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(commune));
     }
 
     @Test
@@ -352,7 +355,7 @@ class CommuneResourceIT {
         assertThat(communeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Commune in Elasticsearch
-        verify(mockCommuneSearchRepository, times(0)).save(commune);
+        verify(mockCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(commune));
     }
 
     @Test
@@ -434,7 +437,7 @@ class CommuneResourceIT {
         assertThat(communeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Commune in Elasticsearch
-        verify(mockCommuneSearchRepository, times(0)).save(commune);
+        verify(mockCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(commune));
     }
 
     @Test
@@ -460,7 +463,7 @@ class CommuneResourceIT {
         assertThat(communeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Commune in Elasticsearch
-        verify(mockCommuneSearchRepository, times(0)).save(commune);
+        verify(mockCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(commune));
     }
 
     @Test
@@ -486,14 +489,14 @@ class CommuneResourceIT {
         assertThat(communeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Commune in Elasticsearch
-        verify(mockCommuneSearchRepository, times(0)).save(commune);
+        verify(mockCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(commune));
     }
 
     @Test
     void deleteCommune() {
         // Configure the mock search repository
-        when(mockCommuneSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockCommuneSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockCommuneSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockCommuneSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         communeRepository.save(commune).block();
 
@@ -513,17 +516,18 @@ class CommuneResourceIT {
         assertThat(communeList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Commune in Elasticsearch
-        verify(mockCommuneSearchRepository, times(1)).deleteById(commune.getId());
+        verify(mockCommuneSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(commune));
     }
 
     @Test
     void searchCommune() {
         // Configure the mock search repository
-        when(mockCommuneSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockCommuneSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockCommuneSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         communeRepository.save(commune).block();
-        when(mockCommuneSearchRepository.search("id:" + commune.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(commune));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockCommuneSearchRepository.search("id:" + commune.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(commune), 1L, true, null)));
 
         // Search the commune
         webTestClient
@@ -534,6 +538,8 @@ class CommuneResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(commune.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.DirectionRegionale;
 import com.onea.sidot.gestioneau.repository.DirectionRegionaleRepository;
 import com.onea.sidot.gestioneau.repository.search.DirectionRegionaleSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.DirectionRegionaleDTO;
 import com.onea.sidot.gestioneau.service.mapper.DirectionRegionaleMapper;
 import java.time.Duration;
@@ -130,7 +133,8 @@ class DirectionRegionaleResourceIT {
     void createDirectionRegionale() throws Exception {
         int databaseSizeBeforeCreate = directionRegionaleRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockDirectionRegionaleSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockDirectionRegionaleSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the DirectionRegionale
         DirectionRegionaleDTO directionRegionaleDTO = directionRegionaleMapper.toDto(directionRegionale);
         webTestClient
@@ -151,7 +155,8 @@ class DirectionRegionaleResourceIT {
         assertThat(testDirectionRegionale.getContact()).isEqualTo(DEFAULT_CONTACT);
 
         // Validate the DirectionRegionale in Elasticsearch
-        verify(mockDirectionRegionaleSearchRepository, times(1)).save(testDirectionRegionale);
+        verify(mockDirectionRegionaleSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testDirectionRegionale));
     }
 
     @Test
@@ -177,7 +182,7 @@ class DirectionRegionaleResourceIT {
         assertThat(directionRegionaleList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the DirectionRegionale in Elasticsearch
-        verify(mockDirectionRegionaleSearchRepository, times(0)).save(directionRegionale);
+        verify(mockDirectionRegionaleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(directionRegionale));
     }
 
     @Test
@@ -313,7 +318,8 @@ class DirectionRegionaleResourceIT {
     @Test
     void putNewDirectionRegionale() throws Exception {
         // Configure the mock search repository
-        when(mockDirectionRegionaleSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockDirectionRegionaleSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         directionRegionaleRepository.save(directionRegionale).block();
 
@@ -342,7 +348,8 @@ class DirectionRegionaleResourceIT {
         assertThat(testDirectionRegionale.getContact()).isEqualTo(UPDATED_CONTACT);
 
         // Validate the DirectionRegionale in Elasticsearch
-        verify(mockDirectionRegionaleSearchRepository).save(testDirectionRegionale);
+        verify(mockDirectionRegionaleSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testDirectionRegionale));
     }
 
     @Test
@@ -368,7 +375,7 @@ class DirectionRegionaleResourceIT {
         assertThat(directionRegionaleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the DirectionRegionale in Elasticsearch
-        verify(mockDirectionRegionaleSearchRepository, times(0)).save(directionRegionale);
+        verify(mockDirectionRegionaleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(directionRegionale));
     }
 
     @Test
@@ -394,7 +401,7 @@ class DirectionRegionaleResourceIT {
         assertThat(directionRegionaleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the DirectionRegionale in Elasticsearch
-        verify(mockDirectionRegionaleSearchRepository, times(0)).save(directionRegionale);
+        verify(mockDirectionRegionaleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(directionRegionale));
     }
 
     @Test
@@ -420,7 +427,7 @@ class DirectionRegionaleResourceIT {
         assertThat(directionRegionaleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the DirectionRegionale in Elasticsearch
-        verify(mockDirectionRegionaleSearchRepository, times(0)).save(directionRegionale);
+        verify(mockDirectionRegionaleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(directionRegionale));
     }
 
     @Test
@@ -506,7 +513,7 @@ class DirectionRegionaleResourceIT {
         assertThat(directionRegionaleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the DirectionRegionale in Elasticsearch
-        verify(mockDirectionRegionaleSearchRepository, times(0)).save(directionRegionale);
+        verify(mockDirectionRegionaleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(directionRegionale));
     }
 
     @Test
@@ -532,7 +539,7 @@ class DirectionRegionaleResourceIT {
         assertThat(directionRegionaleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the DirectionRegionale in Elasticsearch
-        verify(mockDirectionRegionaleSearchRepository, times(0)).save(directionRegionale);
+        verify(mockDirectionRegionaleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(directionRegionale));
     }
 
     @Test
@@ -558,14 +565,15 @@ class DirectionRegionaleResourceIT {
         assertThat(directionRegionaleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the DirectionRegionale in Elasticsearch
-        verify(mockDirectionRegionaleSearchRepository, times(0)).save(directionRegionale);
+        verify(mockDirectionRegionaleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(directionRegionale));
     }
 
     @Test
     void deleteDirectionRegionale() {
         // Configure the mock search repository
-        when(mockDirectionRegionaleSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockDirectionRegionaleSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockDirectionRegionaleSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockDirectionRegionaleSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         directionRegionaleRepository.save(directionRegionale).block();
 
@@ -585,18 +593,20 @@ class DirectionRegionaleResourceIT {
         assertThat(directionRegionaleList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the DirectionRegionale in Elasticsearch
-        verify(mockDirectionRegionaleSearchRepository, times(1)).deleteById(directionRegionale.getId());
+        verify(mockDirectionRegionaleSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(directionRegionale));
     }
 
     @Test
     void searchDirectionRegionale() {
         // Configure the mock search repository
-        when(mockDirectionRegionaleSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockDirectionRegionaleSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockDirectionRegionaleSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         directionRegionaleRepository.save(directionRegionale).block();
-        when(mockDirectionRegionaleSearchRepository.search("id:" + directionRegionale.getId(), PageRequest.of(0, 20)))
-            .thenReturn(Flux.just(directionRegionale));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockDirectionRegionaleSearchRepository.search("id:" + directionRegionale.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(directionRegionale), 1L, true, null)));
 
         // Search the directionRegionale
         webTestClient
@@ -607,6 +617,8 @@ class DirectionRegionaleResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(directionRegionale.getId().intValue()))
@@ -1,23 +1,51 @@
 package com.onea.sidot.gestioneau.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 
 import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrageDocument;
+import com.onea.sidot.gestioneau.domain.Macon;
+import com.onea.sidot.gestioneau.domain.NatureOuvrage;
+import com.onea.sidot.gestioneau.domain.Region;
 import com.onea.sidot.gestioneau.repository.FicheSuiviOuvrageRepository;
+import com.onea.sidot.gestioneau.repository.NatureOuvrageRepository;
 import com.onea.sidot.gestioneau.repository.search.FicheSuiviOuvrageSearchRepository;
+import com.onea.sidot.gestioneau.repository.search.NatureOuvrageSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
+import com.onea.sidot.gestioneau.service.CountService;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.EntityVersionService;
+import com.onea.sidot.gestioneau.service.FacetInterval;
+import com.onea.sidot.gestioneau.service.FicheSuiviOuvrageService;
+import com.onea.sidot.gestioneau.service.KeysetCursor;
+import com.onea.sidot.gestioneau.service.NatureOuvrageService;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
+import com.onea.sidot.gestioneau.service.dto.FicheSuiviOuvrageBulkUpdateDTO;
 import com.onea.sidot.gestioneau.service.dto.FicheSuiviOuvrageDTO;
+import com.onea.sidot.gestioneau.service.dto.FicheSuiviOuvrageSelectionDTO;
+import com.onea.sidot.gestioneau.service.dto.NatureOuvrageDTO;
+import com.onea.sidot.gestioneau.service.dto.SearchFacetsDTO;
+import com.onea.sidot.gestioneau.service.mapper.FicheSuiviOuvrageDocumentMapper;
 import com.onea.sidot.gestioneau.service.mapper.FicheSuiviOuvrageMapper;
+import com.onea.sidot.gestioneau.service.mapper.NatureOuvrageMapper;
+import com.onea.sidot.gestioneau.web.rest.util.CountModeUtil;
+import com.onea.sidot.gestioneau.web.rest.util.KeysetPaginationUtil;
+import com.onea.sidot.gestioneau.web.rest.util.SearchPaginationUtil;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,6 +56,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -119,6 +149,12 @@ class FicheSuiviOuvrageResourceIT {
     @Autowired
     private FicheSuiviOuvrageMapper ficheSuiviOuvrageMapper;
 
+    @Autowired
+    private FicheSuiviOuvrageService ficheSuiviOuvrageService;
+
+    @Autowired
+    private FicheSuiviOuvrageDocumentMapper ficheSuiviOuvrageDocumentMapper;
+
     /**
      * This repository is mocked in the com.onea.sidot.gestioneau.repository.search test package.
      *
@@ -130,6 +166,24 @@ class FicheSuiviOuvrageResourceIT {
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private CountService countService;
+
+    @Autowired
+    private EntityVersionService entityVersionService;
+
+    @Autowired
+    private NatureOuvrageRepository natureOuvrageRepository;
+
+    @Autowired
+    private NatureOuvrageService natureOuvrageService;
+
+    @Autowired
+    private NatureOuvrageMapper natureOuvrageMapper;
+
+    @Autowired
+    private NatureOuvrageSearchRepository mockNatureOuvrageSearchRepository;
+
     @Autowired
     private WebTestClient webTestClient;
 
@@ -199,6 +253,13 @@ class FicheSuiviOuvrageResourceIT {
         return ficheSuiviOuvrage;
     }
 
+    /**
+     * The search documents are equal by id.
+     */
+    public static FicheSuiviOuvrageDocument document(FicheSuiviOuvrage entity) {
+        return new FicheSuiviOuvrageDocument().id(entity.getId());
+    }
+
     public static void deleteEntities(EntityManager em) {
         try {
             em.deleteAll(FicheSuiviOuvrage.class).block();
@@ -210,6 +271,7 @@ class FicheSuiviOuvrageResourceIT {
     @AfterEach
     public void cleanup() {
         deleteEntities(em);
+        MaconResourceIT.deleteEntities(em);
     }
 
     @BeforeEach
@@ -222,7 +284,8 @@ class FicheSuiviOuvrageResourceIT {
     void createFicheSuiviOuvrage() throws Exception {
         int databaseSizeBeforeCreate = ficheSuiviOuvrageRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockFicheSuiviOuvrageSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the FicheSuiviOuvrage
         FicheSuiviOuvrageDTO ficheSuiviOuvrageDTO = ficheSuiviOuvrageMapper.toDto(ficheSuiviOuvrage);
         webTestClient
@@ -261,7 +324,200 @@ class FicheSuiviOuvrageResourceIT {
         assertThat(testFicheSuiviOuvrage.getControleur()).isEqualTo(DEFAULT_CONTROLEUR);
 
         // Validate the FicheSuiviOuvrage in Elasticsearch
-        verify(mockFicheSuiviOuvrageSearchRepository, times(1)).save(testFicheSuiviOuvrage);
+        verify(mockFicheSuiviOuvrageSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(document(testFicheSuiviOuvrage)));
+    }
+
+    @Test
+    void createFicheSuiviOuvragesBulk() throws Exception {
+        int databaseSizeBeforeCreate = ficheSuiviOuvrageRepository.findAll().collectList().block().size();
+        // Configure the mock search repository
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        // Create the FicheSuiviOuvrages, the second one being invalid
+        FicheSuiviOuvrageDTO invalidDTO = ficheSuiviOuvrageMapper.toDto(createEntity(em));
+        invalidDTO.setNomBenef(null);
+        List<FicheSuiviOuvrageDTO> ficheSuiviOuvrageDTOs = List.of(
+            ficheSuiviOuvrageMapper.toDto(createEntity(em)),
+            invalidDTO,
+            ficheSuiviOuvrageMapper.toDto(createEntity(em).nomBenef(UPDATED_NOM_BENEF))
+        );
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(ficheSuiviOuvrageDTOs))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(3)
+            .jsonPath("$.[*].index")
+            .value(contains(0, 1, 2))
+            .jsonPath("$.[*].status")
+            .value(contains("CREATED", "INVALID", "CREATED"))
+            .jsonPath("$.[0].id")
+            .value(
+                (Number id) ->
+                    assertThat(ficheSuiviOuvrageRepository.findById(id.longValue()).block().getNomBenef()).isEqualTo(DEFAULT_NOM_BENEF)
+            )
+            .jsonPath("$.[1].errors")
+            .value(hasItem("nomBenef: must not be null"))
+            .jsonPath("$.[2].id")
+            .value(
+                (Number id) ->
+                    assertThat(ficheSuiviOuvrageRepository.findById(id.longValue()).block().getNomBenef()).isEqualTo(UPDATED_NOM_BENEF)
+            );
+
+        // Validate the FicheSuiviOuvrages in the database
+        List<FicheSuiviOuvrage> ficheSuiviOuvrageList = ficheSuiviOuvrageRepository.findAll().collectList().block();
+        assertThat(ficheSuiviOuvrageList).hasSize(databaseSizeBeforeCreate + 2);
+
+        // Validate the FicheSuiviOuvrages in Elasticsearch, indexed with a single bulk request
+        verify(mockFicheSuiviOuvrageSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(
+                TestUtil.anyIterableContaining(
+                    document(ficheSuiviOuvrageList.get(ficheSuiviOuvrageList.size() - 2)),
+                    document(ficheSuiviOuvrageList.get(ficheSuiviOuvrageList.size() - 1))
+                )
+            );
+    }
+
+    @Test
+    void partialUpdateFicheSuiviOuvragesBulk() throws Exception {
+        // Configure the mock search repository
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        // Initialize the database: two ficheSuiviOuvrages of a macon, and one of another
+        Macon macon = em.insert(MaconResourceIT.createEntity(em)).block();
+        Macon otherMacon = em.insert(MaconResourceIT.createEntity(em)).block();
+        FicheSuiviOuvrage first = ficheSuiviOuvrageRepository.save(createEntity(em).macon(macon)).block();
+        FicheSuiviOuvrage second = ficheSuiviOuvrageRepository.save(createEntity(em).macon(macon)).block();
+        FicheSuiviOuvrage other = ficheSuiviOuvrageRepository.save(createEntity(em)).block();
+
+        // Reassign the ficheSuiviOuvrages of the macon
+        FicheSuiviOuvrageBulkUpdateDTO bulkUpdateDTO = new FicheSuiviOuvrageBulkUpdateDTO();
+        bulkUpdateDTO.setFilter(Map.of("macon", macon.getId()));
+        bulkUpdateDTO.setChanges(Map.of("macon", otherMacon.getId()));
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(bulkUpdateDTO))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(2L);
+
+        // Validate the FicheSuiviOuvrages in the database
+        assertThat(ficheSuiviOuvrageRepository.findById(first.getId()).block().getMaconId()).isEqualTo(otherMacon.getId());
+        assertThat(ficheSuiviOuvrageRepository.findById(second.getId()).block().getMaconId()).isEqualTo(otherMacon.getId());
+        assertThat(ficheSuiviOuvrageRepository.findById(other.getId()).block().getMaconId()).isNull();
+
+        // Validate the FicheSuiviOuvrages in Elasticsearch, reindexed with a single bulk request
+        verify(mockFicheSuiviOuvrageSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(document(first), document(second)));
+
+        // The ids restrict the selection, and a null reference is removed
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(
+                "{\"ids\": [" +
+                first.getId() +
+                ", " +
+                other.getId() +
+                "], \"filter\": {\"macon\": " +
+                otherMacon.getId() +
+                "}, \"changes\": {\"macon\": null}}"
+            )
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(1L);
+        assertThat(ficheSuiviOuvrageRepository.findById(first.getId()).block().getMaconId()).isNull();
+        assertThat(ficheSuiviOuvrageRepository.findById(second.getId()).block().getMaconId()).isEqualTo(otherMacon.getId());
+
+        // The cached ficheSuiviOuvrages are evicted
+        assertThat(ficheSuiviOuvrageService.findOne(first.getId()).block().getMacon()).isNull();
+    }
+
+    @Test
+    void partialUpdateFicheSuiviOuvragesBulkWithInvalidRequest() throws Exception {
+        int databaseSizeBeforeUpdate = ficheSuiviOuvrageRepository.findAll().collectList().block().size();
+        FicheSuiviOuvrageBulkUpdateDTO bulkUpdateDTO = new FicheSuiviOuvrageBulkUpdateDTO();
+        bulkUpdateDTO.setChanges(Map.of("macon", 1L));
+
+        // An empty selection would update all the ficheSuiviOuvrages
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(bulkUpdateDTO))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        bulkUpdateDTO.setFilter(Map.of("nomBenef", 1L));
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(bulkUpdateDTO))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        // Too many ids to be bound by a statement
+        bulkUpdateDTO.setFilter(Map.of());
+        bulkUpdateDTO.setIds(LongStream.rangeClosed(1, FicheSuiviOuvrageSelectionDTO.MAX_IDS + 1).boxed().collect(Collectors.toList()));
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(bulkUpdateDTO))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        assertThat(ficheSuiviOuvrageRepository.findAll().collectList().block()).hasSize(databaseSizeBeforeUpdate);
+    }
+
+    @Test
+    void deleteFicheSuiviOuvragesBulk() throws Exception {
+        // Configure the mock search repository
+        when(mockFicheSuiviOuvrageSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
+        // Initialize the database
+        FicheSuiviOuvrage first = ficheSuiviOuvrageRepository.save(createEntity(em)).block();
+        FicheSuiviOuvrage second = ficheSuiviOuvrageRepository.save(createEntity(em)).block();
+        FicheSuiviOuvrage kept = ficheSuiviOuvrageRepository.save(createEntity(em)).block();
+
+        FicheSuiviOuvrageSelectionDTO selectionDTO = new FicheSuiviOuvrageSelectionDTO();
+        selectionDTO.setIds(List.of(first.getId(), second.getId()));
+        webTestClient
+            .method(HttpMethod.DELETE)
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(selectionDTO))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(2L);
+
+        // Validate the database only contains the kept item
+        List<FicheSuiviOuvrage> ficheSuiviOuvrageList = ficheSuiviOuvrageRepository.findAll().collectList().block();
+        assertThat(ficheSuiviOuvrageList).extracting(FicheSuiviOuvrage::getId).containsExactly(kept.getId());
+
+        // Validate the FicheSuiviOuvrages in Elasticsearch, removed with a single bulk request
+        verify(mockFicheSuiviOuvrageSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(document(first), document(second)));
+        assertThat(ficheSuiviOuvrageService.findOne(first.getId()).block()).isNull();
     }
 
     @Test
@@ -287,7 +543,7 @@ class FicheSuiviOuvrageResourceIT {
         assertThat(ficheSuiviOuvrageList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the FicheSuiviOuvrage in Elasticsearch
-        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).save(ficheSuiviOuvrage);
+        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(document(ficheSuiviOuvrage)));
     }
 
     @Test
@@ -770,6 +1026,307 @@ class FicheSuiviOuvrageResourceIT {
             .value(hasItem(DEFAULT_CONTROLEUR));
     }
 
+    @Test
+    void getAllFicheSuiviOuvragesCachedCount() throws Exception {
+        // Configure the mock search repository
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        // Initialize the database
+        countService.evict(FicheSuiviOuvrage.class);
+        ficheSuiviOuvrageRepository.save(ficheSuiviOuvrage).block();
+
+        webTestClient.get().uri(ENTITY_API_URL).exchange().expectStatus().isOk().expectHeader().valueEquals("X-Total-Count", "1");
+
+        // A write which bypasses the services doesn't evict the cached total
+        ficheSuiviOuvrageRepository.save(createEntity(em)).block();
+        webTestClient.get().uri(ENTITY_API_URL).exchange().expectStatus().isOk().expectHeader().valueEquals("X-Total-Count", "1");
+
+        // A write through the services does
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(ficheSuiviOuvrageMapper.toDto(createEntity(em))))
+            .exchange()
+            .expectStatus()
+            .isCreated();
+        webTestClient.get().uri(ENTITY_API_URL).exchange().expectStatus().isOk().expectHeader().valueEquals("X-Total-Count", "3");
+
+        // Without planner statistics, the approximate count falls back to the exact one
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL)
+            .header(CountModeUtil.HEADER_COUNT_MODE, "approximate")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "3");
+
+        webTestClient.get().uri(ENTITY_API_URL).header(CountModeUtil.HEADER_COUNT_MODE, "unknown").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getAllFicheSuiviOuvragesWithFields() {
+        // Initialize the database
+        when(mockNatureOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        NatureOuvrage natureOuvrage = natureOuvrageRepository.save(NatureOuvrageResourceIT.createEntity(em)).block();
+        ficheSuiviOuvrage.setNatureouvrage(natureOuvrage);
+        ficheSuiviOuvrageRepository.save(ficheSuiviOuvrage).block();
+
+        // Get only the properties of the map screen
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc&fields=latitude,longitude,natureouvrage")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(ficheSuiviOuvrage.getId().intValue()))
+            .jsonPath("$.[*].latitude")
+            .value(hasItem(DEFAULT_LATITUDE.doubleValue()))
+            .jsonPath("$.[*].natureouvrage.libelle")
+            .value(hasItem("AAAAAAAAAA"))
+            .jsonPath("$.[*].nomBenef")
+            .doesNotExist()
+            .jsonPath("$.[*].prevision")
+            .doesNotExist();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "?fields=nomBenef", ficheSuiviOuvrage.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.id")
+            .isEqualTo(ficheSuiviOuvrage.getId().intValue())
+            .jsonPath("$.nomBenef")
+            .isEqualTo(DEFAULT_NOM_BENEF)
+            .jsonPath("$.latitude")
+            .doesNotExist();
+
+        webTestClient.get().uri(ENTITY_API_URL + "?fields=unknown").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getAllFicheSuiviOuvragesUnderAnInvalidAncestor() {
+        webTestClient.get().uri(ENTITY_API_URL + "?ancestorLevel=country&ancestorId=1").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri(ENTITY_API_URL + "?ancestorLevel=region").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getFicheSuiviOuvragesByLocation() {
+        // Initialize the database through the service, which keeps the geo index up to date
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        FicheSuiviOuvrageDTO center = saveAt(12.37F, -1.52F);
+        FicheSuiviOuvrageDTO north = saveAt(12.38F, -1.52F);
+        FicheSuiviOuvrageDTO far = saveAt(12.5F, -1.52F);
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/within?minLatitude=12.3&minLongitude=-1.6&maxLatitude=12.45&maxLongitude=-1.4&fields=latitude")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(center.getId().intValue(), north.getId().intValue()))
+            .jsonPath("$.[*].nomBenef")
+            .doesNotExist();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/near?latitude=12.381&longitude=-1.52&radius=5000")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(north.getId().intValue(), center.getId().intValue()));
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/nearest?latitude=12.49&longitude=-1.52&count=2")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(far.getId().intValue(), north.getId().intValue()));
+
+        // A deleted ficheSuiviOuvrage leaves the index
+        when(mockFicheSuiviOuvrageSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
+        webTestClient.delete().uri(ENTITY_API_URL_ID, far.getId()).exchange().expectStatus().isNoContent();
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/nearest?latitude=12.49&longitude=-1.52&count=1")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(north.getId().intValue()));
+
+        // A ficheSuiviOuvrage deleted outside of the services stays in the index until it is rebuilt, but is not counted
+        ficheSuiviOuvrageRepository.deleteById(north.getId()).block();
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/within?minLatitude=12.3&minLongitude=-1.6&maxLatitude=12.45&maxLongitude=-1.4")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(center.getId().intValue()));
+
+        // A bounding box across the antimeridian
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/within?minLatitude=12.3&minLongitude=170&maxLatitude=12.45&maxLongitude=-170")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "0");
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/within?minLatitude=12.45&minLongitude=-1.6&maxLatitude=12.3&maxLongitude=-1.4")
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+        webTestClient.get().uri(ENTITY_API_URL + "/near?latitude=91&longitude=0&radius=10").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri(ENTITY_API_URL + "/near?latitude=12&longitude=0&radius=-1").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri(ENTITY_API_URL + "/nearest?latitude=12&longitude=0&count=0").exchange().expectStatus().isBadRequest();
+    }
+
+    private FicheSuiviOuvrageDTO saveAt(Float latitude, Float longitude) {
+        FicheSuiviOuvrage entity = createEntity(em).latitude(latitude).longitude(longitude);
+        return ficheSuiviOuvrageService.save(ficheSuiviOuvrageMapper.toDto(entity)).block();
+    }
+
+    @Test
+    void getAllFicheSuiviOuvragesAfter() {
+        // Initialize the database
+        FicheSuiviOuvrage first = ficheSuiviOuvrageRepository.save(createEntity(em)).block();
+        FicheSuiviOuvrage second = ficheSuiviOuvrageRepository.save(createEntity(em)).block();
+        FicheSuiviOuvrage third = ficheSuiviOuvrageRepository.save(createEntity(em)).block();
+
+        // Get the first keyset page
+        String nextCursor = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after=&size=2&sort=id,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist("X-Total-Count")
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(2)
+            .jsonPath("$.[0].id")
+            .isEqualTo(first.getId().intValue())
+            .jsonPath("$.[1].id")
+            .isEqualTo(second.getId().intValue())
+            .returnResult()
+            .getResponseHeaders()
+            .getFirst(KeysetPaginationUtil.HEADER_NEXT_CURSOR);
+        assertThat(nextCursor).isNotNull();
+
+        // Get the next keyset page
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after={after}&size=2&sort=id,asc", nextCursor)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(KeysetPaginationUtil.HEADER_NEXT_CURSOR)
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].id")
+            .isEqualTo(third.getId().intValue());
+    }
+
+    @Test
+    void getAllFicheSuiviOuvragesAfterInvalidCursor() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after=invalid&size=2")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void getAllFicheSuiviOuvragesAfterInvalidSort() {
+        // an unknown property, and a nullable one whose null values the seek condition would skip
+        for (String sort : List.of("unknown,asc", "rue,asc")) {
+            webTestClient
+                .get()
+                .uri(ENTITY_API_URL + "?after=&size=2&sort={sort}", sort)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+        }
+    }
+
+    @Test
+    void exportFicheSuiviOuvrages() {
+        // Initialize the database
+        ficheSuiviOuvrageRepository.save(ficheSuiviOuvrage).block();
+
+        // Export the ficheSuiviOuvrages as CSV
+        String csv = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/export?format=csv")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith("text/csv")
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+        assertThat(csv).startsWith("id,prjAppuis,nomBenef,");
+        assertThat(csv).contains(ficheSuiviOuvrage.getId() + "," + DEFAULT_PRJ_APPUIS + "," + DEFAULT_NOM_BENEF + ",");
+
+        // Export the ficheSuiviOuvrages as GeoJSON
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/export?format=geojson")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.type")
+            .isEqualTo("FeatureCollection")
+            .jsonPath("$.features[?(@.id == " + ficheSuiviOuvrage.getId() + ")].geometry.coordinates[0]")
+            .value(hasItem(DEFAULT_LONGITUDE.doubleValue()))
+            .jsonPath("$.features[?(@.id == " + ficheSuiviOuvrage.getId() + ")].properties.nomBenef")
+            .value(hasItem(DEFAULT_NOM_BENEF));
+
+        webTestClient.get().uri(ENTITY_API_URL + "/export?format=xlsx").exchange().expectStatus().isBadRequest();
+    }
+
     @Test
     void getFicheSuiviOuvrage() {
         // Initialize the database
@@ -832,6 +1389,214 @@ class FicheSuiviOuvrageResourceIT {
             .value(is(DEFAULT_CONTROLEUR));
     }
 
+    @Test
+    void getFicheSuiviOuvrageWithCachedReference() {
+        // Initialize the database
+        when(mockNatureOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        NatureOuvrage natureOuvrage = natureOuvrageRepository.save(NatureOuvrageResourceIT.createEntity(em)).block();
+        ficheSuiviOuvrage.setNatureouvrage(natureOuvrage);
+        ficheSuiviOuvrageRepository.save(ficheSuiviOuvrage).block();
+
+        // Get the ficheSuiviOuvrage, with its natureouvrage resolved from the reference data cache
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, ficheSuiviOuvrage.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.natureouvrage.id")
+            .isEqualTo(natureOuvrage.getId().intValue())
+            .jsonPath("$.natureouvrage.libelle")
+            .isEqualTo("AAAAAAAAAA");
+
+        // An update through the services evicts the cached natureouvrage
+        NatureOuvrageDTO natureOuvrageDTO = natureOuvrageMapper.toDto(natureOuvrage);
+        natureOuvrageDTO.setLibelle("BBBBBBBBBB");
+        natureOuvrageService.save(natureOuvrageDTO).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, ficheSuiviOuvrage.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.natureouvrage.libelle")
+            .isEqualTo("BBBBBBBBBB");
+    }
+
+    @Test
+    void getFicheSuiviOuvrageConditionally() {
+        // Configure the mock search repositories
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockNatureOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        // Initialize the database
+        NatureOuvrage natureOuvrage = natureOuvrageRepository.save(NatureOuvrageResourceIT.createEntity(em)).block();
+        FicheSuiviOuvrageDTO ficheSuiviOuvrageDTO = ficheSuiviOuvrageService
+            .save(ficheSuiviOuvrageMapper.toDto(ficheSuiviOuvrage.natureouvrage(natureOuvrage)))
+            .block();
+
+        String eTag = getETag(ENTITY_API_URL_ID, ficheSuiviOuvrageDTO.getId());
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, ficheSuiviOuvrageDTO.getId())
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ETAG, eTag);
+
+        // A projection is revalidated like the whole ficheSuiviOuvrage
+        String fieldsETag = getETag(ENTITY_API_URL_ID + "?fields=nomBenef", ficheSuiviOuvrageDTO.getId());
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "?fields=nomBenef", ficheSuiviOuvrageDTO.getId())
+            .ifNoneMatch(fieldsETag)
+            .exchange()
+            .expectStatus()
+            .isNotModified();
+
+        // A write of another ficheSuiviOuvrage doesn't change the ETag
+        ficheSuiviOuvrageService.save(ficheSuiviOuvrageMapper.toDto(createEntity(em))).block();
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, ficheSuiviOuvrageDTO.getId())
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified();
+
+        // A write of a referenced natureOuvrage does
+        NatureOuvrageDTO natureOuvrageDTO = natureOuvrageMapper.toDto(natureOuvrage);
+        natureOuvrageDTO.setLibelle("BBBBBBBBBB");
+        natureOuvrageService.save(natureOuvrageDTO).block();
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, ficheSuiviOuvrageDTO.getId())
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .value(HttpHeaders.ETAG, value -> assertThat(value).isNotEqualTo(eTag))
+            .expectBody()
+            .jsonPath("$.natureouvrage.libelle")
+            .isEqualTo("BBBBBBBBBB");
+    }
+
+    @Test
+    void getAllFicheSuiviOuvragesConditionally() {
+        // Configure the mock search repository
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockFicheSuiviOuvrageSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
+        // Initialize the database
+        ficheSuiviOuvrageRepository.save(ficheSuiviOuvrage).block();
+
+        String eTag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .values(HttpHeaders.VARY, hasItem(CountModeUtil.HEADER_COUNT_MODE))
+            .expectBody()
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isNotNull();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectHeader()
+            .values(HttpHeaders.VARY, hasItem(CountModeUtil.HEADER_COUNT_MODE));
+
+        // The total depends on the count mode
+        String approximateETag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .header(CountModeUtil.HEADER_COUNT_MODE, "approximate")
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+        assertThat(approximateETag).isNotEqualTo(eTag);
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .header(CountModeUtil.HEADER_COUNT_MODE, "approximate")
+            .ifNoneMatch(approximateETag)
+            .exchange()
+            .expectStatus()
+            .isNotModified();
+
+        // A projection is revalidated like the whole list
+        String fieldsETag = getETag(ENTITY_API_URL + "?sort=id,desc&fields=latitude,longitude");
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc&fields=latitude,longitude")
+            .ifNoneMatch(fieldsETag)
+            .exchange()
+            .expectStatus()
+            .isNotModified();
+
+        // The ficheSuiviOuvrages under a node also change with the hierarchy, the other ones don't
+        String ancestorETag = getETag(ENTITY_API_URL + "?ancestorLevel=region&ancestorId=1");
+        entityVersionService.increment(Region.class, null).block();
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?ancestorLevel=region&ancestorId=1")
+            .ifNoneMatch(ancestorETag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .value(HttpHeaders.ETAG, value -> assertThat(value).isNotEqualTo(ancestorETag));
+        webTestClient.get().uri(ENTITY_API_URL + "?sort=id,desc").ifNoneMatch(eTag).exchange().expectStatus().isNotModified();
+
+        // A write through the services changes the ETag
+        webTestClient.delete().uri(ENTITY_API_URL_ID, ficheSuiviOuvrage.getId()).exchange().expectStatus().isNoContent();
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "0");
+    }
+
+    private String getETag(String uri, Object... uriVariables) {
+        String eTag = webTestClient
+            .get()
+            .uri(uri, uriVariables)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isNotNull();
+        return eTag;
+    }
+
     @Test
     void getNonExistingFicheSuiviOuvrage() {
         // Get the ficheSuiviOuvrage
@@ -847,7 +1612,8 @@ class FicheSuiviOuvrageResourceIT {
     @Test
     void putNewFicheSuiviOuvrage() throws Exception {
         // Configure the mock search repository
-        when(mockFicheSuiviOuvrageSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         ficheSuiviOuvrageRepository.save(ficheSuiviOuvrage).block();
 
@@ -915,7 +1681,8 @@ class FicheSuiviOuvrageResourceIT {
         assertThat(testFicheSuiviOuvrage.getControleur()).isEqualTo(UPDATED_CONTROLEUR);
 
         // Validate the FicheSuiviOuvrage in Elasticsearch
-        verify(mockFicheSuiviOuvrageSearchRepository).save(testFicheSuiviOuvrage);
+        verify(mockFicheSuiviOuvrageSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(document(testFicheSuiviOuvrage)));
     }
 
     @Test
@@ -941,7 +1708,7 @@ class FicheSuiviOuvrageResourceIT {
         assertThat(ficheSuiviOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the FicheSuiviOuvrage in Elasticsearch
-        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).save(ficheSuiviOuvrage);
+        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(document(ficheSuiviOuvrage)));
     }
 
     @Test
@@ -967,7 +1734,7 @@ class FicheSuiviOuvrageResourceIT {
         assertThat(ficheSuiviOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the FicheSuiviOuvrage in Elasticsearch
-        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).save(ficheSuiviOuvrage);
+        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(document(ficheSuiviOuvrage)));
     }
 
     @Test
@@ -993,7 +1760,7 @@ class FicheSuiviOuvrageResourceIT {
         assertThat(ficheSuiviOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the FicheSuiviOuvrage in Elasticsearch
-        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).save(ficheSuiviOuvrage);
+        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(document(ficheSuiviOuvrage)));
     }
 
     @Test
@@ -1150,7 +1917,7 @@ class FicheSuiviOuvrageResourceIT {
         assertThat(ficheSuiviOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the FicheSuiviOuvrage in Elasticsearch
-        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).save(ficheSuiviOuvrage);
+        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(document(ficheSuiviOuvrage)));
     }
 
     @Test
@@ -1176,7 +1943,7 @@ class FicheSuiviOuvrageResourceIT {
         assertThat(ficheSuiviOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the FicheSuiviOuvrage in Elasticsearch
-        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).save(ficheSuiviOuvrage);
+        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(document(ficheSuiviOuvrage)));
     }
 
     @Test
@@ -1202,14 +1969,15 @@ class FicheSuiviOuvrageResourceIT {
         assertThat(ficheSuiviOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the FicheSuiviOuvrage in Elasticsearch
-        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).save(ficheSuiviOuvrage);
+        verify(mockFicheSuiviOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(document(ficheSuiviOuvrage)));
     }
 
     @Test
     void deleteFicheSuiviOuvrage() {
         // Configure the mock search repository
-        when(mockFicheSuiviOuvrageSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockFicheSuiviOuvrageSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockFicheSuiviOuvrageSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         ficheSuiviOuvrageRepository.save(ficheSuiviOuvrage).block();
 
@@ -1229,18 +1997,21 @@ class FicheSuiviOuvrageResourceIT {
         assertThat(ficheSuiviOuvrageList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the FicheSuiviOuvrage in Elasticsearch
-        verify(mockFicheSuiviOuvrageSearchRepository, times(1)).deleteById(ficheSuiviOuvrage.getId());
+        verify(mockFicheSuiviOuvrageSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(document(ficheSuiviOuvrage)));
     }
 
     @Test
     void searchFicheSuiviOuvrage() {
         // Configure the mock search repository
-        when(mockFicheSuiviOuvrageSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockFicheSuiviOuvrageSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         ficheSuiviOuvrageRepository.save(ficheSuiviOuvrage).block();
-        when(mockFicheSuiviOuvrageSearchRepository.search("id:" + ficheSuiviOuvrage.getId(), PageRequest.of(0, 20)))
-            .thenReturn(Flux.just(ficheSuiviOuvrage));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        FicheSuiviOuvrageDocument hit = ficheSuiviOuvrageDocumentMapper.toDocument(ficheSuiviOuvrage);
+        when(mockFicheSuiviOuvrageSearchRepository.search("id:" + ficheSuiviOuvrage.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(hit), 1L, true, null)));
 
         // Search the ficheSuiviOuvrage
         webTestClient
@@ -1251,6 +2022,8 @@ class FicheSuiviOuvrageResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(ficheSuiviOuvrage.getId().intValue()))
@@ -1297,4 +2070,83 @@ class FicheSuiviOuvrageResourceIT {
             .jsonPath("$.[*].controleur")
             .value(hasItem(DEFAULT_CONTROLEUR));
     }
+
+    @Test
+    void searchFicheSuiviOuvrageAfter() {
+        KeysetCursor nextCursor = KeysetCursor.of(List.of("id"), List.<Object>of(42L));
+        when(mockFicheSuiviOuvrageSearchRepository.search(eq("nomBenef:*"), argThat(SearchPageable::isKeyset)))
+            .thenReturn(Mono.just(SearchResults.of(List.of(document(ficheSuiviOuvrage)), 12345L, false, nextCursor)));
+
+        // Search the first keyset page, with a capped total
+        webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?query=nomBenef:*&after=&size=1")
+            .header(CountModeUtil.HEADER_COUNT_MODE, "approximate")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.HEADER_NEXT_CURSOR, nextCursor.encode())
+            .expectHeader()
+            .valueEquals(SearchPaginationUtil.HEADER_TOTAL_COUNT, "12345")
+            .expectHeader()
+            .valueEquals(SearchPaginationUtil.HEADER_TOTAL_COUNT_RELATION, "gte");
+
+        verify(mockFicheSuiviOuvrageSearchRepository)
+            .search(
+                eq("nomBenef:*"),
+                argThat(pageable -> pageable.getCountMode() == CountMode.APPROXIMATE && pageable.getKeyset().getAfter() == null)
+            );
+    }
+
+    @Test
+    void searchFicheSuiviOuvrageFacets() {
+        SearchFacetsDTO facets = new SearchFacetsDTO();
+        facets.setTotal(3L);
+        SearchFacetsDTO.TermDTO term = new SearchFacetsDTO.TermDTO();
+        term.setId(7L);
+        term.setLibelle("Centre");
+        term.setCount(3L);
+        facets.getTerms().put("region", List.of(term));
+        when(mockFicheSuiviOuvrageSearchRepository.facets("nomBenef:*", List.of("region", "dateDebutTravaux"), FacetInterval.YEAR, 5))
+            .thenReturn(Mono.just(facets));
+
+        // Count the hits by region and by year, with a single search
+        webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "/facets?query=nomBenef:*&facet=region&facet=dateDebutTravaux&interval=year&size=5")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.total")
+            .isEqualTo(3)
+            .jsonPath("$.terms.region[0].id")
+            .isEqualTo(7)
+            .jsonPath("$.terms.region[0].libelle")
+            .isEqualTo("Centre")
+            .jsonPath("$.terms.region[0].count")
+            .isEqualTo(3);
+    }
+
+    @Test
+    void searchFicheSuiviOuvrageFacetsInvalid() {
+        webTestClient.get().uri(ENTITY_SEARCH_API_URL + "/facets?query=*&facet=unknown").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri(ENTITY_SEARCH_API_URL + "/facets?query=*&interval=century").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri(ENTITY_SEARCH_API_URL + "/facets?query=*&size=0").exchange().expectStatus().isBadRequest();
+
+        verify(mockFicheSuiviOuvrageSearchRepository, never()).facets(anyString(), anyCollection(), any(), anyInt());
+    }
+
+    @Test
+    void searchFicheSuiviOuvrageTooDeep() {
+        webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?query=nomBenef:*&page=500&size=20")
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        verify(mockFicheSuiviOuvrageSearchRepository, never()).search(anyString(), any(SearchPageable.class));
+    }
 }
@@ -0,0 +1,187 @@
+package com.onea.sidot.gestioneau.web.rest;
+
+import static org.mockito.Mockito.*;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.domain.Commune;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.domain.Localite;
+import com.onea.sidot.gestioneau.domain.Lot;
+import com.onea.sidot.gestioneau.domain.Parcelle;
+import com.onea.sidot.gestioneau.domain.Province;
+import com.onea.sidot.gestioneau.domain.Region;
+import com.onea.sidot.gestioneau.domain.Secteur;
+import com.onea.sidot.gestioneau.domain.Section;
+import com.onea.sidot.gestioneau.repository.search.FicheSuiviOuvrageSearchRepository;
+import com.onea.sidot.gestioneau.security.AuthoritiesConstants;
+import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.FicheSuiviOuvrageService;
+import com.onea.sidot.gestioneau.service.ParcelleService;
+import com.onea.sidot.gestioneau.service.dto.FicheSuiviOuvrageDTO;
+import com.onea.sidot.gestioneau.service.mapper.FicheSuiviOuvrageMapper;
+import com.onea.sidot.gestioneau.service.mapper.ParcelleMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the {@link HierarchyStatsResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+class HierarchyStatsResourceIT {
+
+    private static final String STATS_API_URL = "/api/stats/hierarchy/{level}/{id}";
+    private static final String REBUILD_API_URL = "/api/admin/stats/hierarchy/rebuild";
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private FicheSuiviOuvrageService ficheSuiviOuvrageService;
+
+    @Autowired
+    private FicheSuiviOuvrageMapper ficheSuiviOuvrageMapper;
+
+    @Autowired
+    private ParcelleService parcelleService;
+
+    @Autowired
+    private ParcelleMapper parcelleMapper;
+
+    /**
+     * This repository is mocked in the com.onea.sidot.gestioneau.repository.search test package.
+     *
+     * @see com.onea.sidot.gestioneau.repository.search.FicheSuiviOuvrageSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private FicheSuiviOuvrageSearchRepository mockFicheSuiviOuvrageSearchRepository;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Region region;
+
+    private Lot lot;
+
+    private Parcelle parcelle;
+
+    private Parcelle otherParcelle;
+
+    @BeforeEach
+    void initTest() {
+        deleteEntities();
+        region = em.insert(RegionResourceIT.createEntity(em)).block();
+        Province province = em.insert(ProvinceResourceIT.createEntity(em).region(region)).block();
+        Commune commune = em.insert(CommuneResourceIT.createEntity(em).province(province)).block();
+        Localite localite = em.insert(LocaliteResourceIT.createEntity(em).commune(commune)).block();
+        Secteur secteur = em.insert(SecteurResourceIT.createEntity(em).localite(localite)).block();
+        Section section = em.insert(SectionResourceIT.createEntity(em).secteur(secteur)).block();
+        lot = em.insert(LotResourceIT.createEntity(em).section(section)).block();
+        parcelle = em.insert(ParcelleResourceIT.createEntity(em).lot(lot)).block();
+        otherParcelle = em.insert(ParcelleResourceIT.createEntity(em).lot(lot)).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        deleteEntities();
+    }
+
+    private void deleteEntities() {
+        FicheSuiviOuvrageResourceIT.deleteEntities(em);
+        ParcelleResourceIT.deleteEntities(em);
+        LotResourceIT.deleteEntities(em);
+        SectionResourceIT.deleteEntities(em);
+        SecteurResourceIT.deleteEntities(em);
+        LocaliteResourceIT.deleteEntities(em);
+        CommuneResourceIT.deleteEntities(em);
+        ProvinceResourceIT.deleteEntities(em);
+        RegionResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void getHierarchyStatsFollowsTheWrites() {
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockFicheSuiviOuvrageSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
+
+        FicheSuiviOuvrageDTO first = save(FicheSuiviOuvrageResourceIT.createEntity(em).parcelle(parcelle).subvOnea(100));
+        save(FicheSuiviOuvrageResourceIT.createEntity(em).parcelle(otherParcelle).subvOnea(50));
+
+        expectStats("region", region.getId(), 2, 150);
+        expectStats("lot", lot.getId(), 2, 150);
+        expectStats("parcelle", parcelle.getId(), 1, 100);
+
+        // An update replaces the previous contribution
+        first.setSubvOnea(30);
+        ficheSuiviOuvrageService.save(first).block();
+        expectStats("region", region.getId(), 2, 80);
+
+        // A delete subtracts it
+        ficheSuiviOuvrageService.delete(first.getId()).block();
+        expectStats("region", region.getId(), 1, 50);
+        expectStats("parcelle", parcelle.getId(), 0, 0);
+    }
+
+    @Test
+    void getHierarchyStatsKeepsTheTotalsOnANewParcelle() {
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        save(FicheSuiviOuvrageResourceIT.createEntity(em).parcelle(parcelle).subvOnea(100));
+        parcelleService.save(parcelleMapper.toDto(ParcelleResourceIT.createEntity(em).lot(lot))).block();
+
+        // The parcelle doesn't move any node, the totals above it are unchanged
+        expectStats("region", region.getId(), 1, 100);
+        expectStats("lot", lot.getId(), 1, 100);
+    }
+
+    @Test
+    void rebuildHierarchyStats() {
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        save(FicheSuiviOuvrageResourceIT.createEntity(em).parcelle(parcelle).subvOnea(100));
+        // A write which bypasses the services is only counted by a rebuild
+        em.insert(FicheSuiviOuvrageResourceIT.createEntity(em).parcelle(otherParcelle).subvOnea(50)).block();
+        expectStats("region", region.getId(), 1, 100);
+
+        webTestClient.post().uri(REBUILD_API_URL).exchange().expectStatus().isOk().expectBody(Long.class).isEqualTo(2L);
+        expectStats("region", region.getId(), 2, 150);
+        expectStats("parcelle", otherParcelle.getId(), 1, 50);
+    }
+
+    @Test
+    void getHierarchyStatsWithAnInvalidLevel() {
+        webTestClient.get().uri(STATS_API_URL, "country", 1).exchange().expectStatus().isBadRequest();
+    }
+
+    private FicheSuiviOuvrageDTO save(FicheSuiviOuvrage ficheSuiviOuvrage) {
+        return ficheSuiviOuvrageService.save(ficheSuiviOuvrageMapper.toDto(ficheSuiviOuvrage)).block();
+    }
+
+    private void expectStats(String level, Long id, long ouvrages, long subvOnea) {
+        webTestClient
+            .get()
+            .uri(STATS_API_URL, level, id)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.level")
+            .isEqualTo(level.toUpperCase())
+            .jsonPath("$.ouvrages")
+            .isEqualTo((int) ouvrages)
+            .jsonPath("$.subvOnea")
+            .isEqualTo((int) subvOnea);
+    }
+}
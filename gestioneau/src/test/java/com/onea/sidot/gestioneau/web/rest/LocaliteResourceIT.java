@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Localite;
 import com.onea.sidot.gestioneau.repository.LocaliteRepository;
 import com.onea.sidot.gestioneau.repository.search.LocaliteSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.LocaliteDTO;
 import com.onea.sidot.gestioneau.service.mapper.LocaliteMapper;
 import java.time.Duration;
@@ -118,7 +121,7 @@ class LocaliteResourceIT {
     void createLocalite() throws Exception {
         int databaseSizeBeforeCreate = localiteRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockLocaliteSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockLocaliteSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Localite
         LocaliteDTO localiteDTO = localiteMapper.toDto(localite);
         webTestClient
@@ -137,7 +140,8 @@ class LocaliteResourceIT {
         assertThat(testLocalite.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Localite in Elasticsearch
-        verify(mockLocaliteSearchRepository, times(1)).save(testLocalite);
+        verify(mockLocaliteSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testLocalite));
     }
 
     @Test
@@ -163,7 +167,7 @@ class LocaliteResourceIT {
         assertThat(localiteList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Localite in Elasticsearch
-        verify(mockLocaliteSearchRepository, times(0)).save(localite);
+        verify(mockLocaliteSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(localite));
     }
 
     @Test
@@ -247,7 +251,7 @@ class LocaliteResourceIT {
     @Test
     void putNewLocalite() throws Exception {
         // Configure the mock search repository
-        when(mockLocaliteSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockLocaliteSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         localiteRepository.save(localite).block();
 
@@ -274,7 +278,8 @@ class LocaliteResourceIT {
         assertThat(testLocalite.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Localite in Elasticsearch
-        verify(mockLocaliteSearchRepository).save(testLocalite);
+        verify(mockLocaliteSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testLocalite));
     }
 
     @Test
@@ -300,7 +305,7 @@ class LocaliteResourceIT {
         assertThat(localiteList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Localite in Elasticsearch
-        verify(mockLocaliteSearchRepository, times(0)).save(localite);
+        verify(mockLocaliteSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(localite));
     }
 
     @Test
@@ -326,7 +331,7 @@ class LocaliteResourceIT {
         assertThat(localiteList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Localite in Elasticsearch
-        verify(mockLocaliteSearchRepository, times(0)).save(localite);
+        verify(mockLocaliteSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(localite));
     }
 
     @Test
@@ -352,7 +357,7 @@ class LocaliteResourceIT {
         assertThat(localiteList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Localite in Elasticsearch
-        verify(mockLocaliteSearchRepository, times(0)).save(localite);
+        verify(mockLocaliteSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(localite));
     }
 
     @Test
@@ -436,7 +441,7 @@ class LocaliteResourceIT {
         assertThat(localiteList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Localite in Elasticsearch
-        verify(mockLocaliteSearchRepository, times(0)).save(localite);
+        verify(mockLocaliteSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(localite));
     }
 
     @Test
@@ -462,7 +467,7 @@ class LocaliteResourceIT {
         assertThat(localiteList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Localite in Elasticsearch
-        verify(mockLocaliteSearchRepository, times(0)).save(localite);
+        verify(mockLocaliteSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(localite));
     }
 
     @Test
@@ -488,14 +493,14 @@ class LocaliteResourceIT {
         assertThat(localiteList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Localite in Elasticsearch
-        verify(mockLocaliteSearchRepository, times(0)).save(localite);
+        verify(mockLocaliteSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(localite));
     }
 
     @Test
     void deleteLocalite() {
         // Configure the mock search repository
-        when(mockLocaliteSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockLocaliteSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockLocaliteSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockLocaliteSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         localiteRepository.save(localite).block();
 
@@ -515,17 +520,18 @@ class LocaliteResourceIT {
         assertThat(localiteList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Localite in Elasticsearch
-        verify(mockLocaliteSearchRepository, times(1)).deleteById(localite.getId());
+        verify(mockLocaliteSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(localite));
     }
 
     @Test
     void searchLocalite() {
         // Configure the mock search repository
-        when(mockLocaliteSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockLocaliteSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockLocaliteSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         localiteRepository.save(localite).block();
-        when(mockLocaliteSearchRepository.search("id:" + localite.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(localite));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockLocaliteSearchRepository.search("id:" + localite.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(localite), 1L, true, null)));
 
         // Search the localite
         webTestClient
@@ -536,6 +542,8 @@ class LocaliteResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(localite.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Lot;
 import com.onea.sidot.gestioneau.repository.LotRepository;
 import com.onea.sidot.gestioneau.repository.search.LotSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.LotDTO;
 import com.onea.sidot.gestioneau.service.mapper.LotMapper;
 import java.time.Duration;
@@ -118,7 +121,7 @@ class LotResourceIT {
     void createLot() throws Exception {
         int databaseSizeBeforeCreate = lotRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockLotSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockLotSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Lot
         LotDTO lotDTO = lotMapper.toDto(lot);
         webTestClient
@@ -137,7 +140,7 @@ class LotResourceIT {
         assertThat(testLot.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Lot in Elasticsearch
-        verify(mockLotSearchRepository, times(1)).save(testLot);
+        verify(mockLotSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testLot));
     }
 
     @Test
@@ -163,7 +166,7 @@ class LotResourceIT {
         assertThat(lotList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Lot in Elasticsearch
-        verify(mockLotSearchRepository, times(0)).save(lot);
+        verify(mockLotSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(lot));
     }
 
     @Test
@@ -247,7 +250,7 @@ class LotResourceIT {
     @Test
     void putNewLot() throws Exception {
         // Configure the mock search repository
-        when(mockLotSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockLotSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         lotRepository.save(lot).block();
 
@@ -274,7 +277,7 @@ class LotResourceIT {
         assertThat(testLot.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Lot in Elasticsearch
-        verify(mockLotSearchRepository).save(testLot);
+        verify(mockLotSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testLot));
     }
 
     @Test
@@ -300,7 +303,7 @@ class LotResourceIT {
         assertThat(lotList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Lot in Elasticsearch
-        verify(mockLotSearchRepository, times(0)).save(lot);
+        verify(mockLotSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(lot));
     }
 
     @Test
@@ -326,7 +329,7 @@ class LotResourceIT {
         assertThat(lotList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Lot in Elasticsearch
-        verify(mockLotSearchRepository, times(0)).save(lot);
+        verify(mockLotSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(lot));
     }
 
     @Test
@@ -352,7 +355,7 @@ class LotResourceIT {
         assertThat(lotList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Lot in Elasticsearch
-        verify(mockLotSearchRepository, times(0)).save(lot);
+        verify(mockLotSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(lot));
     }
 
     @Test
@@ -436,7 +439,7 @@ class LotResourceIT {
         assertThat(lotList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Lot in Elasticsearch
-        verify(mockLotSearchRepository, times(0)).save(lot);
+        verify(mockLotSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(lot));
     }
 
     @Test
@@ -462,7 +465,7 @@ class LotResourceIT {
         assertThat(lotList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Lot in Elasticsearch
-        verify(mockLotSearchRepository, times(0)).save(lot);
+        verify(mockLotSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(lot));
     }
 
     @Test
@@ -488,14 +491,14 @@ class LotResourceIT {
         assertThat(lotList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Lot in Elasticsearch
-        verify(mockLotSearchRepository, times(0)).save(lot);
+        verify(mockLotSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(lot));
     }
 
     @Test
     void deleteLot() {
         // Configure the mock search repository
-        when(mockLotSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockLotSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockLotSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockLotSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         lotRepository.save(lot).block();
 
@@ -515,17 +518,18 @@ class LotResourceIT {
         assertThat(lotList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Lot in Elasticsearch
-        verify(mockLotSearchRepository, times(1)).deleteById(lot.getId());
+        verify(mockLotSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(lot));
     }
 
     @Test
     void searchLot() {
         // Configure the mock search repository
-        when(mockLotSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockLotSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockLotSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         lotRepository.save(lot).block();
-        when(mockLotSearchRepository.search("id:" + lot.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(lot));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockLotSearchRepository.search("id:" + lot.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(lot), 1L, true, null)));
 
         // Search the lot
         webTestClient
@@ -536,6 +540,8 @@ class LotResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(lot.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Macon;
 import com.onea.sidot.gestioneau.repository.MaconRepository;
 import com.onea.sidot.gestioneau.repository.search.MaconSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.MaconDTO;
 import com.onea.sidot.gestioneau.service.mapper.MaconMapper;
 import java.time.Duration;
@@ -118,7 +121,7 @@ class MaconResourceIT {
     void createMacon() throws Exception {
         int databaseSizeBeforeCreate = maconRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockMaconSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockMaconSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Macon
         MaconDTO maconDTO = maconMapper.toDto(macon);
         webTestClient
@@ -137,7 +140,7 @@ class MaconResourceIT {
         assertThat(testMacon.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Macon in Elasticsearch
-        verify(mockMaconSearchRepository, times(1)).save(testMacon);
+        verify(mockMaconSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testMacon));
     }
 
     @Test
@@ -163,7 +166,7 @@ class MaconResourceIT {
         assertThat(maconList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Macon in Elasticsearch
-        verify(mockMaconSearchRepository, times(0)).save(macon);
+        verify(mockMaconSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(macon));
     }
 
     @Test
@@ -247,7 +250,7 @@ class MaconResourceIT {
     @Test
     void putNewMacon() throws Exception {
         // Configure the mock search repository
-        when(mockMaconSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockMaconSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         maconRepository.save(macon).block();
 
@@ -274,7 +277,7 @@ class MaconResourceIT {
         assertThat(testMacon.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Macon in Elasticsearch
-        verify(mockMaconSearchRepository).save(testMacon);
+        verify(mockMaconSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testMacon));
     }
 
     @Test
@@ -300,7 +303,7 @@ class MaconResourceIT {
         assertThat(maconList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Macon in Elasticsearch
-        verify(mockMaconSearchRepository, times(0)).save(macon);
+        verify(mockMaconSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(macon));
     }
 
     @Test
@@ -326,7 +329,7 @@ class MaconResourceIT {
         assertThat(maconList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Macon in Elasticsearch
-        verify(mockMaconSearchRepository, times(0)).save(macon);
+        verify(mockMaconSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(macon));
     }
 
     @Test
@@ -352,7 +355,7 @@ class MaconResourceIT {
         assertThat(maconList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Macon in Elasticsearch
-        verify(mockMaconSearchRepository, times(0)).save(macon);
+        verify(mockMaconSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(macon));
     }
 
     @Test
@@ -436,7 +439,7 @@ class MaconResourceIT {
         assertThat(maconList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Macon in Elasticsearch
-        verify(mockMaconSearchRepository, times(0)).save(macon);
+        verify(mockMaconSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(macon));
     }
 
     @Test
@@ -462,7 +465,7 @@ class MaconResourceIT {
         assertThat(maconList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Macon in Elasticsearch
-        verify(mockMaconSearchRepository, times(0)).save(macon);
+        verify(mockMaconSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(macon));
     }
 
     @Test
@@ -488,14 +491,14 @@ class MaconResourceIT {
         assertThat(maconList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Macon in Elasticsearch
-        verify(mockMaconSearchRepository, times(0)).save(macon);
+        verify(mockMaconSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(macon));
     }
 
     @Test
     void deleteMacon() {
         // Configure the mock search repository
-        when(mockMaconSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockMaconSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockMaconSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockMaconSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         maconRepository.save(macon).block();
 
@@ -515,17 +518,18 @@ class MaconResourceIT {
         assertThat(maconList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Macon in Elasticsearch
-        verify(mockMaconSearchRepository, times(1)).deleteById(macon.getId());
+        verify(mockMaconSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(macon));
     }
 
     @Test
     void searchMacon() {
         // Configure the mock search repository
-        when(mockMaconSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockMaconSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockMaconSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         maconRepository.save(macon).block();
-        when(mockMaconSearchRepository.search("id:" + macon.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(macon));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockMaconSearchRepository.search("id:" + macon.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(macon), 1L, true, null)));
 
         // Search the macon
         webTestClient
@@ -536,6 +540,8 @@ class MaconResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(macon.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.ModeEvacExcreta;
 import com.onea.sidot.gestioneau.repository.ModeEvacExcretaRepository;
 import com.onea.sidot.gestioneau.repository.search.ModeEvacExcretaSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.ModeEvacExcretaDTO;
 import com.onea.sidot.gestioneau.service.mapper.ModeEvacExcretaMapper;
 import java.time.Duration;
@@ -118,7 +121,8 @@ class ModeEvacExcretaResourceIT {
     void createModeEvacExcreta() throws Exception {
         int databaseSizeBeforeCreate = modeEvacExcretaRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockModeEvacExcretaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockModeEvacExcretaSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the ModeEvacExcreta
         ModeEvacExcretaDTO modeEvacExcretaDTO = modeEvacExcretaMapper.toDto(modeEvacExcreta);
         webTestClient
@@ -137,7 +141,8 @@ class ModeEvacExcretaResourceIT {
         assertThat(testModeEvacExcreta.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the ModeEvacExcreta in Elasticsearch
-        verify(mockModeEvacExcretaSearchRepository, times(1)).save(testModeEvacExcreta);
+        verify(mockModeEvacExcretaSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testModeEvacExcreta));
     }
 
     @Test
@@ -163,7 +168,7 @@ class ModeEvacExcretaResourceIT {
         assertThat(modeEvacExcretaList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the ModeEvacExcreta in Elasticsearch
-        verify(mockModeEvacExcretaSearchRepository, times(0)).save(modeEvacExcreta);
+        verify(mockModeEvacExcretaSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacExcreta));
     }
 
     @Test
@@ -247,7 +252,8 @@ class ModeEvacExcretaResourceIT {
     @Test
     void putNewModeEvacExcreta() throws Exception {
         // Configure the mock search repository
-        when(mockModeEvacExcretaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockModeEvacExcretaSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         modeEvacExcretaRepository.save(modeEvacExcreta).block();
 
@@ -274,7 +280,8 @@ class ModeEvacExcretaResourceIT {
         assertThat(testModeEvacExcreta.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the ModeEvacExcreta in Elasticsearch
-        verify(mockModeEvacExcretaSearchRepository).save(testModeEvacExcreta);
+        verify(mockModeEvacExcretaSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testModeEvacExcreta));
     }
 
     @Test
@@ -300,7 +307,7 @@ class ModeEvacExcretaResourceIT {
         assertThat(modeEvacExcretaList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacExcreta in Elasticsearch
-        verify(mockModeEvacExcretaSearchRepository, times(0)).save(modeEvacExcreta);
+        verify(mockModeEvacExcretaSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacExcreta));
     }
 
     @Test
@@ -326,7 +333,7 @@ class ModeEvacExcretaResourceIT {
         assertThat(modeEvacExcretaList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacExcreta in Elasticsearch
-        verify(mockModeEvacExcretaSearchRepository, times(0)).save(modeEvacExcreta);
+        verify(mockModeEvacExcretaSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacExcreta));
     }
 
     @Test
@@ -352,7 +359,7 @@ class ModeEvacExcretaResourceIT {
         assertThat(modeEvacExcretaList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacExcreta in Elasticsearch
-        verify(mockModeEvacExcretaSearchRepository, times(0)).save(modeEvacExcreta);
+        verify(mockModeEvacExcretaSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacExcreta));
     }
 
     @Test
@@ -436,7 +443,7 @@ class ModeEvacExcretaResourceIT {
         assertThat(modeEvacExcretaList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacExcreta in Elasticsearch
-        verify(mockModeEvacExcretaSearchRepository, times(0)).save(modeEvacExcreta);
+        verify(mockModeEvacExcretaSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacExcreta));
     }
 
     @Test
@@ -462,7 +469,7 @@ class ModeEvacExcretaResourceIT {
         assertThat(modeEvacExcretaList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacExcreta in Elasticsearch
-        verify(mockModeEvacExcretaSearchRepository, times(0)).save(modeEvacExcreta);
+        verify(mockModeEvacExcretaSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacExcreta));
     }
 
     @Test
@@ -488,14 +495,15 @@ class ModeEvacExcretaResourceIT {
         assertThat(modeEvacExcretaList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacExcreta in Elasticsearch
-        verify(mockModeEvacExcretaSearchRepository, times(0)).save(modeEvacExcreta);
+        verify(mockModeEvacExcretaSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacExcreta));
     }
 
     @Test
     void deleteModeEvacExcreta() {
         // Configure the mock search repository
-        when(mockModeEvacExcretaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockModeEvacExcretaSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockModeEvacExcretaSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockModeEvacExcretaSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         modeEvacExcretaRepository.save(modeEvacExcreta).block();
 
@@ -515,18 +523,20 @@ class ModeEvacExcretaResourceIT {
         assertThat(modeEvacExcretaList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the ModeEvacExcreta in Elasticsearch
-        verify(mockModeEvacExcretaSearchRepository, times(1)).deleteById(modeEvacExcreta.getId());
+        verify(mockModeEvacExcretaSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(modeEvacExcreta));
     }
 
     @Test
     void searchModeEvacExcreta() {
         // Configure the mock search repository
-        when(mockModeEvacExcretaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockModeEvacExcretaSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockModeEvacExcretaSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         modeEvacExcretaRepository.save(modeEvacExcreta).block();
-        when(mockModeEvacExcretaSearchRepository.search("id:" + modeEvacExcreta.getId(), PageRequest.of(0, 20)))
-            .thenReturn(Flux.just(modeEvacExcreta));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockModeEvacExcretaSearchRepository.search("id:" + modeEvacExcreta.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(modeEvacExcreta), 1L, true, null)));
 
         // Search the modeEvacExcreta
         webTestClient
@@ -537,6 +547,8 @@ class ModeEvacExcretaResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(modeEvacExcreta.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.ModeEvacuationEauUsee;
 import com.onea.sidot.gestioneau.repository.ModeEvacuationEauUseeRepository;
 import com.onea.sidot.gestioneau.repository.search.ModeEvacuationEauUseeSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.ModeEvacuationEauUseeDTO;
 import com.onea.sidot.gestioneau.service.mapper.ModeEvacuationEauUseeMapper;
 import java.time.Duration;
@@ -118,7 +121,8 @@ class ModeEvacuationEauUseeResourceIT {
     void createModeEvacuationEauUsee() throws Exception {
         int databaseSizeBeforeCreate = modeEvacuationEauUseeRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockModeEvacuationEauUseeSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockModeEvacuationEauUseeSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the ModeEvacuationEauUsee
         ModeEvacuationEauUseeDTO modeEvacuationEauUseeDTO = modeEvacuationEauUseeMapper.toDto(modeEvacuationEauUsee);
         webTestClient
@@ -137,7 +141,8 @@ class ModeEvacuationEauUseeResourceIT {
         assertThat(testModeEvacuationEauUsee.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the ModeEvacuationEauUsee in Elasticsearch
-        verify(mockModeEvacuationEauUseeSearchRepository, times(1)).save(testModeEvacuationEauUsee);
+        verify(mockModeEvacuationEauUseeSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testModeEvacuationEauUsee));
     }
 
     @Test
@@ -163,7 +168,7 @@ class ModeEvacuationEauUseeResourceIT {
         assertThat(modeEvacuationEauUseeList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the ModeEvacuationEauUsee in Elasticsearch
-        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).save(modeEvacuationEauUsee);
+        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacuationEauUsee));
     }
 
     @Test
@@ -247,7 +252,8 @@ class ModeEvacuationEauUseeResourceIT {
     @Test
     void putNewModeEvacuationEauUsee() throws Exception {
         // Configure the mock search repository
-        when(mockModeEvacuationEauUseeSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockModeEvacuationEauUseeSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         modeEvacuationEauUseeRepository.save(modeEvacuationEauUsee).block();
 
@@ -276,7 +282,8 @@ class ModeEvacuationEauUseeResourceIT {
         assertThat(testModeEvacuationEauUsee.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the ModeEvacuationEauUsee in Elasticsearch
-        verify(mockModeEvacuationEauUseeSearchRepository).save(testModeEvacuationEauUsee);
+        verify(mockModeEvacuationEauUseeSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testModeEvacuationEauUsee));
     }
 
     @Test
@@ -302,7 +309,7 @@ class ModeEvacuationEauUseeResourceIT {
         assertThat(modeEvacuationEauUseeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacuationEauUsee in Elasticsearch
-        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).save(modeEvacuationEauUsee);
+        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacuationEauUsee));
     }
 
     @Test
@@ -328,7 +335,7 @@ class ModeEvacuationEauUseeResourceIT {
         assertThat(modeEvacuationEauUseeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacuationEauUsee in Elasticsearch
-        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).save(modeEvacuationEauUsee);
+        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacuationEauUsee));
     }
 
     @Test
@@ -354,7 +361,7 @@ class ModeEvacuationEauUseeResourceIT {
         assertThat(modeEvacuationEauUseeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacuationEauUsee in Elasticsearch
-        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).save(modeEvacuationEauUsee);
+        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacuationEauUsee));
     }
 
     @Test
@@ -438,7 +445,7 @@ class ModeEvacuationEauUseeResourceIT {
         assertThat(modeEvacuationEauUseeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacuationEauUsee in Elasticsearch
-        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).save(modeEvacuationEauUsee);
+        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacuationEauUsee));
     }
 
     @Test
@@ -464,7 +471,7 @@ class ModeEvacuationEauUseeResourceIT {
         assertThat(modeEvacuationEauUseeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacuationEauUsee in Elasticsearch
-        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).save(modeEvacuationEauUsee);
+        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacuationEauUsee));
     }
 
     @Test
@@ -490,14 +497,15 @@ class ModeEvacuationEauUseeResourceIT {
         assertThat(modeEvacuationEauUseeList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the ModeEvacuationEauUsee in Elasticsearch
-        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).save(modeEvacuationEauUsee);
+        verify(mockModeEvacuationEauUseeSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(modeEvacuationEauUsee));
     }
 
     @Test
     void deleteModeEvacuationEauUsee() {
         // Configure the mock search repository
-        when(mockModeEvacuationEauUseeSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockModeEvacuationEauUseeSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockModeEvacuationEauUseeSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockModeEvacuationEauUseeSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         modeEvacuationEauUseeRepository.save(modeEvacuationEauUsee).block();
 
@@ -517,18 +525,20 @@ class ModeEvacuationEauUseeResourceIT {
         assertThat(modeEvacuationEauUseeList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the ModeEvacuationEauUsee in Elasticsearch
-        verify(mockModeEvacuationEauUseeSearchRepository, times(1)).deleteById(modeEvacuationEauUsee.getId());
+        verify(mockModeEvacuationEauUseeSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(modeEvacuationEauUsee));
     }
 
     @Test
     void searchModeEvacuationEauUsee() {
         // Configure the mock search repository
-        when(mockModeEvacuationEauUseeSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockModeEvacuationEauUseeSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockModeEvacuationEauUseeSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         modeEvacuationEauUseeRepository.save(modeEvacuationEauUsee).block();
-        when(mockModeEvacuationEauUseeSearchRepository.search("id:" + modeEvacuationEauUsee.getId(), PageRequest.of(0, 20)))
-            .thenReturn(Flux.just(modeEvacuationEauUsee));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockModeEvacuationEauUseeSearchRepository.search("id:" + modeEvacuationEauUsee.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(modeEvacuationEauUsee), 1L, true, null)));
 
         // Search the modeEvacuationEauUsee
         webTestClient
@@ -539,6 +549,8 @@ class ModeEvacuationEauUseeResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(modeEvacuationEauUsee.getId().intValue()))
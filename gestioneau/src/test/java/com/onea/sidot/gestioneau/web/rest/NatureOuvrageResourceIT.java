@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.NatureOuvrage;
 import com.onea.sidot.gestioneau.repository.NatureOuvrageRepository;
 import com.onea.sidot.gestioneau.repository.search.NatureOuvrageSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.NatureOuvrageDTO;
 import com.onea.sidot.gestioneau.service.mapper.NatureOuvrageMapper;
 import java.time.Duration;
@@ -118,7 +121,8 @@ class NatureOuvrageResourceIT {
     void createNatureOuvrage() throws Exception {
         int databaseSizeBeforeCreate = natureOuvrageRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockNatureOuvrageSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockNatureOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the NatureOuvrage
         NatureOuvrageDTO natureOuvrageDTO = natureOuvrageMapper.toDto(natureOuvrage);
         webTestClient
@@ -137,7 +141,8 @@ class NatureOuvrageResourceIT {
         assertThat(testNatureOuvrage.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the NatureOuvrage in Elasticsearch
-        verify(mockNatureOuvrageSearchRepository, times(1)).save(testNatureOuvrage);
+        verify(mockNatureOuvrageSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testNatureOuvrage));
     }
 
     @Test
@@ -163,7 +168,7 @@ class NatureOuvrageResourceIT {
         assertThat(natureOuvrageList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the NatureOuvrage in Elasticsearch
-        verify(mockNatureOuvrageSearchRepository, times(0)).save(natureOuvrage);
+        verify(mockNatureOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(natureOuvrage));
     }
 
     @Test
@@ -247,7 +252,8 @@ class NatureOuvrageResourceIT {
     @Test
     void putNewNatureOuvrage() throws Exception {
         // Configure the mock search repository
-        when(mockNatureOuvrageSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockNatureOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         natureOuvrageRepository.save(natureOuvrage).block();
 
@@ -274,7 +280,8 @@ class NatureOuvrageResourceIT {
         assertThat(testNatureOuvrage.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the NatureOuvrage in Elasticsearch
-        verify(mockNatureOuvrageSearchRepository).save(testNatureOuvrage);
+        verify(mockNatureOuvrageSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testNatureOuvrage));
     }
 
     @Test
@@ -300,7 +307,7 @@ class NatureOuvrageResourceIT {
         assertThat(natureOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the NatureOuvrage in Elasticsearch
-        verify(mockNatureOuvrageSearchRepository, times(0)).save(natureOuvrage);
+        verify(mockNatureOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(natureOuvrage));
     }
 
     @Test
@@ -326,7 +333,7 @@ class NatureOuvrageResourceIT {
         assertThat(natureOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the NatureOuvrage in Elasticsearch
-        verify(mockNatureOuvrageSearchRepository, times(0)).save(natureOuvrage);
+        verify(mockNatureOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(natureOuvrage));
     }
 
     @Test
@@ -352,7 +359,7 @@ class NatureOuvrageResourceIT {
         assertThat(natureOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the NatureOuvrage in Elasticsearch
-        verify(mockNatureOuvrageSearchRepository, times(0)).save(natureOuvrage);
+        verify(mockNatureOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(natureOuvrage));
     }
 
     @Test
@@ -434,7 +441,7 @@ class NatureOuvrageResourceIT {
         assertThat(natureOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the NatureOuvrage in Elasticsearch
-        verify(mockNatureOuvrageSearchRepository, times(0)).save(natureOuvrage);
+        verify(mockNatureOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(natureOuvrage));
     }
 
     @Test
@@ -460,7 +467,7 @@ class NatureOuvrageResourceIT {
         assertThat(natureOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the NatureOuvrage in Elasticsearch
-        verify(mockNatureOuvrageSearchRepository, times(0)).save(natureOuvrage);
+        verify(mockNatureOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(natureOuvrage));
     }
 
     @Test
@@ -486,14 +493,15 @@ class NatureOuvrageResourceIT {
         assertThat(natureOuvrageList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the NatureOuvrage in Elasticsearch
-        verify(mockNatureOuvrageSearchRepository, times(0)).save(natureOuvrage);
+        verify(mockNatureOuvrageSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(natureOuvrage));
     }
 
     @Test
     void deleteNatureOuvrage() {
         // Configure the mock search repository
-        when(mockNatureOuvrageSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockNatureOuvrageSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockNatureOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockNatureOuvrageSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         natureOuvrageRepository.save(natureOuvrage).block();
 
@@ -513,18 +521,20 @@ class NatureOuvrageResourceIT {
         assertThat(natureOuvrageList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the NatureOuvrage in Elasticsearch
-        verify(mockNatureOuvrageSearchRepository, times(1)).deleteById(natureOuvrage.getId());
+        verify(mockNatureOuvrageSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(natureOuvrage));
     }
 
     @Test
     void searchNatureOuvrage() {
         // Configure the mock search repository
-        when(mockNatureOuvrageSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockNatureOuvrageSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockNatureOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         natureOuvrageRepository.save(natureOuvrage).block();
-        when(mockNatureOuvrageSearchRepository.search("id:" + natureOuvrage.getId(), PageRequest.of(0, 20)))
-            .thenReturn(Flux.just(natureOuvrage));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockNatureOuvrageSearchRepository.search("id:" + natureOuvrage.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(natureOuvrage), 1L, true, null)));
 
         // Search the natureOuvrage
         webTestClient
@@ -535,6 +545,8 @@ class NatureOuvrageResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(natureOuvrage.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Parcelle;
 import com.onea.sidot.gestioneau.repository.ParcelleRepository;
 import com.onea.sidot.gestioneau.repository.search.ParcelleSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.ParcelleDTO;
 import com.onea.sidot.gestioneau.service.mapper.ParcelleMapper;
 import java.time.Duration;
@@ -118,7 +121,7 @@ class ParcelleResourceIT {
     void createParcelle() throws Exception {
         int databaseSizeBeforeCreate = parcelleRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockParcelleSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockParcelleSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Parcelle
         ParcelleDTO parcelleDTO = parcelleMapper.toDto(parcelle);
         webTestClient
@@ -137,7 +140,8 @@ class ParcelleResourceIT {
         assertThat(testParcelle.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Parcelle in Elasticsearch
-        verify(mockParcelleSearchRepository, times(1)).save(testParcelle);
+        verify(mockParcelleSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testParcelle));
     }
 
     @Test
@@ -163,7 +167,7 @@ class ParcelleResourceIT {
         assertThat(parcelleList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Parcelle in Elasticsearch
-        verify(mockParcelleSearchRepository, times(0)).save(parcelle);
+        verify(mockParcelleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(parcelle));
     }
 
     @Test
@@ -247,7 +251,7 @@ class ParcelleResourceIT {
     @Test
     void putNewParcelle() throws Exception {
         // Configure the mock search repository
-        when(mockParcelleSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockParcelleSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         parcelleRepository.save(parcelle).block();
 
@@ -274,7 +278,8 @@ class ParcelleResourceIT {
         assertThat(testParcelle.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Parcelle in Elasticsearch
-        verify(mockParcelleSearchRepository).save(testParcelle);
+        verify(mockParcelleSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testParcelle));
     }
 
     @Test
@@ -300,7 +305,7 @@ class ParcelleResourceIT {
         assertThat(parcelleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Parcelle in Elasticsearch
-        verify(mockParcelleSearchRepository, times(0)).save(parcelle);
+        verify(mockParcelleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(parcelle));
     }
 
     @Test
@@ -326,7 +331,7 @@ class ParcelleResourceIT {
         assertThat(parcelleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Parcelle in Elasticsearch
-        verify(mockParcelleSearchRepository, times(0)).save(parcelle);
+        verify(mockParcelleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(parcelle));
     }
 
     @Test
@@ -352,7 +357,7 @@ class ParcelleResourceIT {
         assertThat(parcelleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Parcelle in Elasticsearch
-        verify(mockParcelleSearchRepository, times(0)).save(parcelle);
+        verify(mockParcelleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(parcelle));
     }
 
     @Test
@@ -436,7 +441,7 @@ class ParcelleResourceIT {
         assertThat(parcelleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Parcelle in Elasticsearch
-        verify(mockParcelleSearchRepository, times(0)).save(parcelle);
+        verify(mockParcelleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(parcelle));
     }
 
     @Test
@@ -462,7 +467,7 @@ class ParcelleResourceIT {
         assertThat(parcelleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Parcelle in Elasticsearch
-        verify(mockParcelleSearchRepository, times(0)).save(parcelle);
+        verify(mockParcelleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(parcelle));
     }
 
     @Test
@@ -488,14 +493,14 @@ class ParcelleResourceIT {
         assertThat(parcelleList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Parcelle in Elasticsearch
-        verify(mockParcelleSearchRepository, times(0)).save(parcelle);
+        verify(mockParcelleSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(parcelle));
     }
 
     @Test
     void deleteParcelle() {
         // Configure the mock search repository
-        when(mockParcelleSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockParcelleSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockParcelleSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockParcelleSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         parcelleRepository.save(parcelle).block();
 
@@ -515,17 +520,18 @@ class ParcelleResourceIT {
         assertThat(parcelleList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Parcelle in Elasticsearch
-        verify(mockParcelleSearchRepository, times(1)).deleteById(parcelle.getId());
+        verify(mockParcelleSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(parcelle));
     }
 
     @Test
     void searchParcelle() {
         // Configure the mock search repository
-        when(mockParcelleSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockParcelleSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockParcelleSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         parcelleRepository.save(parcelle).block();
-        when(mockParcelleSearchRepository.search("id:" + parcelle.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(parcelle));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockParcelleSearchRepository.search("id:" + parcelle.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(parcelle), 1L, true, null)));
 
         // Search the parcelle
         webTestClient
@@ -536,6 +542,8 @@ class ParcelleResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(parcelle.getId().intValue()))
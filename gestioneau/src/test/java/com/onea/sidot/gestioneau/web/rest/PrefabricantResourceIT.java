@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Prefabricant;
 import com.onea.sidot.gestioneau.repository.PrefabricantRepository;
 import com.onea.sidot.gestioneau.repository.search.PrefabricantSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.PrefabricantDTO;
 import com.onea.sidot.gestioneau.service.mapper.PrefabricantMapper;
 import java.time.Duration;
@@ -118,7 +121,8 @@ class PrefabricantResourceIT {
     void createPrefabricant() throws Exception {
         int databaseSizeBeforeCreate = prefabricantRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockPrefabricantSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockPrefabricantSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Prefabricant
         PrefabricantDTO prefabricantDTO = prefabricantMapper.toDto(prefabricant);
         webTestClient
@@ -137,7 +141,8 @@ class PrefabricantResourceIT {
         assertThat(testPrefabricant.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Prefabricant in Elasticsearch
-        verify(mockPrefabricantSearchRepository, times(1)).save(testPrefabricant);
+        verify(mockPrefabricantSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testPrefabricant));
     }
 
     @Test
@@ -163,7 +168,7 @@ class PrefabricantResourceIT {
         assertThat(prefabricantList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Prefabricant in Elasticsearch
-        verify(mockPrefabricantSearchRepository, times(0)).save(prefabricant);
+        verify(mockPrefabricantSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prefabricant));
     }
 
     @Test
@@ -247,7 +252,8 @@ class PrefabricantResourceIT {
     @Test
     void putNewPrefabricant() throws Exception {
         // Configure the mock search repository
-        when(mockPrefabricantSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockPrefabricantSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         prefabricantRepository.save(prefabricant).block();
 
@@ -274,7 +280,8 @@ class PrefabricantResourceIT {
         assertThat(testPrefabricant.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Prefabricant in Elasticsearch
-        verify(mockPrefabricantSearchRepository).save(testPrefabricant);
+        verify(mockPrefabricantSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testPrefabricant));
     }
 
     @Test
@@ -300,7 +307,7 @@ class PrefabricantResourceIT {
         assertThat(prefabricantList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prefabricant in Elasticsearch
-        verify(mockPrefabricantSearchRepository, times(0)).save(prefabricant);
+        verify(mockPrefabricantSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prefabricant));
     }
 
     @Test
@@ -326,7 +333,7 @@ class PrefabricantResourceIT {
         assertThat(prefabricantList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prefabricant in Elasticsearch
-        verify(mockPrefabricantSearchRepository, times(0)).save(prefabricant);
+        verify(mockPrefabricantSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prefabricant));
     }
 
     @Test
@@ -352,7 +359,7 @@ class PrefabricantResourceIT {
         assertThat(prefabricantList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prefabricant in Elasticsearch
-        verify(mockPrefabricantSearchRepository, times(0)).save(prefabricant);
+        verify(mockPrefabricantSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prefabricant));
     }
 
     @Test
@@ -434,7 +441,7 @@ class PrefabricantResourceIT {
         assertThat(prefabricantList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prefabricant in Elasticsearch
-        verify(mockPrefabricantSearchRepository, times(0)).save(prefabricant);
+        verify(mockPrefabricantSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prefabricant));
     }
 
     @Test
@@ -460,7 +467,7 @@ class PrefabricantResourceIT {
         assertThat(prefabricantList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prefabricant in Elasticsearch
-        verify(mockPrefabricantSearchRepository, times(0)).save(prefabricant);
+        verify(mockPrefabricantSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prefabricant));
     }
 
     @Test
@@ -486,14 +493,15 @@ class PrefabricantResourceIT {
         assertThat(prefabricantList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prefabricant in Elasticsearch
-        verify(mockPrefabricantSearchRepository, times(0)).save(prefabricant);
+        verify(mockPrefabricantSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prefabricant));
     }
 
     @Test
     void deletePrefabricant() {
         // Configure the mock search repository
-        when(mockPrefabricantSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockPrefabricantSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockPrefabricantSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockPrefabricantSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         prefabricantRepository.save(prefabricant).block();
 
@@ -513,18 +521,20 @@ class PrefabricantResourceIT {
         assertThat(prefabricantList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Prefabricant in Elasticsearch
-        verify(mockPrefabricantSearchRepository, times(1)).deleteById(prefabricant.getId());
+        verify(mockPrefabricantSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(prefabricant));
     }
 
     @Test
     void searchPrefabricant() {
         // Configure the mock search repository
-        when(mockPrefabricantSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockPrefabricantSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockPrefabricantSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         prefabricantRepository.save(prefabricant).block();
-        when(mockPrefabricantSearchRepository.search("id:" + prefabricant.getId(), PageRequest.of(0, 20)))
-            .thenReturn(Flux.just(prefabricant));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockPrefabricantSearchRepository.search("id:" + prefabricant.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(prefabricant), 1L, true, null)));
 
         // Search the prefabricant
         webTestClient
@@ -535,6 +545,8 @@ class PrefabricantResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(prefabricant.getId().intValue()))
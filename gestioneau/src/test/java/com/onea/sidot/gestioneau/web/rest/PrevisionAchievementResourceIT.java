@@ -0,0 +1,214 @@
+package com.onea.sidot.gestioneau.web.rest;
+
+import static org.mockito.Mockito.*;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.domain.Annee;
+import com.onea.sidot.gestioneau.domain.Centre;
+import com.onea.sidot.gestioneau.domain.CentreRegroupement;
+import com.onea.sidot.gestioneau.domain.DirectionRegionale;
+import com.onea.sidot.gestioneau.domain.FicheSuiviOuvrage;
+import com.onea.sidot.gestioneau.domain.NatureOuvrage;
+import com.onea.sidot.gestioneau.domain.Prevision;
+import com.onea.sidot.gestioneau.repository.search.CentreSearchRepository;
+import com.onea.sidot.gestioneau.repository.search.FicheSuiviOuvrageSearchRepository;
+import com.onea.sidot.gestioneau.security.AuthoritiesConstants;
+import com.onea.sidot.gestioneau.service.CentreService;
+import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.FicheSuiviOuvrageService;
+import com.onea.sidot.gestioneau.service.dto.FicheSuiviOuvrageDTO;
+import com.onea.sidot.gestioneau.service.mapper.CentreMapper;
+import com.onea.sidot.gestioneau.service.mapper.FicheSuiviOuvrageMapper;
+import com.onea.sidot.gestioneau.service.mapper.PrevisionMapper;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the {@link PrevisionAchievementResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+class PrevisionAchievementResourceIT {
+
+    private static final String ACHIEVEMENT_API_URL = "/api/stats/previsions/{level}/{id}";
+
+    private static final String REBUILD_API_URL = "/api/admin/stats/previsions/rebuild";
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private FicheSuiviOuvrageService ficheSuiviOuvrageService;
+
+    @Autowired
+    private FicheSuiviOuvrageMapper ficheSuiviOuvrageMapper;
+
+    @Autowired
+    private PrevisionMapper previsionMapper;
+
+    @Autowired
+    private CentreService centreService;
+
+    @Autowired
+    private CentreMapper centreMapper;
+
+    /**
+     * This repository is mocked in the com.onea.sidot.gestioneau.repository.search test package.
+     *
+     * @see com.onea.sidot.gestioneau.repository.search.FicheSuiviOuvrageSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private FicheSuiviOuvrageSearchRepository mockFicheSuiviOuvrageSearchRepository;
+
+    /**
+     * This repository is mocked in the com.onea.sidot.gestioneau.repository.search test package.
+     *
+     * @see com.onea.sidot.gestioneau.repository.search.CentreSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private CentreSearchRepository mockCentreSearchRepository;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private DirectionRegionale directionRegionale;
+
+    private CentreRegroupement otherCentreRegroupement;
+
+    private Centre otherCentre;
+
+    private Annee annee;
+
+    private Prevision prevision;
+
+    private Prevision otherPrevision;
+
+    private NatureOuvrage natureOuvrage;
+
+    @BeforeEach
+    void initTest() {
+        deleteEntities();
+        directionRegionale = em.insert(DirectionRegionaleResourceIT.createEntity(em)).block();
+        DirectionRegionale otherDirectionRegionale = em.insert(DirectionRegionaleResourceIT.createEntity(em)).block();
+        CentreRegroupement centreRegroupement = em
+            .insert(CentreRegroupementResourceIT.createEntity(em).directionregionale(directionRegionale))
+            .block();
+        otherCentreRegroupement =
+            em.insert(CentreRegroupementResourceIT.createEntity(em).directionregionale(otherDirectionRegionale)).block();
+        Centre centre = em.insert(CentreResourceIT.createEntity(em).centreregroupement(centreRegroupement)).block();
+        otherCentre = em.insert(CentreResourceIT.createEntity(em).centreregroupement(centreRegroupement)).block();
+        annee = em.insert(AnneeResourceIT.createEntity(em)).block();
+        Annee otherAnnee = em.insert(AnneeResourceIT.createEntity(em)).block();
+        prevision = em.insert(PrevisionResourceIT.createEntity(em).centre(centre).refannee(annee)).block();
+        otherPrevision = em.insert(PrevisionResourceIT.createEntity(em).centre(otherCentre).refannee(otherAnnee)).block();
+        natureOuvrage = em.insert(NatureOuvrageResourceIT.createEntity(em)).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        deleteEntities();
+    }
+
+    private void deleteEntities() {
+        FicheSuiviOuvrageResourceIT.deleteEntities(em);
+        PrevisionResourceIT.deleteEntities(em);
+        CentreResourceIT.deleteEntities(em);
+        CentreRegroupementResourceIT.deleteEntities(em);
+        DirectionRegionaleResourceIT.deleteEntities(em);
+        AnneeResourceIT.deleteEntities(em);
+        NatureOuvrageResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void getPrevisionAchievementFollowsTheWrites() {
+        when(mockFicheSuiviOuvrageSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockFicheSuiviOuvrageSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
+        when(mockCentreSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        webTestClient.post().uri(REBUILD_API_URL).exchange().expectStatus().isOk().expectBody(Long.class).isEqualTo(0L);
+
+        FicheSuiviOuvrageDTO first = save(FicheSuiviOuvrageResourceIT.createEntity(em).prevision(prevision).natureouvrage(natureOuvrage));
+        save(FicheSuiviOuvrageResourceIT.createEntity(em).prevision(prevision).natureouvrage(natureOuvrage));
+        save(FicheSuiviOuvrageResourceIT.createEntity(em).prevision(otherPrevision));
+
+        // 4 targets of 1 per prevision
+        expectAchievement("direction-regionale", directionRegionale.getId(), null, 2, 8, 3)
+            .jsonPath("$.natureOuvrages['" + natureOuvrage.getId() + "']")
+            .isEqualTo(2)
+            .jsonPath("$.categories.LATRINE.target")
+            .isEqualTo(2);
+        expectAchievement("direction-regionale", directionRegionale.getId(), annee.getId(), 1, 4, 2)
+            .jsonPath("$.total.rate")
+            .isEqualTo(0.5);
+        expectAchievement("centre", otherCentre.getId(), null, 1, 4, 1);
+
+        // An update moves the ficheSuiviOuvrage to its new prevision
+        first.setPrevision(previsionMapper.toDto(otherPrevision));
+        ficheSuiviOuvrageService.save(first).block();
+        expectAchievement("prevision", prevision.getId(), null, 1, 4, 1);
+        expectAchievement("prevision", otherPrevision.getId(), null, 1, 4, 2);
+
+        // A delete subtracts it
+        ficheSuiviOuvrageService.delete(first.getId()).block();
+        expectAchievement("prevision", otherPrevision.getId(), null, 1, 4, 1);
+
+        // Moving a centre moves its previsions
+        centreService.save(centreMapper.toDto(otherCentre.centreregroupement(otherCentreRegroupement))).block();
+        expectAchievement("direction-regionale", directionRegionale.getId(), null, 1, 4, 1);
+        expectAchievement("centre-regroupement", otherCentreRegroupement.getId(), null, 1, 4, 1);
+
+        // A rebuild counts the same
+        webTestClient.post().uri(REBUILD_API_URL).exchange().expectStatus().isOk().expectBody(Long.class).isEqualTo(2L);
+        expectAchievement("direction-regionale", directionRegionale.getId(), null, 1, 4, 1);
+    }
+
+    @Test
+    void getPrevisionAchievementWithAnInvalidLevel() {
+        webTestClient.get().uri(ACHIEVEMENT_API_URL, "country", 1).exchange().expectStatus().isBadRequest();
+    }
+
+    private FicheSuiviOuvrageDTO save(FicheSuiviOuvrage ficheSuiviOuvrage) {
+        return ficheSuiviOuvrageService.save(ficheSuiviOuvrageMapper.toDto(ficheSuiviOuvrage)).block();
+    }
+
+    private WebTestClient.BodyContentSpec expectAchievement(
+        String level,
+        Long id,
+        Long refanneeId,
+        int previsions,
+        long target,
+        long realised
+    ) {
+        return webTestClient
+            .get()
+            .uri(
+                uriBuilder ->
+                    uriBuilder
+                        .path(ACHIEVEMENT_API_URL)
+                        .queryParamIfPresent("refanneeId", Optional.ofNullable(refanneeId))
+                        .build(level, id)
+            )
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.previsions")
+            .isEqualTo(previsions)
+            .jsonPath("$.total.target")
+            .isEqualTo((int) target)
+            .jsonPath("$.total.realised")
+            .isEqualTo((int) realised);
+    }
+}
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Prevision;
 import com.onea.sidot.gestioneau.repository.PrevisionRepository;
 import com.onea.sidot.gestioneau.repository.search.PrevisionSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.PrevisionDTO;
 import com.onea.sidot.gestioneau.service.mapper.PrevisionMapper;
 import java.time.Duration;
@@ -135,7 +138,7 @@ class PrevisionResourceIT {
     void createPrevision() throws Exception {
         int databaseSizeBeforeCreate = previsionRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockPrevisionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockPrevisionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Prevision
         PrevisionDTO previsionDTO = previsionMapper.toDto(prevision);
         webTestClient
@@ -157,7 +160,8 @@ class PrevisionResourceIT {
         assertThat(testPrevision.getNbScolaire()).isEqualTo(DEFAULT_NB_SCOLAIRE);
 
         // Validate the Prevision in Elasticsearch
-        verify(mockPrevisionSearchRepository, times(1)).save(testPrevision);
+        verify(mockPrevisionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testPrevision));
     }
 
     @Test
@@ -183,7 +187,7 @@ class PrevisionResourceIT {
         assertThat(previsionList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Prevision in Elasticsearch
-        verify(mockPrevisionSearchRepository, times(0)).save(prevision);
+        verify(mockPrevisionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prevision));
     }
 
     @Test
@@ -345,7 +349,7 @@ class PrevisionResourceIT {
     @Test
     void putNewPrevision() throws Exception {
         // Configure the mock search repository
-        when(mockPrevisionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockPrevisionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         previsionRepository.save(prevision).block();
 
@@ -379,7 +383,8 @@ class PrevisionResourceIT {
         assertThat(testPrevision.getNbScolaire()).isEqualTo(UPDATED_NB_SCOLAIRE);
 
         // Validate the Prevision in Elasticsearch
-        verify(mockPrevisionSearchRepository).save(testPrevision);
+        verify(mockPrevisionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testPrevision));
     }
 
     @Test
@@ -405,7 +410,7 @@ class PrevisionResourceIT {
         assertThat(previsionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prevision in Elasticsearch
-        verify(mockPrevisionSearchRepository, times(0)).save(prevision);
+        verify(mockPrevisionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prevision));
     }
 
     @Test
@@ -431,7 +436,7 @@ class PrevisionResourceIT {
         assertThat(previsionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prevision in Elasticsearch
-        verify(mockPrevisionSearchRepository, times(0)).save(prevision);
+        verify(mockPrevisionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prevision));
     }
 
     @Test
@@ -457,7 +462,7 @@ class PrevisionResourceIT {
         assertThat(previsionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prevision in Elasticsearch
-        verify(mockPrevisionSearchRepository, times(0)).save(prevision);
+        verify(mockPrevisionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prevision));
     }
 
     @Test
@@ -555,7 +560,7 @@ class PrevisionResourceIT {
         assertThat(previsionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prevision in Elasticsearch
-        verify(mockPrevisionSearchRepository, times(0)).save(prevision);
+        verify(mockPrevisionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prevision));
     }
 
     @Test
@@ -581,7 +586,7 @@ class PrevisionResourceIT {
         assertThat(previsionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prevision in Elasticsearch
-        verify(mockPrevisionSearchRepository, times(0)).save(prevision);
+        verify(mockPrevisionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prevision));
     }
 
     @Test
@@ -607,14 +612,14 @@ class PrevisionResourceIT {
         assertThat(previsionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Prevision in Elasticsearch
-        verify(mockPrevisionSearchRepository, times(0)).save(prevision);
+        verify(mockPrevisionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(prevision));
     }
 
     @Test
     void deletePrevision() {
         // Configure the mock search repository
-        when(mockPrevisionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockPrevisionSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockPrevisionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockPrevisionSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         previsionRepository.save(prevision).block();
 
@@ -634,17 +639,19 @@ class PrevisionResourceIT {
         assertThat(previsionList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Prevision in Elasticsearch
-        verify(mockPrevisionSearchRepository, times(1)).deleteById(prevision.getId());
+        verify(mockPrevisionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(prevision));
     }
 
     @Test
     void searchPrevision() {
         // Configure the mock search repository
-        when(mockPrevisionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockPrevisionSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockPrevisionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         previsionRepository.save(prevision).block();
-        when(mockPrevisionSearchRepository.search("id:" + prevision.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(prevision));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockPrevisionSearchRepository.search("id:" + prevision.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(prevision), 1L, true, null)));
 
         // Search the prevision
         webTestClient
@@ -655,6 +662,8 @@ class PrevisionResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(prevision.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Province;
 import com.onea.sidot.gestioneau.repository.ProvinceRepository;
 import com.onea.sidot.gestioneau.repository.search.ProvinceSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.ProvinceDTO;
 import com.onea.sidot.gestioneau.service.mapper.ProvinceMapper;
 import java.time.Duration;
@@ -118,7 +121,7 @@ class ProvinceResourceIT {
     void createProvince() throws Exception {
         int databaseSizeBeforeCreate = provinceRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockProvinceSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockProvinceSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Province
         ProvinceDTO provinceDTO = provinceMapper.toDto(province);
         webTestClient
@@ -137,7 +140,8 @@ class ProvinceResourceIT {
         assertThat(testProvince.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Province in Elasticsearch
-        verify(mockProvinceSearchRepository, times(1)).save(testProvince);
+        verify(mockProvinceSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testProvince));
     }
 
     @Test
@@ -163,7 +167,7 @@ class ProvinceResourceIT {
         assertThat(provinceList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Province in Elasticsearch
-        verify(mockProvinceSearchRepository, times(0)).save(province);
+        verify(mockProvinceSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(province));
     }
 
     @Test
@@ -247,7 +251,7 @@ class ProvinceResourceIT {
     @Test
     void putNewProvince() throws Exception {
         // Configure the mock search repository
-        when(mockProvinceSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockProvinceSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         provinceRepository.save(province).block();
 
@@ -274,7 +278,8 @@ class ProvinceResourceIT {
         assertThat(testProvince.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Province in Elasticsearch
-        verify(mockProvinceSearchRepository).save(testProvince);
+        verify(mockProvinceSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testProvince));
     }
 
     @Test
@@ -300,7 +305,7 @@ class ProvinceResourceIT {
         assertThat(provinceList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Province in Elasticsearch
-        verify(mockProvinceSearchRepository, times(0)).save(province);
+        verify(mockProvinceSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(province));
     }
 
     @Test
@@ -326,7 +331,7 @@ class ProvinceResourceIT {
         assertThat(provinceList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Province in Elasticsearch
-        verify(mockProvinceSearchRepository, times(0)).save(province);
+        verify(mockProvinceSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(province));
     }
 
     @Test
@@ -352,7 +357,7 @@ class ProvinceResourceIT {
         assertThat(provinceList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Province in Elasticsearch
-        verify(mockProvinceSearchRepository, times(0)).save(province);
+        verify(mockProvinceSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(province));
     }
 
     @Test
@@ -436,7 +441,7 @@ class ProvinceResourceIT {
         assertThat(provinceList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Province in Elasticsearch
-        verify(mockProvinceSearchRepository, times(0)).save(province);
+        verify(mockProvinceSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(province));
     }
 
     @Test
@@ -462,7 +467,7 @@ class ProvinceResourceIT {
         assertThat(provinceList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Province in Elasticsearch
-        verify(mockProvinceSearchRepository, times(0)).save(province);
+        verify(mockProvinceSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(province));
     }
 
     @Test
@@ -488,14 +493,14 @@ class ProvinceResourceIT {
         assertThat(provinceList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Province in Elasticsearch
-        verify(mockProvinceSearchRepository, times(0)).save(province);
+        verify(mockProvinceSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(province));
     }
 
     @Test
     void deleteProvince() {
         // Configure the mock search repository
-        when(mockProvinceSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockProvinceSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockProvinceSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockProvinceSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         provinceRepository.save(province).block();
 
@@ -515,17 +520,18 @@ class ProvinceResourceIT {
         assertThat(provinceList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Province in Elasticsearch
-        verify(mockProvinceSearchRepository, times(1)).deleteById(province.getId());
+        verify(mockProvinceSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(province));
     }
 
     @Test
     void searchProvince() {
         // Configure the mock search repository
-        when(mockProvinceSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockProvinceSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockProvinceSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         provinceRepository.save(province).block();
-        when(mockProvinceSearchRepository.search("id:" + province.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(province));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockProvinceSearchRepository.search("id:" + province.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(province), 1L, true, null)));
 
         // Search the province
         webTestClient
@@ -536,6 +542,8 @@ class ProvinceResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(province.getId().intValue()))
@@ -3,15 +3,20 @@ package com.onea.sidot.gestioneau.web.rest;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 
 import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Region;
 import com.onea.sidot.gestioneau.repository.RegionRepository;
 import com.onea.sidot.gestioneau.repository.search.RegionSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.RegionDTO;
 import com.onea.sidot.gestioneau.service.mapper.RegionMapper;
+import com.onea.sidot.gestioneau.web.rest.util.CountModeUtil;
 import java.time.Duration;
 import java.util.List;
 import java.util.Random;
@@ -26,6 +31,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -118,7 +124,7 @@ class RegionResourceIT {
     void createRegion() throws Exception {
         int databaseSizeBeforeCreate = regionRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockRegionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockRegionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Region
         RegionDTO regionDTO = regionMapper.toDto(region);
         webTestClient
@@ -137,7 +143,7 @@ class RegionResourceIT {
         assertThat(testRegion.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(1)).save(testRegion);
+        verify(mockRegionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testRegion));
     }
 
     @Test
@@ -163,7 +169,7 @@ class RegionResourceIT {
         assertThat(regionList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(0)).save(region);
+        verify(mockRegionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(region));
     }
 
     @Test
@@ -232,6 +238,142 @@ class RegionResourceIT {
             .value(is(DEFAULT_LIBELLE));
     }
 
+    @Test
+    void getRegionFields() {
+        // Initialize the database
+        regionRepository.save(region).block();
+
+        // Get only the id of the region
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "?fields=id", region.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.id")
+            .value(is(region.getId().intValue()))
+            .jsonPath("$.libelle")
+            .doesNotExist();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc&fields=libelle")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].libelle")
+            .value(hasItem(DEFAULT_LIBELLE));
+
+        webTestClient.get().uri(ENTITY_API_URL + "?fields=unknown").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getRegionConditionally() throws Exception {
+        // Configure the mock search repository
+        when(mockRegionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        // Initialize the database
+        regionRepository.save(region).block();
+
+        String eTag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, region.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .exists(HttpHeaders.ETAG)
+            .expectBody()
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+
+        // An unchanged region isn't sent again
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, region.getId())
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ETAG, eTag)
+            .expectBody()
+            .isEmpty();
+
+        // An update changes the ETag
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, region.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(regionMapper.toDto(region.libelle(UPDATED_LIBELLE))))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, region.getId())
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .value(HttpHeaders.ETAG, value -> assertThat(value).isNotEqualTo(eTag))
+            .expectBody()
+            .jsonPath("$.libelle")
+            .value(is(UPDATED_LIBELLE));
+    }
+
+    @Test
+    void getAllRegionsConditionally() {
+        // Configure the mock search repository
+        when(mockRegionSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
+        // Initialize the database
+        regionRepository.save(region).block();
+
+        String eTag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isNotNull();
+
+        webTestClient.get().uri(ENTITY_API_URL + "?sort=id,desc").ifNoneMatch(eTag).exchange().expectStatus().isNotModified();
+
+        // The total depends on the count mode
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .header(CountModeUtil.HEADER_COUNT_MODE, "approximate")
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        // A delete changes the ETag
+        webTestClient.delete().uri(ENTITY_API_URL_ID, region.getId()).exchange().expectStatus().isNoContent();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(not(hasItem(region.getId().intValue())));
+    }
+
     @Test
     void getNonExistingRegion() {
         // Get the region
@@ -247,7 +389,7 @@ class RegionResourceIT {
     @Test
     void putNewRegion() throws Exception {
         // Configure the mock search repository
-        when(mockRegionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockRegionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         regionRepository.save(region).block();
 
@@ -274,7 +416,7 @@ class RegionResourceIT {
         assertThat(testRegion.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository).save(testRegion);
+        verify(mockRegionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testRegion));
     }
 
     @Test
@@ -300,7 +442,7 @@ class RegionResourceIT {
         assertThat(regionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(0)).save(region);
+        verify(mockRegionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(region));
     }
 
     @Test
@@ -326,7 +468,7 @@ class RegionResourceIT {
         assertThat(regionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(0)).save(region);
+        verify(mockRegionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(region));
     }
 
     @Test
@@ -352,7 +494,7 @@ class RegionResourceIT {
         assertThat(regionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(0)).save(region);
+        verify(mockRegionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(region));
     }
 
     @Test
@@ -434,7 +576,7 @@ class RegionResourceIT {
         assertThat(regionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(0)).save(region);
+        verify(mockRegionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(region));
     }
 
     @Test
@@ -460,7 +602,7 @@ class RegionResourceIT {
         assertThat(regionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(0)).save(region);
+        verify(mockRegionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(region));
     }
 
     @Test
@@ -486,14 +628,14 @@ class RegionResourceIT {
         assertThat(regionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(0)).save(region);
+        verify(mockRegionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(region));
     }
 
     @Test
     void deleteRegion() {
         // Configure the mock search repository
-        when(mockRegionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockRegionSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockRegionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockRegionSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         regionRepository.save(region).block();
 
@@ -513,17 +655,18 @@ class RegionResourceIT {
         assertThat(regionList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Region in Elasticsearch
-        verify(mockRegionSearchRepository, times(1)).deleteById(region.getId());
+        verify(mockRegionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(region));
     }
 
     @Test
     void searchRegion() {
         // Configure the mock search repository
-        when(mockRegionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockRegionSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockRegionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         regionRepository.save(region).block();
-        when(mockRegionSearchRepository.search("id:" + region.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(region));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockRegionSearchRepository.search("id:" + region.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(region), 1L, true, null)));
 
         // Search the region
         webTestClient
@@ -534,6 +677,8 @@ class RegionResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(region.getId().intValue()))
@@ -0,0 +1,59 @@
+package com.onea.sidot.gestioneau.web.rest;
+
+import com.onea.sidot.gestioneau.IntegrationTest;
+import com.onea.sidot.gestioneau.security.AuthoritiesConstants;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Integration tests for the {@link SearchReindexResource} REST controller.
+ * <p>
+ * The rebuilds themselves need Elasticsearch, which doesn't run with the tests.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+class SearchReindexResourceIT {
+
+    private static final String REINDEX_API_URL = "/api/admin/search/reindex";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void reindexUnknownEntity() {
+        webTestClient
+            .post()
+            .uri(REINDEX_API_URL + "?entity=ficheSuiviOuvrage&entity=unknown")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void getReindexJobs() {
+        webTestClient
+            .get()
+            .uri(REINDEX_API_URL)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .jsonPath("$")
+            .isArray();
+    }
+
+    @Test
+    @WithMockUser
+    void reindexIsForbiddenToUsers() {
+        webTestClient.post().uri(REINDEX_API_URL).accept(MediaType.APPLICATION_JSON).exchange().expectStatus().isForbidden();
+    }
+}
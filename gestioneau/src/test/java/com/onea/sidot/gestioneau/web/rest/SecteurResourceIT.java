@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Secteur;
 import com.onea.sidot.gestioneau.repository.SecteurRepository;
 import com.onea.sidot.gestioneau.repository.search.SecteurSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.SecteurDTO;
 import com.onea.sidot.gestioneau.service.mapper.SecteurMapper;
 import java.time.Duration;
@@ -118,7 +121,7 @@ class SecteurResourceIT {
     void createSecteur() throws Exception {
         int databaseSizeBeforeCreate = secteurRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockSecteurSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockSecteurSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Secteur
         SecteurDTO secteurDTO = secteurMapper.toDto(secteur);
         webTestClient
@@ -137,7 +140,7 @@ class SecteurResourceIT {
         assertThat(testSecteur.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Secteur in Elasticsearch
-        verify(mockSecteurSearchRepository, times(1)).save(testSecteur);
+        verify(mockSecteurSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testSecteur));
     }
 
     @Test
@@ -163,7 +166,7 @@ class SecteurResourceIT {
         assertThat(secteurList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Secteur in Elasticsearch
-        verify(mockSecteurSearchRepository, times(0)).save(secteur);
+        verify(mockSecteurSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(secteur));
     }
 
     @Test
@@ -247,7 +250,7 @@ class SecteurResourceIT {
     @Test
     void putNewSecteur() throws Exception {
         // Configure the mock search repository
-        when(mockSecteurSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockSecteurSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         secteurRepository.save(secteur).block();
 
@@ -274,7 +277,7 @@ class SecteurResourceIT {
         assertThat(testSecteur.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Secteur in Elasticsearch
-        verify(mockSecteurSearchRepository).save(testSecteur);
+        verify(mockSecteurSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testSecteur));
     }
 
     @Test
@@ -300,7 +303,7 @@ class SecteurResourceIT {
         assertThat(secteurList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Secteur in Elasticsearch
-        verify(mockSecteurSearchRepository, times(0)).save(secteur);
+        verify(mockSecteurSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(secteur));
     }
 
     @Test
@@ -326,7 +329,7 @@ class SecteurResourceIT {
         assertThat(secteurList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Secteur in Elasticsearch
-        verify(mockSecteurSearchRepository, times(0)).save(secteur);
+        verify(mockSecteurSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(secteur));
     }
 
     @Test
@@ -352,7 +355,7 @@ class SecteurResourceIT {
         assertThat(secteurList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Secteur in Elasticsearch
-        verify(mockSecteurSearchRepository, times(0)).save(secteur);
+        verify(mockSecteurSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(secteur));
     }
 
     @Test
@@ -434,7 +437,7 @@ class SecteurResourceIT {
         assertThat(secteurList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Secteur in Elasticsearch
-        verify(mockSecteurSearchRepository, times(0)).save(secteur);
+        verify(mockSecteurSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(secteur));
     }
 
     @Test
@@ -460,7 +463,7 @@ class SecteurResourceIT {
         assertThat(secteurList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Secteur in Elasticsearch
-        verify(mockSecteurSearchRepository, times(0)).save(secteur);
+        verify(mockSecteurSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(secteur));
     }
 
     @Test
@@ -486,14 +489,14 @@ class SecteurResourceIT {
         assertThat(secteurList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Secteur in Elasticsearch
-        verify(mockSecteurSearchRepository, times(0)).save(secteur);
+        verify(mockSecteurSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(secteur));
     }
 
     @Test
     void deleteSecteur() {
         // Configure the mock search repository
-        when(mockSecteurSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockSecteurSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockSecteurSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockSecteurSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         secteurRepository.save(secteur).block();
 
@@ -513,17 +516,18 @@ class SecteurResourceIT {
         assertThat(secteurList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Secteur in Elasticsearch
-        verify(mockSecteurSearchRepository, times(1)).deleteById(secteur.getId());
+        verify(mockSecteurSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(secteur));
     }
 
     @Test
     void searchSecteur() {
         // Configure the mock search repository
-        when(mockSecteurSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockSecteurSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockSecteurSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         secteurRepository.save(secteur).block();
-        when(mockSecteurSearchRepository.search("id:" + secteur.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(secteur));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockSecteurSearchRepository.search("id:" + secteur.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(secteur), 1L, true, null)));
 
         // Search the secteur
         webTestClient
@@ -534,6 +538,8 @@ class SecteurResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(secteur.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.Section;
 import com.onea.sidot.gestioneau.repository.SectionRepository;
 import com.onea.sidot.gestioneau.repository.search.SectionSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.SectionDTO;
 import com.onea.sidot.gestioneau.service.mapper.SectionMapper;
 import java.time.Duration;
@@ -118,7 +121,7 @@ class SectionResourceIT {
     void createSection() throws Exception {
         int databaseSizeBeforeCreate = sectionRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockSectionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockSectionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the Section
         SectionDTO sectionDTO = sectionMapper.toDto(section);
         webTestClient
@@ -137,7 +140,7 @@ class SectionResourceIT {
         assertThat(testSection.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the Section in Elasticsearch
-        verify(mockSectionSearchRepository, times(1)).save(testSection);
+        verify(mockSectionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testSection));
     }
 
     @Test
@@ -163,7 +166,7 @@ class SectionResourceIT {
         assertThat(sectionList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the Section in Elasticsearch
-        verify(mockSectionSearchRepository, times(0)).save(section);
+        verify(mockSectionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(section));
     }
 
     @Test
@@ -247,7 +250,7 @@ class SectionResourceIT {
     @Test
     void putNewSection() throws Exception {
         // Configure the mock search repository
-        when(mockSectionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockSectionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         sectionRepository.save(section).block();
 
@@ -274,7 +277,7 @@ class SectionResourceIT {
         assertThat(testSection.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the Section in Elasticsearch
-        verify(mockSectionSearchRepository).save(testSection);
+        verify(mockSectionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).saveAll(TestUtil.anyIterableContaining(testSection));
     }
 
     @Test
@@ -300,7 +303,7 @@ class SectionResourceIT {
         assertThat(sectionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Section in Elasticsearch
-        verify(mockSectionSearchRepository, times(0)).save(section);
+        verify(mockSectionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(section));
     }
 
     @Test
@@ -326,7 +329,7 @@ class SectionResourceIT {
         assertThat(sectionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Section in Elasticsearch
-        verify(mockSectionSearchRepository, times(0)).save(section);
+        verify(mockSectionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(section));
     }
 
     @Test
@@ -352,7 +355,7 @@ class SectionResourceIT {
         assertThat(sectionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Section in Elasticsearch
-        verify(mockSectionSearchRepository, times(0)).save(section);
+        verify(mockSectionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(section));
     }
 
     @Test
@@ -436,7 +439,7 @@ class SectionResourceIT {
         assertThat(sectionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Section in Elasticsearch
-        verify(mockSectionSearchRepository, times(0)).save(section);
+        verify(mockSectionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(section));
     }
 
     @Test
@@ -462,7 +465,7 @@ class SectionResourceIT {
         assertThat(sectionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Section in Elasticsearch
-        verify(mockSectionSearchRepository, times(0)).save(section);
+        verify(mockSectionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(section));
     }
 
     @Test
@@ -488,14 +491,14 @@ class SectionResourceIT {
         assertThat(sectionList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the Section in Elasticsearch
-        verify(mockSectionSearchRepository, times(0)).save(section);
+        verify(mockSectionSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(section));
     }
 
     @Test
     void deleteSection() {
         // Configure the mock search repository
-        when(mockSectionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockSectionSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockSectionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockSectionSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         sectionRepository.save(section).block();
 
@@ -515,17 +518,18 @@ class SectionResourceIT {
         assertThat(sectionList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the Section in Elasticsearch
-        verify(mockSectionSearchRepository, times(1)).deleteById(section.getId());
+        verify(mockSectionSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT)).deleteAll(TestUtil.anyIterableContaining(section));
     }
 
     @Test
     void searchSection() {
         // Configure the mock search repository
-        when(mockSectionSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockSectionSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockSectionSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         sectionRepository.save(section).block();
-        when(mockSectionSearchRepository.search("id:" + section.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(section));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockSectionSearchRepository.search("id:" + section.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(section), 1L, true, null)));
 
         // Search the section
         webTestClient
@@ -536,6 +540,8 @@ class SectionResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(section.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.SourceApprovEp;
 import com.onea.sidot.gestioneau.repository.SourceApprovEpRepository;
 import com.onea.sidot.gestioneau.repository.search.SourceApprovEpSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.SourceApprovEpDTO;
 import com.onea.sidot.gestioneau.service.mapper.SourceApprovEpMapper;
 import java.time.Duration;
@@ -118,7 +121,8 @@ class SourceApprovEpResourceIT {
     void createSourceApprovEp() throws Exception {
         int databaseSizeBeforeCreate = sourceApprovEpRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockSourceApprovEpSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockSourceApprovEpSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the SourceApprovEp
         SourceApprovEpDTO sourceApprovEpDTO = sourceApprovEpMapper.toDto(sourceApprovEp);
         webTestClient
@@ -137,7 +141,8 @@ class SourceApprovEpResourceIT {
         assertThat(testSourceApprovEp.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the SourceApprovEp in Elasticsearch
-        verify(mockSourceApprovEpSearchRepository, times(1)).save(testSourceApprovEp);
+        verify(mockSourceApprovEpSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testSourceApprovEp));
     }
 
     @Test
@@ -163,7 +168,7 @@ class SourceApprovEpResourceIT {
         assertThat(sourceApprovEpList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the SourceApprovEp in Elasticsearch
-        verify(mockSourceApprovEpSearchRepository, times(0)).save(sourceApprovEp);
+        verify(mockSourceApprovEpSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(sourceApprovEp));
     }
 
     @Test
@@ -247,7 +252,8 @@ class SourceApprovEpResourceIT {
     @Test
     void putNewSourceApprovEp() throws Exception {
         // Configure the mock search repository
-        when(mockSourceApprovEpSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockSourceApprovEpSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         sourceApprovEpRepository.save(sourceApprovEp).block();
 
@@ -274,7 +280,8 @@ class SourceApprovEpResourceIT {
         assertThat(testSourceApprovEp.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the SourceApprovEp in Elasticsearch
-        verify(mockSourceApprovEpSearchRepository).save(testSourceApprovEp);
+        verify(mockSourceApprovEpSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testSourceApprovEp));
     }
 
     @Test
@@ -300,7 +307,7 @@ class SourceApprovEpResourceIT {
         assertThat(sourceApprovEpList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the SourceApprovEp in Elasticsearch
-        verify(mockSourceApprovEpSearchRepository, times(0)).save(sourceApprovEp);
+        verify(mockSourceApprovEpSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(sourceApprovEp));
     }
 
     @Test
@@ -326,7 +333,7 @@ class SourceApprovEpResourceIT {
         assertThat(sourceApprovEpList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the SourceApprovEp in Elasticsearch
-        verify(mockSourceApprovEpSearchRepository, times(0)).save(sourceApprovEp);
+        verify(mockSourceApprovEpSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(sourceApprovEp));
     }
 
     @Test
@@ -352,7 +359,7 @@ class SourceApprovEpResourceIT {
         assertThat(sourceApprovEpList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the SourceApprovEp in Elasticsearch
-        verify(mockSourceApprovEpSearchRepository, times(0)).save(sourceApprovEp);
+        verify(mockSourceApprovEpSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(sourceApprovEp));
     }
 
     @Test
@@ -434,7 +441,7 @@ class SourceApprovEpResourceIT {
         assertThat(sourceApprovEpList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the SourceApprovEp in Elasticsearch
-        verify(mockSourceApprovEpSearchRepository, times(0)).save(sourceApprovEp);
+        verify(mockSourceApprovEpSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(sourceApprovEp));
     }
 
     @Test
@@ -460,7 +467,7 @@ class SourceApprovEpResourceIT {
         assertThat(sourceApprovEpList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the SourceApprovEp in Elasticsearch
-        verify(mockSourceApprovEpSearchRepository, times(0)).save(sourceApprovEp);
+        verify(mockSourceApprovEpSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(sourceApprovEp));
     }
 
     @Test
@@ -486,14 +493,15 @@ class SourceApprovEpResourceIT {
         assertThat(sourceApprovEpList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the SourceApprovEp in Elasticsearch
-        verify(mockSourceApprovEpSearchRepository, times(0)).save(sourceApprovEp);
+        verify(mockSourceApprovEpSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(sourceApprovEp));
     }
 
     @Test
     void deleteSourceApprovEp() {
         // Configure the mock search repository
-        when(mockSourceApprovEpSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockSourceApprovEpSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockSourceApprovEpSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockSourceApprovEpSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         sourceApprovEpRepository.save(sourceApprovEp).block();
 
@@ -513,18 +521,20 @@ class SourceApprovEpResourceIT {
         assertThat(sourceApprovEpList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the SourceApprovEp in Elasticsearch
-        verify(mockSourceApprovEpSearchRepository, times(1)).deleteById(sourceApprovEp.getId());
+        verify(mockSourceApprovEpSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(sourceApprovEp));
     }
 
     @Test
     void searchSourceApprovEp() {
         // Configure the mock search repository
-        when(mockSourceApprovEpSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockSourceApprovEpSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockSourceApprovEpSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         sourceApprovEpRepository.save(sourceApprovEp).block();
-        when(mockSourceApprovEpSearchRepository.search("id:" + sourceApprovEp.getId(), PageRequest.of(0, 20)))
-            .thenReturn(Flux.just(sourceApprovEp));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockSourceApprovEpSearchRepository.search("id:" + sourceApprovEp.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(sourceApprovEp), 1L, true, null)));
 
         // Search the sourceApprovEp
         webTestClient
@@ -535,6 +545,8 @@ class SourceApprovEpResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(sourceApprovEp.getId().intValue()))
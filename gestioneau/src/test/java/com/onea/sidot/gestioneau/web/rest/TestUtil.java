@@ -10,6 +10,8 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
@@ -19,12 +21,18 @@ import javax.persistence.criteria.Root;
 import org.hamcrest.Description;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
 import org.hamcrest.TypeSafeMatcher;
+import org.mockito.ArgumentMatchers;
 
 /**
  * Utility class for testing REST controllers.
  */
 public final class TestUtil {
 
+    /**
+     * Time given to the search outbox to index a change in the mock search repositories, in milliseconds.
+     */
+    public static final long SEARCH_INDEXING_TIMEOUT = 5000;
+
     private static final ObjectMapper mapper = createObjectMapper();
 
     private static ObjectMapper createObjectMapper() {
@@ -187,5 +195,25 @@ public final class TestUtil {
         return allQuery.getResultList();
     }
 
+    /**
+     * Matches the iterables which contain all the given elements, such as the entities of an Elasticsearch bulk request.
+     * @param <T> The type of the elements
+     * @param elements The expected elements
+     * @return null, as the matcher is registered by Mockito
+     */
+    @SafeVarargs
+    public static <T> Iterable<T> anyIterableContaining(T... elements) {
+        return ArgumentMatchers.argThat(
+            iterable -> {
+                if (iterable == null) {
+                    return false;
+                }
+                List<T> actual = new ArrayList<>();
+                iterable.forEach(actual::add);
+                return actual.containsAll(Arrays.asList(elements));
+            }
+        );
+    }
+
     private TestUtil() {}
 }
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.TypeCommune;
 import com.onea.sidot.gestioneau.repository.TypeCommuneRepository;
 import com.onea.sidot.gestioneau.repository.search.TypeCommuneSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.TypeCommuneDTO;
 import com.onea.sidot.gestioneau.service.mapper.TypeCommuneMapper;
 import java.time.Duration;
@@ -118,7 +121,7 @@ class TypeCommuneResourceIT {
     void createTypeCommune() throws Exception {
         int databaseSizeBeforeCreate = typeCommuneRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockTypeCommuneSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockTypeCommuneSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the TypeCommune
         TypeCommuneDTO typeCommuneDTO = typeCommuneMapper.toDto(typeCommune);
         webTestClient
@@ -137,7 +140,8 @@ class TypeCommuneResourceIT {
         assertThat(testTypeCommune.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the TypeCommune in Elasticsearch
-        verify(mockTypeCommuneSearchRepository, times(1)).save(testTypeCommune);
+        verify(mockTypeCommuneSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testTypeCommune));
     }
 
     @Test
@@ -163,7 +167,7 @@ class TypeCommuneResourceIT {
         assertThat(typeCommuneList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the TypeCommune in Elasticsearch
-        verify(mockTypeCommuneSearchRepository, times(0)).save(typeCommune);
+        verify(mockTypeCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeCommune));
     }
 
     @Test
@@ -247,7 +251,7 @@ class TypeCommuneResourceIT {
     @Test
     void putNewTypeCommune() throws Exception {
         // Configure the mock search repository
-        when(mockTypeCommuneSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockTypeCommuneSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         typeCommuneRepository.save(typeCommune).block();
 
@@ -274,7 +278,8 @@ class TypeCommuneResourceIT {
         assertThat(testTypeCommune.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the TypeCommune in Elasticsearch
-        verify(mockTypeCommuneSearchRepository).save(testTypeCommune);
+        verify(mockTypeCommuneSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testTypeCommune));
     }
 
     @Test
@@ -300,7 +305,7 @@ class TypeCommuneResourceIT {
         assertThat(typeCommuneList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeCommune in Elasticsearch
-        verify(mockTypeCommuneSearchRepository, times(0)).save(typeCommune);
+        verify(mockTypeCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeCommune));
     }
 
     @Test
@@ -326,7 +331,7 @@ class TypeCommuneResourceIT {
         assertThat(typeCommuneList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeCommune in Elasticsearch
-        verify(mockTypeCommuneSearchRepository, times(0)).save(typeCommune);
+        verify(mockTypeCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeCommune));
     }
 
     @Test
@@ -352,7 +357,7 @@ class TypeCommuneResourceIT {
         assertThat(typeCommuneList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeCommune in Elasticsearch
-        verify(mockTypeCommuneSearchRepository, times(0)).save(typeCommune);
+        verify(mockTypeCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeCommune));
     }
 
     @Test
@@ -434,7 +439,7 @@ class TypeCommuneResourceIT {
         assertThat(typeCommuneList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeCommune in Elasticsearch
-        verify(mockTypeCommuneSearchRepository, times(0)).save(typeCommune);
+        verify(mockTypeCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeCommune));
     }
 
     @Test
@@ -460,7 +465,7 @@ class TypeCommuneResourceIT {
         assertThat(typeCommuneList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeCommune in Elasticsearch
-        verify(mockTypeCommuneSearchRepository, times(0)).save(typeCommune);
+        verify(mockTypeCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeCommune));
     }
 
     @Test
@@ -486,14 +491,14 @@ class TypeCommuneResourceIT {
         assertThat(typeCommuneList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeCommune in Elasticsearch
-        verify(mockTypeCommuneSearchRepository, times(0)).save(typeCommune);
+        verify(mockTypeCommuneSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeCommune));
     }
 
     @Test
     void deleteTypeCommune() {
         // Configure the mock search repository
-        when(mockTypeCommuneSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockTypeCommuneSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockTypeCommuneSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockTypeCommuneSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         typeCommuneRepository.save(typeCommune).block();
 
@@ -513,17 +518,19 @@ class TypeCommuneResourceIT {
         assertThat(typeCommuneList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the TypeCommune in Elasticsearch
-        verify(mockTypeCommuneSearchRepository, times(1)).deleteById(typeCommune.getId());
+        verify(mockTypeCommuneSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(typeCommune));
     }
 
     @Test
     void searchTypeCommune() {
         // Configure the mock search repository
-        when(mockTypeCommuneSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockTypeCommuneSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockTypeCommuneSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         typeCommuneRepository.save(typeCommune).block();
-        when(mockTypeCommuneSearchRepository.search("id:" + typeCommune.getId(), PageRequest.of(0, 20))).thenReturn(Flux.just(typeCommune));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockTypeCommuneSearchRepository.search("id:" + typeCommune.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(typeCommune), 1L, true, null)));
 
         // Search the typeCommune
         webTestClient
@@ -534,6 +541,8 @@ class TypeCommuneResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(typeCommune.getId().intValue()))
@@ -9,7 +9,10 @@ import com.onea.sidot.gestioneau.IntegrationTest;
 import com.onea.sidot.gestioneau.domain.TypeHabitation;
 import com.onea.sidot.gestioneau.repository.TypeHabitationRepository;
 import com.onea.sidot.gestioneau.repository.search.TypeHabitationSearchRepository;
+import com.onea.sidot.gestioneau.service.CountMode;
 import com.onea.sidot.gestioneau.service.EntityManager;
+import com.onea.sidot.gestioneau.service.SearchPageable;
+import com.onea.sidot.gestioneau.service.SearchResults;
 import com.onea.sidot.gestioneau.service.dto.TypeHabitationDTO;
 import com.onea.sidot.gestioneau.service.mapper.TypeHabitationMapper;
 import java.time.Duration;
@@ -118,7 +121,8 @@ class TypeHabitationResourceIT {
     void createTypeHabitation() throws Exception {
         int databaseSizeBeforeCreate = typeHabitationRepository.findAll().collectList().block().size();
         // Configure the mock search repository
-        when(mockTypeHabitationSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockTypeHabitationSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Create the TypeHabitation
         TypeHabitationDTO typeHabitationDTO = typeHabitationMapper.toDto(typeHabitation);
         webTestClient
@@ -137,7 +141,8 @@ class TypeHabitationResourceIT {
         assertThat(testTypeHabitation.getLibelle()).isEqualTo(DEFAULT_LIBELLE);
 
         // Validate the TypeHabitation in Elasticsearch
-        verify(mockTypeHabitationSearchRepository, times(1)).save(testTypeHabitation);
+        verify(mockTypeHabitationSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testTypeHabitation));
     }
 
     @Test
@@ -163,7 +168,7 @@ class TypeHabitationResourceIT {
         assertThat(typeHabitationList).hasSize(databaseSizeBeforeCreate);
 
         // Validate the TypeHabitation in Elasticsearch
-        verify(mockTypeHabitationSearchRepository, times(0)).save(typeHabitation);
+        verify(mockTypeHabitationSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeHabitation));
     }
 
     @Test
@@ -247,7 +252,8 @@ class TypeHabitationResourceIT {
     @Test
     void putNewTypeHabitation() throws Exception {
         // Configure the mock search repository
-        when(mockTypeHabitationSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mockTypeHabitationSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         typeHabitationRepository.save(typeHabitation).block();
 
@@ -274,7 +280,8 @@ class TypeHabitationResourceIT {
         assertThat(testTypeHabitation.getLibelle()).isEqualTo(UPDATED_LIBELLE);
 
         // Validate the TypeHabitation in Elasticsearch
-        verify(mockTypeHabitationSearchRepository).save(testTypeHabitation);
+        verify(mockTypeHabitationSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .saveAll(TestUtil.anyIterableContaining(testTypeHabitation));
     }
 
     @Test
@@ -300,7 +307,7 @@ class TypeHabitationResourceIT {
         assertThat(typeHabitationList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeHabitation in Elasticsearch
-        verify(mockTypeHabitationSearchRepository, times(0)).save(typeHabitation);
+        verify(mockTypeHabitationSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeHabitation));
     }
 
     @Test
@@ -326,7 +333,7 @@ class TypeHabitationResourceIT {
         assertThat(typeHabitationList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeHabitation in Elasticsearch
-        verify(mockTypeHabitationSearchRepository, times(0)).save(typeHabitation);
+        verify(mockTypeHabitationSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeHabitation));
     }
 
     @Test
@@ -352,7 +359,7 @@ class TypeHabitationResourceIT {
         assertThat(typeHabitationList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeHabitation in Elasticsearch
-        verify(mockTypeHabitationSearchRepository, times(0)).save(typeHabitation);
+        verify(mockTypeHabitationSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeHabitation));
     }
 
     @Test
@@ -436,7 +443,7 @@ class TypeHabitationResourceIT {
         assertThat(typeHabitationList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeHabitation in Elasticsearch
-        verify(mockTypeHabitationSearchRepository, times(0)).save(typeHabitation);
+        verify(mockTypeHabitationSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeHabitation));
     }
 
     @Test
@@ -462,7 +469,7 @@ class TypeHabitationResourceIT {
         assertThat(typeHabitationList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeHabitation in Elasticsearch
-        verify(mockTypeHabitationSearchRepository, times(0)).save(typeHabitation);
+        verify(mockTypeHabitationSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeHabitation));
     }
 
     @Test
@@ -488,14 +495,15 @@ class TypeHabitationResourceIT {
         assertThat(typeHabitationList).hasSize(databaseSizeBeforeUpdate);
 
         // Validate the TypeHabitation in Elasticsearch
-        verify(mockTypeHabitationSearchRepository, times(0)).save(typeHabitation);
+        verify(mockTypeHabitationSearchRepository, times(0)).saveAll(TestUtil.anyIterableContaining(typeHabitation));
     }
 
     @Test
     void deleteTypeHabitation() {
         // Configure the mock search repository
-        when(mockTypeHabitationSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockTypeHabitationSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+        when(mockTypeHabitationSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockTypeHabitationSearchRepository.deleteAll(anyIterable())).thenReturn(Mono.empty());
         // Initialize the database
         typeHabitationRepository.save(typeHabitation).block();
 
@@ -515,18 +523,20 @@ class TypeHabitationResourceIT {
         assertThat(typeHabitationList).hasSize(databaseSizeBeforeDelete - 1);
 
         // Validate the TypeHabitation in Elasticsearch
-        verify(mockTypeHabitationSearchRepository, times(1)).deleteById(typeHabitation.getId());
+        verify(mockTypeHabitationSearchRepository, timeout(TestUtil.SEARCH_INDEXING_TIMEOUT))
+            .deleteAll(TestUtil.anyIterableContaining(typeHabitation));
     }
 
     @Test
     void searchTypeHabitation() {
         // Configure the mock search repository
-        when(mockTypeHabitationSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
-        when(mockTypeHabitationSearchRepository.count()).thenReturn(Mono.just(1L));
+        when(mockTypeHabitationSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
         // Initialize the database
         typeHabitationRepository.save(typeHabitation).block();
-        when(mockTypeHabitationSearchRepository.search("id:" + typeHabitation.getId(), PageRequest.of(0, 20)))
-            .thenReturn(Flux.just(typeHabitation));
+        SearchPageable pageable = SearchPageable.of(PageRequest.of(0, 20), CountMode.EXACT);
+        when(mockTypeHabitationSearchRepository.search("id:" + typeHabitation.getId(), pageable))
+            .thenReturn(Mono.just(SearchResults.of(List.of(typeHabitation), 1L, true, null)));
 
         // Search the typeHabitation
         webTestClient
@@ -537,6 +547,8 @@ class TypeHabitationResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(typeHabitation.getId().intValue()))